@@ -3,7 +3,7 @@ import { Button } from "@/components/ui/button"
 import { Input } from "@/components/ui/input"
 import { useAuth } from "@/features/auth/authContext"
 import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query"
-import { getUserIdByEmail, getNotificationsByUserId, markNotificationAsRead } from "@/features/auth/api"
+import { getUserIdByEmail, getNotificationsByUserId, markNotificationAsRead, markAllNotificationsAsRead } from "@/features/auth/api"
 import { Loader2, CheckCircle, Bell, MailOpen, Clock, Search } from "lucide-react"
 import { toast, ToastContainer } from "react-toastify"
 import "react-toastify/dist/ReactToastify.css"
@@ -48,7 +48,7 @@ export default function Inbox() {
 
   // Mark all as read mutation
   const markAllAsReadMutation = useMutation({
-    mutationFn: () => Promise.all(notifications.filter((n: { read: any }) => !n.read).map((n: { id: number }) => markNotificationAsRead(n.id))),
+    mutationFn: () => markAllNotificationsAsRead(),
     onSuccess: () => {
       queryClient.invalidateQueries({ queryKey: ["notifications", userId] })
       toast.success("All notifications marked as read")
@@ -25,3 +25,8 @@ export async function markNotificationAsRead(notificationId: number) {
   const res = await axios.put(`${apiUrl}/notifications/read/${notificationId}`, {}, { headers: getAuthHeaders() });
   return res.data;
 }
+
+export async function markAllNotificationsAsRead() {
+  const res = await axios.put(`${apiUrl}/notifications/read-all`, {}, { headers: getAuthHeaders() });
+  return res.data;
+}
@@ -0,0 +1,96 @@
+package com.samsic.gestion_bc.config;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.Locale;
+
+// Base of the versioned migrations written in Java, next to the SQL ones of db/migration: Spring Boot hands every
+// JavaMigration bean to Flyway. They run on Flyway's connection without a transaction: MySQL commits DDL anyway and
+// the backfills commit chunk by chunk, so each step checks information_schema and an interrupted run can resume.
+public abstract class JdbcMigration implements JavaMigration {
+    private final MigrationVersion version;
+    private final String description;
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected JdbcMigration(String version, String description) {
+        this.version = MigrationVersion.fromVersion(version);
+        this.description = description;
+    }
+
+    @Override
+    public MigrationVersion getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        migrate();
+    }
+
+    protected abstract void migrate();
+
+    // DATA_TYPE in lower case, null when the column does not exist
+    protected String columnType(String table, String column) {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table, column);
+        return types.isEmpty() ? null : types.get(0).toLowerCase(Locale.ROOT);
+    }
+
+    protected boolean hasIndex(String table, String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+                Integer.class, table, index);
+        return count != null && count > 0;
+    }
+
+    // columns as in the ADD INDEX clause, e.g. "prestation_id, statut_de_realisation"
+    protected void addIndex(String table, String index, boolean unique, String columns) {
+        if (hasIndex(table, index)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD " + (unique ? "UNIQUE " : "") + "INDEX " + index
+                + " (" + columns + "), ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    // Names are the ones of V1 (Hibernate's), a foreign key already on the column is kept whatever its name.
+    // The caller has emptied the references to missing rows: the key is added in place, without checking them again.
+    protected void addForeignKey(String table, String name, String column, String referenced) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND REFERENCED_TABLE_NAME = ?
+                """, Integer.class, table, column, referenced);
+        if (count != null && count > 0) {
+            return;
+        }
+        jdbcTemplate.execute("SET foreign_key_checks = 0");
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " FOREIGN KEY (" + column + ") "
+                    + "REFERENCES " + referenced + " (id), ALGORITHM=INPLACE, LOCK=NONE");
+        } finally {
+            jdbcTemplate.execute("SET foreign_key_checks = 1");
+        }
+    }
+}
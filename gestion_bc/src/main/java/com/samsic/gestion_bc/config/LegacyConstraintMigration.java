@@ -0,0 +1,47 @@
+package com.samsic.gestion_bc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Version 4: what ddl-auto=update could not change on a database it managed, so that it matches V1.
+// Broadcast notifications have no utilisateur, and ot.zone_id / ot.back_office_id / ot_prestation.service_id were
+// mapped one-to-one, which left unique keys refusing a second OT per zone, back office or service. The unique keys
+// are replaced by plain indexes, created first since the foreign keys need one.
+@Component
+public class LegacyConstraintMigration extends JdbcMigration {
+    private static final Logger logger = LoggerFactory.getLogger(LegacyConstraintMigration.class);
+
+    public LegacyConstraintMigration() {
+        super("4", "legacy constraints of ddl-auto update");
+    }
+
+    @Override
+    protected void migrate() {
+        String nullable = jdbcTemplate.queryForObject(
+                "SELECT IS_NULLABLE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'notifications' AND COLUMN_NAME = 'utilisateur_id'",
+                String.class);
+        if ("NO".equals(nullable)) {
+            jdbcTemplate.execute("ALTER TABLE notifications MODIFY utilisateur_id INTEGER NULL");
+            logger.info("notifications.utilisateur_id is now nullable");
+        }
+        replaceUniqueKey("ot", "zone_id", "idx_ot_zone");
+        replaceUniqueKey("ot", "back_office_id", "idx_ot_back_office");
+        replaceUniqueKey("ot_prestation", "service_id", "idx_ot_prestation_service");
+    }
+
+    private void replaceUniqueKey(String table, String column, String index) {
+        addIndex(table, index, false, column);
+        List<String> uniqueKeys = jdbcTemplate.queryForList("""
+                SELECT INDEX_NAME FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY'
+                GROUP BY INDEX_NAME HAVING COUNT(*) = 1 AND MAX(COLUMN_NAME) = ?
+                """, String.class, table, column);
+        for (String uniqueKey : uniqueKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX " + uniqueKey + ", ALGORITHM=INPLACE, LOCK=NONE");
+            logger.info("{}.{}: dropped unique key {}", table, column, uniqueKey);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.samsic.gestion_bc.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+// Hibernate second-level cache for the reference entities and the finder queries over them.
+// Every region is declared here with its own size and TTL bound: Hibernate refuses to start on a region
+// that is missing (hibernate.javax.cache.missing_cache_strategy=fail). The update timestamps region never
+// expires, otherwise a cached query could outlive the invalidation of the tables it reads.
+@Configuration
+public class ReferenceCacheConfig {
+    public static final String ZONE_REGION = "reference.zone";
+    public static final String FAMILLE_REGION = "reference.famille";
+    public static final String SERVICE_REGION = "reference.service";
+    public static final String SITE_REGION = "reference.site";
+    public static final String COORDINATEUR_REGION = "reference.coordinateur";
+    public static final String BACK_OFFICE_REGION = "reference.back-office";
+    public static final String CHEF_PROJET_REGION = "reference.chef-projet";
+    public static final String QUERY_REGION = "reference.queries";
+
+    public static final List<String> ENTITY_REGIONS = List.of(ZONE_REGION, FAMILLE_REGION, SERVICE_REGION, SITE_REGION,
+            COORDINATEUR_REGION, BACK_OFFICE_REGION, CHEF_PROJET_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.reference.max-entries:10000}") long maxEntries,
+            @Value("${cache.reference.site.max-entries:50000}") long siteMaxEntries,
+            @Value("${cache.reference.ttl-minutes:60}") long ttlMinutes,
+            @Value("${cache.queries.max-entries:2000}") long queryMaxEntries,
+            @Value("${cache.queries.ttl-minutes:10}") long queryTtlMinutes) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), provider.getDefaultClassLoader());
+
+        for (String region : ENTITY_REGIONS) {
+            create(cacheManager, region, region.equals(SITE_REGION) ? siteMaxEntries : maxEntries, ttlMinutes);
+        }
+        create(cacheManager, QUERY_REGION, queryMaxEntries, queryTtlMinutes);
+        create(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, queryMaxEntries, queryTtlMinutes);
+        create(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 0, 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // maxEntries / ttlMinutes of 0 leave the cache unbounded / without expiry
+    private static void create(CacheManager cacheManager, String name, long maxEntries, long ttlMinutes) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                .setStatisticsEnabled(true);
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        if (ttlMinutes > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(ttlMinutes)));
+        }
+        if (cacheManager.getCache(name) == null) {
+            cacheManager.createCache(name, configuration);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.samsic.gestion_bc.config;
+
+import com.samsic.gestion_bc.dto.responses.ReferenceLoadResponse;
+import com.samsic.gestion_bc.services.ReferenceDataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Command line loader, e.g.
+//   java -jar gestion_bc.jar --spring.profiles.active=reference-loader --services=services.xlsx --sites=sites.csv
+// Loads the given files then shuts the context down (exit code 1 if any row was rejected).
+@Component
+@Profile("reference-loader")
+public class ReferenceDataLoaderRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataLoaderRunner.class);
+
+    private final ReferenceDataLoader referenceDataLoader;
+    private final ConfigurableApplicationContext context;
+
+    public ReferenceDataLoaderRunner(ReferenceDataLoader referenceDataLoader, ConfigurableApplicationContext context) {
+        this.referenceDataLoader = referenceDataLoader;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> services = args.getOptionValues("services");
+        List<String> sites = args.getOptionValues("sites");
+        if (services == null && sites == null) {
+            logger.warn("Nothing to load, pass --services=<file> and/or --sites=<file>");
+        }
+
+        int rejected = 0;
+        // Services first: sites do not depend on them but the order keeps the logs readable
+        if (services != null) {
+            for (String file : services) {
+                Path path = Path.of(file);
+                ReferenceLoadResponse result = referenceDataLoader.loadServices(path, path.getFileName().toString());
+                rejected += report(result);
+            }
+        }
+        if (sites != null) {
+            for (String file : sites) {
+                Path path = Path.of(file);
+                ReferenceLoadResponse result = referenceDataLoader.loadSites(path, path.getFileName().toString());
+                rejected += report(result);
+            }
+        }
+
+        int exitCode = rejected > 0 ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private int report(ReferenceLoadResponse result) {
+        result.getErrors().forEach(error ->
+                logger.warn("{} row {} ({}): {}", result.getTable(), error.getRow(), error.getKey(), error.getMessage()));
+        return result.getRejected();
+    }
+}
@@ -0,0 +1,199 @@
+package com.samsic.gestion_bc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Version 4.1: what V1 has and a database baselined from ddl-auto=update does not, since the entities gained it after
+// the last release that ran with update: the outbox, sync, autosave, notification read, archive and invalidation
+// tables, the updated_at / version / audience columns and their indexes, the unique keys of the reference loader.
+// Runs after V2-V4 have moved the keys and statuses to their V1 form, and before V5 onwards, which rely on all of it.
+// Every step checks information_schema first, so this is a no-op on a database created by V1.
+@Component
+public class SchemaCatchUpMigration extends JdbcMigration {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCatchUpMigration.class);
+
+    private static final String UPDATED_AT = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)";
+
+    // As in V1
+    private static final List<String> TABLES = List.of("""
+            create table if not exists bc_archive (
+                num_bc varchar(255) not null,
+                archived_at datetime(6) not null,
+                back_office_id integer,
+                closed_at datetime(6),
+                code_projet varchar(255),
+                date_edition date,
+                document LONGBLOB not null,
+                line_count integer,
+                primary key (num_bc)
+            ) engine=InnoDB
+            """, """
+            create table if not exists bc_archive_aggregates (
+                id bigint not null auto_increment,
+                back_office_id integer,
+                bc_description varchar(255),
+                code_projet varchar(255),
+                date_edition date,
+                division_projet varchar(255),
+                famille_name varchar(255),
+                famille_projet varchar(255),
+                montant_a_deposer float(53),
+                montant_a_deposer_sys float(53),
+                montant_bc float(53),
+                montant_cloture float(53),
+                montant_depose float(53),
+                montant_depose_sys float(53),
+                montant_encours float(53),
+                montant_realise float(53),
+                montant_recep_tech float(53),
+                montant_recep_tech_en_cours float(53),
+                montant_recep_tech_reserve float(53),
+                montant_receptionne_date float(53),
+                montant_receptionne_sys float(53),
+                montant_sys float(53),
+                montant_tech float(53),
+                num_bc varchar(255) not null,
+                num_ligne integer,
+                prix float(53),
+                qte_bc float(53),
+                qte_encours_encours float(53),
+                qte_realise float(53),
+                qte_realise_realise float(53),
+                service_description varchar(255),
+                service_id integer,
+                primary key (id)
+            ) engine=InnoDB
+            """, """
+            create table if not exists cache_invalidation_log (
+                id bigint not null auto_increment,
+                cache_key varchar(191),
+                cache_name varchar(64) not null,
+                created_at datetime(6) not null,
+                node_id varchar(36) not null,
+                primary key (id)
+            ) engine=InnoDB
+            """, """
+            create table if not exists event_outbox (
+                id bigint not null auto_increment,
+                attempts integer not null,
+                created_at datetime(6) not null,
+                event_type varchar(64) not null,
+                handler varchar(64) not null,
+                last_error varchar(1000),
+                next_attempt_at datetime(6) not null,
+                payload TEXT not null,
+                status enum ('FAILED','PENDING') not null,
+                primary key (id)
+            ) engine=InnoDB
+            """, """
+            create table if not exists notification_reads (
+                id bigint not null auto_increment,
+                notification_id integer not null,
+                read_at datetime(6) not null,
+                utilisateur_id integer not null,
+                primary key (id)
+            ) engine=InnoDB
+            """, """
+            create table if not exists suivi_prestation_pending_edits (
+                id bigint not null auto_increment,
+                created_at datetime(6) not null,
+                patch TEXT not null,
+                suivi_prestation_id integer not null,
+                user_email varchar(255),
+                primary key (id)
+            ) engine=InnoDB
+            """, """
+            create table if not exists sync_tombstones (
+                id bigint not null auto_increment,
+                deleted_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+                entity_id varchar(255) not null,
+                entity_type varchar(32) not null,
+                parent_id varchar(255),
+                primary key (id)
+            ) engine=InnoDB
+            """);
+
+    public SchemaCatchUpMigration() {
+        super("4.1", "tables columns and indexes missing from ddl-auto update");
+    }
+
+    @Override
+    protected void migrate() {
+        TABLES.forEach(jdbcTemplate::execute);
+        addIndex("bc_archive", "idx_bc_archive_back_office", false, "back_office_id, archived_at");
+        addIndex("bc_archive", "idx_bc_archive_code_projet", false, "code_projet");
+        addIndex("bc_archive_aggregates", "idx_bc_archive_agg_back_office", false, "back_office_id");
+        addIndex("bc_archive_aggregates", "idx_bc_archive_agg_num_bc", false, "num_bc");
+        addIndex("cache_invalidation_log", "idx_cache_invalidation_created", false, "created_at");
+        addIndex("event_outbox", "idx_outbox_status_next", false, "status, next_attempt_at");
+        addIndex("notification_reads", "uk_notification_read", true, "utilisateur_id, notification_id");
+        addIndex("suivi_prestation_pending_edits", "IDXg0tua2r7tledocm4ascnlktte", false, "suivi_prestation_id");
+        addIndex("sync_tombstones", "idx_tombstone_type_deleted", false, "entity_type, deleted_at");
+        addIndex("sync_tombstones", "idx_tombstone_deleted", false, "deleted_at");
+
+        // Existing rows take the time of this run: /changes re-sends them once
+        for (String table : List.of("bon_de_commande", "prestations", "suivi_prestation", "ot", "ot_prestation")) {
+            addColumn(table, "updated_at", UPDATED_AT);
+        }
+        addColumn("suivi_prestation", "version", "bigint default 0 not null");
+        addColumn("notifications", "audience", "enum ('BACK_OFFICE','CHEF_PROJET','COORDINATEUR','EMPLOYEE','RESPONSABLE_COMPTE')");
+
+        addIndex("bon_de_commande", "idx_bc_back_office_updated", false, "back_office_id, updated_at");
+        addIndex("bon_de_commande", "idx_bc_updated", false, "updated_at");
+        addIndex("prestations", "idx_prestations_updated", false, "updated_at");
+        addIndex("suivi_prestation", "idx_suivi_coord_statut_plan", false, "coordinateur_id, statut_de_realisation, date_planifiee");
+        addIndex("suivi_prestation", "idx_suivi_zone_statut_plan", false, "zone_id, statut_de_realisation, date_planifiee");
+        addIndex("suivi_prestation", "idx_suivi_statut_realisation", false, "statut_de_realisation, date_realisation");
+        addIndex("suivi_prestation", "idx_suivi_recep_tech", false, "statut_de_recep_tech, date_recep_tech");
+        addIndex("suivi_prestation", "idx_suivi_recep_sys", false, "statut_reception_system, date_recep_sys");
+        addIndex("suivi_prestation", "idx_suivi_prestation_realisation", false, "prestation_id, statut_de_realisation");
+        addIndex("suivi_prestation", "idx_suivi_prestation_recep_tech", false, "prestation_id, statut_de_recep_tech");
+        addIndex("suivi_prestation", "idx_suivi_prestation_recep_sys", false, "prestation_id, statut_reception_system");
+        addIndex("suivi_prestation", "idx_suivi_coord_updated", false, "coordinateur_id, updated_at");
+        addIndex("suivi_prestation", "idx_suivi_updated", false, "updated_at");
+        addIndex("ot", "idx_ot_updated", false, "updated_at");
+        addIndex("ot_prestation", "idx_ot_prestation_updated", false, "updated_at");
+        addIndex("ot_prestation", "idx_ot_prestation_ot_statut", false, "ot_num_ot, statut_de_realisation, statut_de_recep_tech");
+        addIndex("notifications", "idx_notification_user_created", false, "utilisateur_id, created_at");
+        addIndex("notifications", "idx_notification_audience_created", false, "audience, created_at");
+
+        // Upsert keys of ReferenceDataLoader
+        addUniqueKey("site", "UK8nfcr2hlewp8iw2t6u65u6y7i", "codesite");
+        addUniqueKey("services", "UK90c7awdxti9mdulb83joms377", "ref_auxigene");
+    }
+
+    private void addColumn(String table, String column, String definition) {
+        if (columnType(table, column) != null) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        logger.info("{}.{} added", table, column);
+    }
+
+    // Compared with the collation of the column, as the key will: 'ABC' and 'abc' are duplicates
+    private void addUniqueKey(String table, String name, String column) {
+        if (hasUniqueKey(table, column)) {
+            return;
+        }
+        List<String> duplicates = jdbcTemplate.queryForList("SELECT MIN(" + column + ") FROM " + table + " WHERE "
+                + column + " IS NOT NULL GROUP BY " + column + " HAVING COUNT(*) > 1 LIMIT 20", String.class);
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException(table + "." + column + " has duplicate values: " + duplicates
+                    + ". Merge or rename those rows, then restart.");
+        }
+        addIndex(table, name, true, column);
+        logger.info("{}.{}: added unique key {}", table, column, name);
+    }
+
+    private boolean hasUniqueKey(String table, String column) {
+        List<String> uniqueKeys = jdbcTemplate.queryForList("""
+                SELECT INDEX_NAME FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND NON_UNIQUE = 0
+                GROUP BY INDEX_NAME HAVING COUNT(*) = 1 AND MAX(COLUMN_NAME) = ?
+                """, String.class, table, column);
+        return !uniqueKeys.isEmpty();
+    }
+}
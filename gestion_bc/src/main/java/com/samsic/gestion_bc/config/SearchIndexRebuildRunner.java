@@ -0,0 +1,30 @@
+package com.samsic.gestion_bc.config;
+
+import com.samsic.gestion_bc.services.SearchIndexer;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Offline rebuild of the search index of a node, e.g. after copying the jar to a new server:
+//   java -jar gestion_bc.jar --spring.profiles.active=search-rebuild --search.index-dir=/var/lib/gestion_bc/search-index
+// Rebuilds from the database then shuts the context down, before the startup catch-up would run.
+@Component
+@Profile("search-rebuild")
+public class SearchIndexRebuildRunner implements ApplicationRunner {
+    private final SearchIndexer searchIndexer;
+    private final ConfigurableApplicationContext context;
+
+    public SearchIndexRebuildRunner(SearchIndexer searchIndexer, ConfigurableApplicationContext context) {
+        this.searchIndexer = searchIndexer;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        searchIndexer.rebuild();
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,100 @@
+package com.samsic.gestion_bc.config;
+
+import com.samsic.gestion_bc.models.CodedStatus;
+import com.samsic.gestion_bc.models.StatutRealisation;
+import com.samsic.gestion_bc.models.StatutReceptionSystem;
+import com.samsic.gestion_bc.models.StatutRecepTech;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Version 2: moves a database from before the coded statuses to them and to prestations.famille_id.
+// Free-text statuses of suivi_prestation / ot_prestation ('Realise', 'REALISE', 'Réalisé', ...) are rewritten as the
+// codes of StatutRealisation / StatutRecepTech / StatutReceptionSystem and the columns become TINYINT.
+// prestations.famille is replaced by famille_id: names missing from familles are added to it, empty ones take the
+// famille of the service. Every step checks information_schema first, so this is a no-op on a database that already has
+// them (V1, or the release that ran this at startup). A status that matches no code stops the migration rather than
+// being dropped. The defaults the coordinator screens have always saved have codes of their own: 'Planifié' is
+// StatutRealisation.PLANIFIE (3) and 'En cours' in statut_reception_system is StatutReceptionSystem.EN_COURS (4).
+@Component
+public class StatusCodeMigration extends JdbcMigration {
+    private static final Logger logger = LoggerFactory.getLogger(StatusCodeMigration.class);
+
+    public StatusCodeMigration() {
+        super("2", "status codes and famille projet key");
+    }
+
+    @Override
+    protected void migrate() {
+        for (String table : List.of("suivi_prestation", "ot_prestation")) {
+            migrateStatus(table, "statut_de_realisation", StatutRealisation.class);
+            migrateStatus(table, "statut_de_recep_tech", StatutRecepTech.class);
+            migrateStatus(table, "statut_reception_system", StatutReceptionSystem.class);
+        }
+        migrateFamilleProjet();
+    }
+
+    private <E extends Enum<E> & CodedStatus> void migrateStatus(String table, String column, Class<E> type) {
+        String dataType = columnType(table, column);
+        if (dataType == null || dataType.equals("tinyint")) {
+            return;
+        }
+        List<String> values = jdbcTemplate.queryForList(
+                "SELECT DISTINCT " + column + " FROM " + table + " WHERE " + column + " IS NOT NULL", String.class);
+        Map<String, E> statuses = new LinkedHashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String value : values) {
+            try {
+                statuses.put(value, CodedStatus.fromLabel(type, value));
+            } catch (IllegalArgumentException e) {
+                unknown.add(value);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalStateException(table + "." + column + " has values with no " + type.getSimpleName()
+                    + " code: " + unknown + ". Rewrite them to a known status, then restart.");
+        }
+
+        // Rows already holding the label the API returns keep their updated_at; the others are re-sent by /changes
+        boolean tracked = columnType(table, "updated_at") != null;
+        int rows = 0;
+        for (Map.Entry<String, E> entry : statuses.entrySet()) {
+            E status = entry.getValue();
+            Integer code = CodedStatus.code(status);
+            String keep = tracked && status != null && status.getLabel().equals(entry.getKey()) ? ", updated_at = updated_at" : "";
+            rows += jdbcTemplate.update("UPDATE " + table + " SET " + column + " = ?" + keep
+                    + " WHERE BINARY " + column + " = BINARY ?", code, entry.getKey());
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY " + column + " TINYINT NULL");
+        logger.info("Migrated {}.{} to {} codes: {} distinct values, {} rows", table, column, type.getSimpleName(), values.size(), rows);
+    }
+
+    private void migrateFamilleProjet() {
+        if (columnType("prestations", "famille") == null) {
+            return;
+        }
+        if (columnType("prestations", "famille_id") == null) {
+            jdbcTemplate.execute("ALTER TABLE prestations ADD COLUMN famille_id BIGINT NULL");
+        }
+        boolean tracked = columnType("prestations", "updated_at") != null;
+        int added = jdbcTemplate.update("""
+                INSERT INTO familles (name)
+                SELECT DISTINCT TRIM(p.famille) FROM prestations p
+                WHERE TRIM(p.famille) <> ''
+                  AND NOT EXISTS (SELECT 1 FROM familles f WHERE f.name = TRIM(p.famille))
+                """);
+        int named = jdbcTemplate.update("UPDATE prestations p JOIN familles f ON f.name = TRIM(p.famille) SET p.famille_id = f.id"
+                + (tracked ? ", p.updated_at = p.updated_at" : ""));
+        int defaulted = jdbcTemplate.update("""
+                UPDATE prestations p JOIN services s ON s.id = p.service_id
+                SET p.famille_id = s.famille_id
+                WHERE p.famille_id IS NULL AND (p.famille IS NULL OR TRIM(p.famille) = '')
+                """);
+        jdbcTemplate.execute("ALTER TABLE prestations DROP COLUMN famille");
+        addForeignKey("prestations", "FKq7v2ajrkpbx4bjqwedho6wy0x", "famille_id", "familles");
+        logger.info("Migrated prestations.famille to famille_id: {} rows by name ({} familles added), {} from their service",
+                named, added, defaulted);
+    }
+}
@@ -0,0 +1,220 @@
+package com.samsic.gestion_bc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Version 3: moves a database from before the BIGINT surrogate keys of bon_de_commande and prestations to them.
+// The new ids are numbered in creation order (BCs by date_edition, lines by BC then num_ligne) and written in short
+// chunks, the references in prestations.bc_id, files.bon_de_commande_id, suivi_prestation.prestation_id and
+// ligne_bc.prestation_id are rewritten the same way into a side column, and only then are the keys swapped with
+// in-place ALTERs (LOCK=NONE): the tables stay readable and writable for other clients during the whole run.
+// num_bc and the former prestations.id (now prestations.code) keep unique keys, the foreign keys and indexes on the
+// remapped columns are added back under their V1 names. Every step checks information_schema first, so an interrupted
+// run resumes and a migrated or new database is left as is. Nodes still running a release with string keys write
+// them: stop them before starting this one.
+@Component
+public class SurrogateKeyMigration extends JdbcMigration {
+    private static final Logger logger = LoggerFactory.getLogger(SurrogateKeyMigration.class);
+
+    private static final int CHUNK_SIZE = 5000;
+    // allocationSize of the @SequenceGenerator of BonDeCommande and Prestation
+    private static final int ALLOCATION_SIZE = 50;
+
+    public SurrogateKeyMigration() {
+        super("3", "surrogate keys for bon de commande and prestations");
+    }
+
+    @Override
+    protected void migrate() {
+        if (columnType("bon_de_commande", "num_bc") == null) {
+            return;
+        }
+        boolean bcPending = !List.of("id").equals(primaryKey("bon_de_commande"));
+        boolean prestationsPending = columnType("prestations", "code") == null;
+        if (bcPending || prestationsPending) {
+            migrateKeys(bcPending, prestationsPending);
+        }
+        restoreKeys();
+    }
+
+    private void migrateKeys(boolean bcPending, boolean prestationsPending) {
+        if (bcPending) {
+            addColumn("bon_de_commande", "id");
+            numberBonsDeCommande();
+        }
+        if (prestationsPending) {
+            addColumn("prestations", "new_id");
+            numberPrestations();
+        }
+
+        dropForeignKeys();
+        remap("prestations", "bc_id", "bon_de_commande", "num_bc", "id");
+        remap("files", "bon_de_commande_id", "bon_de_commande", "num_bc", "id");
+        remap("suivi_prestation", "prestation_id", "prestations", "id", "new_id");
+        remap("ligne_bc", "prestation_id", "prestations", "id", "new_id");
+
+        if (prestationsPending) {
+            // Lines added since the numbering
+            numberPrestations();
+            jdbcTemplate.execute("ALTER TABLE prestations DROP PRIMARY KEY, "
+                    + "CHANGE COLUMN id code " + columnDefinition("prestations", "id") + " NOT NULL, "
+                    + "CHANGE COLUMN new_id id BIGINT NOT NULL FIRST, ADD PRIMARY KEY (id), "
+                    + "ADD CONSTRAINT uk_prestations_code UNIQUE (code), ALGORITHM=INPLACE, LOCK=NONE");
+            logger.info("prestations: primary key moved to the surrogate id, former id kept as code");
+        }
+        if (bcPending) {
+            numberBonsDeCommande();
+            jdbcTemplate.execute("ALTER TABLE bon_de_commande DROP PRIMARY KEY, MODIFY COLUMN id BIGINT NOT NULL FIRST, "
+                    + "ADD PRIMARY KEY (id), ADD CONSTRAINT uk_bc_num_bc UNIQUE (num_bc), ALGORITHM=INPLACE, LOCK=NONE");
+            logger.info("bon_de_commande: primary key moved to the surrogate id, num_bc kept unique");
+        }
+
+        seedSequence("bon_de_commande_seq", "bon_de_commande");
+        seedSequence("prestations_seq", "prestations");
+    }
+
+    // What dropForeignKeys and remap removed, as V1 creates it
+    private void restoreKeys() {
+        addIndex("files", "UK8i7cdxyom1oyqhyll4rpb2k8k", true, "bon_de_commande_id");
+        addIndex("suivi_prestation", "idx_suivi_prestation_realisation", false, "prestation_id, statut_de_realisation");
+        addIndex("suivi_prestation", "idx_suivi_prestation_recep_tech", false, "prestation_id, statut_de_recep_tech");
+        addIndex("suivi_prestation", "idx_suivi_prestation_recep_sys", false, "prestation_id, statut_reception_system");
+        addForeignKey("prestations", "FK6sn8i0xw5aotohfljn65jtam8", "bc_id", "bon_de_commande");
+        addForeignKey("files", "FKct7nkibqeh3q1s8t87b7yk5ap", "bon_de_commande_id", "bon_de_commande");
+        addForeignKey("suivi_prestation", "FK9tiugg4ar4mr1lvs4ejp3cxtn", "prestation_id", "prestations");
+        addForeignKey("ligne_bc", "FKa53944o952u17yrfsgfkx7ymc", "prestation_id", "prestations");
+    }
+
+    private void numberBonsDeCommande() {
+        number("bon_de_commande", "id", "num_bc",
+                "SELECT num_bc FROM bon_de_commande WHERE id IS NULL ORDER BY date_edition, num_bc");
+    }
+
+    private void numberPrestations() {
+        // bc_id may already hold the BC surrogate when a previous run stopped after the remapping
+        String bcKey = isText(columnType("prestations", "bc_id")) ? "num_bc" : "id";
+        number("prestations", "new_id", "id", "SELECT p.id FROM prestations p "
+                + "LEFT JOIN bon_de_commande bc ON bc." + bcKey + " = p.bc_id "
+                + "WHERE p.new_id IS NULL ORDER BY bc.id IS NULL, bc.id, p.num_ligne, p.id");
+    }
+
+    // Numbers the rows returned by keysSql after the highest id already given, CHUNK_SIZE rows per batch
+    private void number(String table, String column, String keyColumn, String keysSql) {
+        List<String> keys = jdbcTemplate.queryForList(keysSql, String.class);
+        if (keys.isEmpty()) {
+            return;
+        }
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + column + ") FROM " + table, Long.class);
+        long next = max != null ? max + 1 : 1;
+        String sql = "UPDATE " + table + " SET " + column + " = ?" + keepUpdatedAt(table, null) + " WHERE " + keyColumn + " = ?";
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            List<Object[]> args = new ArrayList<>();
+            for (String key : keys.subList(from, Math.min(from + CHUNK_SIZE, keys.size()))) {
+                args.add(new Object[]{next++, key});
+            }
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+        logger.info("{}.{}: numbered {} rows", table, column, keys.size());
+    }
+
+    // The key columns cannot change while a foreign key points to them
+    private void dropForeignKeys() {
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("""
+                SELECT DISTINCT TABLE_NAME, CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+                WHERE TABLE_SCHEMA = DATABASE() AND REFERENCED_TABLE_NAME IN ('bon_de_commande', 'prestations')
+                """);
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + foreignKey.get("TABLE_NAME") + " DROP FOREIGN KEY " + foreignKey.get("CONSTRAINT_NAME"));
+        }
+        if (!foreignKeys.isEmpty()) {
+            logger.info("Dropped {} foreign keys to bon_de_commande / prestations", foreignKeys.size());
+        }
+    }
+
+    // Rewrites table.column from parent.parentKey to parent.parentId through a side column, then swaps the columns.
+    // Indexes on the old column are dropped with it, restoreKeys creates them again on the new one.
+    private void remap(String table, String column, String parent, String parentKey, String parentId) {
+        if (!isText(columnType(table, column))) {
+            return;
+        }
+        String target = column + "_new";
+        if (columnType(table, target) == null) {
+            addColumn(table, target);
+        }
+        String sql = "UPDATE " + table + " t SET t." + target + " = (SELECT x." + parentId + " FROM " + parent + " x WHERE x."
+                + parentKey + " = t." + column + ")" + keepUpdatedAt(table, "t") + " WHERE t." + target + " IS NULL AND EXISTS "
+                + "(SELECT 1 FROM " + parent + " x WHERE x." + parentKey + " = t." + column + ") LIMIT " + CHUNK_SIZE;
+        int rows = 0;
+        int updated;
+        while ((updated = jdbcTemplate.update(sql)) > 0) {
+            rows += updated;
+        }
+        Integer orphans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " IS NOT NULL AND "
+                + target + " IS NULL", Integer.class);
+        if (orphans != null && orphans > 0) {
+            logger.warn("{}.{}: {} rows reference no {} row and are left empty", table, column, orphans, parent);
+        }
+
+        StringBuilder alter = new StringBuilder("ALTER TABLE " + table + " ");
+        for (String index : indexesOn(table, column)) {
+            alter.append("DROP INDEX ").append(index).append(", ");
+        }
+        alter.append("DROP COLUMN ").append(column).append(", RENAME COLUMN ").append(target).append(" TO ").append(column)
+                .append(", ALGORITHM=INPLACE, LOCK=NONE");
+        jdbcTemplate.execute(alter.toString());
+        logger.info("{}.{}: {} references remapped to {}.{}", table, column, rows, parent, parentId);
+    }
+
+    // The pooled generator must start above the migrated ids
+    private void seedSequence(String sequence, String table) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + sequence + " (next_val BIGINT)");
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long next = max + ALLOCATION_SIZE + 1;
+        if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = GREATEST(next_val, ?)", next) == 0) {
+            jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) VALUES (?)", next);
+        }
+        logger.info("{} starts after id {}", sequence, max);
+    }
+
+    private void addColumn(String table, String column) {
+        if (columnType(table, column) == null) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " BIGINT NULL");
+        }
+    }
+
+    // Rows keep their updated_at: the keys are not exposed, /changes has nothing to re-send
+    private String keepUpdatedAt(String table, String alias) {
+        if (columnType(table, "updated_at") == null) {
+            return "";
+        }
+        String column = alias != null ? alias + ".updated_at" : "updated_at";
+        return ", " + column + " = " + column;
+    }
+
+    private List<String> indexesOn(String table, String column) {
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND INDEX_NAME <> 'PRIMARY'
+                """, String.class, table, column);
+    }
+
+    private List<String> primaryKey(String table) {
+        return jdbcTemplate.queryForList("""
+                SELECT COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND CONSTRAINT_NAME = 'PRIMARY' ORDER BY ORDINAL_POSITION
+                """, String.class, table);
+    }
+
+    private String columnDefinition(String table, String column) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COLUMN_TYPE FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table, column);
+    }
+
+    private static boolean isText(String dataType) {
+        return "varchar".equals(dataType) || "char".equals(dataType);
+    }
+}
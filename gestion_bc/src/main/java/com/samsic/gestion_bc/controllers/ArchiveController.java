@@ -0,0 +1,97 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.samsic.gestion_bc.dto.responses.ArchiveRunResponse;
+import com.samsic.gestion_bc.models.File;
+import com.samsic.gestion_bc.repositories.BonDeCommandeArchiveRepository;
+import com.samsic.gestion_bc.services.BonDeCommandeArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/archive")
+@CrossOrigin(origins = "https://samsic.vercel.app")
+public class ArchiveController {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveController.class);
+    private final BonDeCommandeArchiveService archiveService;
+
+    public ArchiveController(BonDeCommandeArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    @GetMapping("/bon-de-commande")
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<List<BonDeCommandeArchiveRepository.ArchiveSummary>> getArchives(
+            @RequestParam(value = "backOfficeId", required = false) Integer backOfficeId,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(archiveService.getArchives(auth.getName(), role, backOfficeId));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching archived BonDeCommandes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    @GetMapping("/bon-de-commande/{numBc}")
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<JsonNode> getArchive(@PathVariable String numBc, Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(archiveService.getArchive(numBc, auth.getName(), role));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Archived BonDeCommande not available: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            logger.error("Error reading archived BonDeCommande {}: {}", numBc, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    @GetMapping("/bon-de-commande/{numBc}/files/{fileId}")
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<Resource> getArchivedFile(@PathVariable String numBc, @PathVariable Long fileId, Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            File file = archiveService.getArchivedFile(numBc, fileId, auth.getName(), role);
+            String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getName() + "\"")
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .contentLength(file.getContent().length)
+                    .body(new ByteArrayResource(file.getContent()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Archived file not available: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            logger.error("Error reading archived file {} of {}: {}", fileId, numBc, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<ArchiveRunResponse> runArchival(Authentication auth) {
+        logger.info("Archival run requested by user: {}", auth.getName());
+        try {
+            return ResponseEntity.ok(archiveService.archiveClosed());
+        } catch (Exception e) {
+            logger.error("Error archiving BonDeCommandes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.samsic.gestion_bc.controllers;
 import com.samsic.gestion_bc.dto.BonDeCommandeRequest;
 import com.samsic.gestion_bc.dto.FileRequest;
 import com.samsic.gestion_bc.dto.ServiceSummary;
+import com.samsic.gestion_bc.dto.responses.BcBulkDeleteResponse;
+import com.samsic.gestion_bc.dto.responses.BonDeCommandeResponse;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
 import com.samsic.gestion_bc.models.BonDeCommande;
 import com.samsic.gestion_bc.services.BonDeCommandeService;
 import org.slf4j.Logger;
@@ -11,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -57,10 +61,10 @@ public class BonDeCommandeController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<BonDeCommande>> getAllBonDeCommandes() {
+    public ResponseEntity<List<BonDeCommandeResponse>> getAllBonDeCommandes() {
         logger.info("Fetching all BonDeCommandes");
         try {
-            List<BonDeCommande> bonDeCommandes = bonDeCommandeService.getAllBonDeCommandes();
+            List<BonDeCommandeResponse> bonDeCommandes = bonDeCommandeService.getAllBonDeCommandes();
             return ResponseEntity.ok(bonDeCommandes);
         } catch (Exception e) {
             logger.error("Error fetching BonDeCommandes: {}", e.getMessage(), e);
@@ -69,6 +73,24 @@ public class BonDeCommandeController {
     }
 
     // New endpoint to fetch services for a BC
+    // Delta sync: pass the token of the previous answer as ?since=, omit it to get the full list
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<ChangesResponse<BonDeCommandeResponse>> getBonDeCommandeChanges(
+            @RequestParam(value = "since", required = false) String since,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(bonDeCommandeService.getBonDeCommandeChanges(since, auth.getName(), role));
+        } catch (IllegalArgumentException e) {
+            logger.error("Error fetching BonDeCommande changes since {}: {}", since, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching BonDeCommande changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @GetMapping("/{numBc}/services")
     @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
     public ResponseEntity<List<ServiceSummary>> getServicesByNumBc(@PathVariable String numBc) {
@@ -100,10 +122,10 @@ public class BonDeCommandeController {
 
     @GetMapping("/{numBc}")
     @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<BonDeCommande> getBonDeCommandeByNumBc(@PathVariable String numBc) {
+    public ResponseEntity<BonDeCommandeResponse> getBonDeCommandeByNumBc(@PathVariable String numBc) {
         logger.info("Fetching BonDeCommande with numBc: {}", numBc);
         try {
-            Optional<BonDeCommande> bonDeCommande = bonDeCommandeService.getBonDeCommandeByNumBc(numBc);
+            Optional<BonDeCommandeResponse> bonDeCommande = bonDeCommandeService.getBonDeCommandeByNumBc(numBc);
             return bonDeCommande.map(ResponseEntity::ok)
                     .orElseGet(() -> {
                         logger.warn("BonDeCommande not found: {}", numBc);
@@ -159,12 +181,27 @@ public class BonDeCommandeController {
         }
     }
 
+    @PostMapping("/bulk-delete")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<BcBulkDeleteResponse> deleteBonDeCommandes(@RequestBody List<String> numBcs, Authentication auth) {
+        logger.info("Received request to delete {} BonDeCommandes from user: {}", numBcs.size(), auth.getName());
+        try {
+            return ResponseEntity.ok(bonDeCommandeService.deleteBonDeCommandes(numBcs));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error deleting BonDeCommandes in bulk: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @GetMapping("/find/{emailBO:.+}")
     @PreAuthorize("hasRole('BACK_OFFICE')")
-    public ResponseEntity<List<BonDeCommande>> getBonDeCommandesByEmailBO(@PathVariable String emailBO) {
+    public ResponseEntity<List<BonDeCommandeResponse>> getBonDeCommandesByEmailBO(@PathVariable String emailBO) {
         logger.info("Fetching BonDeCommandes for emailBO: {}", emailBO);
         try {
-            List<BonDeCommande> bonDeCommandes = bonDeCommandeService.getBonDeCommandesByEmailBO(emailBO);
+            List<BonDeCommandeResponse> bonDeCommandes = bonDeCommandeService.getBonDeCommandesByEmailBO(emailBO);
             return ResponseEntity.ok(bonDeCommandes);
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid request: {}", e.getMessage());
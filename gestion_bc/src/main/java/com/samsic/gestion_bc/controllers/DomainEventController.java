@@ -0,0 +1,48 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.samsic.gestion_bc.dto.responses.EventMetricsResponse;
+import com.samsic.gestion_bc.services.DomainEventDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "https://samsic.vercel.app")
+public class DomainEventController {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventController.class);
+    private final DomainEventDispatcher dispatcher;
+
+    public DomainEventController(DomainEventDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    // Outbox backlog and per-handler counters (successes, failures, dead letters, latency)
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<EventMetricsResponse> getMetrics() {
+        try {
+            return ResponseEntity.ok(dispatcher.metrics());
+        } catch (Exception e) {
+            logger.error("Error fetching event metrics: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Puts the events whose handlers gave up back in the queue (after the cause has been fixed)
+    @PostMapping("/failed/requeue")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<String> requeueFailed() {
+        try {
+            int requeued = dispatcher.requeueFailed();
+            logger.info("Requeued {} failed outbox rows", requeued);
+            return ResponseEntity.ok("Requeued " + requeued + " event(s)");
+        } catch (Exception e) {
+            logger.error("Error requeuing failed events: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to requeue events");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.services.ImportJob;
+import com.samsic.gestion_bc.services.ImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "https://samsic.vercel.app")
+public class ImportController {
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value = "/bon-de-commande", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<ImportJobResponse> importBonDeCommandes(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "backOfficeId", required = false) Integer backOfficeId,
+            Authentication auth) {
+        return startImport(ImportJob.Type.BON_DE_COMMANDE, file, backOfficeId, auth);
+    }
+
+    @PostMapping(value = "/ots", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<ImportJobResponse> importOts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "backOfficeId", required = false) Integer backOfficeId,
+            Authentication auth) {
+        return startImport(ImportJob.Type.OT, file, backOfficeId, auth);
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable String jobId) {
+        return importService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toResponse()))
+                .orElseGet(() -> {
+                    logger.warn("Import job not found: {}", jobId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+                });
+    }
+
+    private ResponseEntity<ImportJobResponse> startImport(ImportJob.Type type, MultipartFile file, Integer backOfficeId, Authentication auth) {
+        logger.info("Received {} import {} from user: {}", type, file.getOriginalFilename(), auth.getName());
+        try {
+            ImportJob job = importService.startImport(type, file, backOfficeId, auth.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toResponse());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid import request: {}", e.getMessage());
+            ImportJobResponse response = new ImportJobResponse();
+            response.setStatus(ImportJob.Status.FAILED.name());
+            response.setFailureMessage(e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            logger.error("Error starting {} import: {}", type, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.samsic.gestion_bc.dto.NotificationResponse;
 import com.samsic.gestion_bc.models.Notification;
 import com.samsic.gestion_bc.models.SuiviPrestationNotification;
 import com.samsic.gestion_bc.services.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,6 +19,8 @@ import java.util.List;
 @RequestMapping("/api/notifications")
 @CrossOrigin(origins = "https://samsic.vercel.app")
 public class NotificationController {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
+
     private final NotificationService notificationService;
 
     @Autowired
@@ -59,9 +64,9 @@ public class NotificationController {
 
     @PutMapping("/read/{id}")
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE','CHEF_PROJET')")
-    public ResponseEntity<String> markNotificationAsRead(@PathVariable Integer id) {
+    public ResponseEntity<String> markNotificationAsRead(@PathVariable Integer id, Authentication auth) {
         try {
-            notificationService.markNotificationAsRead(id);
+            notificationService.markNotificationAsRead(id, auth.getName());
             return ResponseEntity.ok("Notification marked as read");
         } catch (IllegalArgumentException e) {
             System.out.println("Error marking notification ID " + id + " as read: " + e.getMessage());
@@ -71,4 +76,19 @@ public class NotificationController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
         }
     }
-}
\ No newline at end of file
+
+    @PutMapping("/read-all")
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE','CHEF_PROJET')")
+    public ResponseEntity<String> markAllNotificationsAsRead(Authentication auth) {
+        try {
+            int count = notificationService.markAllAsRead(auth.getName());
+            return ResponseEntity.ok(count + " notification(s) marked as read");
+        } catch (IllegalArgumentException e) {
+            logger.error("Error marking notifications of {} as read: {}", auth.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error marking notifications of {} as read: {}", auth.getName(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Server error");
+        }
+    }
+}
@@ -2,7 +2,12 @@ package com.samsic.gestion_bc.controllers;
 
 import com.samsic.gestion_bc.dto.requests.LinkOtToBdcRequest;
 import com.samsic.gestion_bc.dto.requests.OtRequest;
+import com.samsic.gestion_bc.dto.responses.BdcCandidateResponse;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
+import com.samsic.gestion_bc.dto.responses.OtBulkUpdateResponse;
+import com.samsic.gestion_bc.dto.responses.OtLinkBatchResponse;
 import com.samsic.gestion_bc.dto.responses.OtMetricsResponse;
+import com.samsic.gestion_bc.dto.responses.OtResponse;
 import com.samsic.gestion_bc.models.Ot;
 import com.samsic.gestion_bc.services.OtService;
 import org.slf4j.Logger;
@@ -46,10 +51,10 @@ public class OtController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<Ot>> getAllOts() {
+    public ResponseEntity<List<OtResponse>> getAllOts() {
         try {
             logger.info("Fetching all OTs");
-            List<Ot> ots = otService.getAllOts();
+            List<OtResponse> ots = otService.getAllOts();
             return ResponseEntity.ok(ots);
         } catch (Exception e) {
             logger.error("Error fetching all OTs: {}", e.getMessage(), e);
@@ -57,12 +62,30 @@ public class OtController {
         }
     }
 
+    // Delta sync: pass the token of the previous answer as ?since=, omit it to get the full list
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<ChangesResponse<OtResponse>> getOtChanges(
+            @RequestParam(value = "since", required = false) String since,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(otService.getOtChanges(since, auth.getName(), role));
+        } catch (IllegalArgumentException e) {
+            logger.error("Error fetching OT changes since {}: {}", since, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching OT changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @GetMapping("/find/{numOT}")
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<Ot> getOt(@PathVariable String numOT) {
+    public ResponseEntity<OtResponse> getOt(@PathVariable String numOT) {
         try {
             logger.info("Fetching all OTs");
-            Ot ot = otService.getOtByNum(numOT);
+            OtResponse ot = otService.getOtByNum(numOT);
             return ResponseEntity.ok(ot);
         } catch (Exception e) {
             logger.error("Error fetching all OTs: {}", e.getMessage(), e);
@@ -72,10 +95,10 @@ public class OtController {
 
     @GetMapping("/{email}")
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<Ot>> getOtsByEmail(@PathVariable String email) {
+    public ResponseEntity<List<OtResponse>> getOtsByEmail(@PathVariable String email) {
         try {
             logger.info("Fetching all OTs by email: {}", email);
-            List<Ot> ots = otService.getOtsByEmail(email);
+            List<OtResponse> ots = otService.getOtsByEmail(email);
             return ResponseEntity.ok(ots);
         } catch (Exception e) {
             logger.error("Error fetching all OTs: {}", e.getMessage(), e);
@@ -104,12 +127,28 @@ public class OtController {
         }
     }
 
+    @GetMapping("/{numOt}/candidates")
+    @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<List<BdcCandidateResponse>> getBdcCandidates(
+            @PathVariable String numOt,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(otService.findBdcCandidates(numOt, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching BDC candidates for OT {}: {}", numOt, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @PutMapping("/{numOt}")
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<Ot> updateOt(@PathVariable String numOt, @RequestBody OtRequest request, Authentication auth) {
+    public ResponseEntity<OtResponse> updateOt(@PathVariable String numOt, @RequestBody OtRequest request, Authentication auth) {
         try {
             logger.info("Updating OT with numOt: {} by user: {}", numOt, auth.getName());
-            Ot updatedOt = otService.updateOt(numOt, request);
+            OtResponse updatedOt = otService.updateOt(numOt, request);
             return ResponseEntity.ok(updatedOt);
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid request: {}", e.getMessage());
@@ -122,11 +161,11 @@ public class OtController {
 
     @PutMapping("/bulk")
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<Ot>> updateOtsBulk(@RequestBody List<OtRequest> requests, Authentication auth) {
+    public ResponseEntity<OtBulkUpdateResponse> updateOtsBulk(@RequestBody List<OtRequest> requests, Authentication auth) {
         try {
             logger.info("Updating {} OTs in bulk by user: {}", requests.size(), auth.getName());
-            List<Ot> updatedOts = otService.updateOtsBulk(requests);
-            return ResponseEntity.ok(updatedOts);
+            OtBulkUpdateResponse result = otService.updateOtsBulk(requests);
+            return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             logger.warn("Invalid request: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
@@ -153,4 +192,22 @@ public class OtController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to link OT to BDC");
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/link/batch")
+    @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<OtLinkBatchResponse> linkOtsToBdcs(
+            @RequestBody List<LinkOtToBdcRequest> links,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            Authentication auth) {
+        try {
+            logger.info("Linking {} OT/BDC pairs (dryRun={}) by user: {}", links.size(), dryRun, auth.getName());
+            return ResponseEntity.ok(otService.linkOtsToBdcs(links, dryRun));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error linking OTs to BDCs in batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.samsic.gestion_bc.controllers;
 import com.samsic.gestion_bc.dto.BcSummary;
 import com.samsic.gestion_bc.dto.Bcdetail;
 import com.samsic.gestion_bc.dto.TableauDeBordDTO;
-import com.samsic.gestion_bc.models.Prestation;
+import com.samsic.gestion_bc.dto.responses.PrestationLineResponse;
 import com.samsic.gestion_bc.models.Utilisateur;
 import com.samsic.gestion_bc.services.PrestationService;
 import com.samsic.gestion_bc.repositories.UserRepository;
@@ -32,10 +32,10 @@ public class PrestationController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('CHEF_PROJET', 'BACK_OFFICE')")
-    public ResponseEntity<List<Prestation>> getAllPrestations(Authentication auth) {
+    public ResponseEntity<List<PrestationLineResponse>> getAllPrestations(Authentication auth) {
         try {
             System.out.println("Fetching all prestations for user: " + auth.getName());
-            List<Prestation> prestations = prestationService.getAllPrestations(auth);
+            List<PrestationLineResponse> prestations = prestationService.getAllPrestations(auth);
             return ResponseEntity.ok(prestations);
         } catch (Exception e) {
             System.out.println("Error fetching prestations: " + e.getMessage());
@@ -77,10 +77,10 @@ public class PrestationController {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<Prestation> getPrestationById(@PathVariable String id) {
+    public ResponseEntity<PrestationLineResponse> getPrestationById(@PathVariable String id) {
         try {
             System.out.println("Fetching prestation with ID: " + id);
-            Optional<Prestation> prestation = prestationService.getPrestationById(id);
+            Optional<PrestationLineResponse> prestation = prestationService.getPrestationById(id);
             return prestation.map(ResponseEntity::ok)
                     .orElseGet(() -> {
                         System.out.println("Prestation not found: " + id);
@@ -94,10 +94,10 @@ public class PrestationController {
 
     @GetMapping("/bon-de-commande/{bcId}")
     @PreAuthorize("hasAnyRole('BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<Prestation>> getPrestationsByBonDeCommande(@PathVariable String bcId, Authentication auth) {
+    public ResponseEntity<List<PrestationLineResponse>> getPrestationsByBonDeCommande(@PathVariable String bcId, Authentication auth) {
         try {
             System.out.println("Fetching prestations for BonDeCommande: " + bcId + " for user: " + auth.getName());
-            List<Prestation> prestations = prestationService.getPrestationsByBonDeCommande(bcId);
+            List<PrestationLineResponse> prestations = prestationService.getPrestationsByBonDeCommande(bcId);
             return ResponseEntity.ok(prestations);
         } catch (Exception e) {
             System.out.println("Error fetching prestations for BonDeCommande " + bcId + ": " + e.getMessage());
@@ -0,0 +1,107 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.samsic.gestion_bc.dto.responses.CacheStatsResponse;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.dto.responses.ReferenceLoadResponse;
+import com.samsic.gestion_bc.services.ReferenceCacheService;
+import com.samsic.gestion_bc.services.ReferenceDataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/reference-data")
+@CrossOrigin(origins = "https://samsic.vercel.app")
+public class ReferenceDataController {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataController.class);
+    private final ReferenceDataLoader referenceDataLoader;
+    private final ReferenceCacheService referenceCacheService;
+
+    public ReferenceDataController(ReferenceDataLoader referenceDataLoader, ReferenceCacheService referenceCacheService) {
+        this.referenceDataLoader = referenceDataLoader;
+        this.referenceCacheService = referenceCacheService;
+    }
+
+    @PostMapping(value = "/services", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<ReferenceLoadResponse> loadServices(@RequestParam("file") MultipartFile file, Authentication auth) {
+        return load("services", file, auth);
+    }
+
+    @PostMapping(value = "/sites", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<ReferenceLoadResponse> loadSites(@RequestParam("file") MultipartFile file, Authentication auth) {
+        return load("sites", file, auth);
+    }
+
+    // Second-level cache hit/miss counters per region
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        try {
+            return ResponseEntity.ok(referenceCacheService.stats());
+        } catch (Exception e) {
+            logger.error("Error fetching cache statistics: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // For reference rows changed directly in the database
+    @PostMapping("/cache/evict")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<String> evictCache(Authentication auth) {
+        try {
+            referenceCacheService.evictAll();
+            logger.info("Second-level cache evicted by user: {}", auth.getName());
+            return ResponseEntity.ok("Cache evicted");
+        } catch (Exception e) {
+            logger.error("Error evicting cache: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to evict cache");
+        }
+    }
+
+    private ResponseEntity<ReferenceLoadResponse> load(String table, MultipartFile file, Authentication auth) {
+        logger.info("Received {} reference load {} from user: {}", table, file.getOriginalFilename(), auth.getName());
+        Path copy = null;
+        try {
+            String fileName = file.getOriginalFilename();
+            if (file.isEmpty() || fileName == null
+                    || !(fileName.toLowerCase().endsWith(".csv") || fileName.toLowerCase().endsWith(".xlsx"))) {
+                throw new IllegalArgumentException("Expected a non-empty .csv or .xlsx file: " + fileName);
+            }
+            copy = Files.createTempFile("reference-", "-" + fileName.replaceAll("[^A-Za-z0-9._-]", "_"));
+            file.transferTo(copy);
+            ReferenceLoadResponse response = table.equals("services")
+                    ? referenceDataLoader.loadServices(copy, fileName)
+                    : referenceDataLoader.loadSites(copy, fileName);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid {} reference load: {}", table, e.getMessage());
+            // Row 0: the file as a whole (wrong type, missing key column)
+            ReferenceLoadResponse response = new ReferenceLoadResponse();
+            response.setTable(table);
+            response.getErrors().add(new ImportJobResponse.RowError(0, null, e.getMessage()));
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            logger.error("Error loading {} reference data: {}", table, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        } finally {
+            if (copy != null) {
+                try {
+                    Files.deleteIfExists(copy);
+                } catch (Exception e) {
+                    logger.warn("Could not delete temp file {}: {}", copy, e.getMessage());
+                }
+            }
+        }
+    }
+}
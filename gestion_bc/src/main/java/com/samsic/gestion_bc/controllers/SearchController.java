@@ -0,0 +1,65 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.samsic.gestion_bc.dto.responses.SearchResponse;
+import com.samsic.gestion_bc.services.SearchIndexer;
+import com.samsic.gestion_bc.services.SearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "https://samsic.vercel.app")
+public class SearchController {
+    private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+    private final SearchService searchService;
+    private final SearchIndexer searchIndexer;
+
+    public SearchController(SearchService searchService, SearchIndexer searchIndexer) {
+        this.searchService = searchService;
+        this.searchIndexer = searchIndexer;
+    }
+
+    // e.g. /api/search?q=recep&types=bc,ot&limit=20
+    @GetMapping
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<SearchResponse> search(
+            @RequestParam("q") String q,
+            @RequestParam(value = "types", required = false) List<String> types,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(searchService.search(q, types, limit, auth.getName(), role));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid search request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error searching for '{}': {}", q, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Rebuilds the index of this node in the background; searches keep answering from the documents indexed so far
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('CHEF_PROJET')")
+    public ResponseEntity<String> rebuild(Authentication auth) {
+        try {
+            if (searchIndexer.isRebuilding()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Rebuild already running");
+            }
+            searchIndexer.rebuildAsync();
+            logger.info("Search index rebuild requested by user: {}", auth.getName());
+            return ResponseEntity.accepted().body("Rebuild started");
+        } catch (Exception e) {
+            logger.error("Error starting search index rebuild: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to start rebuild");
+        }
+    }
+}
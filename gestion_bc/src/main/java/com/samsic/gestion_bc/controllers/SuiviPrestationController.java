@@ -4,10 +4,19 @@ import com.samsic.gestion_bc.dto.SuiviPrestationRequest;
 import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
 import com.samsic.gestion_bc.models.File;
 import com.samsic.gestion_bc.models.SuiviPrestation;
+import com.samsic.gestion_bc.dto.requests.SuiviPrestationQuery;
+import com.samsic.gestion_bc.dto.responses.AutosaveResponse;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
+import com.samsic.gestion_bc.dto.responses.PageResponse;
+import com.samsic.gestion_bc.services.SuiviAutosaveService;
 import com.samsic.gestion_bc.services.SuiviPrestationService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -23,10 +32,12 @@ import java.util.List;
 public class SuiviPrestationController {
     private static final Logger logger = LoggerFactory.getLogger(SuiviPrestationController.class);
     private final SuiviPrestationService suiviPrestationService;
+    private final SuiviAutosaveService suiviAutosaveService;
 
     @Autowired
-    public SuiviPrestationController(SuiviPrestationService suiviPrestationService) {
+    public SuiviPrestationController(SuiviPrestationService suiviPrestationService, SuiviAutosaveService suiviAutosaveService) {
         this.suiviPrestationService = suiviPrestationService;
+        this.suiviAutosaveService = suiviAutosaveService;
     }
 
     @GetMapping
@@ -42,12 +53,51 @@ public class SuiviPrestationController {
         }
     }
 
+    // Server-side worklist: filters, sort (?sort=datePlanifiee,desc) and page (?page=0&size=50) with the total count
+    @GetMapping("/query")
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<PageResponse<SuiviPrestationResponse>> querySuiviPrestations(
+            @ModelAttribute SuiviPrestationQuery query,
+            @PageableDefault(size = 50) Pageable pageable,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            PageResponse<SuiviPrestationResponse> page = suiviPrestationService.querySuiviPrestations(query, pageable, auth.getName(), role);
+            page.setContent(suiviAutosaveService.overlay(page.getContent()));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error querying SuiviPrestations: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error querying SuiviPrestations: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Delta sync: pass the token of the previous answer as ?since=, omit it to get the full list
+    @GetMapping("/changes")
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<ChangesResponse<SuiviPrestationResponse>> getSuiviPrestationChanges(
+            @RequestParam(value = "since", required = false) String since,
+            Authentication auth) {
+        try {
+            String role = auth.getAuthorities().iterator().next().getAuthority();
+            return ResponseEntity.ok(suiviPrestationService.getSuiviPrestationChanges(since, auth.getName(), role));
+        } catch (IllegalArgumentException e) {
+            logger.error("Error fetching SuiviPrestation changes since {}: {}", since, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching SuiviPrestation changes since {}: {}", since, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @GetMapping("/find/{email:.+}")
     @PreAuthorize("hasRole('COORDINATEUR')")
     public ResponseEntity<List<SuiviPrestationResponse>> getSuiviPrestationsByEmail(@PathVariable String email) {
         try {
             logger.info("Fetching SuiviPrestations for coordinator email: {}", email);
-            List<SuiviPrestationResponse> suiviPrestations = suiviPrestationService.getSuiviPrestationsByEmail(email);
+            List<SuiviPrestationResponse> suiviPrestations = suiviAutosaveService.overlay(suiviPrestationService.getSuiviPrestationsByEmail(email));
             return suiviPrestations.isEmpty()
                     ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(null)
                     : ResponseEntity.ok(suiviPrestations);
@@ -81,18 +131,108 @@ public class SuiviPrestationController {
     public ResponseEntity<SuiviPrestationResponse> updateSuiviPrestation(@PathVariable Integer id, @RequestBody SuiviPrestationResponse request) {
         try {
             logger.info("Updating SuiviPrestation with ID: {}", id);
-            suiviPrestationService.updateSuiviPrestation(id, request);
-            SuiviPrestationResponse updatedResponse = suiviPrestationService.getSuiviPrestationById(id);
-            return ResponseEntity.ok(updatedResponse);
+            SuiviPrestationResponse updatedResponse = suiviPrestationService.updateSuiviPrestation(id, request);
+            return ResponseEntity.ok().eTag(String.valueOf(updatedResponse.getVersion())).body(updatedResponse);
         } catch (IllegalArgumentException e) {
             logger.error("Error updating SuiviPrestation ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Concurrent update of SuiviPrestation ID {}", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
         } catch (Exception e) {
             logger.error("Error updating SuiviPrestation ID {}: {}", id, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE', 'CHEF_PROJET')")
+    public ResponseEntity<SuiviPrestationResponse> getSuiviPrestation(@PathVariable Integer id) {
+        try {
+            SuiviPrestationResponse response = suiviAutosaveService.overlay(suiviPrestationService.getSuiviPrestationById(id));
+            return ResponseEntity.ok().eTag(String.valueOf(response.getVersion())).body(response);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error fetching SuiviPrestation ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (Exception e) {
+            logger.error("Error fetching SuiviPrestation ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Single-cell edits: send only the changed members (JSON Merge Patch) and the ETag received with the row.
+    // If-Match is mandatory (428 without it); "If-Match: *" is the explicit opt-out, the patch then overwrites blindly.
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE')")
+    public ResponseEntity<SuiviPrestationResponse> patchSuiviPrestation(
+            @PathVariable Integer id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            logger.warn("PATCH of SuiviPrestation ID {} without If-Match", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(null);
+        }
+        try {
+            logger.info("Patching SuiviPrestation with ID: {}", id);
+            SuiviPrestationResponse response = suiviPrestationService.patchSuiviPrestation(id, patch, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(String.valueOf(response.getVersion())).body(response);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error patching SuiviPrestation ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Stale If-Match for SuiviPrestation ID {}: {}", id, ifMatch);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (Exception e) {
+            logger.error("Error patching SuiviPrestation ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Spreadsheet autosave: the edit is stored durably and acknowledged at once, then written together with the
+    // other edits of the same row a moment later. GET /{id} and the coordinator list already show the new values.
+    // If-Match is the ETag of the row or the version returned by the previous autosave of it (412 when the row was
+    // written by someone else since), "*" skips the check; the response carries the version to send next.
+    @PatchMapping(value = "/{id}/autosave", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE')")
+    public ResponseEntity<AutosaveResponse> autosaveSuiviPrestation(
+            @PathVariable Integer id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication auth) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            logger.warn("Autosave of SuiviPrestation ID {} without If-Match", id);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(null);
+        }
+        try {
+            AutosaveResponse response = suiviAutosaveService.enqueue(id, patch, auth.getName(), parseVersion(ifMatch));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).eTag(String.valueOf(response.getVersion())).body(response);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error autosaving SuiviPrestation ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Stale If-Match for autosave of SuiviPrestation ID {}: {}", id, ifMatch);
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (Exception e) {
+            logger.error("Error autosaving SuiviPrestation ID {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
     @PutMapping("/bulk")
     @PreAuthorize("hasAnyRole('COORDINATEUR', 'BACK_OFFICE')")
     public ResponseEntity<List<SuiviPrestationResponse>> updateSuiviPrestationsBulk(@RequestBody List<SuiviPrestationResponse> requests) {
@@ -133,10 +273,10 @@ public class SuiviPrestationController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('COORDINATOR', 'BACK_OFFICE', 'CHEF_PROJET')")
-    public ResponseEntity<List<SuiviPrestation>> createSuiviPrestation(@RequestBody SuiviPrestationRequest request) {
+    public ResponseEntity<List<SuiviPrestationResponse>> createSuiviPrestation(@RequestBody SuiviPrestationRequest request) {
         try {
             logger.info("Creating SuiviPrestation for BonDeCommande: {}", request.getNumBc());
-            List<SuiviPrestation> suivis = suiviPrestationService.createSuiviPrestation(request);
+            List<SuiviPrestationResponse> suivis = suiviPrestationService.createSuiviPrestation(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(suivis);
         } catch (Exception e) {
             logger.error("Error creating SuiviPrestation: {}", e.getMessage(), e);
@@ -12,6 +12,7 @@ public class NotificationResponse {
     private Integer id;
     private Integer utilisateurId;
     private Role role;
+    private boolean broadcast;
     private String message;
     private Date createdAt;
     private boolean isRead;
@@ -1,5 +1,8 @@
 package com.samsic.gestion_bc.dto;
 
+import com.samsic.gestion_bc.models.StatutRealisation;
+import com.samsic.gestion_bc.models.StatutReceptionSystem;
+import com.samsic.gestion_bc.models.StatutRecepTech;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -23,12 +26,12 @@ public class SuiviPrestationResponse {
     private Date dateDebut;
     private Date dateFin;
     private Date dateRealisation;
-    private String statutDeRealisation;
+    private StatutRealisation statutDeRealisation;
     private Date dateRecepTech;
-    private String statutReceptionTech;
+    private StatutRecepTech statutReceptionTech;
     private Date datePf;
     private Date dateRecepSys;
-    private String statutReceptionSystem;
+    private StatutReceptionSystem statutReceptionSystem;
     private String remarque;
     private Integer delaiRecep;
     private String bc_num;
@@ -37,6 +40,7 @@ public class SuiviPrestationResponse {
     private LocalDate dateEdition;
     private FileResponse fichierReceptionTech;
     private String error;
+    private Long version;
 
     @Data
     public static class FileResponse {
@@ -1,5 +1,8 @@
 package com.samsic.gestion_bc.dto.requests;
 
+import com.samsic.gestion_bc.models.StatutRealisation;
+import com.samsic.gestion_bc.models.StatutReceptionSystem;
+import com.samsic.gestion_bc.models.StatutRecepTech;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -41,12 +44,12 @@ public class OtRequest {
         private Date dateDebut;
         private Date dateFin;
         private Date dateRealisation;
-        private String statutDeRealisation;
+        private StatutRealisation statutDeRealisation;
         private Date dateRecepTech;
-        private String statutDeRecepTech;
+        private StatutRecepTech statutDeRecepTech;
         private Date datePf;
         private Date dateRecepSys;
-        private String statutReceptionSystem;
+        private StatutReceptionSystem statutReceptionSystem;
         private String remarque;
         private Integer delaiRecep;
     }
@@ -0,0 +1,34 @@
+package com.samsic.gestion_bc.dto.requests;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Filters of GET /api/suivi-prestations/query, every field is optional.
+// The scope and changedSince fields are set by the service, not bound from request parameters.
+@Data
+public class SuiviPrestationQuery {
+    private List<String> statutDeRealisation;
+    private String statutReceptionTech;
+    private String statutReceptionSystem;
+    private Integer zoneId;
+    private String site;
+    // Prefix match on the BC number
+    private String numBc;
+    private Integer coordinateurId;
+    private Boolean ot;
+    // Date column the dateFrom / dateTo range applies to, datePlanifiee when omitted
+    private String dateField;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateTo;
+
+    private Integer scopeCoordinateurId;
+    private Integer scopeBackOfficeId;
+    // Delta sync: rows whose suivi, prestation or BC changed after this instant
+    private LocalDateTime changedSince;
+}
@@ -0,0 +1,21 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveRunResponse {
+    // BCs closed before this date were eligible
+    private LocalDateTime closedBefore;
+    private List<String> archived = new ArrayList<>();
+    private int prestations;
+    private String failureMessage;
+    private long durationMs;
+}
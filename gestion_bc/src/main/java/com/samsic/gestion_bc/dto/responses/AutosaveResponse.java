@@ -0,0 +1,20 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveResponse {
+    private Integer suiviPrestationId;
+    // Version (ETag) of the row once the buffered edits are written: send it as If-Match of the next autosave of the
+    // row; GET /{id} answers with it as ETag when this edit is in the database
+    private Long version;
+    // Edits merged for this row and not written yet (this one included)
+    private int pendingEdits;
+    private LocalDateTime acceptedAt;
+}
@@ -0,0 +1,35 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import com.samsic.gestion_bc.models.BackOffice;
+import com.samsic.gestion_bc.models.Role;
+import com.samsic.gestion_bc.models.Utilisateur;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Back office of a BC or an OT, with the account fields the screens show (never the password hash)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackOfficeResponse {
+    private Integer id;
+    private UserResponse user;
+
+    public static BackOfficeResponse of(BackOffice backOffice) {
+        return backOffice == null ? null : new BackOfficeResponse(backOffice.getId(), UserResponse.of(backOffice.getUser()));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserResponse {
+        private Integer id;
+        private String nom;
+        private String email;
+        private Role role;
+
+        public static UserResponse of(Utilisateur user) {
+            return user == null ? null : new UserResponse(user.getId(), user.getNom(), user.getEmail(), user.getRole());
+        }
+    }
+}
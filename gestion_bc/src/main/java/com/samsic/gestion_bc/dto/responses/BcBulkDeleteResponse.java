@@ -0,0 +1,20 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BcBulkDeleteResponse {
+    private int requested;
+    private List<String> deleted = new ArrayList<>();
+    private List<String> notFound = new ArrayList<>();
+    // row = index of the numBc in the request list, key = numBc
+    private List<ImportJobResponse.RowError> failed = new ArrayList<>();
+    private long durationMs;
+}
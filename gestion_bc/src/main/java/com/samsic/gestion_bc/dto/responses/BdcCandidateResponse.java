@@ -0,0 +1,21 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BdcCandidateResponse {
+    private String numBc;
+    // Share of the OT's services found on the BDC (0..1)
+    private double coverage;
+    private int matchedServices;
+    // Matched services whose remaining BDC quantity covers the OT quantity
+    private int servicesWithEnoughQuantity;
+    private List<Integer> missingServiceIds = new ArrayList<>();
+}
@@ -0,0 +1,36 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import com.samsic.gestion_bc.models.BonDeCommande;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A BC with its lines, built inside the transaction that loaded it (BonDeCommande.detail graph)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BonDeCommandeResponse {
+    private String numBc;
+    private String divisionProjet;
+    private String codeProjet;
+    private String description;
+    private LocalDate dateEdition;
+    private String numProjetFacturation;
+    private String numPvReception;
+    private boolean ot;
+    private String numOt;
+    private BackOfficeResponse backOffice;
+    private LocalDateTime updatedAt;
+    private List<PrestationLineResponse> prestations;
+
+    public static BonDeCommandeResponse of(BonDeCommande bc) {
+        return new BonDeCommandeResponse(bc.getNumBc(), bc.getDivisionProjet(), bc.getCodeProjet(), bc.getDescription(),
+                bc.getDateEdition(), bc.getNumProjetFacturation(), bc.getNumPvReception(), bc.isOt(), bc.getNumOt(),
+                BackOfficeResponse.of(bc.getBackOffice()), bc.getUpdatedAt(),
+                bc.getPrestations() != null ? bc.getPrestations().stream().map(PrestationLineResponse::of).toList() : List.of());
+    }
+}
@@ -0,0 +1,34 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private boolean statisticsEnabled;
+    private long secondLevelHits;
+    private long secondLevelMisses;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    // JDBC statements prepared by Hibernate, to compare against the hits
+    private long statements;
+    private List<RegionStats> regions = new ArrayList<>();
+
+    // Counters since startup or the last reset
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionStats {
+        private String region;
+        private long hits;
+        private long misses;
+        private long puts;
+        private double hitRatio;
+    }
+}
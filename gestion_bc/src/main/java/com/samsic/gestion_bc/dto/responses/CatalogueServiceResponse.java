@@ -0,0 +1,48 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import com.samsic.gestion_bc.models.Famille;
+import com.samsic.gestion_bc.models.ServiceQ;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A catalogue service as the BC and OT lines have always carried it (same field names as ServiceQ)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogueServiceResponse {
+    private Integer id;
+    private FamilleResponse famille;
+    private String refAuxigene;
+    private String description;
+    private String unite;
+    private String type;
+    private double prix;
+    private String remarque;
+    private String modele_technique;
+    private String type_materiel;
+    private String specification;
+    private String famille_technique;
+
+    public static CatalogueServiceResponse of(ServiceQ service) {
+        if (service == null) {
+            return null;
+        }
+        return new CatalogueServiceResponse(service.getId(), FamilleResponse.of(service.getFamille()),
+                service.getRefAuxigene(), service.getDescription(), service.getUnite(), service.getType(),
+                service.getPrix(), service.getRemarque(), service.getModele_technique(), service.getType_materiel(),
+                service.getSpecification(), service.getFamille_technique());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FamilleResponse {
+        private Long id;
+        private String name;
+
+        public static FamilleResponse of(Famille famille) {
+            return famille == null ? null : new FamilleResponse(famille.getId(), famille.getName());
+        }
+    }
+}
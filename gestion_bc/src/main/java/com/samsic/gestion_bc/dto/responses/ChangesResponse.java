@@ -0,0 +1,19 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesResponse<T> {
+    // Pass back as ?since= on the next call
+    private String token;
+    // True when no (or an expired) token was sent: upserts is then the whole list and the client must replace its copy
+    private boolean full;
+    private List<T> upserts;
+    private List<String> deleted;
+}
@@ -0,0 +1,32 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventMetricsResponse {
+    private long pending;
+    private long failed;
+    private int queued;
+    private int activeWorkers;
+    private List<HandlerMetrics> handlers = new ArrayList<>();
+
+    // Counters since startup
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HandlerMetrics {
+        private String handler;
+        private long succeeded;
+        private long failed;
+        private long deadLettered;
+        private double averageMillis;
+        private double maxMillis;
+    }
+}
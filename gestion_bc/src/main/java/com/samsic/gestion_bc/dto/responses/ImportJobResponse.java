@@ -0,0 +1,35 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobResponse {
+    private String jobId;
+    private String type;
+    private String fileName;
+    private String status;
+    private int rowsRead;
+    private int rowsImported;
+    private int rowsRejected;
+    private int aggregatesCreated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String failureMessage;
+    private List<RowError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String key;
+        private String message;
+    }
+}
@@ -0,0 +1,18 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtBulkUpdateResponse {
+    private int requested;
+    private List<OtResponse> updated = new ArrayList<>();
+    // row = index of the item in the request list, key = numOt
+    private List<ImportJobResponse.RowError> failed = new ArrayList<>();
+}
@@ -0,0 +1,32 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtLinkBatchResponse {
+    private boolean dryRun;
+    private int requested;
+    private int linked;
+    private int suiviCreated;
+    private int mismatched;
+    private List<LinkResult> results = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LinkResult {
+        private String numOt;
+        private String numBc;
+        // false for every pair in a dry run
+        private boolean linked;
+        private int prestationsMatched;
+        private List<String> mismatches = new ArrayList<>();
+    }
+}
@@ -11,4 +11,8 @@ public class OtMetricsResponse {
     private Double totalCost;
     private Double realisedCost;
     private Double receptionneCost;
+    private Double enCoursCost;
+    private Double pendingCost;
+    private Long otCount;
+    private Long prestationCount;
 }
\ No newline at end of file
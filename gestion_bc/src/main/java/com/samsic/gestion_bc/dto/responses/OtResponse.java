@@ -0,0 +1,117 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import com.samsic.gestion_bc.models.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// An OT with its lines, built inside the transaction that loaded it (Ot.list graph)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtResponse {
+    private String numOt;
+    private String divisionProjet;
+    private String codeProjet;
+    private ZoneRef zone;
+    private LocalDate dateGo;
+    private SiteRef codeSite;
+    private BackOfficeResponse backOffice;
+    private LocalDateTime updatedAt;
+    private List<Line> prestations;
+
+    // files: name and type of the reception files of the lines by id, read without their content
+    public static OtResponse of(Ot ot, Map<Long, SuiviPrestationResponse.FileResponse> files) {
+        return new OtResponse(ot.getNumOt(), ot.getDivisionProjet(), ot.getCodeProjet(), ZoneRef.of(ot.getZone()),
+                ot.getDateGo(), SiteRef.of(ot.getCodeSite()), BackOfficeResponse.of(ot.getBackOffice()), ot.getUpdatedAt(),
+                ot.getPrestations() != null ? ot.getPrestations().stream().map(line -> Line.of(line, files)).toList() : List.of());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long id;
+        private Integer numLigne;
+        private Integer quantiteValide;
+        private CatalogueServiceResponse service;
+        private String famille;
+        private CoordinateurRef coordinateur;
+        private SuiviPrestationResponse.FileResponse fichierReceptionTech;
+        private String fournisseur;
+        private Date datePlanifiee;
+        private LocalDate dateGo;
+        private Date dateDebut;
+        private Date dateFin;
+        private Date dateRealisation;
+        private StatutRealisation statutDeRealisation;
+        private Date dateRecepTech;
+        private StatutRecepTech statutDeRecepTech;
+        private Date datePf;
+        private Date dateRecepSys;
+        private StatutReceptionSystem statutReceptionSystem;
+        private String remarque;
+        private double qteRealise;
+        private double qteEncours;
+        private Integer delaiRecep;
+        private LocalDateTime updatedAt;
+
+        static Line of(OtPrestation line, Map<Long, SuiviPrestationResponse.FileResponse> files) {
+            // The id of a lazy file is read from the proxy without loading it
+            File file = line.getFichierReceptionTech();
+            return new Line(line.getId(), line.getNumLigne(), line.getQuantiteValide(), CatalogueServiceResponse.of(line.getService()),
+                    line.getFamille(), CoordinateurRef.of(line.getCoordinateur()), file != null ? files.get(file.getId()) : null,
+                    line.getFournisseur(), line.getDatePlanifiee(), line.getDateGo(), line.getDateDebut(), line.getDateFin(),
+                    line.getDateRealisation(), line.getStatutDeRealisation(), line.getDateRecepTech(), line.getStatutDeRecepTech(),
+                    line.getDatePf(), line.getDateRecepSys(), line.getStatutReceptionSystem(), line.getRemarque(),
+                    line.getQteRealise(), line.getQteEncours(), line.getDelaiRecep(), line.getUpdatedAt());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ZoneRef {
+        private Integer id;
+        private String nom;
+
+        static ZoneRef of(Zone zone) {
+            return zone == null ? null : new ZoneRef(zone.getId(), zone.getNom());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SiteRef {
+        private Integer id;
+        private String codesite;
+        private ZoneRef zone;
+        private String region;
+
+        static SiteRef of(Site site) {
+            return site == null ? null : new SiteRef(site.getId(), site.getCodesite(), ZoneRef.of(site.getZone()), site.getRegion());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoordinateurRef {
+        private Integer id;
+        private BackOfficeResponse.UserResponse user;
+        private ZoneRef zone;
+
+        static CoordinateurRef of(Coordinateur coordinateur) {
+            return coordinateur == null ? null : new CoordinateurRef(coordinateur.getId(),
+                    BackOfficeResponse.UserResponse.of(coordinateur.getUser()), ZoneRef.of(coordinateur.getZone()));
+        }
+    }
+}
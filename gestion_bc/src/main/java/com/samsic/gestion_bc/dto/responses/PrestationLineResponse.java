@@ -0,0 +1,30 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import com.samsic.gestion_bc.models.Prestation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A line of a BC; id is the PST- code
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrestationLineResponse {
+    private String id;
+    private Integer numLigne;
+    private String famille;
+    private String description;
+    private String codeSite;
+    private String fournisseur;
+    private Double qteBc;
+    private CatalogueServiceResponse service;
+    private LocalDateTime updatedAt;
+
+    public static PrestationLineResponse of(Prestation prestation) {
+        return new PrestationLineResponse(prestation.getCode(), prestation.getNumLigne(), prestation.getFamille(),
+                prestation.getDescription(), prestation.getCodeSite(), prestation.getFournisseur(), prestation.getQteBc(),
+                CatalogueServiceResponse.of(prestation.getService()), prestation.getUpdatedAt());
+    }
+}
@@ -0,0 +1,22 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenceLoadResponse {
+    private String table;
+    private int rowsRead;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+    private long durationMs;
+    private List<ImportJobResponse.RowError> errors = new ArrayList<>();
+}
@@ -0,0 +1,32 @@
+package com.samsic.gestion_bc.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    private String query;
+    private long total;
+    private long tookMs;
+    // False while the index is being built: results can be incomplete
+    private boolean complete = true;
+    private List<Hit> hits = new ArrayList<>();
+
+    // type is bc, ot or site; id is the numBc, numOt or site id
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private String type;
+        private String id;
+        private String title;
+        private String subtitle;
+        private float score;
+    }
+}
@@ -1,21 +1,30 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.services.ReferenceCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "back_office")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCacheConfig.BACK_OFFICE_REGION)
+@EntityListeners(ReferenceCacheListener.class)
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class BackOffice {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = true, nullable = false)
     private Utilisateur user;
 }
@@ -1,23 +1,58 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.services.BdcCandidateIndexListener;
+import com.samsic.gestion_bc.services.ChangeTrackingListener;
+import com.samsic.gestion_bc.services.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "bon_de_commande")
+// header: list rows with their back office; detail: the lines and their service as well (suivis are batch fetched)
+@NamedEntityGraph(name = "BonDeCommande.header",
+        attributeNodes = @NamedAttributeNode(value = "backOffice", subgraph = "backOffice"),
+        subgraphs = @NamedSubgraph(name = "backOffice", attributeNodes = @NamedAttributeNode("user")))
+@NamedEntityGraph(name = "BonDeCommande.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "backOffice", subgraph = "backOffice"),
+                @NamedAttributeNode(value = "prestations", subgraph = "prestations")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "backOffice", attributeNodes = @NamedAttributeNode("user")),
+                @NamedSubgraph(name = "prestations", attributeNodes = {
+                        @NamedAttributeNode(value = "service", subgraph = "service"),
+                        @NamedAttributeNode("familleProjet")
+                }),
+                @NamedSubgraph(name = "service", attributeNodes = @NamedAttributeNode("famille"))
+        })
+@Table(name = "bon_de_commande", indexes = {
+        @Index(name = "idx_bc_back_office_updated", columnList = "back_office_id, updated_at"),
+        @Index(name = "idx_bc_updated", columnList = "updated_at")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_bc_num_bc", columnNames = "num_bc"))
+@EntityListeners({BdcCandidateIndexListener.class, ChangeTrackingListener.class, SearchIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class BonDeCommande {
+    // Sequential surrogate key, drawn 50 at a time from bon_de_commande_seq so inserts stay batched; the API only
+    // exposes numBc
     @Id
-    @Column(name = "num_bc")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bon_de_commande_seq")
+    @SequenceGenerator(name = "bon_de_commande_seq", sequenceName = "bon_de_commande_seq", allocationSize = 50)
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "num_bc", nullable = false, updatable = false)
     private String numBc;
 
     private String divisionProjet;
@@ -37,10 +72,15 @@ public class BonDeCommande {
 
     private String numOt; //to be deleted later
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "back_office_id")
     private BackOffice backOffice;
 
+    // Set by MySQL on insert and on every update that changes the row, read by the /changes endpoints
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "bonDeCommande", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Prestation> prestations = new ArrayList<>();
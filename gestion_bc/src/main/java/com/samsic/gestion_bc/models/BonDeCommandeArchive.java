@@ -0,0 +1,49 @@
+package com.samsic.gestion_bc.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A closed BC moved out of the hot tables: the BC, its prestations and suivi rows as one gzip-compressed JSON document
+@Entity
+@Table(name = "bc_archive", indexes = {
+        @Index(name = "idx_bc_archive_back_office", columnList = "back_office_id, archived_at"),
+        @Index(name = "idx_bc_archive_code_projet", columnList = "code_projet")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonDeCommandeArchive {
+    @Id
+    @Column(name = "num_bc")
+    private String numBc;
+
+    @Column(name = "back_office_id")
+    private Integer backOfficeId;
+
+    @Column(name = "code_projet")
+    private String codeProjet;
+
+    @Column(name = "date_edition")
+    private LocalDate dateEdition;
+
+    @Column(name = "line_count")
+    private Integer lineCount;
+
+    // Last system reception of the BC
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Lob
+    @JsonIgnore
+    @Column(name = "document", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] document;
+}
@@ -0,0 +1,66 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Contribution of an archived BC to the report and dashboard queries, one row per (BC, service, famille projet).
+// Amounts are the sums those queries computed over the hot tables at archival time, so they can be added back
+// with UNION ALL instead of rescanning archived lines.
+@Entity
+@Table(name = "bc_archive_aggregates", indexes = {
+        @Index(name = "idx_bc_archive_agg_back_office", columnList = "back_office_id"),
+        @Index(name = "idx_bc_archive_agg_num_bc", columnList = "num_bc")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BonDeCommandeArchiveAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "num_bc", nullable = false)
+    private String numBc;
+
+    @Column(name = "back_office_id")
+    private Integer backOfficeId;
+
+    private String divisionProjet;
+    private String codeProjet;
+    private LocalDate dateEdition;
+    private String bcDescription;
+    private String familleProjet;
+    private Integer serviceId;
+    private String serviceDescription;
+    private String familleName;
+    private Double prix;
+    private Integer numLigne;
+
+    private Double qteBc;
+    private Double montantBc;
+    private Double qteRealiseRealise;
+    private Double montantRealise;
+    private Double qteEncoursEncours;
+    private Double montantEncours;
+    private Double montantRecepTech;
+    private Double montantRecepTechEnCours;
+    private Double montantRecepTechReserve;
+    private Double montantDeposeSys;
+    @Column(name = "montant_a_deposer_sys")
+    private Double montantADeposerSys;
+    private Double montantReceptionneSys;
+
+    // Same quantities regardless of status
+    private Double montantCloture;
+    private Double montantSys;
+    private Double montantDepose;
+    @Column(name = "montant_a_deposer")
+    private Double montantADeposer;
+    private Double montantTech;
+    private Double qteRealise;
+    private Double montantReceptionneDate;
+}
@@ -0,0 +1,33 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Invalidation log tailed by every node (JdbcCacheInvalidationBus). A null key evicts the whole cache.
+// Rows are only read by id and purged after cache.invalidation.retention-minutes.
+@Entity
+@Table(name = "cache_invalidation_log", indexes = @Index(name = "idx_cache_invalidation_created", columnList = "created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheInvalidation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(nullable = false, length = 64)
+    private String cacheName;
+
+    @Column(length = 191)
+    private String cacheKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
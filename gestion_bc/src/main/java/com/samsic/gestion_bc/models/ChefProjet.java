@@ -1,10 +1,17 @@
 package com.samsic.gestion_bc.models;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.services.ReferenceCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "chefs")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCacheConfig.CHEF_PROJET_REGION)
+@EntityListeners(ReferenceCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +21,7 @@ public class ChefProjet {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = true, nullable = false)
     private Utilisateur user;
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.samsic.gestion_bc.models;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Workflow statuses are stored as TINYINT codes and exchanged with the front as labels.
+// Codes are persisted and used as literals in the report SQL: never renumber one, only add new ones.
+public interface CodedStatus {
+    int getCode();
+
+    String getLabel();
+
+    static <E extends Enum<E> & CodedStatus> E fromCode(Class<E> type, Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (E status : type.getEnumConstants()) {
+            if (status.getCode() == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " code: " + code);
+    }
+
+    // Accepts the label or the constant name in any casing, with or without accents ("Réalisé", "REALISE", "realise")
+    static <E extends Enum<E> & CodedStatus> E fromLabel(Class<E> type, String label) {
+        if (label == null || label.isBlank()) {
+            return null;
+        }
+        String key = key(label);
+        for (E status : type.getEnumConstants()) {
+            if (key(status.getLabel()).equals(key) || key(status.name()).equals(key)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + label);
+    }
+
+    static Integer code(CodedStatus status) {
+        return status != null ? status.getCode() : null;
+    }
+
+    private static String key(String value) {
+        return Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^A-Za-z0-9]", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,21 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.AttributeConverter;
+
+public abstract class CodedStatusConverter<E extends Enum<E> & CodedStatus> implements AttributeConverter<E, Integer> {
+    private final Class<E> type;
+
+    protected CodedStatusConverter(Class<E> type) {
+        this.type = type;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(E status) {
+        return CodedStatus.code(status);
+    }
+
+    @Override
+    public E convertToEntityAttribute(Integer code) {
+        return CodedStatus.fromCode(type, code);
+    }
+}
@@ -1,24 +1,34 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.services.ReferenceCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@NamedEntityGraph(name = "Coordinateur.detail", attributeNodes = {@NamedAttributeNode("user"), @NamedAttributeNode("zone")})
 @Table(name = "coordinateurs")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCacheConfig.COORDINATEUR_REGION)
+@EntityListeners(ReferenceCacheListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Coordinateur {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = true, nullable = false)
     private Utilisateur user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "zone_id")
     private Zone zone;
 }
\ No newline at end of file
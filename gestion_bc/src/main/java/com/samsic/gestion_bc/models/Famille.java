@@ -1,15 +1,24 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.services.ReferenceCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "familles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCacheConfig.FAMILLE_REGION)
+@EntityListeners(ReferenceCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Famille {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
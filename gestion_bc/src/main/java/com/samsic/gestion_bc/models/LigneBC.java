@@ -37,7 +37,7 @@ public class LigneBC {
     private String remarque;
     private Integer delaiReceptionBc;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "prestation_id")
     private Prestation prestation;
 
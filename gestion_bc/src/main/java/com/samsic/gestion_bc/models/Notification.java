@@ -6,8 +6,13 @@ import lombok.Setter;
 import jakarta.persistence.*;
 import java.util.Date;
 
+// A notification is either direct (utilisateur set, read state in is_read) or a broadcast to every user
+// of a role (audience set, read state per user in notification_reads)
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notification_user_created", columnList = "utilisateur_id, created_at"),
+        @Index(name = "idx_notification_audience_created", columnList = "audience, created_at")
+})
 @Getter
 @Setter
 public class Notification {
@@ -15,10 +20,14 @@ public class Notification {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
-    @JoinColumn(name = "utilisateur_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "utilisateur_id")
     private Utilisateur utilisateur;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "audience")
+    private Role audience;
+
     @Column(name = "message", nullable = false)
     private String message;
 
@@ -28,4 +37,4 @@ public class Notification {
 
     @Column(name = "is_read", nullable = false)
     private boolean isRead;
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Read marker of one user on one broadcast notification
+@Entity
+@Table(name = "notification_reads",
+        uniqueConstraints = @UniqueConstraint(name = "uk_notification_read", columnNames = {"utilisateur_id", "notification_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationRead {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "utilisateur_id", nullable = false)
+    private Integer utilisateurId;
+
+    @Column(name = "notification_id", nullable = false)
+    private Integer notificationId;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+}
@@ -1,18 +1,45 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.services.ChangeTrackingListener;
+import com.samsic.gestion_bc.services.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ot")
+// list: everything the OT screens serialize, OT lines included
+@NamedEntityGraph(name = "Ot.list",
+        attributeNodes = {
+                @NamedAttributeNode("zone"),
+                @NamedAttributeNode(value = "codeSite", subgraph = "site"),
+                @NamedAttributeNode(value = "backOffice", subgraph = "backOffice"),
+                @NamedAttributeNode(value = "prestations", subgraph = "prestations")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "site", attributeNodes = @NamedAttributeNode("zone")),
+                @NamedSubgraph(name = "backOffice", attributeNodes = @NamedAttributeNode("user")),
+                @NamedSubgraph(name = "prestations", attributeNodes = {
+                        @NamedAttributeNode(value = "service", subgraph = "service"),
+                        @NamedAttributeNode(value = "coordinateur", subgraph = "coordinateur")
+                }),
+                @NamedSubgraph(name = "service", attributeNodes = @NamedAttributeNode("famille")),
+                @NamedSubgraph(name = "coordinateur", attributeNodes = {
+                        @NamedAttributeNode("user"),
+                        @NamedAttributeNode("zone")
+                })
+        })
+@Table(name = "ot", indexes = @Index(name = "idx_ot_updated", columnList = "updated_at"))
+@EntityListeners({ChangeTrackingListener.class, SearchIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Ot {
     @Id
     @Column(name = "num_ot")
@@ -22,20 +49,25 @@ public class Ot {
 
     private String codeProjet;
 
-    @OneToOne(cascade = CascadeType.MERGE)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     @JoinColumn(name = "zone_id")
     private Zone zone;
 
     private LocalDate dateGo;
 
-    @ManyToOne(cascade = CascadeType.MERGE)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     @JoinColumn(name="codesite_id")
     private Site codeSite;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="back_office_id")
     private BackOffice backOffice;
 
+    // Set by MySQL on insert and on every update that changes the row, read by the /changes endpoints
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "ot", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<OtPrestation> prestations = new ArrayList<>();
@@ -1,5 +1,8 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.services.ChangeTrackingListener;
+import com.samsic.gestion_bc.services.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -8,14 +11,21 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Date;
 
 @Entity
-@Table(name = "ot_prestation")
+@Table(name = "ot_prestation", indexes = {
+        @Index(name = "idx_ot_prestation_updated", columnList = "updated_at"),
+        // OT metrics: the prestations of an OT with the statuses the cost figures are split on
+        @Index(name = "idx_ot_prestation_ot_statut", columnList = "ot_num_ot, statut_de_realisation, statut_de_recep_tech")
+})
+@EntityListeners({ChangeTrackingListener.class, SearchIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class OtPrestation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,16 +36,16 @@ public class OtPrestation {
     @Column(name = "qte_valide")
     private Integer quantiteValide;
 
-    @OneToOne(cascade = CascadeType.MERGE)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
     private ServiceQ service;
 
     private String famille;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "coordinateur_id")
     private Coordinateur coordinateur;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fichier_reception_tech_id")
     private File fichierReceptionTech;
 
@@ -55,12 +65,16 @@ public class OtPrestation {
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRealisation;
 
-    private String statutDeRealisation;
+    @Convert(converter = StatutRealisation.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutRealisation statutDeRealisation;
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRecepTech;
 
-    private String statutDeRecepTech;
+    @Convert(converter = StatutRecepTech.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutRecepTech statutDeRecepTech;
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date datePf;
@@ -68,7 +82,9 @@ public class OtPrestation {
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRecepSys;
 
-    private String statutReceptionSystem;
+    @Convert(converter = StatutReceptionSystem.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutReceptionSystem statutReceptionSystem;
 
     private String remarque;
 
@@ -78,7 +94,12 @@ public class OtPrestation {
 
     private Integer delaiRecep;
 
-    @ManyToOne
+    // Set by MySQL on insert and on every update that changes the row, read by the /changes endpoints
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ot_num_ot")
     @JsonBackReference
     private Ot ot;
@@ -1,24 +1,53 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.services.BdcCandidateIndexListener;
+import com.samsic.gestion_bc.services.ChangeTrackingListener;
+import com.samsic.gestion_bc.services.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "prestations")
+@NamedEntityGraph(name = "Prestation.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "service", subgraph = "service"),
+                @NamedAttributeNode("familleProjet")
+        },
+        subgraphs = @NamedSubgraph(name = "service", attributeNodes = @NamedAttributeNode("famille")))
+@Table(name = "prestations", indexes = @Index(name = "idx_prestations_updated", columnList = "updated_at"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_prestations_code", columnNames = "code"))
+@EntityListeners({BdcCandidateIndexListener.class, ChangeTrackingListener.class, SearchIndexListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Prestation {
+    // Sequential surrogate key, drawn 50 at a time from prestations_seq so inserts stay batched
     @Id
-    private String id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prestations_seq")
+    @SequenceGenerator(name = "prestations_seq", sequenceName = "prestations_seq", allocationSize = 50)
+    @JsonIgnore
+    private Long id;
+
+    // PST-XXXXXX business key, still exposed as "id" by the API
+    @Column(name = "code", nullable = false, updatable = false)
+    @JsonProperty("id")
+    private String code;
 
     private Integer numLigne;
 
-    private String famille;
+    // Famille projet, the famille of the service unless the BC says otherwise
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "famille_id")
+    @JsonIgnore
+    private Famille familleProjet;
 
     private String description;
 
@@ -28,16 +57,32 @@ public class Prestation {
 
     private Double qteBc;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "service_id")
     private ServiceQ service;
 
+    // services.prix when the line got its service: a later price change does not reprice existing lines.
+    // montant_bc (qte_bc * prix_unitaire) is a stored generated column of the table, read by the report queries only.
+    @JsonIgnore
+    private Double prixUnitaire;
+
+    // Set by MySQL on insert and on every update that changes the row, read by the /changes endpoints
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "prestation", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonBackReference
     private List<SuiviPrestation> suivi;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "bc_id")
     @JsonBackReference
     private BonDeCommande bonDeCommande;
+
+    // The API has always exposed the famille projet by name
+    @JsonProperty("famille")
+    public String getFamille() {
+        return familleProjet != null ? familleProjet.getName() : null;
+    }
 }
\ No newline at end of file
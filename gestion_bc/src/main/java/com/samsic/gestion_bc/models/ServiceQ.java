@@ -1,25 +1,36 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.services.ReferenceCacheListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@NamedEntityGraph(name = "ServiceQ.famille", attributeNodes = @NamedAttributeNode("famille"))
 @Table(name = "services")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ReferenceCacheConfig.SERVICE_REGION)
+@EntityListeners(ReferenceCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class ServiceQ {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "famille_id")
     private Famille famille;
 
+    @Column(unique = true)
     private String refAuxigene;
     private String description;
     private String unite;
@@ -0,0 +1,44 @@
+package com.samsic.gestion_bc.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// statut_de_realisation of suivi_prestation and ot_prestation
+public enum StatutRealisation implements CodedStatus {
+    PENDING(0, "PENDING"),
+    EN_COURS(1, "En cours"),
+    REALISE(2, "Realise"),
+    // Default and option of the coordinator screens: planned, not started
+    PLANIFIE(3, "Planifié");
+
+    private final int code;
+    private final String label;
+
+    StatutRealisation(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    @JsonCreator
+    public static StatutRealisation fromLabel(String label) {
+        return CodedStatus.fromLabel(StatutRealisation.class, label);
+    }
+
+    @jakarta.persistence.Converter
+    public static class Converter extends CodedStatusConverter<StatutRealisation> {
+        public Converter() {
+            super(StatutRealisation.class);
+        }
+    }
+}
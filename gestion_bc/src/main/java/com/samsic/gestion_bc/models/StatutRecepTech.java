@@ -0,0 +1,43 @@
+package com.samsic.gestion_bc.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// statut_de_recep_tech of suivi_prestation and ot_prestation
+public enum StatutRecepTech implements CodedStatus {
+    PENDING(0, "PENDING"),
+    EN_COURS(1, "En cours"),
+    RESERVE(2, "Réserve"),
+    RECEPTIONNE(3, "Receptionne");
+
+    private final int code;
+    private final String label;
+
+    StatutRecepTech(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    @JsonCreator
+    public static StatutRecepTech fromLabel(String label) {
+        return CodedStatus.fromLabel(StatutRecepTech.class, label);
+    }
+
+    @jakarta.persistence.Converter
+    public static class Converter extends CodedStatusConverter<StatutRecepTech> {
+        public Converter() {
+            super(StatutRecepTech.class);
+        }
+    }
+}
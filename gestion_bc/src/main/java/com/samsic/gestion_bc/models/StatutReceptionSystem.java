@@ -0,0 +1,45 @@
+package com.samsic.gestion_bc.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// statut_reception_system of suivi_prestation and ot_prestation
+public enum StatutReceptionSystem implements CodedStatus {
+    PENDING(0, "PENDING"),
+    A_DEPOSER(1, "A déposer Sys"),
+    DEPOSE(2, "Depose Sys"),
+    RECEPTIONNE(3, "Receptionne Sys"),
+    // Default of the coordinator screens, before the line is to be deposited
+    EN_COURS(4, "En cours");
+
+    private final int code;
+    private final String label;
+
+    StatutReceptionSystem(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    @JsonCreator
+    public static StatutReceptionSystem fromLabel(String label) {
+        return CodedStatus.fromLabel(StatutReceptionSystem.class, label);
+    }
+
+    @jakarta.persistence.Converter
+    public static class Converter extends CodedStatusConverter<StatutReceptionSystem> {
+        public Converter() {
+            super(StatutReceptionSystem.class);
+        }
+    }
+}
@@ -1,44 +1,94 @@
 package com.samsic.gestion_bc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.samsic.gestion_bc.services.BdcCandidateIndexListener;
+import com.samsic.gestion_bc.services.ChangeTrackingListener;
+import com.samsic.gestion_bc.services.SearchIndexListener;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "suivi_prestation")
+// detail: what SuiviPrestationResponse reads; scheduler: who to notify about a late row
+@NamedEntityGraph(name = "SuiviPrestation.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "prestation", subgraph = "prestation"),
+                @NamedAttributeNode("zone"),
+                @NamedAttributeNode("codesite"),
+                @NamedAttributeNode("coordinateur"),
+                @NamedAttributeNode("fichierReceptionTech")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "prestation", attributeNodes = {
+                        @NamedAttributeNode("bonDeCommande"),
+                        @NamedAttributeNode(value = "service", subgraph = "service")
+                }),
+                @NamedSubgraph(name = "service", attributeNodes = @NamedAttributeNode("famille"))
+        })
+@NamedEntityGraph(name = "SuiviPrestation.scheduler",
+        attributeNodes = {
+                @NamedAttributeNode(value = "prestation", subgraph = "prestation"),
+                @NamedAttributeNode(value = "coordinateur", subgraph = "coordinateur")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "prestation", attributeNodes = @NamedAttributeNode(value = "bonDeCommande", subgraph = "bonDeCommande")),
+                @NamedSubgraph(name = "bonDeCommande", attributeNodes = @NamedAttributeNode(value = "backOffice", subgraph = "backOffice")),
+                @NamedSubgraph(name = "backOffice", attributeNodes = @NamedAttributeNode("user")),
+                @NamedSubgraph(name = "coordinateur", attributeNodes = @NamedAttributeNode("user"))
+        })
+@Table(name = "suivi_prestation", indexes = {
+        // Worklist filters (GET /api/suivi-prestations/query): scope first, then status, then the date range
+        @Index(name = "idx_suivi_coord_statut_plan", columnList = "coordinateur_id, statut_de_realisation, date_planifiee"),
+        @Index(name = "idx_suivi_zone_statut_plan", columnList = "zone_id, statut_de_realisation, date_planifiee"),
+        @Index(name = "idx_suivi_statut_realisation", columnList = "statut_de_realisation, date_realisation"),
+        @Index(name = "idx_suivi_recep_tech", columnList = "statut_de_recep_tech, date_recep_tech"),
+        @Index(name = "idx_suivi_recep_sys", columnList = "statut_reception_system, date_recep_sys"),
+        // Report and archive queries: the suivis of a prestation, pre-split by status
+        @Index(name = "idx_suivi_prestation_realisation", columnList = "prestation_id, statut_de_realisation"),
+        @Index(name = "idx_suivi_prestation_recep_tech", columnList = "prestation_id, statut_de_recep_tech"),
+        @Index(name = "idx_suivi_prestation_recep_sys", columnList = "prestation_id, statut_reception_system"),
+        @Index(name = "idx_suivi_coord_updated", columnList = "coordinateur_id, updated_at"),
+        @Index(name = "idx_suivi_updated", columnList = "updated_at")
+})
+@EntityListeners({BdcCandidateIndexListener.class, ChangeTrackingListener.class, SearchIndexListener.class})
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class SuiviPrestation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "prestation_id")
     private Prestation prestation;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Site codesite;
 
     private Integer quantiteValide;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "coordinateur_id")
     private Coordinateur coordinateur;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "zone_id")
     private Zone zone;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "fichier_reception_tech_id")
     private File fichierReceptionTech;
 
@@ -52,6 +102,10 @@ public class SuiviPrestation {
     private Double qteADepose;
     private Double qteSys;
 
+    // Copy of prestation.prixUnitaire for the stored generated montant_* columns (qte_* * prix_unitaire) of the row
+    @JsonIgnore
+    private Double prixUnitaire;
+
     private String fournisseur;
 
     @Temporal(TemporalType.TIMESTAMP)
@@ -68,12 +122,16 @@ public class SuiviPrestation {
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRealisation;
 
-    private String statutDeRealisation;
+    @Convert(converter = StatutRealisation.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutRealisation statutDeRealisation;
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRecepTech;
 
-    private String statutDeRecepTech;
+    @Convert(converter = StatutRecepTech.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutRecepTech statutDeRecepTech;
 
     @Temporal(TemporalType.TIMESTAMP)
     private Date datePf;
@@ -81,12 +139,24 @@ public class SuiviPrestation {
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateRecepSys;
 
-    private String statutReceptionSystem;
+    @Convert(converter = StatutReceptionSystem.Converter.class)
+    @Column(columnDefinition = "TINYINT")
+    private StatutReceptionSystem statutReceptionSystem;
 
     private String remarque;
 
     private Integer delaiRecep;
 
+    // Optimistic lock, exposed to clients as the ETag of a suivi
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // Set by MySQL on insert and on every update that changes the row, read by the /changes endpoints
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "suiviPrestation", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<SuiviPrestationNotification> sentNotifications = new ArrayList<>();
@@ -17,7 +17,7 @@ public class SuiviPrestationNotification {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "suivi_prestation_id", nullable = false)
     @JsonBackReference
     private SuiviPrestation suiviPrestation;
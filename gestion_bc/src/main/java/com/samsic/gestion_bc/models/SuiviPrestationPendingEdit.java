@@ -0,0 +1,44 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Autosave edit accepted but not yet written to suivi_prestation (see SuiviAutosaveService).
+// Rows belong to the node that buffers them while it renews their lease, are deleted in the same transaction that
+// applies them, and are taken over by another node once the lease has run out.
+@Entity
+@Table(name = "suivi_prestation_pending_edits", indexes = {
+        @Index(columnList = "suivi_prestation_id"),
+        @Index(name = "idx_pending_edit_owner", columnList = "owner_node"),
+        @Index(name = "idx_pending_edit_lease", columnList = "lease_until")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SuiviPrestationPendingEdit {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "suivi_prestation_id", nullable = false)
+    private Integer suiviPrestationId;
+
+    // JSON Merge Patch as sent by the client
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String patch;
+
+    private String userEmail;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "owner_node", nullable = false, length = 36)
+    private String ownerNode;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,38 @@
+package com.samsic.gestion_bc.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Deleted row of a synced table, so that /changes can tell clients what to drop.
+// Written by ChangeTrackingListener in the deleting transaction, purged after the retention period.
+@Entity
+@Table(name = "sync_tombstones", indexes = {
+        @Index(name = "idx_tombstone_type_deleted", columnList = "entity_type, deleted_at"),
+        @Index(name = "idx_tombstone_deleted", columnList = "deleted_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private String entityId;
+
+    // num_bc of a deleted prestation, num_ot of a deleted OT prestation
+    @Column(name = "parent_id")
+    private String parentId;
+
+    @Column(name = "deleted_at", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)")
+    private LocalDateTime deletedAt;
+}
@@ -1,13 +1,25 @@
 package com.samsic.gestion_bc.repositories;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.BackOffice;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BackOfficeRepository extends JpaRepository<BackOffice, Integer> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
+    @Override
+    List<BackOffice> findAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     @Query("SELECT b FROM BackOffice b JOIN b.user u WHERE u.email = :email")
     Optional<BackOffice> findByUserEmail(@Param("email") String email);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.models.BonDeCommandeArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BonDeCommandeArchiveRepository extends JpaRepository<BonDeCommandeArchive, String> {
+
+    // Listing without the documents
+    interface ArchiveSummary {
+        String getNumBc();
+        Integer getBackOfficeId();
+        String getCodeProjet();
+        LocalDate getDateEdition();
+        Integer getLineCount();
+        LocalDateTime getClosedAt();
+        LocalDateTime getArchivedAt();
+    }
+
+    @Query("SELECT a.numBc AS numBc, a.backOfficeId AS backOfficeId, a.codeProjet AS codeProjet, a.dateEdition AS dateEdition, " +
+            "a.lineCount AS lineCount, a.closedAt AS closedAt, a.archivedAt AS archivedAt " +
+            "FROM BonDeCommandeArchive a WHERE (:backOfficeId IS NULL OR a.backOfficeId = :backOfficeId) ORDER BY a.archivedAt DESC")
+    List<ArchiveSummary> findSummaries(@Param("backOfficeId") Integer backOfficeId);
+
+    @Query("SELECT a.numBc FROM BonDeCommandeArchive a WHERE a.numBc IN :numBcs")
+    List<String> findArchivedNumBcs(@Param("numBcs") Collection<String> numBcs);
+}
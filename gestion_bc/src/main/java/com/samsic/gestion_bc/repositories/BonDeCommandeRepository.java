@@ -2,20 +2,46 @@ package com.samsic.gestion_bc.repositories;
 
 import com.samsic.gestion_bc.models.BackOffice;
 import com.samsic.gestion_bc.models.BonDeCommande;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BonDeCommandeRepository extends JpaRepository<BonDeCommande, String> {
+public interface BonDeCommandeRepository extends JpaRepository<BonDeCommande, Long> {
+    // BC endpoints serialize the lines and their service, the graphs load them with the BCs
+    @EntityGraph("BonDeCommande.detail")
+    @Override
+    List<BonDeCommande> findAll();
+
+    @EntityGraph("BonDeCommande.detail")
     Optional<BonDeCommande> findByNumBc(String numBc);
+    @EntityGraph("BonDeCommande.detail")
+    List<BonDeCommande> findByNumBcIn(Collection<String> numBcs);
+    boolean existsByNumBc(String numBc);
+    @EntityGraph("BonDeCommande.detail")
     List<BonDeCommande> findByBackOffice(BackOffice backOffice);
     List<BonDeCommande> findByIsOt(boolean ot);
 
     @Query("SELECT bc FROM BonDeCommande bc LEFT JOIN FETCH bc.prestations p LEFT JOIN FETCH p.suivi WHERE bc.isOt = :isOt")
     List<BonDeCommande> findByIsOtWithPrestations(boolean isOt);
 
+    @Query("SELECT bc.numBc FROM BonDeCommande bc WHERE bc.numBc IN :numBcs")
+    List<String> findExistingNumBcs(@Param("numBcs") Collection<String> numBcs);
+
+    @Query("SELECT DISTINCT bc FROM BonDeCommande bc LEFT JOIN FETCH bc.prestations WHERE bc.numBc IN :numBcs")
+    List<BonDeCommande> findAllWithPrestationsByNumBcIn(@Param("numBcs") Collection<String> numBcs);
+
+    // Delta sync: BCs whose row or one of whose prestations changed, optionally for one back office
+    @Query("SELECT bc FROM BonDeCommande bc WHERE (:backOfficeId IS NULL OR bc.backOffice.id = :backOfficeId) " +
+            "AND (bc.updatedAt > :since OR EXISTS (SELECT 1 FROM Prestation p WHERE p.bonDeCommande = bc AND p.updatedAt > :since))")
+    @EntityGraph("BonDeCommande.detail")
+    List<BonDeCommande> findChangedSince(@Param("since") LocalDateTime since, @Param("backOfficeId") Integer backOfficeId);
+
 }
@@ -1,9 +1,13 @@
 package com.samsic.gestion_bc.repositories;
 
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.ChefProjet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,7 +15,11 @@ import java.util.Optional;
 
 @Repository
 public interface ChefProjetRepository extends JpaRepository<ChefProjet, Integer> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     @Query("SELECT c FROM ChefProjet c")
     List<ChefProjet> findAll();
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     Optional<ChefProjet> findByUserId(Integer userId);
 }
@@ -1,17 +1,36 @@
 package com.samsic.gestion_bc.repositories;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.Coordinateur;
 import com.samsic.gestion_bc.models.Zone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CoordinateurRepository extends JpaRepository<Coordinateur, Integer> {
+    @EntityGraph("Coordinateur.detail")
+    @Override
+    List<Coordinateur> findAll();
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     Optional<Coordinateur> findByUserId(Integer userId);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     List<Coordinateur> findByZoneId(Integer zoneId);
     Optional<Coordinateur> findByZone(Zone zone);
+    List<Coordinateur> findByZoneIn(Collection<Zone> zones);
+    @EntityGraph("Coordinateur.detail")
+    List<Coordinateur> findByZoneIdIn(Collection<Integer> zoneIds);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     Optional<Coordinateur> findByUserEmail(String email);
 }
\ No newline at end of file
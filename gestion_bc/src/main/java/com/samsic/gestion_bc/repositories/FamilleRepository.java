@@ -1,8 +1,24 @@
 package com.samsic.gestion_bc.repositories;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.Famille;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface FamilleRepository extends JpaRepository<Famille, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
+    @Override
+    List<Famille> findAll();
+
     boolean existsByName(String name);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
+    Optional<Famille> findByName(String name);
 }
\ No newline at end of file
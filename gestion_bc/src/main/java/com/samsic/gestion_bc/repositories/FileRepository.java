@@ -3,8 +3,12 @@ package com.samsic.gestion_bc.repositories;
 import com.samsic.gestion_bc.models.BonDeCommande;
 import com.samsic.gestion_bc.models.File;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,8 @@ public interface FileRepository extends JpaRepository<File, Long> {
 
     Optional<File> findByBonDeCommande(BonDeCommande bonDeCommande);
     File findBySuiviPrestationId(Integer suiviPrestationId);
+
+    // id, name and content type, without loading the content
+    @Query("SELECT f.id, f.name, f.contentType FROM File f WHERE f.id IN :ids")
+    List<Object[]> findHeadersByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.models.NotificationRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface NotificationReadRepository extends JpaRepository<NotificationRead, Long> {
+
+    // Idempotent: marking an already read broadcast again is a no-op
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO notification_reads (utilisateur_id, notification_id, read_at) " +
+            "SELECT :userId, n.id, NOW(6) FROM notifications n WHERE n.id IN (:ids) AND n.audience = :audience",
+            nativeQuery = true)
+    int markRead(@Param("userId") Integer userId, @Param("ids") Collection<Integer> ids, @Param("audience") String audience);
+}
@@ -1,16 +1,48 @@
 package com.samsic.gestion_bc.repositories;
 
 import com.samsic.gestion_bc.models.Notification;
-import com.samsic.gestion_bc.models.SuiviPrestationNotification;
 import com.samsic.gestion_bc.models.Utilisateur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Integer> {
+    // Inbox of a user: direct messages and the broadcasts of their role, each branch served by its own
+    // (utilisateur_id, created_at) / (audience, created_at) index. Broadcasts read state comes from notification_reads
+    String INBOX = "SELECT n.id AS id, n.utilisateur_id AS utilisateurId, n.audience AS audience, n.message AS message, " +
+            "n.created_at AS createdAt, CASE WHEN n.is_read THEN 1 ELSE 0 END AS isRead " +
+            "FROM notifications n WHERE n.utilisateur_id = :userId AND (:unreadOnly = FALSE OR n.is_read = FALSE) " +
+            "UNION ALL " +
+            "SELECT n.id, NULL, n.audience, n.message, n.created_at, CASE WHEN r.id IS NULL THEN 0 ELSE 1 END " +
+            "FROM notifications n LEFT JOIN notification_reads r ON r.notification_id = n.id AND r.utilisateur_id = :userId " +
+            "WHERE n.audience = :audience AND (:unreadOnly = FALSE OR r.id IS NULL) " +
+            "ORDER BY createdAt DESC, id DESC";
+
+    interface InboxRow {
+        Integer getId();
+        Integer getUtilisateurId();
+        String getAudience();
+        String getMessage();
+        Date getCreatedAt();
+        Number getIsRead();
+    }
+
     List<Notification> findByUtilisateur(Utilisateur utilisateur);
     List<Notification> findByUtilisateurAndIsRead(Utilisateur utilisateur, boolean isRead);
+
+    @Query(value = INBOX, nativeQuery = true)
+    List<InboxRow> findInbox(@Param("userId") Integer userId, @Param("audience") String audience,
+                             @Param("unreadOnly") boolean unreadOnly);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id IN :ids AND n.utilisateur.id = :userId AND n.isRead = false")
+    int markDirectRead(@Param("userId") Integer userId, @Param("ids") Collection<Integer> ids);
+
     @Query("SELECT spn FROM Notification spn " +
             "JOIN Utilisateur u ON spn.utilisateur.id = u.id " +
             "WHERE u.role = 'BACK_OFFICE' " +
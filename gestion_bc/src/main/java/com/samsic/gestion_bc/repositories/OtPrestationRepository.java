@@ -3,23 +3,30 @@ package com.samsic.gestion_bc.repositories;
 import com.samsic.gestion_bc.models.OtPrestation;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OtPrestationRepository extends JpaRepository<OtPrestation, Long> {
 
-    // 1. Total sum of quantiteValide * prix for OT prestations by back office email
-    @Query("SELECT COALESCE(SUM(op.quantiteValide * op.service.prix), 0.0) " +
-            "FROM OtPrestation op WHERE op.ot.backOffice.user.email = :email")
-    Double getTotalOtPrestationCostByEmail(String email);
-
-    // 2. Sum of quantiteValide * prix where statutDeRealisation = 'REALISE' by back office email
-    @Query("SELECT COALESCE(SUM(op.quantiteValide * op.service.prix), 0.0) " +
-            "FROM OtPrestation op WHERE op.statutDeRealisation = 'REALISE' AND op.ot.backOffice.user.email = :email")
-    Double getRealisedOtPrestationCostByEmail(String email);
-
-    // 3. Sum of quantiteValide * prix where statutDeRecepTech = 'RECEPTIONNE' by back office email
-    @Query("SELECT COALESCE(SUM(op.quantiteValide * op.service.prix), 0.0) " +
-            "FROM OtPrestation op WHERE op.statutDeRecepTech = 'RECEPTIONNE' AND op.ot.backOffice.user.email = :email")
-    Double getReceptionneOtPrestationCostByEmail(String email);
+    // All OT cost figures of a back office in one scan:
+    // otCount, prestationCount, total, realise, enCours, pending (not started: PENDING or Planifié), receptionne
+    // (cost = qte_valide * prix)
+    @Query(value = """
+        SELECT
+            COUNT(DISTINCT o.num_ot) AS otCount,
+            COUNT(op.id) AS prestationCount,
+            COALESCE(SUM(op.qte_valide * s.prix), 0) AS totalCost,
+            COALESCE(SUM(CASE WHEN op.statut_de_realisation = 2 /* Realise */ THEN op.qte_valide * s.prix ELSE 0 END), 0) AS realisedCost,
+            COALESCE(SUM(CASE WHEN op.statut_de_realisation = 1 /* En cours */ THEN op.qte_valide * s.prix ELSE 0 END), 0) AS enCoursCost,
+            COALESCE(SUM(CASE WHEN op.statut_de_realisation IN (0 /* PENDING */, 3 /* Planifié */) THEN op.qte_valide * s.prix ELSE 0 END), 0) AS pendingCost,
+            COALESCE(SUM(CASE WHEN op.statut_de_recep_tech = 3 /* Receptionne */ THEN op.qte_valide * s.prix ELSE 0 END), 0) AS receptionneCost
+        FROM ot o
+        JOIN ot_prestation op ON op.ot_num_ot = o.num_ot
+        LEFT JOIN services s ON s.id = op.service_id
+        WHERE o.back_office_id = :backOfficeId
+    """, nativeQuery = true)
+    List<Object[]> getOtMetricsRaw(@Param("backOfficeId") Integer backOfficeId);
 }
\ No newline at end of file
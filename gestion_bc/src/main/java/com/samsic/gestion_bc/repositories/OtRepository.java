@@ -3,13 +3,40 @@ package com.samsic.gestion_bc.repositories;
 import com.samsic.gestion_bc.models.BackOffice;
 import com.samsic.gestion_bc.models.Ot;
 import com.samsic.gestion_bc.models.Zone;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OtRepository extends JpaRepository<Ot, String> {
+    @EntityGraph("Ot.list")
+    @Override
+    List<Ot> findAll();
+
+    @EntityGraph("Ot.list")
+    Optional<Ot> findByNumOt(String numOt);
+
+    @EntityGraph("Ot.list")
     List<Ot> findByZone(Zone zone);
+    @EntityGraph("Ot.list")
     List<Ot> findAllByBackOffice(BackOffice backOffice);
+
+    @Query("SELECT o.numOt FROM Ot o WHERE o.numOt IN :numOts")
+    List<String> findExistingNumOts(@Param("numOts") Collection<String> numOts);
+
+    @Query("SELECT DISTINCT o FROM Ot o LEFT JOIN FETCH o.prestations WHERE o.numOt IN :numOts")
+    List<Ot> findAllWithPrestationsByNumOtIn(@Param("numOts") Collection<String> numOts);
+
+    // Delta sync: OTs whose row or one of whose prestations changed
+    @Query("SELECT o FROM Ot o WHERE o.updatedAt > :since " +
+            "OR EXISTS (SELECT 1 FROM OtPrestation op WHERE op.ot = o AND op.updatedAt > :since)")
+    @EntityGraph("Ot.list")
+    List<Ot> findChangedSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("status") OutboxEvent.Status status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Claims a due row for one worker until leaseUntil, 0 when another worker (or instance) already has it
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status = :status AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("status") OutboxEvent.Status status,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Deletes a handled row, 0 when the lease ran out and another worker claimed it meanwhile
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id = :id AND e.nextAttemptAt = :leaseUntil")
+    int complete(@Param("id") Long id, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :pending, e.attempts = 0, e.nextAttemptAt = :now WHERE e.status = :failed")
+    int requeue(@Param("failed") OutboxEvent.Status failed, @Param("pending") OutboxEvent.Status pending,
+                @Param("now") LocalDateTime now);
+
+    long countByStatus(OutboxEvent.Status status);
+}
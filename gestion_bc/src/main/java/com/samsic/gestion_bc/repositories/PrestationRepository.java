@@ -2,17 +2,35 @@ package com.samsic.gestion_bc.repositories;
 
 import com.samsic.gestion_bc.dto.TableauDeBordDTO;
 import com.samsic.gestion_bc.models.Prestation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PrestationRepository extends JpaRepository<Prestation, String> {
+public interface PrestationRepository extends JpaRepository<Prestation, Long> {
+    @EntityGraph("Prestation.detail")
+    @Override
+    List<Prestation> findAll();
+
+    @EntityGraph("Prestation.detail")
     List<Prestation> findByBonDeCommandeNumBc(String numBc);
 
+    @EntityGraph("Prestation.detail")
+    Optional<Prestation> findByCode(String code);
+    boolean existsByCode(String code);
+
+    @Query("SELECT p.code FROM Prestation p WHERE p.code IN :codes")
+    List<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
+    // Status buckets of the report queries. Not started (PENDING, Planifié) has no amount column of its own: it stays
+    // in the reliquat and the rest of the BC. The system "En cours" comes before "A déposer Sys" and is in no
+    // reception amount either.
     @Query(value = """
         SELECT
             bc.num_bc AS numBc,
@@ -23,25 +41,50 @@ public interface PrestationRepository extends JpaRepository<Prestation, String>
             ANY_VALUE(bc.description) AS descriptionPrestation,
             s.description AS descriptionArticle,
             SUM(p.qte_bc) AS totalQteBc,
-            SUM(CASE WHEN sp.statut_de_realisation = 'Realise' THEN sp.qte_realise * s.prix ELSE 0 END) AS realise,
-            SUM(CASE WHEN sp.statut_de_realisation = 'En cours' THEN sp.qte_encours * s.prix ELSE 0 END) AS enCours,
+            SUM(CASE WHEN sp.statut_de_realisation = 2 /* Realise */ THEN sp.montant_realise ELSE 0 END) AS realise,
+            SUM(CASE WHEN sp.statut_de_realisation = 1 /* En cours */ THEN sp.montant_encours ELSE 0 END) AS enCours,
             (SUM(p.qte_bc) -
-             SUM(CASE WHEN sp.statut_de_realisation = 'Realise' THEN sp.qte_realise ELSE 0 END) -
-             SUM(CASE WHEN sp.statut_de_realisation = 'En cours' THEN sp.qte_encours ELSE 0 END)) AS reliquat,
-            SUM(CASE WHEN sp.statut_de_recep_tech = 'Receptionne' THEN sp.qte_tech * s.prix ELSE 0 END) AS receptionTech,
-            SUM(CASE WHEN sp.statut_reception_system = 'Depose Sys' THEN sp.qte_depose * s.prix ELSE 0 END) AS deposeSys,
-            SUM(CASE WHEN sp.statut_reception_system = 'A déposer Sys' THEN sp.qteadepose * s.prix ELSE 0 END) AS aDeposeSys,
-            SUM(CASE WHEN sp.statut_reception_system = 'Receptionne Sys' THEN sp.qte_sys * s.prix ELSE 0 END) AS receptionneSys,
-            ANY_VALUE(s.prix) AS prixUnite,
-            ANY_VALUE(p.famille) AS familleProjet
+             SUM(CASE WHEN sp.statut_de_realisation = 2 /* Realise */ THEN sp.qte_realise ELSE 0 END) -
+             SUM(CASE WHEN sp.statut_de_realisation = 1 /* En cours */ THEN sp.qte_encours ELSE 0 END)) AS reliquat,
+            SUM(CASE WHEN sp.statut_de_recep_tech = 3 /* Receptionne */ THEN sp.montant_tech ELSE 0 END) AS receptionTech,
+            SUM(CASE WHEN sp.statut_reception_system = 2 /* Depose Sys */ THEN sp.montant_depose ELSE 0 END) AS deposeSys,
+            SUM(CASE WHEN sp.statut_reception_system = 1 /* A déposer Sys */ THEN sp.montant_a_deposer ELSE 0 END) AS aDeposeSys,
+            SUM(CASE WHEN sp.statut_reception_system = 3 /* Receptionne Sys */ THEN sp.montant_sys ELSE 0 END) AS receptionneSys,
+            ANY_VALUE(p.prix_unitaire) AS prixUnite,
+            ANY_VALUE(fp.name) AS familleProjet
         FROM prestations p
         LEFT JOIN suivi_prestation sp ON p.id = sp.prestation_id
-        LEFT JOIN bon_de_commande bc ON p.bc_id = bc.num_bc
+        LEFT JOIN bon_de_commande bc ON p.bc_id = bc.id
         LEFT JOIN services s ON p.service_id = s.id
+        LEFT JOIN familles fp ON fp.id = p.famille_id
         JOIN back_office bo ON bc.back_office_id = bo.id
         JOIN utilisateurs u ON bo.user_id = u.id
         WHERE u.email = :email
         GROUP BY bc.num_bc, s.description
+        UNION ALL
+        SELECT
+            a.num_bc,
+            ANY_VALUE(a.division_projet),
+            ANY_VALUE(a.code_projet),
+            MIN(a.num_ligne),
+            DATE_FORMAT(ANY_VALUE(a.date_edition), '%Y-%m-%d'),
+            ANY_VALUE(a.bc_description),
+            a.service_description,
+            SUM(a.qte_bc),
+            SUM(a.montant_realise),
+            SUM(a.montant_encours),
+            (SUM(a.qte_bc) - SUM(a.qte_realise_realise) - SUM(a.qte_encours_encours)),
+            SUM(a.montant_recep_tech),
+            SUM(a.montant_depose_sys),
+            SUM(a.montant_a_deposer_sys),
+            SUM(a.montant_receptionne_sys),
+            ANY_VALUE(a.prix),
+            ANY_VALUE(a.famille_projet)
+        FROM bc_archive_aggregates a
+        JOIN back_office bo ON a.back_office_id = bo.id
+        JOIN utilisateurs u ON bo.user_id = u.id
+        WHERE u.email = :email
+        GROUP BY a.num_bc, a.service_description
     """, nativeQuery = true)
     List<Object[]> getReportPrestationRaw(@Param("email") String email);
 
@@ -53,19 +96,19 @@ public interface PrestationRepository extends JpaRepository<Prestation, String>
             MAX(bc.date_edition) AS dateEdition,
             MAX(fam.name) AS familleProjet,
             MAX(bc.description) AS descriptionPrestation,
-            SUM(p.qte_bc * s.prix) AS montantHt,
-            SUM(sp.qte_realise * s.prix) AS montantCloture,
-            SUM(sp.qte_sys * s.prix) AS montantFactureSys,
-            SUM(sp.qte_depose * s.prix) AS montantDepose,
-            SUM(sp.qteadepose * s.prix) AS montantADeposer,
-            SUM(sp.qte_tech * s.prix) AS TEC,
+            SUM(p.montant_bc) AS montantHt,
+            SUM(sp.montant_realise) AS montantCloture,
+            SUM(sp.montant_sys) AS montantFactureSys,
+            SUM(sp.montant_depose) AS montantDepose,
+            SUM(sp.montant_a_deposer) AS montantADeposer,
+            SUM(sp.montant_tech) AS TEC,
             CASE
-                WHEN SUM(p.qte_bc * s.prix) > 0
-                THEN ROUND(SUM(sp.qte_realise * s.prix) / SUM(p.qte_bc * s.prix), 4)
+                WHEN SUM(p.montant_bc) > 0
+                THEN ROUND(SUM(sp.montant_realise) / SUM(p.montant_bc), 4)
                 ELSE 0
             END AS tauxRealisation
         FROM bon_de_commande bc
-        JOIN prestations p ON p.bc_id = bc.num_bc
+        JOIN prestations p ON p.bc_id = bc.id
         LEFT JOIN suivi_prestation sp ON sp.prestation_id = p.id
         LEFT JOIN services s ON s.id = p.service_id
         LEFT JOIN familles fam ON fam.id = s.famille_id
@@ -73,31 +116,85 @@ public interface PrestationRepository extends JpaRepository<Prestation, String>
         JOIN utilisateurs u ON bo.user_id = u.id
         WHERE u.email = :email
         GROUP BY bc.num_bc
+        UNION ALL
+        SELECT
+            a.num_bc,
+            MAX(a.division_projet),
+            MAX(a.code_projet),
+            MAX(a.date_edition),
+            MAX(a.famille_name),
+            MAX(a.bc_description),
+            SUM(a.montant_bc),
+            SUM(a.montant_cloture),
+            SUM(a.montant_sys),
+            SUM(a.montant_depose),
+            SUM(a.montant_a_deposer),
+            SUM(a.montant_tech),
+            CASE
+                WHEN SUM(a.montant_bc) > 0
+                THEN ROUND(SUM(a.montant_cloture) / SUM(a.montant_bc), 4)
+                ELSE 0
+            END
+        FROM bc_archive_aggregates a
+        JOIN back_office bo ON a.back_office_id = bo.id
+        JOIN utilisateurs u ON bo.user_id = u.id
+        WHERE u.email = :email
+        GROUP BY a.num_bc
     """, nativeQuery = true)
     List<Object[]> getBonDeCommandeSummaries(@Param("email") String email);
 
+    // Archived BCs contribute through bc_archive_aggregates
     @Query(value = """
-        SELECT 
-            f.name AS famille_name,
-            COALESCE(SUM(p.qte_bc * s.prix), 0) AS montant_total_bc,
-            COALESCE(SUM(CASE WHEN sp.statut_de_realisation = 'Realise' THEN sp.qte_realise * s.prix ELSE 0 END), 0) AS montant_cloture_terrain,
-            COALESCE(SUM(CASE WHEN sp.statut_de_realisation = 'Realise' THEN sp.qte_realise * s.prix ELSE 0 END) / NULLIF(SUM(p.qte_bc * s.prix), 0), 0) AS taux_realisation,
-            COALESCE(SUM(CASE WHEN sp.statut_reception_system = 'Receptionne Sys' THEN sp.qte_sys * s.prix ELSE 0 END), 0) AS montant_receptionne_facture,
-            COALESCE(SUM(CASE WHEN sp.statut_reception_system = 'Depose Sys' THEN sp.qte_depose * s.prix ELSE 0 END), 0) AS montant_depose_sys,
-            COALESCE(SUM(CASE WHEN sp.statut_reception_system = 'A déposer Sys' THEN sp.qteadepose * s.prix ELSE 0 END), 0) AS montant_a_deposer_sys,
-            COALESCE(SUM(CASE WHEN sp.statut_de_recep_tech = 'En cours' THEN sp.qte_tech * s.prix ELSE 0 END), 0) AS montant_en_cours_recep_tech,
-            COALESCE(SUM(CASE WHEN sp.statut_de_recep_tech = 'Réserve' THEN sp.qte_tech * s.prix ELSE 0 END), 0) AS montant_en_cours_recep_tech_reserve,
-            COALESCE(SUM(p.qte_bc * s.prix) - SUM(CASE WHEN sp.statut_de_realisation = 'Realise' THEN sp.qte_realise * s.prix ELSE 0 END), 0) AS montant_restant_bc,
-            COALESCE(SUM(CASE WHEN sp.statut_de_realisation = 'En cours' THEN sp.qte_encours * s.prix ELSE 0 END), 0) AS montant_travaux_en_cours
-        FROM prestations p
-        JOIN suivi_prestation sp ON p.id = sp.prestation_id
-        JOIN bon_de_commande bdc ON p.bc_id = bdc.num_bc
-        JOIN services s ON p.service_id = s.id
-        JOIN familles f ON s.famille_id = f.id
-        JOIN back_office bo ON bdc.back_office_id = bo.id
-        JOIN utilisateurs u ON bo.user_id = u.id
-        WHERE u.email = :email
-        GROUP BY f.name
+        SELECT
+            t.famille_name,
+            COALESCE(SUM(t.montant_bc), 0) AS montant_total_bc,
+            COALESCE(SUM(t.montant_realise), 0) AS montant_cloture_terrain,
+            COALESCE(SUM(t.montant_realise) / NULLIF(SUM(t.montant_bc), 0), 0) AS taux_realisation,
+            COALESCE(SUM(t.montant_receptionne_sys), 0) AS montant_receptionne_facture,
+            COALESCE(SUM(t.montant_depose_sys), 0) AS montant_depose_sys,
+            COALESCE(SUM(t.montant_a_deposer_sys), 0) AS montant_a_deposer_sys,
+            COALESCE(SUM(t.montant_recep_tech_en_cours), 0) AS montant_en_cours_recep_tech,
+            COALESCE(SUM(t.montant_recep_tech_reserve), 0) AS montant_en_cours_recep_tech_reserve,
+            COALESCE(SUM(t.montant_bc) - SUM(t.montant_realise), 0) AS montant_restant_bc,
+            COALESCE(SUM(t.montant_encours), 0) AS montant_travaux_en_cours
+        FROM (
+            SELECT
+                f.name AS famille_name,
+                SUM(p.montant_bc) AS montant_bc,
+                SUM(CASE WHEN sp.statut_de_realisation = 2 /* Realise */ THEN sp.montant_realise ELSE 0 END) AS montant_realise,
+                SUM(CASE WHEN sp.statut_reception_system = 3 /* Receptionne Sys */ THEN sp.montant_sys ELSE 0 END) AS montant_receptionne_sys,
+                SUM(CASE WHEN sp.statut_reception_system = 2 /* Depose Sys */ THEN sp.montant_depose ELSE 0 END) AS montant_depose_sys,
+                SUM(CASE WHEN sp.statut_reception_system = 1 /* A déposer Sys */ THEN sp.montant_a_deposer ELSE 0 END) AS montant_a_deposer_sys,
+                SUM(CASE WHEN sp.statut_de_recep_tech = 1 /* En cours */ THEN sp.montant_tech ELSE 0 END) AS montant_recep_tech_en_cours,
+                SUM(CASE WHEN sp.statut_de_recep_tech = 2 /* Réserve */ THEN sp.montant_tech ELSE 0 END) AS montant_recep_tech_reserve,
+                SUM(CASE WHEN sp.statut_de_realisation = 1 /* En cours */ THEN sp.montant_encours ELSE 0 END) AS montant_encours
+            FROM prestations p
+            JOIN suivi_prestation sp ON p.id = sp.prestation_id
+            JOIN bon_de_commande bdc ON p.bc_id = bdc.id
+            JOIN services s ON p.service_id = s.id
+            JOIN familles f ON s.famille_id = f.id
+            JOIN back_office bo ON bdc.back_office_id = bo.id
+            JOIN utilisateurs u ON bo.user_id = u.id
+            WHERE u.email = :email
+            GROUP BY f.name
+            UNION ALL
+            SELECT
+                a.famille_name,
+                SUM(a.montant_bc),
+                SUM(a.montant_realise),
+                SUM(a.montant_receptionne_sys),
+                SUM(a.montant_depose_sys),
+                SUM(a.montant_a_deposer_sys),
+                SUM(a.montant_recep_tech_en_cours),
+                SUM(a.montant_recep_tech_reserve),
+                SUM(a.montant_encours)
+            FROM bc_archive_aggregates a
+            JOIN back_office bo ON a.back_office_id = bo.id
+            JOIN utilisateurs u ON bo.user_id = u.id
+            WHERE u.email = :email AND a.famille_name IS NOT NULL
+            GROUP BY a.famille_name
+        ) t
+        GROUP BY t.famille_name
     """, nativeQuery = true)
     List<Object[]> getDashboardData(@Param("email") String email);
 }
\ No newline at end of file
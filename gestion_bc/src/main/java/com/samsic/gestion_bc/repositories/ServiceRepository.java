@@ -1,8 +1,13 @@
 package com.samsic.gestion_bc.repositories;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.Famille;
 import com.samsic.gestion_bc.models.ServiceQ;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,8 +15,14 @@ import java.util.Optional;
 
 @Repository
 public interface ServiceRepository extends JpaRepository<ServiceQ, Integer> {
+    @EntityGraph("ServiceQ.famille")
+    @Override
+    List<ServiceQ> findAll();
+
     Optional<ServiceQ> findById(Integer id);
 
     boolean existsByDescription(String description);
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     Optional<List<ServiceQ>> getServiceByFamille_Name(String familleName);
 }
\ No newline at end of file
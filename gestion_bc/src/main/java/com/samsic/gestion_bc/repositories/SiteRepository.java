@@ -1,14 +1,25 @@
 package com.samsic.gestion_bc.repositories;
 
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
 import com.samsic.gestion_bc.models.Site;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SiteRepository extends JpaRepository<Site, Integer> {
+    @EntityGraph("Site.zone")
     List<Site> findAll();
 
     Site findAllByCodesite(String codesite);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceCacheConfig.QUERY_REGION)})
     Site findByCodesite(String codeSite);
+
+    List<Site> findByCodesiteIn(Collection<String> codesites);
 }
@@ -0,0 +1,33 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.models.SuiviPrestationPendingEdit;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SuiviPrestationPendingEditRepository extends JpaRepository<SuiviPrestationPendingEdit, Long> {
+    // Edits whose node stopped renewing its lease, locked so that a single node takes them over
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM SuiviPrestationPendingEdit e WHERE e.leaseUntil < :now ORDER BY e.id")
+    List<SuiviPrestationPendingEdit> findExpiredForUpdate(@Param("now") LocalDateTime now);
+
+    // Edits of a flush still owned by this node, locked until the flush commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM SuiviPrestationPendingEdit e WHERE e.id IN :ids AND e.ownerNode = :node")
+    List<SuiviPrestationPendingEdit> findOwnedForUpdate(@Param("ids") Collection<Long> ids, @Param("node") String node);
+
+    @Modifying
+    @Query("UPDATE SuiviPrestationPendingEdit e SET e.leaseUntil = :leaseUntil WHERE e.ownerNode = :node")
+    int renewLeases(@Param("node") String node, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE SuiviPrestationPendingEdit e SET e.leaseUntil = :expired WHERE e.id IN :ids")
+    int expireLeases(@Param("ids") Collection<Long> ids, @Param("expired") LocalDateTime expired);
+}
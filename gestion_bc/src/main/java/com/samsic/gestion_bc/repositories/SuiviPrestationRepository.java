@@ -2,15 +2,32 @@ package com.samsic.gestion_bc.repositories;
 
 import com.samsic.gestion_bc.models.Coordinateur;
 import com.samsic.gestion_bc.models.SuiviPrestation;
+import jakarta.persistence.Tuple;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface SuiviPrestationRepository extends JpaRepository<SuiviPrestation, Integer> {
+public interface SuiviPrestationRepository extends JpaRepository<SuiviPrestation, Integer>, SuiviPrestationRepositoryCustom {
+    @EntityGraph("SuiviPrestation.detail")
+    @Override
+    Optional<SuiviPrestation> findById(Integer id);
+
+    @Query("SELECT sp.version FROM SuiviPrestation sp WHERE sp.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+
+    // Autosave flush of edits that changed nothing: the row still moves to the version announced to the client
+    @Modifying
+    @Query("UPDATE SuiviPrestation sp SET sp.version = sp.version + 1 WHERE sp.id = :id AND sp.version = :version")
+    int incrementVersion(@Param("id") Integer id, @Param("version") Long version);
+
+    @EntityGraph("SuiviPrestation.detail")
     @Query("SELECT sp FROM SuiviPrestation sp " +
             "JOIN sp.prestation p " +
             "JOIN p.bonDeCommande bc " +
@@ -18,14 +35,65 @@ public interface SuiviPrestationRepository extends JpaRepository<SuiviPrestation
             "JOIN bo.user u " +
             "WHERE u.email = :emailBO")
     List<SuiviPrestation> findByBackOfficeEmail(@Param("emailBO") String emailBO);
-    void deleteByPrestationId(String prestationId);
+    void deleteByPrestationCode(String prestationCode);
 
+    @EntityGraph("SuiviPrestation.detail")
     List<SuiviPrestation> findByCoordinateur(Coordinateur coordinateur);
-    List<SuiviPrestation> findByPrestationIdIn(List<String> prestationIds);
+    List<SuiviPrestation> findByPrestationCodeIn(List<String> prestationCodes);
+    // Late-suivi scheduler: only what it needs to address the notifications
+    @EntityGraph("SuiviPrestation.scheduler")
     List<SuiviPrestation> findByDateRealisationNotNullAndDateRecepTechIsNull();
+    @EntityGraph("SuiviPrestation.scheduler")
     List<SuiviPrestation> findByDateRecepTechNotNullAndDateRecepSysIsNull();
     @Query("SELECT sp FROM SuiviPrestation sp JOIN FETCH sp.prestation p JOIN FETCH p.bonDeCommande bc JOIN FETCH bc.backOffice bo JOIN FETCH bo.user u WHERE u.email = :email")
     List<SuiviPrestation> findByUserEmail(@Param("email") String email);
 
-    Optional<Object> findByPrestationId(String prestationId);
+    Optional<Object> findByPrestationCode(String prestationCode);
+
+    String SUIVI_FROM = "FROM SuiviPrestation sp " +
+            "LEFT JOIN sp.prestation p " +
+            "LEFT JOIN p.bonDeCommande bc " +
+            "LEFT JOIN p.service s " +
+            "LEFT JOIN s.famille fam " +
+            "LEFT JOIN sp.codesite site " +
+            "LEFT JOIN sp.coordinateur c " +
+            "LEFT JOIN sp.zone z " +
+            "LEFT JOIN sp.fichierReceptionTech f ";
+
+    // Flat read model for the suivi listings: one row per suivi with everything SuiviPrestationResponse shows,
+    // so a listing is one statement (no entity graph, no file content)
+    String SUIVI_ROWS = "SELECT sp.id AS id, sp.version AS version, " +
+            "p.code AS prestationId, p.numLigne AS numLigne, p.description AS prestationDescription, p.qteBc AS qteBc, " +
+            "s.id AS serviceId, s.description AS serviceDescription, s.prix AS prix, fam.name AS famille, " +
+            "bc.numBc AS numBc, bc.dateEdition AS dateEdition, bc.isOt AS isOt, site.codesite AS codesite, " +
+            "c.id AS coordinateurId, z.id AS zoneId, z.nom AS zoneName, " +
+            "sp.qteRealise AS qteRealise, sp.qteEncours AS qteEncours, sp.qteTech AS qteTech, sp.qteDepose AS qteDepose, " +
+            "sp.qteADepose AS qteADepose, sp.qteSys AS qteSys, sp.fournisseur AS fournisseur, " +
+            "sp.datePlanifiee AS datePlanifiee, sp.dateGo AS dateGo, sp.dateDebut AS dateDebut, sp.dateFin AS dateFin, " +
+            "sp.dateRealisation AS dateRealisation, sp.statutDeRealisation AS statutDeRealisation, " +
+            "sp.dateRecepTech AS dateRecepTech, sp.statutDeRecepTech AS statutDeRecepTech, sp.datePf AS datePf, " +
+            "sp.dateRecepSys AS dateRecepSys, sp.statutReceptionSystem AS statutReceptionSystem, " +
+            "sp.remarque AS remarque, sp.delaiRecep AS delaiRecep, " +
+            "f.id AS fileId, f.name AS fileName, f.contentType AS fileContentType " + SUIVI_FROM;
+
+    @Query(SUIVI_ROWS)
+    List<Tuple> findAllRows();
+
+    @Query(SUIVI_ROWS + "WHERE c.id = :coordinateurId")
+    List<Tuple> findRowsByCoordinateurId(@Param("coordinateurId") Integer coordinateurId);
+
+    @Query(SUIVI_ROWS + "WHERE bc.backOffice.id = :backOfficeId")
+    List<Tuple> findRowsByBackOfficeId(@Param("backOfficeId") Integer backOfficeId);
+
+    @Query("SELECT sp FROM SuiviPrestation sp " +
+            "JOIN FETCH sp.prestation p " +
+            "JOIN FETCH p.bonDeCommande bc " +
+            "LEFT JOIN FETCH p.service s " +
+            "LEFT JOIN FETCH s.famille " +
+            "LEFT JOIN FETCH sp.zone " +
+            "LEFT JOIN FETCH sp.codesite " +
+            "LEFT JOIN FETCH sp.coordinateur " +
+            "LEFT JOIN FETCH sp.fichierReceptionTech " +
+            "WHERE sp.id IN :ids")
+    List<SuiviPrestation> findAllWithDetailsByIdIn(@Param("ids") Collection<Integer> ids);
 }
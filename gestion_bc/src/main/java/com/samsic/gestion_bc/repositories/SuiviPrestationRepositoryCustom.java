@@ -0,0 +1,11 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.dto.requests.SuiviPrestationQuery;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface SuiviPrestationRepositoryCustom {
+    // One page of SuiviPrestationRepository.SUIVI_ROWS tuples matching the filters, plus the total count
+    Page<Tuple> findRows(SuiviPrestationQuery query, Pageable pageable);
+}
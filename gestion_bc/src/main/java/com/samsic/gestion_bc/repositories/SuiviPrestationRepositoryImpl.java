@@ -0,0 +1,159 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.dto.requests.SuiviPrestationQuery;
+import com.samsic.gestion_bc.models.StatutRealisation;
+import com.samsic.gestion_bc.models.StatutReceptionSystem;
+import com.samsic.gestion_bc.models.StatutRecepTech;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+// Builds the worklist query from the filters that are set. Only whitelisted columns can be sorted or
+// range-filtered, so every predicate maps to a suivi_prestation column covered by the indexes on the entity.
+public class SuiviPrestationRepositoryImpl implements SuiviPrestationRepositoryCustom {
+
+    private static final Map<String, String> SORTABLE = Map.ofEntries(
+            Map.entry("id", "sp.id"),
+            Map.entry("numBc", "bc.numBc"),
+            Map.entry("dateEdition", "bc.dateEdition"),
+            Map.entry("site", "site.codesite"),
+            Map.entry("zone", "z.nom"),
+            Map.entry("statutDeRealisation", "sp.statutDeRealisation"),
+            Map.entry("statutReceptionTech", "sp.statutDeRecepTech"),
+            Map.entry("statutReceptionSystem", "sp.statutReceptionSystem"),
+            Map.entry("datePlanifiee", "sp.datePlanifiee"),
+            Map.entry("dateDebut", "sp.dateDebut"),
+            Map.entry("dateFin", "sp.dateFin"),
+            Map.entry("dateRealisation", "sp.dateRealisation"),
+            Map.entry("dateRecepTech", "sp.dateRecepTech"),
+            Map.entry("datePf", "sp.datePf"),
+            Map.entry("dateRecepSys", "sp.dateRecepSys"));
+
+    private static final Set<String> DATE_FIELDS = Set.of(
+            "datePlanifiee", "dateDebut", "dateFin", "dateRealisation", "dateRecepTech", "datePf", "dateRecepSys");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Tuple> findRows(SuiviPrestationQuery query, Pageable pageable) {
+        StringBuilder where = new StringBuilder();
+        Map<String, Object> params = new HashMap<>();
+
+        if (query.getScopeCoordinateurId() != null) {
+            and(where, "sp.coordinateur.id = :scopeCoordinateurId");
+            params.put("scopeCoordinateurId", query.getScopeCoordinateurId());
+        }
+        if (query.getScopeBackOfficeId() != null) {
+            and(where, "bc.backOffice.id = :scopeBackOfficeId");
+            params.put("scopeBackOfficeId", query.getScopeBackOfficeId());
+        }
+        if (query.getChangedSince() != null) {
+            and(where, "(sp.updatedAt > :changedSince OR p.updatedAt > :changedSince OR bc.updatedAt > :changedSince)");
+            params.put("changedSince", query.getChangedSince());
+        }
+        if (query.getStatutDeRealisation() != null && !query.getStatutDeRealisation().isEmpty()) {
+            and(where, "sp.statutDeRealisation IN :statutDeRealisation");
+            params.put("statutDeRealisation", query.getStatutDeRealisation().stream()
+                    .map(StatutRealisation::fromLabel)
+                    .toList());
+        }
+        if (hasText(query.getStatutReceptionTech())) {
+            and(where, "sp.statutDeRecepTech = :statutReceptionTech");
+            params.put("statutReceptionTech", StatutRecepTech.fromLabel(query.getStatutReceptionTech()));
+        }
+        if (hasText(query.getStatutReceptionSystem())) {
+            and(where, "sp.statutReceptionSystem = :statutReceptionSystem");
+            params.put("statutReceptionSystem", StatutReceptionSystem.fromLabel(query.getStatutReceptionSystem()));
+        }
+        if (query.getZoneId() != null) {
+            and(where, "sp.zone.id = :zoneId");
+            params.put("zoneId", query.getZoneId());
+        }
+        if (hasText(query.getSite())) {
+            and(where, "site.codesite = :site");
+            params.put("site", query.getSite().trim());
+        }
+        if (hasText(query.getNumBc())) {
+            and(where, "bc.numBc LIKE :numBc");
+            params.put("numBc", query.getNumBc().trim().replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (query.getCoordinateurId() != null) {
+            and(where, "sp.coordinateur.id = :coordinateurId");
+            params.put("coordinateurId", query.getCoordinateurId());
+        }
+        if (query.getOt() != null) {
+            and(where, "bc.isOt = :ot");
+            params.put("ot", query.getOt());
+        }
+        if (query.getDateFrom() != null || query.getDateTo() != null) {
+            String field = query.getDateField() != null ? query.getDateField() : "datePlanifiee";
+            if (!DATE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unsupported date filter: " + field);
+            }
+            if (query.getDateFrom() != null) {
+                and(where, "sp." + field + " >= :dateFrom");
+                params.put("dateFrom", Timestamp.valueOf(query.getDateFrom().atStartOfDay()));
+            }
+            if (query.getDateTo() != null) {
+                // Inclusive end date
+                and(where, "sp." + field + " < :dateTo");
+                params.put("dateTo", Timestamp.valueOf(query.getDateTo().plusDays(1).atStartOfDay()));
+            }
+        }
+
+        TypedQuery<Tuple> rows = entityManager.createQuery(
+                SuiviPrestationRepository.SUIVI_ROWS + where + orderBy(pageable.getSort()), Tuple.class);
+        params.forEach(rows::setParameter);
+        if (pageable.isPaged()) {
+            rows.setFirstResult((int) pageable.getOffset());
+            rows.setMaxResults(pageable.getPageSize());
+        }
+        List<Tuple> content = rows.getResultList();
+
+        long total;
+        if (pageable.isUnpaged() || (pageable.getOffset() == 0 && content.size() < pageable.getPageSize())) {
+            total = content.size();
+        } else {
+            TypedQuery<Long> count = entityManager.createQuery(
+                    "SELECT COUNT(sp) " + SuiviPrestationRepository.SUIVI_FROM + where, Long.class);
+            params.forEach(count::setParameter);
+            total = count.getSingleResult();
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner order = new StringJoiner(", ", " ORDER BY ", "");
+        boolean byId = false;
+        for (Sort.Order o : sort) {
+            String column = SORTABLE.get(o.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Unsupported sort: " + o.getProperty());
+            }
+            order.add(column + (o.isAscending() ? " ASC" : " DESC"));
+            byId |= column.equals("sp.id");
+        }
+        // Tie-breaker so that rows do not move between pages
+        if (!byId) {
+            order.add("sp.id ASC");
+        }
+        return order.toString();
+    }
+
+    private static void and(StringBuilder where, String predicate) {
+        where.append(where.length() == 0 ? "WHERE " : " AND ").append(predicate);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,23 @@
+package com.samsic.gestion_bc.repositories;
+
+import com.samsic.gestion_bc.models.SyncTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    @Query("SELECT DISTINCT t.entityId FROM SyncTombstone t WHERE t.entityType = :type AND t.deletedAt > :since")
+    List<String> findDeletedIdsSince(@Param("type") String type, @Param("since") LocalDateTime since);
+
+    @Query("SELECT DISTINCT t.parentId FROM SyncTombstone t " +
+            "WHERE t.entityType = :type AND t.deletedAt > :since AND t.parentId IS NOT NULL")
+    List<String> findParentIdsSince(@Param("type") String type, @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM SyncTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,67 @@
+package com.samsic.gestion_bc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Listener registry and local dispatch shared by the transports. A transport only has to send the invalidations
+// and hand the ones received from other nodes to deliver(). Transports writing to the application database send
+// inside the writing transaction (the invalidation commits with the data); the others send after commit.
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractCacheInvalidationBus.class);
+
+    protected final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    protected abstract void send(String cache, Collection<String> keys);
+
+    protected abstract boolean sendsWithTransaction();
+
+    @Override
+    public void register(String cache, Listener listener) {
+        listeners.computeIfAbsent(cache, k -> new CopyOnWriteArrayList<>()).add(listener);
+        logger.debug("Cache {} registered on invalidation bus node {}", cache, nodeId);
+    }
+
+    @Override
+    public void publish(String cache, Collection<String> keys) {
+        Set<String> copy = keys.isEmpty() ? Set.of() : new HashSet<>(keys);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(cache, copy);
+            deliver(cache, copy, copy.isEmpty());
+            return;
+        }
+        if (sendsWithTransaction()) {
+            send(cache, copy);
+        }
+        // Evicting before commit would let a concurrent read put the old value back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!sendsWithTransaction()) {
+                    send(cache, copy);
+                }
+                deliver(cache, copy, copy.isEmpty());
+            }
+        });
+    }
+
+    protected void deliver(String cache, Set<String> keys, boolean all) {
+        for (Listener listener : listeners.getOrDefault(cache, List.of())) {
+            try {
+                if (all) {
+                    listener.evictAll();
+                } else {
+                    listener.evict(keys);
+                }
+            } catch (Exception e) {
+                logger.error("Cache {} failed to evict {}: {}", cache, all ? "all entries" : keys, e.getMessage());
+            }
+        }
+    }
+}
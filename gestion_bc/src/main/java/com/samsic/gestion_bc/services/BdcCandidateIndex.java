@@ -0,0 +1,200 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.BdcCandidateResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory index of the BDCs an OT can still be linked to: codeProjet -> open BDC (num_ot not set) -> remaining
+// quantity per service (sum of qteBc minus what the suivis already realised). Built once at startup, then kept up
+// to date per BC: writes on BonDeCommande / Prestation / SuiviPrestation mark their BC dirty (BdcCandidateIndexListener)
+// and the dirty BCs are published on the invalidation bus after the transaction commits, which reloads them with one
+// query here and on the other nodes.
+@Service
+public class BdcCandidateIndex {
+    private static final Logger logger = LoggerFactory.getLogger(BdcCandidateIndex.class);
+    private static final String DIRTY_KEY = BdcCandidateIndex.class.getName() + ".dirty";
+    public static final String CACHE_NAME = "bdcCandidates";
+
+    private static final String LOAD_SQL = "SELECT bc.num_bc, bc.code_projet, p.service_id, SUM(p.qte_bc), SUM(COALESCE(s.realise, 0)) " +
+            "FROM bon_de_commande bc " +
+            "JOIN prestations p ON p.bc_id = bc.id " +
+            "LEFT JOIN (SELECT sp.prestation_id, SUM(sp.qte_realise) AS realise FROM suivi_prestation sp " +
+            "           JOIN prestations p2 ON p2.id = sp.prestation_id %1$s GROUP BY sp.prestation_id) s " +
+            "       ON s.prestation_id = p.id " +
+            "WHERE bc.num_ot IS NULL AND bc.code_projet IS NOT NULL AND p.service_id IS NOT NULL %2$s " +
+            "GROUP BY bc.num_bc, bc.code_projet, p.service_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, Map<String, Map<Integer, Double>>> byCodeProjet = new ConcurrentHashMap<>();
+    private final Map<String, String> codeProjetByBc = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public BdcCandidateIndex(JdbcTemplate jdbcTemplate, CacheInvalidationBus invalidationBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_NAME, new CacheInvalidationBus.Listener() {
+            @Override
+            public void evict(Set<String> keys) {
+                refresh(keys);
+            }
+
+            @Override
+            public void evictAll() {
+                if (ready) {
+                    rebuild();
+                }
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Map<String, Map<Integer, Double>>> loaded = load(List.of());
+        byCodeProjet.clear();
+        codeProjetByBc.clear();
+        loaded.forEach((codeProjet, bcs) -> bcs.forEach((numBc, services) -> put(codeProjet, numBc, services)));
+        ready = true;
+        logger.info("BDC candidate index built: {} open BDCs in {} projects in {} ms",
+                codeProjetByBc.size(), byCodeProjet.size(), System.currentTimeMillis() - start);
+    }
+
+    // Called from the entity listener; refreshed after commit, or right away outside a transaction
+    public void markDirty(String numBc) {
+        if (numBc == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(Set.of(numBc));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> dirty = (Set<String>) TransactionSynchronizationManager.getResource(DIRTY_KEY);
+        if (dirty == null) {
+            Set<String> newDirty = new HashSet<>();
+            dirty = newDirty;
+            TransactionSynchronizationManager.bindResource(DIRTY_KEY, newDirty);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DIRTY_KEY);
+                    if (status == STATUS_COMMITTED) {
+                        publish(newDirty);
+                    }
+                }
+            });
+        }
+        dirty.add(numBc);
+    }
+
+    // Runs after commit, outside the transaction: the invalidation row is written on its own
+    private void publish(Set<String> numBcs) {
+        if (numBcs.isEmpty()) {
+            return;
+        }
+        try {
+            invalidationBus.publish(CACHE_NAME, numBcs);
+        } catch (Exception e) {
+            logger.error("Failed to publish BDC candidate invalidation for {}: {}", numBcs, e.getMessage());
+            refresh(numBcs);
+        }
+    }
+
+    public void refresh(Collection<String> numBcs) {
+        if (!ready || numBcs.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, Map<String, Map<Integer, Double>>> loaded = load(numBcs);
+            for (String numBc : numBcs) {
+                remove(numBc);
+            }
+            loaded.forEach((codeProjet, bcs) -> bcs.forEach((numBc, services) -> put(codeProjet, numBc, services)));
+        } catch (Exception e) {
+            // The index is only a suggestion aid; never fail the write that triggered the refresh
+            logger.error("Failed to refresh BDC candidate index for {}: {}", numBcs, e.getMessage());
+        }
+    }
+
+    // BDCs of the OT's project ranked by how many of the OT's services they carry, then by how many of those
+    // still have enough remaining quantity
+    public List<BdcCandidateResponse> findCandidates(String codeProjet, Map<Integer, Double> requiredByService, int limit) {
+        Map<String, Map<Integer, Double>> bcs = codeProjet != null ? byCodeProjet.get(codeProjet) : null;
+        if (bcs == null || requiredByService.isEmpty()) {
+            return List.of();
+        }
+        List<BdcCandidateResponse> candidates = new ArrayList<>();
+        bcs.forEach((numBc, remainingByService) -> {
+            List<Integer> missing = new ArrayList<>();
+            int matched = 0;
+            int withQuantity = 0;
+            for (Map.Entry<Integer, Double> required : requiredByService.entrySet()) {
+                Double remaining = remainingByService.get(required.getKey());
+                if (remaining == null) {
+                    missing.add(required.getKey());
+                    continue;
+                }
+                matched++;
+                if (remaining >= required.getValue()) {
+                    withQuantity++;
+                }
+            }
+            if (matched > 0) {
+                candidates.add(new BdcCandidateResponse(numBc, (double) matched / requiredByService.size(),
+                        matched, withQuantity, missing));
+            }
+        });
+        candidates.sort(Comparator.comparingDouble(BdcCandidateResponse::getCoverage).reversed()
+                .thenComparing(Comparator.comparingInt(BdcCandidateResponse::getServicesWithEnoughQuantity).reversed())
+                .thenComparing(BdcCandidateResponse::getNumBc));
+        return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+
+    private Map<String, Map<String, Map<Integer, Double>>> load(Collection<String> numBcs) {
+        String sql;
+        Object[] args;
+        if (numBcs.isEmpty()) {
+            sql = String.format(LOAD_SQL, "", "");
+            args = new Object[0];
+        } else {
+            String placeholders = String.join(", ", Collections.nCopies(numBcs.size(), "?"));
+            sql = String.format(LOAD_SQL, "JOIN bon_de_commande bc2 ON bc2.id = p2.bc_id WHERE bc2.num_bc IN (" + placeholders + ")", "AND bc.num_bc IN (" + placeholders + ")");
+            List<Object> params = new ArrayList<>(numBcs);
+            params.addAll(numBcs);
+            args = params.toArray();
+        }
+        Map<String, Map<String, Map<Integer, Double>>> loaded = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            double remaining = rs.getDouble(4) - rs.getDouble(5);
+            loaded.computeIfAbsent(rs.getString(2), k -> new HashMap<>())
+                    .computeIfAbsent(rs.getString(1), k -> new HashMap<>())
+                    .put(rs.getInt(3), remaining);
+        }, args);
+        return loaded;
+    }
+
+    private void put(String codeProjet, String numBc, Map<Integer, Double> services) {
+        byCodeProjet.computeIfAbsent(codeProjet, k -> new ConcurrentHashMap<>()).put(numBc, Map.copyOf(services));
+        codeProjetByBc.put(numBc, codeProjet);
+    }
+
+    private void remove(String numBc) {
+        String codeProjet = codeProjetByBc.remove(numBc);
+        if (codeProjet != null) {
+            byCodeProjet.computeIfPresent(codeProjet, (k, bcs) -> {
+                bcs.remove(numBc);
+                return bcs.isEmpty() ? null : bcs;
+            });
+        }
+    }
+}
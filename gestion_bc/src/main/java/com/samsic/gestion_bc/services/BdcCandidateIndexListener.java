@@ -0,0 +1,44 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.BonDeCommande;
+import com.samsic.gestion_bc.models.Prestation;
+import com.samsic.gestion_bc.models.SuiviPrestation;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// JPA listener on BonDeCommande, Prestation and SuiviPrestation: tells BdcCandidateIndex which BC changed
+@Component
+public class BdcCandidateIndexListener {
+    private final ObjectProvider<BdcCandidateIndex> index;
+
+    public BdcCandidateIndexListener(ObjectProvider<BdcCandidateIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        BdcCandidateIndex candidateIndex = index.getIfAvailable();
+        if (candidateIndex != null) {
+            candidateIndex.markDirty(numBc(entity));
+        }
+    }
+
+    private static String numBc(Object entity) {
+        if (entity instanceof BonDeCommande bc) {
+            return bc.getNumBc();
+        }
+        if (entity instanceof Prestation prestation && prestation.getBonDeCommande() != null) {
+            return prestation.getBonDeCommande().getNumBc();
+        }
+        if (entity instanceof SuiviPrestation suivi && suivi.getPrestation() != null
+                && suivi.getPrestation().getBonDeCommande() != null) {
+            return suivi.getPrestation().getBonDeCommande().getNumBc();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,335 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.dto.responses.ArchiveRunResponse;
+import com.samsic.gestion_bc.models.BackOffice;
+import com.samsic.gestion_bc.models.BonDeCommandeArchive;
+import com.samsic.gestion_bc.models.File;
+import com.samsic.gestion_bc.models.StatutReceptionSystem;
+import com.samsic.gestion_bc.repositories.BackOfficeRepository;
+import com.samsic.gestion_bc.repositories.BonDeCommandeArchiveRepository;
+import com.samsic.gestion_bc.repositories.FileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Hot/cold archival of closed bons de commande.
+// A BC is closed when every prestation has suivi rows and all of them are Receptionne Sys. Once its last system
+// reception is older than archive.min-age-days, the BC is moved out of bon_de_commande / prestations / suivi_prestation:
+// its rows become one gzip JSON document in bc_archive and its contribution to the reports and dashboards is kept in
+// bc_archive_aggregates, which those queries add back with UNION ALL. Files are kept and referenced from the document.
+@Service
+public class BonDeCommandeArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(BonDeCommandeArchiveService.class);
+    private static final StatutReceptionSystem CLOSED_STATUS = StatutReceptionSystem.RECEPTIONNE;
+
+    private static final String CLOSED_BCS_SQL = """
+            SELECT bc.num_bc, MAX(sp.date_recep_sys) AS closed_at
+            FROM bon_de_commande bc
+            JOIN prestations p ON p.bc_id = bc.id
+            LEFT JOIN suivi_prestation sp ON sp.prestation_id = p.id
+            LEFT JOIN suivi_prestation_pending_edits pe ON pe.suivi_prestation_id = sp.id
+            %s
+            GROUP BY bc.num_bc
+            HAVING SUM(sp.id IS NULL) = 0
+               AND SUM(sp.statut_reception_system IS NULL OR sp.statut_reception_system <> ?) = 0
+               AND COUNT(pe.id) = 0
+               AND MAX(sp.date_recep_sys) < ?
+            ORDER BY closed_at
+            LIMIT ?
+            """;
+
+    // Same joins and sums as the report and dashboard queries of PrestationRepository and DashboardService
+    private static final String INSERT_AGGREGATES_SQL = """
+            INSERT INTO bc_archive_aggregates (num_bc, back_office_id, division_projet, code_projet, date_edition, bc_description,
+                famille_projet, service_id, service_description, famille_name, prix, num_ligne,
+                qte_bc, montant_bc, qte_realise_realise, montant_realise, qte_encours_encours, montant_encours,
+                montant_recep_tech, montant_recep_tech_en_cours, montant_recep_tech_reserve,
+                montant_depose_sys, montant_a_deposer_sys, montant_receptionne_sys,
+                montant_cloture, montant_sys, montant_depose, montant_a_deposer, montant_tech, qte_realise, montant_receptionne_date)
+            SELECT bc.num_bc, ANY_VALUE(bc.back_office_id), ANY_VALUE(bc.division_projet), ANY_VALUE(bc.code_projet),
+                ANY_VALUE(bc.date_edition), ANY_VALUE(bc.description),
+                ANY_VALUE(fp.name), p.service_id, ANY_VALUE(s.description), ANY_VALUE(fam.name), ANY_VALUE(p.prix_unitaire), MIN(p.num_ligne),
+                SUM(p.qte_bc), SUM(p.montant_bc),
+                SUM(CASE WHEN sp.statut_de_realisation = 2 /* Realise */ THEN sp.qte_realise ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_realisation = 2 /* Realise */ THEN sp.montant_realise ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_realisation = 1 /* En cours */ THEN sp.qte_encours ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_realisation = 1 /* En cours */ THEN sp.montant_encours ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_recep_tech = 3 /* Receptionne */ THEN sp.montant_tech ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_recep_tech = 1 /* En cours */ THEN sp.montant_tech ELSE 0 END),
+                SUM(CASE WHEN sp.statut_de_recep_tech = 2 /* Réserve */ THEN sp.montant_tech ELSE 0 END),
+                SUM(CASE WHEN sp.statut_reception_system = 2 /* Depose Sys */ THEN sp.montant_depose ELSE 0 END),
+                SUM(CASE WHEN sp.statut_reception_system = 1 /* A déposer Sys */ THEN sp.montant_a_deposer ELSE 0 END),
+                SUM(CASE WHEN sp.statut_reception_system = 3 /* Receptionne Sys */ THEN sp.montant_sys ELSE 0 END),
+                SUM(sp.montant_realise), SUM(sp.montant_sys), SUM(sp.montant_depose),
+                SUM(sp.montant_a_deposer), SUM(sp.montant_tech), SUM(sp.qte_realise),
+                SUM(CASE WHEN sp.date_recep_sys IS NOT NULL THEN sp.montant_sys ELSE 0 END)
+            FROM bon_de_commande bc
+            JOIN prestations p ON p.bc_id = bc.id
+            LEFT JOIN suivi_prestation sp ON sp.prestation_id = p.id
+            LEFT JOIN services s ON s.id = p.service_id
+            LEFT JOIN familles fam ON fam.id = s.famille_id
+            LEFT JOIN familles fp ON fp.id = p.famille_id
+            WHERE bc.num_bc IN %s
+            GROUP BY bc.num_bc, p.service_id, p.famille_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BonDeCommandeDeletionService deletionService;
+    private final BonDeCommandeArchiveRepository archiveRepository;
+    private final BackOfficeRepository backOfficeRepository;
+    private final FileRepository fileRepository;
+    private final int minAgeDays;
+    private final int chunkSize;
+    private final int maxPerRun;
+
+    public BonDeCommandeArchiveService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            BonDeCommandeDeletionService deletionService,
+            BonDeCommandeArchiveRepository archiveRepository,
+            BackOfficeRepository backOfficeRepository,
+            FileRepository fileRepository,
+            @Value("${archive.min-age-days:180}") int minAgeDays,
+            @Value("${archive.chunk-size:50}") int chunkSize,
+            @Value("${archive.max-per-run:5000}") int maxPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.deletionService = deletionService;
+        this.archiveRepository = archiveRepository;
+        this.backOfficeRepository = backOfficeRepository;
+        this.fileRepository = fileRepository;
+        this.minAgeDays = Math.max(1, minAgeDays);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxPerRun = Math.max(1, maxPerRun);
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        archiveClosed();
+    }
+
+    // One transaction per chunk; stops at the first failing chunk, the next run starts over from the oldest BCs
+    public ArchiveRunResponse archiveClosed() {
+        long start = System.currentTimeMillis();
+        ArchiveRunResponse result = new ArchiveRunResponse();
+        LocalDateTime cutoff = LocalDate.now().minusDays(minAgeDays).atStartOfDay();
+        result.setClosedBefore(cutoff);
+
+        while (result.getArchived().size() < maxPerRun) {
+            Map<String, LocalDateTime> candidates = closedBcs(null, cutoff, Math.min(chunkSize, maxPerRun - result.getArchived().size()));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            try {
+                ArchiveRunResponse chunk = transactionTemplate.execute(status -> archiveChunk(candidates.keySet(), cutoff));
+                result.getArchived().addAll(chunk.getArchived());
+                result.setPrestations(result.getPrestations() + chunk.getPrestations());
+                if (chunk.getArchived().isEmpty()) {
+                    break;
+                }
+            } catch (Exception e) {
+                logger.error("Archival of {} BonDeCommandes failed: {}", candidates.size(), e.getMessage(), e);
+                result.setFailureMessage(e.getMessage());
+                break;
+            }
+        }
+
+        result.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Archived {} closed BonDeCommandes ({} prestations) closed before {} in {} ms",
+                result.getArchived().size(), result.getPrestations(), cutoff, result.getDurationMs());
+        return result;
+    }
+
+    private ArchiveRunResponse archiveChunk(Collection<String> numBcs, LocalDateTime cutoff) {
+        ArchiveRunResponse chunk = new ArchiveRunResponse();
+        // Lock the BCs, then check again that they are still closed: an edit may have landed since the selection
+        jdbcTemplate.queryForList("SELECT num_bc FROM bon_de_commande WHERE num_bc IN " + in(numBcs.size()) + " FOR UPDATE",
+                String.class, numBcs.toArray());
+        Map<String, LocalDateTime> closed = closedBcs(numBcs, cutoff, numBcs.size());
+        if (closed.isEmpty()) {
+            return chunk;
+        }
+        Object[] bcs = closed.keySet().toArray();
+        String bcIn = in(bcs.length);
+
+        jdbcTemplate.update(String.format(INSERT_AGGREGATES_SQL, bcIn), bcs);
+
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        Map<Long, Map<String, Object>> documentsById = new HashMap<>();
+        for (Map<String, Object> bc : jdbcTemplate.queryForList("SELECT * FROM bon_de_commande WHERE num_bc IN " + bcIn, bcs)) {
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("bonDeCommande", bc);
+            document.put("prestations", new ArrayList<Map<String, Object>>());
+            document.put("files", new ArrayList<Map<String, Object>>());
+            documents.put((String) bc.get("num_bc"), document);
+            documentsById.put(((Number) bc.get("id")).longValue(), document);
+        }
+        // The rows below are selected by surrogate id, the document still reads with numBc and the prestation codes
+        Object[] ids = documentsById.keySet().toArray();
+        String idIn = in(ids.length);
+        Map<Long, Map<String, Object>> prestations = new HashMap<>();
+        for (Map<String, Object> prestation : jdbcTemplate.queryForList("SELECT * FROM prestations WHERE bc_id IN " + idIn + " ORDER BY num_ligne", ids)) {
+            prestation.put("suivis", new ArrayList<Map<String, Object>>());
+            prestations.put(((Number) prestation.get("id")).longValue(), prestation);
+            list(documentsById.get(((Number) prestation.get("bc_id")).longValue()), "prestations").add(prestation);
+        }
+        for (Map<String, Object> suivi : jdbcTemplate.queryForList("SELECT sp.* FROM suivi_prestation sp JOIN prestations p ON sp.prestation_id = p.id "
+                + "WHERE p.bc_id IN " + idIn + " ORDER BY sp.id", ids)) {
+            list(prestations.get(((Number) suivi.get("prestation_id")).longValue()), "suivis").add(suivi);
+        }
+        for (Map<String, Object> file : jdbcTemplate.queryForList("SELECT f.id, f.name, f.content_type, f.bon_de_commande_id, f.suivi_prestation_id, "
+                + "COALESCE(f.bon_de_commande_id, p.bc_id, p2.bc_id) AS owner_bc_id FROM files f "
+                + "LEFT JOIN suivi_prestation s ON f.suivi_prestation_id = s.id LEFT JOIN prestations p ON s.prestation_id = p.id "
+                + "LEFT JOIN suivi_prestation s2 ON s2.fichier_reception_tech_id = f.id LEFT JOIN prestations p2 ON s2.prestation_id = p2.id "
+                + "WHERE f.bon_de_commande_id IN " + idIn + " OR p.bc_id IN " + idIn + " OR p2.bc_id IN " + idIn,
+                concat(ids, ids, ids))) {
+            Object owner = file.remove("owner_bc_id");
+            Map<String, Object> document = owner != null ? documentsById.get(((Number) owner).longValue()) : null;
+            if (document != null) {
+                list(document, "files").add(file);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BonDeCommandeArchive> archives = new ArrayList<>();
+        documents.forEach((numBc, document) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> bc = (Map<String, Object>) document.get("bonDeCommande");
+            archives.add(BonDeCommandeArchive.builder()
+                    .numBc(numBc)
+                    .backOfficeId(bc.get("back_office_id") != null ? ((Number) bc.get("back_office_id")).intValue() : null)
+                    .codeProjet((String) bc.get("code_projet"))
+                    .dateEdition(toLocalDate(bc.get("date_edition")))
+                    .lineCount(list(document, "prestations").size())
+                    .closedAt(closed.get(numBc))
+                    .archivedAt(now)
+                    .document(compress(document))
+                    .build());
+            chunk.setPrestations(chunk.getPrestations() + list(document, "prestations").size());
+        });
+        archiveRepository.saveAll(archives);
+
+        chunk.getArchived().addAll(deletionService.delete(closed.keySet(), true));
+        return chunk;
+    }
+
+    private Map<String, LocalDateTime> closedBcs(Collection<String> numBcs, LocalDateTime cutoff, int limit) {
+        List<Object> params = new ArrayList<>();
+        String where = "";
+        if (numBcs != null) {
+            where = "WHERE bc.num_bc IN " + in(numBcs.size());
+            params.addAll(numBcs);
+        }
+        params.add(CLOSED_STATUS.getCode());
+        params.add(Timestamp.valueOf(cutoff));
+        params.add(limit);
+        Map<String, LocalDateTime> closed = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(CLOSED_BCS_SQL, where), rs -> {
+            Timestamp closedAt = rs.getTimestamp(2);
+            closed.put(rs.getString(1), closedAt != null ? closedAt.toLocalDateTime() : null);
+        }, params.toArray());
+        return closed;
+    }
+
+    public List<BonDeCommandeArchiveRepository.ArchiveSummary> getArchives(String email, String role, Integer backOfficeId) {
+        return archiveRepository.findSummaries(scope(email, role, backOfficeId));
+    }
+
+    public JsonNode getArchive(String numBc, String email, String role) {
+        BonDeCommandeArchive archive = findArchive(numBc, email, role);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(archive.getDocument()))) {
+            return objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archive document for " + numBc, e);
+        }
+    }
+
+    // Only the files listed in the BC's archive document can be read through it
+    public File getArchivedFile(String numBc, Long fileId, String email, String role) {
+        JsonNode document = getArchive(numBc, email, role);
+        boolean listed = false;
+        for (JsonNode file : document.path("files")) {
+            listed |= file.path("id").asLong() == fileId;
+        }
+        if (!listed) {
+            throw new IllegalArgumentException("File " + fileId + " is not part of archived BonDeCommande " + numBc);
+        }
+        return fileRepository.findById(fileId)
+                .orElseThrow(() -> new IllegalArgumentException("File not found: " + fileId));
+    }
+
+    private BonDeCommandeArchive findArchive(String numBc, String email, String role) {
+        BonDeCommandeArchive archive = archiveRepository.findById(numBc)
+                .orElseThrow(() -> new IllegalArgumentException("Archived BonDeCommande not found: " + numBc));
+        Integer scope = scope(email, role, null);
+        if (scope != null && !scope.equals(archive.getBackOfficeId())) {
+            throw new IllegalArgumentException("Archived BonDeCommande not found: " + numBc);
+        }
+        return archive;
+    }
+
+    // Back office users only see their own BCs
+    private Integer scope(String email, String role, Integer backOfficeId) {
+        if ("ROLE_BACK_OFFICE".equals(role)) {
+            return backOfficeRepository.findByUserEmail(email)
+                    .map(BackOffice::getId)
+                    .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + email));
+        }
+        return backOfficeId;
+    }
+
+    private byte[] compress(Map<String, Object> document) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> list(Map<String, Object> parent, String key) {
+        return (List<Map<String, Object>>) parent.get(key);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) return date.toLocalDate();
+        if (value instanceof LocalDate date) return date;
+        return null;
+    }
+
+    private static String in(int size) {
+        return "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    private static Object[] concat(Object[]... arrays) {
+        List<Object> all = new ArrayList<>();
+        for (Object[] array : arrays) {
+            all.addAll(Arrays.asList(array));
+        }
+        return all.toArray();
+    }
+}
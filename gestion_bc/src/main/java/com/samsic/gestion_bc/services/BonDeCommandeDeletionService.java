@@ -0,0 +1,160 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.BcBulkDeleteResponse;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+// Set-based deletion of bons de commande.
+// Instead of loading the BC graph and removing it entity by entity, a chunk of BCs is deleted with one statement
+// per table, children first: suivi notifications and pending autosave edits, the files of the BC and of its suivis,
+// suivi rows, legacy ligne_bc rows, prestations and the BCs. The entity listeners do not run for these statements,
+// so the sync tombstones, the BDC candidate index and the search index are updated here.
+@Service
+public class BonDeCommandeDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(BonDeCommandeDeletionService.class);
+
+    private static final String SUIVIS_OF_BCS = "SELECT s.id FROM suivi_prestation s JOIN prestations p ON s.prestation_id = p.id WHERE p.bc_id IN ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeTrackingService changeTrackingService;
+    private final BdcCandidateIndex bdcCandidateIndex;
+    private final SearchIndexer searchIndexer;
+    private final int chunkSize;
+
+    public BonDeCommandeDeletionService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChangeTrackingService changeTrackingService,
+            BdcCandidateIndex bdcCandidateIndex,
+            SearchIndexer searchIndexer,
+            @Value("${bc.delete.chunk-size:200}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeTrackingService = changeTrackingService;
+        this.bdcCandidateIndex = bdcCandidateIndex;
+        this.searchIndexer = searchIndexer;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // Joins the caller's transaction when there is one
+    public List<String> delete(Collection<String> numBcs) {
+        return delete(numBcs, false);
+    }
+
+    // keepFiles: files are only detached from the deleted rows (archival keeps them, referenced by id)
+    public List<String> delete(Collection<String> numBcs, boolean keepFiles) {
+        if (numBcs.isEmpty()) {
+            return List.of();
+        }
+        // The statements below work on the surrogate ids, numBc only comes back for the tombstones and indexes
+        Map<Long, String> ids = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, num_bc FROM bon_de_commande WHERE num_bc IN " + in(numBcs.size()), rs -> {
+            ids.put(rs.getLong(1), rs.getString(2));
+        }, numBcs.toArray());
+        List<String> existing = new ArrayList<>(ids.values());
+        if (existing.isEmpty()) {
+            return existing;
+        }
+        Object[] bcs = ids.keySet().toArray();
+        String bcIn = in(bcs.length);
+
+        List<Object[]> prestations = jdbcTemplate.query("SELECT code, bc_id FROM prestations WHERE bc_id IN " + bcIn,
+                (rs, i) -> new Object[]{rs.getString(1), ids.get(rs.getLong(2))}, bcs);
+        List<Object[]> suivis = jdbcTemplate.query(SUIVIS_OF_BCS + bcIn,
+                (rs, i) -> new Object[]{String.valueOf(rs.getInt(1)), null}, bcs);
+
+        jdbcTemplate.update("DELETE n FROM suivi_prestation_notifications n JOIN suivi_prestation s ON n.suivi_prestation_id = s.id"
+                + " JOIN prestations p ON s.prestation_id = p.id WHERE p.bc_id IN " + bcIn, bcs);
+        jdbcTemplate.update("DELETE e FROM suivi_prestation_pending_edits e JOIN suivi_prestation s ON e.suivi_prestation_id = s.id"
+                + " JOIN prestations p ON s.prestation_id = p.id WHERE p.bc_id IN " + bcIn, bcs);
+
+        // Files point to suivi rows and suivi rows point to their reception file: collect the ids, detach, then delete
+        List<Long> fileIds = jdbcTemplate.queryForList(
+                "SELECT f.id FROM files f WHERE f.bon_de_commande_id IN " + bcIn
+                        + " UNION SELECT f.id FROM files f JOIN suivi_prestation s ON f.suivi_prestation_id = s.id"
+                        + " JOIN prestations p ON s.prestation_id = p.id WHERE p.bc_id IN " + bcIn
+                        + " UNION SELECT s.fichier_reception_tech_id FROM suivi_prestation s JOIN prestations p ON s.prestation_id = p.id"
+                        + " WHERE p.bc_id IN " + bcIn + " AND s.fichier_reception_tech_id IS NOT NULL",
+                Long.class, concat(bcs, bcs, bcs));
+        if (!fileIds.isEmpty()) {
+            jdbcTemplate.update("UPDATE files SET suivi_prestation_id = NULL, bon_de_commande_id = NULL WHERE id IN "
+                    + in(fileIds.size()), fileIds.toArray());
+        }
+
+        jdbcTemplate.update("DELETE s FROM suivi_prestation s JOIN prestations p ON s.prestation_id = p.id WHERE p.bc_id IN " + bcIn, bcs);
+        if (!fileIds.isEmpty() && !keepFiles) {
+            jdbcTemplate.update("DELETE FROM files WHERE id IN " + in(fileIds.size()), fileIds.toArray());
+        }
+        jdbcTemplate.update("DELETE l FROM ligne_bc l JOIN prestations p ON l.prestation_id = p.id WHERE p.bc_id IN " + bcIn, bcs);
+        jdbcTemplate.update("DELETE FROM prestations WHERE bc_id IN " + bcIn, bcs);
+        jdbcTemplate.update("DELETE FROM bon_de_commande WHERE id IN " + bcIn, bcs);
+
+        changeTrackingService.recordDeletions(ChangeTrackingService.SUIVI_PRESTATION, suivis);
+        changeTrackingService.recordDeletions(ChangeTrackingService.PRESTATION, prestations);
+        changeTrackingService.recordDeletions(ChangeTrackingService.BON_DE_COMMANDE,
+                existing.stream().map(numBc -> new Object[]{numBc, null}).toList());
+        existing.forEach(bdcCandidateIndex::markDirty);
+        existing.forEach(numBc -> searchIndexer.markDirty(SearchIndex.BC, numBc));
+
+        logger.info("Deleted {} BonDeCommandes with {} prestations, {} suivis and {} files",
+                existing.size(), prestations.size(), suivis.size(), fileIds.size());
+        return existing;
+    }
+
+    // Admin bulk delete: one transaction per chunk; a failing chunk is retried BC by BC so only the faulty ones are kept
+    public BcBulkDeleteResponse deleteAll(List<String> numBcs) {
+        long start = System.currentTimeMillis();
+        BcBulkDeleteResponse response = new BcBulkDeleteResponse();
+        response.setRequested(numBcs.size());
+        List<String> distinct = numBcs.stream().filter(Objects::nonNull).map(String::trim)
+                .filter(numBc -> !numBc.isEmpty()).distinct().toList();
+
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            try {
+                response.getDeleted().addAll(transactionTemplate.execute(status -> delete(chunk)));
+            } catch (Exception e) {
+                logger.warn("Delete chunk of {} BonDeCommandes failed ({}), retrying one by one", chunk.size(), e.getMessage());
+                for (String numBc : chunk) {
+                    try {
+                        response.getDeleted().addAll(transactionTemplate.execute(status -> delete(List.of(numBc))));
+                    } catch (Exception single) {
+                        logger.error("Failed to delete BonDeCommande {}: {}", numBc, single.getMessage());
+                        response.getFailed().add(new ImportJobResponse.RowError(numBcs.indexOf(numBc), numBc, single.getMessage()));
+                    }
+                }
+            }
+        }
+
+        Set<String> deleted = new HashSet<>(response.getDeleted());
+        Set<String> failed = new HashSet<>();
+        response.getFailed().forEach(error -> failed.add(error.getKey()));
+        distinct.stream().filter(numBc -> !deleted.contains(numBc) && !failed.contains(numBc))
+                .forEach(response.getNotFound()::add);
+        response.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Bulk delete: {} requested, {} deleted, {} not found, {} failed in {} ms", response.getRequested(),
+                response.getDeleted().size(), response.getNotFound().size(), response.getFailed().size(), response.getDurationMs());
+        return response;
+    }
+
+    private static String in(int size) {
+        return "(" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+    }
+
+    private static Object[] concat(Object[]... arrays) {
+        List<Object> all = new ArrayList<>();
+        for (Object[] array : arrays) {
+            all.addAll(Arrays.asList(array));
+        }
+        return all.toArray();
+    }
+}
@@ -3,6 +3,9 @@ package com.samsic.gestion_bc.services;
 import com.samsic.gestion_bc.dto.BonDeCommandeRequest;
 import com.samsic.gestion_bc.dto.PrestationRequest;
 import com.samsic.gestion_bc.dto.ServiceSummary;
+import com.samsic.gestion_bc.dto.responses.BcBulkDeleteResponse;
+import com.samsic.gestion_bc.dto.responses.BonDeCommandeResponse;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
 import com.samsic.gestion_bc.models.*;
 import com.samsic.gestion_bc.repositories.*;
 import org.slf4j.Logger;
@@ -12,9 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,8 +31,12 @@ public class BonDeCommandeService {
     private final ZoneRepository zoneRepository;
     private final SuiviPrestationRepository suiviPrestationRepository;
     private final CoordinateurRepository coordinateurRepository;
-    private final NotificationService notificationService;
+    private final DomainEventPublisher eventPublisher;
     private final FileRepository fileRepository;
+    private final ChangeTrackingService changeTrackingService;
+    private final BonDeCommandeDeletionService bonDeCommandeDeletionService;
+    private final BonDeCommandeArchiveRepository archiveRepository;
+    private final FamilleRepository familleRepository;
 
     public BonDeCommandeService(
             BonDeCommandeRepository bonDeCommandeRepository,
@@ -41,8 +46,12 @@ public class BonDeCommandeService {
             ZoneRepository zoneRepository,
             SuiviPrestationRepository suiviPrestationRepository,
             CoordinateurRepository coordinateurRepository,
-            NotificationService notificationService,
-            FileRepository fileRepository) {
+            DomainEventPublisher eventPublisher,
+            FileRepository fileRepository,
+            ChangeTrackingService changeTrackingService,
+            BonDeCommandeDeletionService bonDeCommandeDeletionService,
+            BonDeCommandeArchiveRepository archiveRepository,
+            FamilleRepository familleRepository) {
         this.bonDeCommandeRepository = bonDeCommandeRepository;
         this.prestationRepository = prestationRepository;
         this.backOfficeRepository = backOfficeRepository;
@@ -50,11 +59,15 @@ public class BonDeCommandeService {
         this.zoneRepository = zoneRepository;
         this.suiviPrestationRepository = suiviPrestationRepository;
         this.coordinateurRepository = coordinateurRepository;
-        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
         this.fileRepository = fileRepository;
+        this.changeTrackingService = changeTrackingService;
+        this.bonDeCommandeDeletionService = bonDeCommandeDeletionService;
+        this.archiveRepository = archiveRepository;
+        this.familleRepository = familleRepository;
     }
 
-    private String generateId(String prefix) {
+    static String generateId(String prefix) {
         StringBuilder id = new StringBuilder(prefix);
         for (int i = 0; i < 6; i++) {
             id.append(ALPHA_NUMERIC.charAt(RANDOM.nextInt(ALPHA_NUMERIC.length())));
@@ -81,7 +94,10 @@ public class BonDeCommandeService {
 
         // Generate numBc if not provided (for OT)
         String numBc = request.getNumBc() != null && !request.getNumBc().isBlank() ? request.getNumBc() : generateId("BC-");
-        while (bonDeCommandeRepository.findByNumBc(numBc).isPresent()) {
+        if (archiveRepository.existsById(numBc)) {
+            throw new IllegalArgumentException("BonDeCommande " + numBc + " is archived");
+        }
+        while (bonDeCommandeRepository.existsByNumBc(numBc) || archiveRepository.existsById(numBc)) {
             numBc = generateId("BC-");
         }
 
@@ -117,7 +133,7 @@ public class BonDeCommandeService {
             ServiceQ service = serviceRepository.findById(prestationRequest.getServiceId())
                     .orElseThrow(() -> new IllegalArgumentException("Invalid service ID: " + prestationRequest.getServiceId()));
             String prestationId = generateId("PST-");
-            while (prestationRepository.findById(prestationId).isPresent()) {
+            while (prestationRepository.existsByCode(prestationId)) {
                 prestationId = generateId("PST-");
             }
 //            Zone prestationZone = request.isOt() ? zone : prestationRequest.getZoneId() != null
@@ -128,12 +144,13 @@ public class BonDeCommandeService {
 
 
             Prestation prestation = Prestation.builder()
-                    .id(prestationId)
+                    .code(prestationId)
                     .numLigne(prestationRequest.getNumLigne())
-                    .famille(prestationRequest.getFamille())
+                    .familleProjet(familleProjet(prestationRequest.getFamille(), service))
                     .description(prestationRequest.getDescription())
                     .qteBc(prestationRequest.getQteBc() != null ? prestationRequest.getQteBc() : 0.0)
                     .service(service)
+                    .prixUnitaire(service.getPrix())
                     .codeSite(request.isOt() ? request.getCodeSite() : prestationRequest.getCodeSite())
                     .fournisseur(prestationRequest.getFournisseur())
                     .bonDeCommande(bonDeCommande)
@@ -151,12 +168,8 @@ public class BonDeCommandeService {
         }
 
 
-        if (backOffice.getUser() != null) {
-            Integer utilisateurId = backOffice.getUser().getId();
-            String message = String.format("New BonDeCommande %s created ", savedBonDeCommande.getNumBc());
-            notificationService.createNotification(utilisateurId, message);
-            logger.debug("Notification sent to back office user ID: {}", utilisateurId);
-        }
+        eventPublisher.publish(new DomainEvent.BcCreated(savedBonDeCommande.getNumBc(),
+                backOffice.getUser() != null ? backOffice.getUser().getId() : null));
 
         logger.info("BonDeCommande created successfully: {}", savedBonDeCommande.getNumBc());
         return savedBonDeCommande;
@@ -218,191 +231,245 @@ public class BonDeCommandeService {
             fileRepository.save(file);
         }
 
-        // Identify Prestations to keep, update, or delete
-        List<Prestation> newPrestationList = new ArrayList<>();
-        List<Prestation> existingPrestations = bonDeCommande.getPrestations();
-        logger.debug("Existing prestations: {}", existingPrestations.stream().map(Prestation::getId).toList());
-
-        // Process each PrestationRequest
-        for (PrestationRequest prestationRequest : request.getPrestations()) {
-            logger.debug("Processing PrestationRequest: id={}, numLigne={}", prestationRequest.getId(), prestationRequest.getNumLigne());
-
-            ServiceQ service = serviceRepository.findById(prestationRequest.getServiceId())
-                    .orElseThrow(() -> new IllegalArgumentException("Invalid service ID: " + prestationRequest.getServiceId()));
+        // Reference data of every line in three queries instead of three per line
+        Map<Integer, ServiceQ> services = serviceRepository.findAllById(request.getPrestations().stream()
+                        .map(PrestationRequest::getServiceId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(ServiceQ::getId, s -> s));
+        Set<Integer> zoneIds = request.isOt() ? Set.of(zone.getId()) : request.getPrestations().stream()
+                .map(PrestationRequest::getZoneId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Integer, Zone> zones = zoneRepository.findAllById(zoneIds).stream()
+                .collect(Collectors.toMap(Zone::getId, z -> z));
+        Map<Integer, Coordinateur> coordinators = new HashMap<>();
+        if (!zoneIds.isEmpty()) {
+            for (Coordinateur c : coordinateurRepository.findByZoneIdIn(zoneIds)) {
+                coordinators.putIfAbsent(c.getZone().getId(), c);
+            }
+        }
 
-            Zone prestationZone = request.isOt() ? zone :
-                    prestationRequest.getZoneId() != null
-                            ? zoneRepository.findById(prestationRequest.getZoneId())
-                            .orElseThrow(() -> new IllegalArgumentException("Invalid zone ID: " + prestationRequest.getZoneId()))
-                            : null;
+        // Diff the request against the persisted lines: only real inserts, updates and deletes are applied
+        Map<String, Prestation> existing = new LinkedHashMap<>();
+        bonDeCommande.getPrestations().forEach(p -> existing.put(p.getCode(), p));
+        Set<String> kept = new HashSet<>();
+        List<String> createdIds = new ArrayList<>();
+        List<String> updatedIds = new ArrayList<>();
+        Map<Integer, Set<String>> linesByCoordinatorUser = new LinkedHashMap<>();
 
-            if (prestationZone == null) {
+        for (PrestationRequest prestationRequest : request.getPrestations()) {
+            ServiceQ service = services.get(prestationRequest.getServiceId());
+            if (service == null) {
+                throw new IllegalArgumentException("Invalid service ID: " + prestationRequest.getServiceId());
+            }
+            Integer zoneId = request.isOt() ? zone.getId() : prestationRequest.getZoneId();
+            if (zoneId == null) {
                 throw new IllegalArgumentException("Prestation must have a zone for SuiviPrestation creation");
             }
+            Zone prestationZone = zones.get(zoneId);
+            if (prestationZone == null) {
+                throw new IllegalArgumentException("Invalid zone ID: " + zoneId);
+            }
+            Coordinateur coordinateur = coordinators.get(zoneId);
+            if (coordinateur == null) {
+                throw new IllegalArgumentException("No coordinator found for zone ID: " + zoneId);
+            }
+            String codeSite = request.isOt() ? request.getCodeSite() : prestationRequest.getCodeSite();
 
-            Coordinateur coordinateur = coordinateurRepository.findByZoneId(prestationZone.getId())
-                    .stream()
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("No coordinator found for zone ID: " + prestationZone.getId()));
-
-            Prestation prestation;
-            // Match by ID or numLigne for OTs
-            Optional<Prestation> existingPrestation = existingPrestations.stream()
-                    .filter(p -> {
-                        if (prestationRequest.getId() != null && prestationRequest.getId().equals(p.getId())) {
-                            return true;
-                        }
-                        if (request.isOt() && prestationRequest.getId() == null && prestationRequest.getNumLigne() == p.getNumLigne()) {
-                            logger.debug("Matched OT prestation by numLigne: {} for prestation ID: {}", prestationRequest.getNumLigne(), p.getId());
-                            return true;
-                        }
-                        return false;
-                    })
-                    .findFirst();
-
-            if (existingPrestation.isPresent()) {
-                // Update existing Prestation
-                prestation = existingPrestation.get();
-                prestation.setNumLigne(prestationRequest.getNumLigne());
-                prestation.setFamille(prestationRequest.getFamille());
-                prestation.setDescription(prestationRequest.getDescription());
-                prestation.setQteBc(prestationRequest.getQteBc() != null ? prestationRequest.getQteBc() : 0.0);
-                prestation.setService(service);
-                prestation.setCodeSite(request.isOt() ? request.getCodeSite() : prestationRequest.getCodeSite());
-                prestation.setFournisseur(prestationRequest.getFournisseur());
-
-                // Create new SuiviPrestation for update
-                SuiviPrestation suiviPrestation = SuiviPrestation.builder()
-                        .prestation(prestation)
-                        .coordinateur(coordinateur)
-                        .zone(prestationZone)
-                        .qteRealise(0.0)
-                        .qteEncours(0.0)
-                        .qteTech(0.0)
-                        .qteDepose(0.0)
-                        .qteADepose(0.0)
-                        .qteSys(0.0)
-                        .fournisseur(prestationRequest.getFournisseur())
-                        .dateGo(request.getDateGo())
-                        .remarque(prestationRequest.getRemarque() != null
-                                ? prestationRequest.getRemarque()
-                                : "Auto-assigned to coordinator on update")
-                        .delaiRecep(0)
-                        .build();
-
-                // Add to Prestation's suivi list
-                prestation.getSuivi().add(suiviPrestation);
-                logger.debug("Added new SuiviPrestation to prestation: {}", prestation.getId());
-            } else {
-                // Validate no existing Prestation with same numLigne for OTs
-                if (request.isOt() && existingPrestations.stream().anyMatch(p -> p.getNumLigne() == prestationRequest.getNumLigne())) {
+            Prestation prestation = matchPrestation(existing, prestationRequest, request.isOt());
+            if (prestation == null) {
+                if (request.isOt() && existing.values().stream().anyMatch(p -> Objects.equals(p.getNumLigne(), prestationRequest.getNumLigne()))) {
                     throw new IllegalArgumentException("Duplicate numLigne " + prestationRequest.getNumLigne() + " for OT prestation");
                 }
-
-                // Create new Prestation
                 String prestationId = prestationRequest.getId() != null ? prestationRequest.getId() : generateId("PST-");
-                while (prestationRepository.findById(prestationId).isPresent()) {
+                while (prestationRepository.existsByCode(prestationId)) {
                     prestationId = generateId("PST-");
                 }
-
-                prestation = Prestation.builder()
-                        .id(prestationId)
+                Prestation created = Prestation.builder()
+                        .code(prestationId)
                         .numLigne(prestationRequest.getNumLigne())
-                        .famille(prestationRequest.getFamille())
+                        .familleProjet(familleProjet(prestationRequest.getFamille(), service))
                         .description(prestationRequest.getDescription())
                         .qteBc(prestationRequest.getQteBc() != null ? prestationRequest.getQteBc() : 0.0)
                         .service(service)
-                        .codeSite(request.isOt() ? request.getCodeSite() : prestationRequest.getCodeSite())
+                        .prixUnitaire(service.getPrix())
+                        .codeSite(codeSite)
                         .fournisseur(prestationRequest.getFournisseur())
                         .bonDeCommande(bonDeCommande)
+                        .suivi(new ArrayList<>())
                         .build();
+                created.getSuivi().add(newSuivi(created, coordinateur, prestationZone, prestationRequest,
+                        request.getDateGo(), "Auto-assigned to coordinator"));
+                bonDeCommande.getPrestations().add(created);
+                kept.add(prestationId);
+                createdIds.add(prestationId);
+                affect(linesByCoordinatorUser, coordinateur, prestationId);
+                logger.debug("Created Prestation with ID: {}", prestationId);
+                continue;
+            }
+            if (!kept.add(prestation.getCode())) {
+                throw new IllegalArgumentException("Prestation " + prestation.getCode() + " appears twice in the request");
+            }
 
-                // Create new SuiviPrestation
-                SuiviPrestation suiviPrestation = SuiviPrestation.builder()
-                        .prestation(prestation)
-                        .coordinateur(coordinateur)
-                        .zone(prestationZone)
-                        .qteRealise(0.0)
-                        .qteEncours(0.0)
-                        .qteTech(0.0)
-                        .qteDepose(0.0)
-                        .qteADepose(0.0)
-                        .qteSys(0.0)
-                        .fournisseur(prestationRequest.getFournisseur())
-                        .dateGo(request.getDateGo())
-                        .remarque(prestationRequest.getRemarque() != null
-                                ? prestationRequest.getRemarque()
-                                : "Auto-assigned to coordinator")
-                        .delaiRecep(0)
-                        .build();
-
-                // Add to Prestation's suivi list
-                prestation.getSuivi().add(suiviPrestation);
-                logger.debug("Created Prestation with ID: {}", prestation.getId());
+            boolean changed = applyPrestationChanges(prestation, prestationRequest, service, codeSite);
+            if (prestation.getSuivi() == null) {
+                prestation.setSuivi(new ArrayList<>());
+            }
+            // A suivi row is only added when the line moves to a coordinator that does not follow it yet
+            boolean reassigned = prestation.getSuivi().stream().noneMatch(s -> s.getCoordinateur() != null
+                    && s.getCoordinateur().getId().equals(coordinateur.getId()));
+            if (changed) {
+                prestation.getSuivi().forEach(s -> affect(linesByCoordinatorUser, s.getCoordinateur(), prestation.getCode()));
+            }
+            if (reassigned) {
+                prestation.getSuivi().add(newSuivi(prestation, coordinateur, prestationZone, prestationRequest,
+                        request.getDateGo(), "Auto-assigned to coordinator on update"));
+                affect(linesByCoordinatorUser, coordinateur, prestation.getCode());
+                logger.debug("Reassigned Prestation {} to coordinator {}", prestation.getCode(), coordinateur.getId());
             }
+            if (changed || reassigned) {
+                updatedIds.add(prestation.getCode());
+            }
+        }
 
-            newPrestationList.add(prestation);
+        // Lines missing from the request are removed, orphan removal cascades to their SuiviPrestations
+        List<String> deletedIds = new ArrayList<>();
+        for (Prestation p : existing.values()) {
+            if (!kept.contains(p.getCode())) {
+                deletedIds.add(p.getCode());
+                if (p.getSuivi() != null) {
+                    p.getSuivi().forEach(s -> affect(linesByCoordinatorUser, s.getCoordinateur(), p.getCode()));
+                }
+            }
         }
+        bonDeCommande.getPrestations().removeIf(p -> deletedIds.contains(p.getCode()));
+        BonDeCommande updatedBonDeCommande = bonDeCommandeRepository.save(bonDeCommande);
+        logger.debug("Diff for BonDeCommande {}: {} created, {} updated, {} deleted",
+                numBc, createdIds.size(), updatedIds.size(), deletedIds.size());
 
-        // Delete removed Prestations and their SuiviPrestations
-        List<Prestation> toDelete = existingPrestations.stream()
-                .filter(p -> newPrestationList.stream().noneMatch(np -> np.getId().equals(p.getId())))
-                .toList();
-        for (Prestation p : toDelete) {
-            prestationRepository.delete(p); // Cascades to SuiviPrestation
-            logger.debug("Deleted Prestation: {}", p.getId());
+        Map<Integer, List<String>> affected = new LinkedHashMap<>();
+        linesByCoordinatorUser.forEach((userId, ids) -> affected.put(userId, new ArrayList<>(ids)));
+        eventPublisher.publish(new DomainEvent.BcUpdated(updatedBonDeCommande.getNumBc(), updatedBonDeCommande.isOt(),
+                backOffice.getUser() != null ? backOffice.getUser().getId() : null,
+                createdIds, updatedIds, deletedIds, affected));
+
+        logger.info("BonDeCommande updated successfully: {}", updatedBonDeCommande.getNumBc());
+        return updatedBonDeCommande;
+    }
+
+    // Lines are matched by id, OT lines sent without id by numLigne
+    private Prestation matchPrestation(Map<String, Prestation> existing, PrestationRequest prestationRequest, boolean isOt) {
+        if (prestationRequest.getId() != null) {
+            return existing.get(prestationRequest.getId());
+        }
+        if (isOt) {
+            return existing.values().stream()
+                    .filter(p -> Objects.equals(p.getNumLigne(), prestationRequest.getNumLigne()))
+                    .findFirst()
+                    .orElse(null);
         }
+        return null;
+    }
 
-        // Update BonDeCommande with new Prestation list
-        bonDeCommande.getPrestations().clear();
-        bonDeCommande.getPrestations().addAll(newPrestationList);
-        BonDeCommande updatedBonDeCommande = bonDeCommandeRepository.save(bonDeCommande);
+    // Famille projet by name, the famille of the service when the request has none
+    private Famille familleProjet(String name, ServiceQ service) {
+        if (name == null || name.isBlank()) {
+            return service.getFamille();
+        }
+        return familleRepository.findByName(name.trim())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown famille: " + name));
+    }
 
-        // Send notifications
-        for (Prestation prestation : updatedBonDeCommande.getPrestations()) {
-            for (SuiviPrestation suivi : prestation.getSuivi()) {
-                if (suivi.getCoordinateur() != null && suivi.getCoordinateur().getUser() != null) {
-                    Integer utilisateurId = suivi.getCoordinateur().getUser().getId();
-                    String message = String.format("SuiviPrestation %s for Prestation %s in BonDeCommande %s",
-                            existingPrestations.stream().anyMatch(p -> p.getId().equals(prestation.getId())) ? "updated" : "created",
-                            prestation.getId(), updatedBonDeCommande.getNumBc());
-                    notificationService.createNotification(utilisateurId, message);
-                    logger.debug("Notification sent to user ID: {} for prestation: {}", utilisateurId, prestation.getId());
-                }
+    // Only touches the fields that differ, so an unchanged line is neither written nor reported
+    private boolean applyPrestationChanges(Prestation prestation, PrestationRequest prestationRequest, ServiceQ service, String codeSite) {
+        Double qteBc = prestationRequest.getQteBc() != null ? prestationRequest.getQteBc() : 0.0;
+        boolean changed = false;
+        if (!Objects.equals(prestation.getNumLigne(), prestationRequest.getNumLigne())) {
+            prestation.setNumLigne(prestationRequest.getNumLigne());
+            changed = true;
+        }
+        Famille familleProjet = familleProjet(prestationRequest.getFamille(), service);
+        Long current = prestation.getFamilleProjet() != null ? prestation.getFamilleProjet().getId() : null;
+        if (!Objects.equals(current, familleProjet != null ? familleProjet.getId() : null)) {
+            prestation.setFamilleProjet(familleProjet);
+            changed = true;
+        }
+        if (!Objects.equals(prestation.getDescription(), prestationRequest.getDescription())) {
+            prestation.setDescription(prestationRequest.getDescription());
+            changed = true;
+        }
+        if (prestation.getQteBc() == null || Double.compare(prestation.getQteBc(), qteBc) != 0) {
+            prestation.setQteBc(qteBc);
+            changed = true;
+        }
+        if (prestation.getService() == null || !prestation.getService().getId().equals(service.getId())) {
+            // Another article: the line takes its current price
+            prestation.setService(service);
+            prestation.setPrixUnitaire(service.getPrix());
+            if (prestation.getSuivi() != null) {
+                prestation.getSuivi().forEach(suivi -> suivi.setPrixUnitaire(service.getPrix()));
             }
+            changed = true;
         }
-
-        if (backOffice.getUser() != null) {
-            Integer utilisateurId = backOffice.getUser().getId();
-            String message = String.format("BonDeCommande %s updated (OT: %s)",
-                    updatedBonDeCommande.getNumBc(), updatedBonDeCommande.isOt());
-            notificationService.createNotification(utilisateurId, message);
+        if (!Objects.equals(prestation.getCodeSite(), codeSite)) {
+            prestation.setCodeSite(codeSite);
+            changed = true;
+        }
+        if (!Objects.equals(prestation.getFournisseur(), prestationRequest.getFournisseur())) {
+            prestation.setFournisseur(prestationRequest.getFournisseur());
+            changed = true;
         }
+        return changed;
+    }
 
-        logger.info("BonDeCommande updated successfully: {}", updatedBonDeCommande.getNumBc());
-        return updatedBonDeCommande;
+    private SuiviPrestation newSuivi(Prestation prestation, Coordinateur coordinateur, Zone zone,
+                                     PrestationRequest prestationRequest, LocalDate dateGo, String defaultRemarque) {
+        return SuiviPrestation.builder()
+                .prestation(prestation)
+                .coordinateur(coordinateur)
+                .zone(zone)
+                .qteRealise(0.0)
+                .qteEncours(0.0)
+                .qteTech(0.0)
+                .qteDepose(0.0)
+                .qteADepose(0.0)
+                .qteSys(0.0)
+                .prixUnitaire(prestation.getPrixUnitaire())
+                .fournisseur(prestationRequest.getFournisseur())
+                .dateGo(dateGo)
+                .remarque(prestationRequest.getRemarque() != null ? prestationRequest.getRemarque() : defaultRemarque)
+                .delaiRecep(0)
+                .build();
+    }
+
+    private static void affect(Map<Integer, Set<String>> linesByCoordinatorUser, Coordinateur coordinateur, String prestationId) {
+        if (coordinateur != null && coordinateur.getUser() != null) {
+            linesByCoordinatorUser.computeIfAbsent(coordinateur.getUser().getId(), k -> new LinkedHashSet<>()).add(prestationId);
+        }
     }
 
     @Transactional
     public void deleteBonDeCommande(String numBc) {
         logger.info("Deleting BonDeCommande with numBc: {}", numBc);
-        BonDeCommande bonDeCommande = bonDeCommandeRepository.findByNumBc(numBc)
-                .orElseThrow(() -> new IllegalArgumentException("BonDeCommande not found: " + numBc));
-        for (Prestation prestation : bonDeCommande.getPrestations()) {
-            prestationRepository.delete(prestation); // Cascades to SuiviPrestation
+        if (bonDeCommandeDeletionService.delete(List.of(numBc)).isEmpty()) {
+            throw new IllegalArgumentException("BonDeCommande not found: " + numBc);
         }
-        fileRepository.findByBonDeCommande(bonDeCommande).ifPresent(fileRepository::delete);
-        bonDeCommandeRepository.delete(bonDeCommande);
         logger.info("BonDeCommande deleted successfully: {}", numBc);
     }
 
-    public List<BonDeCommande> getBonDeCommandesByEmailBO(String emailBO) {
+    public BcBulkDeleteResponse deleteBonDeCommandes(List<String> numBcs) {
+        if (numBcs == null || numBcs.isEmpty()) {
+            throw new IllegalArgumentException("At least one numBc is required");
+        }
+        logger.info("Deleting {} BonDeCommandes in bulk", numBcs.size());
+        return bonDeCommandeDeletionService.deleteAll(numBcs);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BonDeCommandeResponse> getBonDeCommandesByEmailBO(String emailBO) {
         logger.info("Fetching BonDeCommandes for emailBO: {}", emailBO);
         BackOffice backOffice = backOfficeRepository.findByUserEmail(emailBO)
                 .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + emailBO));
         List<BonDeCommande> bonDeCommandes = bonDeCommandeRepository.findByBackOffice(backOffice);
         logger.info("Found {} BonDeCommandes for emailBO: {}", bonDeCommandes.size(), emailBO);
-        return bonDeCommandes;
+        return toResponses(bonDeCommandes);
     }
 
     private void validateBonDeCommandeRequest(BonDeCommandeRequest request) {
@@ -437,14 +504,51 @@ public class BonDeCommandeService {
         }
     }
 
-    public List<BonDeCommande> getAllBonDeCommandes() {
+    @Transactional(readOnly = true)
+    public List<BonDeCommandeResponse> getAllBonDeCommandes() {
         logger.info("Fetching all BonDeCommandes");
-        return bonDeCommandeRepository.findAll();
+        return toResponses(bonDeCommandeRepository.findAll());
+    }
+
+    // Mapped while the session is open: nothing lazy reaches Jackson
+    private List<BonDeCommandeResponse> toResponses(Collection<BonDeCommande> bonDeCommandes) {
+        return bonDeCommandes.stream().map(BonDeCommandeResponse::of).toList();
+    }
+
+    // Delta sync of the BC list: back offices only get their own BCs, chefs de projet all of them
+    @Transactional(readOnly = true)
+    public ChangesResponse<BonDeCommandeResponse> getBonDeCommandeChanges(String since, String email, String role) {
+        ChangeTrackingService.SyncWindow window = changeTrackingService.window(since);
+        BackOffice backOffice = null;
+        if ("ROLE_BACK_OFFICE".equals(role)) {
+            backOffice = backOfficeRepository.findByUserEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + email));
+        }
+        if (window.full()) {
+            List<BonDeCommande> all = backOffice != null ? bonDeCommandeRepository.findByBackOffice(backOffice) : bonDeCommandeRepository.findAll();
+            return new ChangesResponse<>(window.token(), true, toResponses(all), List.of());
+        }
+
+        Integer backOfficeId = backOffice != null ? backOffice.getId() : null;
+        Map<String, BonDeCommande> upserts = new LinkedHashMap<>();
+        bonDeCommandeRepository.findChangedSince(window.from(), backOfficeId).forEach(bc -> upserts.put(bc.getNumBc(), bc));
+        // A deleted prestation leaves its BC row untouched, the BC is sent again without it
+        List<String> parents = new ArrayList<>(changeTrackingService.parentsWithDeletions(ChangeTrackingService.PRESTATION, window.from()));
+        parents.removeAll(upserts.keySet());
+        for (BonDeCommande bc : bonDeCommandeRepository.findByNumBcIn(parents)) {
+            if (backOfficeId == null || (bc.getBackOffice() != null && backOfficeId.equals(bc.getBackOffice().getId()))) {
+                upserts.put(bc.getNumBc(), bc);
+            }
+        }
+        List<String> deleted = changeTrackingService.deletedIds(ChangeTrackingService.BON_DE_COMMANDE, window.from());
+        logger.info("BonDeCommande changes for {} since {}: {} upserts, {} deletions", email, since, upserts.size(), deleted.size());
+        return new ChangesResponse<>(window.token(), false, toResponses(upserts.values()), deleted);
     }
 
-    public Optional<BonDeCommande> getBonDeCommandeByNumBc(String numBc) {
+    @Transactional(readOnly = true)
+    public Optional<BonDeCommandeResponse> getBonDeCommandeByNumBc(String numBc) {
         logger.info("Fetching BonDeCommande with numBc: {}", numBc);
-        return bonDeCommandeRepository.findByNumBc(numBc);
+        return bonDeCommandeRepository.findByNumBc(numBc).map(BonDeCommandeResponse::of);
     }
 
     public List<BonDeCommandeRequest> getBcByOtStatut(boolean isOt) { //to be deleted
@@ -467,7 +571,7 @@ public class BonDeCommandeService {
                 request.setOt(bc.isOt());
                 request.setPrestations(bc.getPrestations().stream().map(prestation -> {
                     PrestationRequest prestationRequest = new PrestationRequest();
-                    prestationRequest.setId(prestation.getId());
+                    prestationRequest.setId(prestation.getCode());
                     prestationRequest.setNumLigne(prestation.getNumLigne());
                     prestationRequest.setDescription(prestation.getDescription());
                     prestationRequest.setQteBc(prestation.getQteBc());
@@ -487,7 +591,7 @@ public class BonDeCommandeService {
     }
 
     public List<ServiceSummary> getServicesByNumBc(String numBc) {
-        Optional<BonDeCommande> bcOpt = bonDeCommandeRepository.findById(numBc);
+        Optional<BonDeCommande> bcOpt = bonDeCommandeRepository.findByNumBc(numBc);
         if (bcOpt.isEmpty()) {
             throw new IllegalArgumentException("BonDeCommande not found: " + numBc);
         }
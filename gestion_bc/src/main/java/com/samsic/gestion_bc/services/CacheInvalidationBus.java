@@ -0,0 +1,30 @@
+package com.samsic.gestion_bc.services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// Keeps the in-process caches of every replica coherent. Each cache registers under a name; publish() evicts the
+// given keys on this node once the writing transaction commits and on the other nodes through the transport
+// (JdbcCacheInvalidationBus by default, selected with cache.invalidation.transport).
+public interface CacheInvalidationBus {
+
+    void register(String cache, Listener listener);
+
+    // An empty key collection evicts the whole cache
+    void publish(String cache, Collection<String> keys);
+
+    default void publish(String cache, String key) {
+        publish(cache, List.of(key));
+    }
+
+    default void publishAll(String cache) {
+        publish(cache, List.of());
+    }
+
+    interface Listener {
+        void evict(Set<String> keys);
+
+        void evictAll();
+    }
+}
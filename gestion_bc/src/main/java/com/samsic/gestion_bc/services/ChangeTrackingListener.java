@@ -0,0 +1,37 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.*;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// JPA listener on the synced entities: records a tombstone for every deleted row, cascaded deletes included
+@Component
+public class ChangeTrackingListener {
+    private final ObjectProvider<ChangeTrackingService> changeTracking;
+
+    public ChangeTrackingListener(ObjectProvider<ChangeTrackingService> changeTracking) {
+        this.changeTracking = changeTracking;
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        ChangeTrackingService service = changeTracking.getIfAvailable();
+        if (service == null) {
+            return;
+        }
+        if (entity instanceof SuiviPrestation suivi) {
+            service.recordDeletion(ChangeTrackingService.SUIVI_PRESTATION, String.valueOf(suivi.getId()), null);
+        } else if (entity instanceof Prestation prestation) {
+            service.recordDeletion(ChangeTrackingService.PRESTATION, prestation.getCode(),
+                    prestation.getBonDeCommande() != null ? prestation.getBonDeCommande().getNumBc() : null);
+        } else if (entity instanceof BonDeCommande bc) {
+            service.recordDeletion(ChangeTrackingService.BON_DE_COMMANDE, bc.getNumBc(), null);
+        } else if (entity instanceof Ot ot) {
+            service.recordDeletion(ChangeTrackingService.OT, ot.getNumOt(), null);
+        } else if (entity instanceof OtPrestation otPrestation) {
+            service.recordDeletion(ChangeTrackingService.OT_PRESTATION, String.valueOf(otPrestation.getId()),
+                    otPrestation.getOt() != null ? otPrestation.getOt().getNumOt() : null);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.repositories.SyncTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+// Delta sync for the suivi, BC and OT lists.
+// Synced tables carry an updated_at column maintained by MySQL and deletes leave a row in sync_tombstones.
+// A sync token is the database time at which the previous answer was computed. The next call returns what changed
+// after it, minus a small overlap so that rows committed late by a concurrent transaction are not missed; clients
+// apply upserts by id, so receiving a row twice is harmless.
+@Service
+public class ChangeTrackingService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeTrackingService.class);
+
+    public static final String SUIVI_PRESTATION = "SUIVI_PRESTATION";
+    public static final String PRESTATION = "PRESTATION";
+    public static final String BON_DE_COMMANDE = "BON_DE_COMMANDE";
+    public static final String OT = "OT";
+    public static final String OT_PRESTATION = "OT_PRESTATION";
+
+    private static final String INSERT_TOMBSTONE_SQL =
+            "INSERT INTO sync_tombstones (entity_type, entity_id, parent_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SyncTombstoneRepository tombstoneRepository;
+    private final long overlapMs;
+    private final int retentionDays;
+
+    public ChangeTrackingService(
+            JdbcTemplate jdbcTemplate,
+            SyncTombstoneRepository tombstoneRepository,
+            @Value("${sync.overlap-ms:5000}") long overlapMs,
+            @Value("${sync.tombstone-retention-days:30}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tombstoneRepository = tombstoneRepository;
+        this.overlapMs = Math.max(0, overlapMs);
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+
+    // Runs inside the deleting transaction (called from ChangeTrackingListener at flush time)
+    public void recordDeletion(String entityType, String entityId, String parentId) {
+        if (entityId != null) {
+            jdbcTemplate.update(INSERT_TOMBSTONE_SQL, entityType, entityId, parentId);
+        }
+    }
+
+    // Set-based deletes bypass the entity listener: one batch for all rows, each row is {entityId, parentId}
+    public void recordDeletions(String entityType, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TOMBSTONE_SQL, rows.stream()
+                    .map(row -> new Object[]{entityType, row[0], row[1]})
+                    .toList());
+        }
+    }
+
+    public SyncWindow window(String since) {
+        LocalDateTime now = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(6)", LocalDateTime.class);
+        String token = now.toString();
+        if (since == null || since.isBlank()) {
+            return new SyncWindow(null, token);
+        }
+        LocalDateTime from;
+        try {
+            from = LocalDateTime.parse(since.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid sync token: " + since);
+        }
+        // Tombstones older than the retention period are gone, the client has to reload everything
+        if (from.isBefore(now.minusDays(retentionDays))) {
+            logger.info("Sync token {} is older than {} days, sending a full list", since, retentionDays);
+            return new SyncWindow(null, token);
+        }
+        return new SyncWindow(from.minusNanos(overlapMs * 1_000_000), token);
+    }
+
+    public List<String> deletedIds(String entityType, LocalDateTime from) {
+        return tombstoneRepository.findDeletedIdsSince(entityType, from);
+    }
+
+    // Parents (BC, OT) of child rows deleted since the window start, they have to be sent again
+    public List<String> parentsWithDeletions(String entityType, LocalDateTime from) {
+        return tombstoneRepository.findParentIdsSince(entityType, from);
+    }
+
+    @Scheduled(cron = "${sync.tombstone-purge-cron:0 30 2 * * *}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays + 1L));
+        if (purged > 0) {
+            logger.info("Purged {} sync tombstones", purged);
+        }
+    }
+
+    // from is null for a full sync
+    public record SyncWindow(LocalDateTime from, String token) {
+        public boolean full() {
+            return from == null;
+        }
+    }
+}
@@ -39,29 +39,38 @@ public class DashboardService {
         for (BackOffice backOffice : backOffices) {
             // Skip if metrics already exist for today
             if (!dashboardMetricRepository.existsByBackOfficeIdAndCalculationDate(backOffice.getId(), today)) {
+                // Archived BCs still count, through the sums kept in bc_archive_aggregates
                 String sql = """
-                     SELECT 
-                    p.famille,
-                    COALESCE(SUM(p.qte_bc * s.prix), 0.0) as montant_total_bc,
-                    COALESCE(SUM(sp.qte_tech * s.prix), 0.0) as montant_cloture_terrain,
-                    COALESCE(CASE 
-                        WHEN SUM(p.qte_bc) > 0 
-                        THEN (SUM(sp.qte_realise) / SUM(p.qte_bc) * 100) 
-                        ELSE 0.0 
-                    END, 0.0) as taux_realisation,
-                    COALESCE(SUM(CASE 
-                        WHEN sp.date_recep_sys IS NOT NULL 
-                        THEN sp.qte_sys * s.prix 
-                        ELSE 0.0 
-                    END), 0.0) as montant_receptionne,
-                    COALESCE(SUM(sp.qte_depose * s.prix), 0.0) as montant_depose_sys,
-                    COALESCE(SUM(sp.qteadepose * s.prix), 0.0) as montant_a_depose_sys
-                FROM prestations p
-                JOIN bon_de_commande bc ON p.bc_id = bc.num_bc
-                JOIN services s ON p.service_id = s.id
-                LEFT JOIN suivi_prestation sp ON p.id = sp.prestation_id
-                WHERE bc.back_office_id = :backOfficeId
-                GROUP BY p.famille
+                SELECT t.famille,
+                    COALESCE(SUM(t.montant_total_bc), 0.0),
+                    COALESCE(SUM(t.montant_cloture_terrain), 0.0),
+                    COALESCE(CASE WHEN SUM(t.qte_bc) > 0 THEN (SUM(t.qte_realise) / SUM(t.qte_bc) * 100) ELSE 0.0 END, 0.0),
+                    COALESCE(SUM(t.montant_receptionne), 0.0),
+                    COALESCE(SUM(t.montant_depose_sys), 0.0),
+                    COALESCE(SUM(t.montant_a_depose_sys), 0.0)
+                FROM (
+                    SELECT ANY_VALUE(fp.name) AS famille,
+                        SUM(p.montant_bc) AS montant_total_bc,
+                        SUM(sp.montant_tech) AS montant_cloture_terrain,
+                        SUM(sp.qte_realise) AS qte_realise,
+                        SUM(p.qte_bc) AS qte_bc,
+                        SUM(CASE WHEN sp.date_recep_sys IS NOT NULL THEN sp.montant_sys ELSE 0.0 END) AS montant_receptionne,
+                        SUM(sp.montant_depose) AS montant_depose_sys,
+                        SUM(sp.montant_a_deposer) AS montant_a_depose_sys
+                    FROM prestations p
+                    JOIN bon_de_commande bc ON p.bc_id = bc.id
+                    LEFT JOIN suivi_prestation sp ON p.id = sp.prestation_id
+                    LEFT JOIN familles fp ON fp.id = p.famille_id
+                    WHERE bc.back_office_id = :backOfficeId AND p.service_id IS NOT NULL
+                    GROUP BY p.famille_id
+                    UNION ALL
+                    SELECT a.famille_projet, SUM(a.montant_bc), SUM(a.montant_tech), SUM(a.qte_realise), SUM(a.qte_bc),
+                        SUM(a.montant_receptionne_date), SUM(a.montant_depose), SUM(a.montant_a_deposer)
+                    FROM bc_archive_aggregates a
+                    WHERE a.back_office_id = :backOfficeId AND a.service_id IS NOT NULL
+                    GROUP BY a.famille_projet
+                ) t
+                GROUP BY t.famille
                 """;
 
                 Query query = entityManager.createNativeQuery(sql);
@@ -0,0 +1,49 @@
+package com.samsic.gestion_bc.services;
+
+import java.util.List;
+import java.util.Map;
+
+// Facts published by the services through DomainEventPublisher and handled after commit by DomainEventHandlers.
+// They only carry ids (and the user ids already at hand in the publishing transaction), handlers reload the rest.
+public sealed interface DomainEvent {
+
+    record BcCreated(String numBc, Integer backOfficeUserId) implements DomainEvent {
+    }
+
+    // Import: one event per persisted chunk so that each back office gets one notification for it
+    record BcsCreated(List<BcCreated> bcs) implements DomainEvent {
+    }
+
+    // linesByCoordinatorUser: prestation ids created, changed, reassigned or deleted, per coordinator user following them
+    record BcUpdated(String numBc, boolean ot, Integer backOfficeUserId,
+                     List<String> createdPrestationIds, List<String> updatedPrestationIds, List<String> deletedPrestationIds,
+                     Map<Integer, List<String>> linesByCoordinatorUser) implements DomainEvent {
+    }
+
+    record SuivisCreated(String numBc, Integer backOfficeUserId, List<SuiviRef> suivis) implements DomainEvent {
+        public record SuiviRef(Integer suiviId, String prestationId, Integer zoneId) {
+        }
+    }
+
+    record SuivisUpdated(List<Integer> suiviIds) implements DomainEvent {
+    }
+
+    record OtCreated(OtRef ot) implements DomainEvent {
+    }
+
+    record OtUpdated(OtRef ot) implements DomainEvent {
+    }
+
+    // Grid save: one event for the whole batch so that each user gets one notification
+    record OtsUpdated(List<OtRef> ots) implements DomainEvent {
+    }
+
+    record OtLinked(OtRef ot, String numBc, Integer bcBackOfficeUserId) implements DomainEvent {
+    }
+
+    record OtsLinked(List<OtLinked> links) implements DomainEvent {
+    }
+
+    record OtRef(String numOt, Integer zoneId, Integer backOfficeUserId) {
+    }
+}
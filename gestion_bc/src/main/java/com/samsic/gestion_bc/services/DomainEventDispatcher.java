@@ -0,0 +1,219 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.dto.responses.EventMetricsResponse;
+import com.samsic.gestion_bc.models.OutboxEvent;
+import com.samsic.gestion_bc.repositories.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs the event_outbox rows on a bounded worker pool.
+// Rows are submitted right after the publishing transaction commits; a row is claimed with a conditional
+// UPDATE (lease) before its handler runs, so the poller, which picks up rows the pool rejected, missed on a crash
+// or due for a retry, never runs a handler twice concurrently. The handler runs in the transaction that deletes its row,
+// and the delete only succeeds while the lease is held: the database writes of a handler commit once, whatever the
+// retries. A failing row is retried with exponential backoff and parked as FAILED after max-attempts.
+@Service
+public class DomainEventDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventDispatcher.class);
+    private static final Map<String, Class<?>> EVENT_TYPES = new HashMap<>();
+
+    static {
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            EVENT_TYPES.put(type.getSimpleName(), type);
+        }
+    }
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, DomainEventHandler> handlersByName = new HashMap<>();
+    private final Map<Class<?>, List<DomainEventHandler>> handlersByType = new HashMap<>();
+    private final Map<String, HandlerStats> stats = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor executor;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long leaseMs;
+    private final long pollGraceMs;
+
+    public DomainEventDispatcher(
+            List<DomainEventHandler> handlers,
+            OutboxEventRepository outboxRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${events.worker-threads:2}") int workerThreads,
+            @Value("${events.queue-capacity:1000}") int queueCapacity,
+            @Value("${events.max-attempts:5}") int maxAttempts,
+            @Value("${events.retry-delay-ms:2000}") long retryDelayMs,
+            @Value("${events.lease-ms:60000}") long leaseMs,
+            @Value("${events.poll-grace-ms:10000}") long pollGraceMs) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMs = Math.max(0, retryDelayMs);
+        this.leaseMs = Math.max(1000, leaseMs);
+        this.pollGraceMs = Math.max(0, pollGraceMs);
+        for (DomainEventHandler handler : handlers) {
+            handlersByName.put(handler.name(), handler);
+            stats.put(handler.name(), new HandlerStats());
+            handler.eventTypes().forEach(type -> handlersByType.computeIfAbsent(type, k -> new ArrayList<>()).add(handler));
+        }
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, workerThreads));
+        executor.setMaxPoolSize(Math.max(1, workerThreads));
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("domain-event-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+    }
+
+    public List<DomainEventHandler> handlersFor(Class<? extends DomainEvent> eventType) {
+        return handlersByType.getOrDefault(eventType, List.of());
+    }
+
+    public void submit(Collection<Long> outboxIds) {
+        for (Long id : outboxIds) {
+            try {
+                executor.execute(() -> process(id));
+            } catch (TaskRejectedException e) {
+                logger.warn("Event worker queue full, outbox row {} left to the poller", id);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.poll-interval-ms:5000}")
+    public void pollDue() {
+        int room = executor.getThreadPoolExecutor().getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        LocalDateTime dueBefore = LocalDateTime.now().minusNanos(pollGraceMs * 1_000_000);
+        List<Long> due = outboxRepository.findDueIds(OutboxEvent.Status.PENDING, dueBefore, PageRequest.of(0, room));
+        if (!due.isEmpty()) {
+            logger.info("Dispatching {} due outbox rows", due.size());
+            submit(due);
+        }
+    }
+
+    private void process(Long id) {
+        // Compared again on completion, so no finer than the datetime(6) column
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        Integer claimed = transactionTemplate.execute(status ->
+                outboxRepository.claim(id, OutboxEvent.Status.PENDING, now, leaseUntil));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        OutboxEvent row = outboxRepository.findById(id).orElse(null);
+        if (row == null) {
+            return;
+        }
+
+        HandlerStats handlerStats = stats.computeIfAbsent(row.getHandler(), k -> new HandlerStats());
+        long start = System.nanoTime();
+        try {
+            DomainEventHandler handler = handlersByName.get(row.getHandler());
+            if (handler == null) {
+                throw new IllegalStateException("Unknown event handler: " + row.getHandler());
+            }
+            Class<?> type = EVENT_TYPES.get(row.getEventType());
+            if (type == null) {
+                throw new IllegalStateException("Unknown event type: " + row.getEventType());
+            }
+            DomainEvent event = (DomainEvent) objectMapper.readValue(row.getPayload(), type);
+            Boolean completed = transactionTemplate.execute(status -> {
+                handler.handle(event);
+                if (outboxRepository.complete(id, leaseUntil) == 0) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+            if (!Boolean.TRUE.equals(completed)) {
+                // The worker that claimed the row after the lease ran out handles it, this run is undone
+                logger.warn("{} outlived its lease on {} (outbox row {}), rolled back", row.getHandler(), row.getEventType(), id);
+                return;
+            }
+            handlerStats.record(System.nanoTime() - start, true);
+        } catch (Exception e) {
+            handlerStats.record(System.nanoTime() - start, false);
+            int attempts = row.getAttempts() + 1;
+            row.setAttempts(attempts);
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            row.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (attempts >= maxAttempts) {
+                row.setStatus(OutboxEvent.Status.FAILED);
+                handlerStats.deadLettered.increment();
+                logger.error("{} failed {} times on {} (outbox row {}), giving up: {}",
+                        row.getHandler(), attempts, row.getEventType(), id, e.getMessage(), e);
+            } else {
+                long delay = retryDelayMs << Math.min(attempts - 1, 20);
+                row.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+                logger.warn("{} failed on {} (outbox row {}, attempt {}), retrying in {} ms: {}",
+                        row.getHandler(), row.getEventType(), id, attempts, delay, e.getMessage());
+            }
+            outboxRepository.save(row);
+        }
+    }
+
+    public int requeueFailed() {
+        Integer requeued = transactionTemplate.execute(status ->
+                outboxRepository.requeue(OutboxEvent.Status.FAILED, OutboxEvent.Status.PENDING, LocalDateTime.now()));
+        return requeued != null ? requeued : 0;
+    }
+
+    public EventMetricsResponse metrics() {
+        EventMetricsResponse response = new EventMetricsResponse();
+        response.setPending(outboxRepository.countByStatus(OutboxEvent.Status.PENDING));
+        response.setFailed(outboxRepository.countByStatus(OutboxEvent.Status.FAILED));
+        response.setQueued(executor.getThreadPoolExecutor().getQueue().size());
+        response.setActiveWorkers(executor.getActiveCount());
+        stats.forEach((name, s) -> response.getHandlers().add(s.toMetrics(name)));
+        response.getHandlers().sort(Comparator.comparing(EventMetricsResponse.HandlerMetrics::getHandler));
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class HandlerStats {
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder deadLettered = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean success) {
+            (success ? succeeded : failed).increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        EventMetricsResponse.HandlerMetrics toMetrics(String name) {
+            long runs = succeeded.sum() + failed.sum();
+            return new EventMetricsResponse.HandlerMetrics(name, succeeded.sum(), failed.sum(), deadLettered.sum(),
+                    runs == 0 ? 0 : totalNanos.sum() / 1e6 / runs, maxNanos.get() / 1e6);
+        }
+    }
+}
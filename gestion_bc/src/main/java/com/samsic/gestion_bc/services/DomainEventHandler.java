@@ -0,0 +1,21 @@
+package com.samsic.gestion_bc.services;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.Set;
+
+// Side effect of domain events, run after commit on the DomainEventDispatcher pool.
+// Every (event, handler) pair is its own outbox row: a failing handler is retried alone. handle() runs in the
+// transaction that deletes the row, so its database writes happen once; anything else it does (mail, HTTP) may be
+// repeated by a retry and should be idempotent.
+public interface DomainEventHandler {
+
+    Set<Class<? extends DomainEvent>> eventTypes();
+
+    void handle(DomainEvent event);
+
+    // Stored with the outbox row, must stay stable across releases
+    default String name() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,64 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.models.OutboxEvent;
+import com.samsic.gestion_bc.repositories.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Records a domain event in event_outbox within the caller's transaction (one row per interested handler) and hands
+// the rows to the dispatcher once that transaction has committed. Nothing is dispatched for a rolled back transaction.
+@Service
+public class DomainEventPublisher {
+    private final OutboxEventRepository outboxRepository;
+    private final DomainEventDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    public DomainEventPublisher(OutboxEventRepository outboxRepository, DomainEventDispatcher dispatcher, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publish(DomainEvent event) {
+        List<DomainEventHandler> handlers = dispatcher.handlersFor(event.getClass());
+        if (handlers.isEmpty()) {
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = handlers.stream()
+                .map(handler -> OutboxEvent.builder()
+                        .eventType(event.getClass().getSimpleName())
+                        .handler(handler.name())
+                        .payload(payload)
+                        .status(OutboxEvent.Status.PENDING)
+                        .createdAt(now)
+                        .nextAttemptAt(now)
+                        .build())
+                .toList();
+        List<Long> ids = outboxRepository.saveAll(rows).stream().map(OutboxEvent::getId).toList();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.submit(ids);
+                }
+            });
+        } else {
+            dispatcher.submit(ids);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Progress of one spreadsheet import, updated by the worker thread and read by the status endpoint
+public class ImportJob {
+    public enum Type { BON_DE_COMMANDE, OT }
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    // Keeps the status payload bounded on files where every row is wrong
+    private static final int MAX_REPORTED_ERRORS = 5000;
+
+    private final String id;
+    private final Type type;
+    private final String fileName;
+    private final Integer backOfficeId;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile Status status = Status.PENDING;
+    private volatile String failureMessage;
+    private final AtomicInteger rowsRead = new AtomicInteger();
+    private final AtomicInteger rowsImported = new AtomicInteger();
+    private final AtomicInteger rowsRejected = new AtomicInteger();
+    private final AtomicInteger aggregatesCreated = new AtomicInteger();
+    private final List<ImportJobResponse.RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+    public ImportJob(String id, Type type, String fileName, Integer backOfficeId) {
+        this.id = id;
+        this.type = type;
+        this.fileName = fileName;
+        this.backOfficeId = backOfficeId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Integer getBackOfficeId() {
+        return backOfficeId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getAggregatesCreated() {
+        return aggregatesCreated.get();
+    }
+
+    public int getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    void markCompleted() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    void markFailed(String message) {
+        failureMessage = message;
+        status = Status.FAILED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported(int aggregates, int rows) {
+        aggregatesCreated.addAndGet(aggregates);
+        rowsImported.addAndGet(rows);
+    }
+
+    void reject(int row, String key, String message) {
+        rowsRejected.incrementAndGet();
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ImportJobResponse.RowError(row, key, message));
+        }
+    }
+
+    public ImportJobResponse toResponse() {
+        List<ImportJobResponse.RowError> snapshot;
+        synchronized (errors) {
+            snapshot = new ArrayList<>(errors);
+        }
+        return new ImportJobResponse(
+                id,
+                type.name(),
+                fileName,
+                status.name(),
+                rowsRead.get(),
+                rowsImported.get(),
+                rowsRejected.get(),
+                aggregatesCreated.get(),
+                startedAt,
+                finishedAt,
+                failureMessage,
+                snapshot
+        );
+    }
+}
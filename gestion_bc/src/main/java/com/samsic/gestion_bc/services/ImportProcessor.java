@@ -0,0 +1,644 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.*;
+import com.samsic.gestion_bc.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// Worker side of the spreadsheet import. Rows are streamed, validated against reference data loaded once per job,
+// grouped into BonDeCommande / Ot aggregates (lines of one document must be contiguous) and persisted
+// in transactions of import.batch-size aggregates. An aggregate with one bad line is rejected as a whole.
+//
+// BC columns: numBc, divisionProjet, codeProjet, description, dateEdition, numProjetFacturation, numPvReception,
+//             numLigne, serviceId | refAuxigene, designation, qteBc, codeSite, zone, fournisseur, famille
+// OT columns: numOt, divisionProjet, codeProjet, zone, codeSite, dateGo,
+//             numLigne, serviceId | refAuxigene, quantiteValide, coordinateurId, fournisseur, famille, remarque
+@Service
+public class ImportProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(ImportProcessor.class);
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("d/M/yyyy"),
+            DateTimeFormatter.ofPattern("M/d/yy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+
+    private final BonDeCommandeRepository bonDeCommandeRepository;
+    private final PrestationRepository prestationRepository;
+    private final OtRepository otRepository;
+    private final BackOfficeRepository backOfficeRepository;
+    private final ServiceRepository serviceRepository;
+    private final SiteRepository siteRepository;
+    private final ZoneRepository zoneRepository;
+    private final CoordinateurRepository coordinateurRepository;
+    private final FamilleRepository familleRepository;
+    private final BonDeCommandeArchiveRepository archiveRepository;
+    private final NotificationService notificationService;
+    private final DomainEventPublisher eventPublisher;
+    private final OtMetricsCache otMetricsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ImportProcessor(
+            BonDeCommandeRepository bonDeCommandeRepository,
+            PrestationRepository prestationRepository,
+            OtRepository otRepository,
+            BackOfficeRepository backOfficeRepository,
+            ServiceRepository serviceRepository,
+            SiteRepository siteRepository,
+            ZoneRepository zoneRepository,
+            CoordinateurRepository coordinateurRepository,
+            FamilleRepository familleRepository,
+            BonDeCommandeArchiveRepository archiveRepository,
+            NotificationService notificationService,
+            DomainEventPublisher eventPublisher,
+            OtMetricsCache otMetricsCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${import.batch-size:200}") int batchSize) {
+        this.bonDeCommandeRepository = bonDeCommandeRepository;
+        this.prestationRepository = prestationRepository;
+        this.otRepository = otRepository;
+        this.backOfficeRepository = backOfficeRepository;
+        this.serviceRepository = serviceRepository;
+        this.siteRepository = siteRepository;
+        this.zoneRepository = zoneRepository;
+        this.coordinateurRepository = coordinateurRepository;
+        this.familleRepository = familleRepository;
+        this.archiveRepository = archiveRepository;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+        this.otMetricsCache = otMetricsCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Async
+    public void process(ImportJob job, Path file) {
+        job.markRunning();
+        logger.info("Starting {} import job {} from file {}", job.getType(), job.getId(), job.getFileName());
+        try {
+            BackOffice backOffice = backOfficeRepository.findById(job.getBackOfficeId())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid back office ID: " + job.getBackOfficeId()));
+            ReferenceData refs = loadReferenceData();
+
+            AggregateBatcher<?> batcher = job.getType() == ImportJob.Type.BON_DE_COMMANDE
+                    ? new BonDeCommandeBatcher(job, refs, backOffice)
+                    : new OtBatcher(job, refs, backOffice);
+            SpreadsheetRowReader.read(file, job.getFileName(), batcher::accept);
+            batcher.finish();
+            if (job.getType() == ImportJob.Type.OT) {
+                otMetricsCache.evict(backOffice.getId());
+            }
+
+            sendNotifications(job, batcher, backOffice);
+            job.markCompleted();
+            logger.info("Import job {} completed: {} aggregates created, {} rows rejected",
+                    job.getId(), job.getAggregatesCreated(), job.getRowsRejected());
+        } catch (Exception e) {
+            logger.error("Import job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete import file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private ReferenceData loadReferenceData() {
+        ReferenceData refs = new ReferenceData();
+        for (ServiceQ service : serviceRepository.findAll()) {
+            refs.servicesById.put(service.getId(), service);
+            if (service.getRefAuxigene() != null) {
+                refs.servicesByRef.putIfAbsent(service.getRefAuxigene().trim().toLowerCase(Locale.ROOT), service);
+            }
+        }
+        for (Site site : siteRepository.findAll()) {
+            if (site.getCodesite() != null) {
+                refs.sitesByCode.putIfAbsent(site.getCodesite().trim().toLowerCase(Locale.ROOT), site);
+            }
+        }
+        for (Zone zone : zoneRepository.findAll()) {
+            refs.zonesById.put(zone.getId(), zone);
+            if (zone.getNom() != null) {
+                refs.zonesByName.putIfAbsent(zone.getNom().trim().toLowerCase(Locale.ROOT), zone);
+            }
+        }
+        for (Coordinateur coordinateur : coordinateurRepository.findAll()) {
+            refs.coordinateursById.put(coordinateur.getId(), coordinateur);
+            if (coordinateur.getZone() != null) {
+                refs.coordinateurByZoneId.putIfAbsent(coordinateur.getZone().getId(), coordinateur);
+            }
+        }
+        for (Famille famille : familleRepository.findAll()) {
+            refs.famillesByName.putIfAbsent(famille.getName().trim().toLowerCase(Locale.ROOT), famille);
+        }
+        logger.debug("Loaded reference data: {} services, {} sites, {} zones, {} coordinators",
+                refs.servicesById.size(), refs.sitesByCode.size(), refs.zonesById.size(), refs.coordinateursById.size());
+        return refs;
+    }
+
+    private void sendNotifications(ImportJob job, AggregateBatcher<?> batcher, BackOffice backOffice) {
+        try {
+            if (backOffice.getUser() != null) {
+                String message = String.format("Import %s: %d %s created, %d rows rejected",
+                        job.getFileName(), job.getAggregatesCreated(),
+                        job.getType() == ImportJob.Type.BON_DE_COMMANDE ? "BonDeCommandes" : "OTs",
+                        job.getRowsRejected());
+                notificationService.createNotification(backOffice.getUser().getId(), message);
+            }
+            // One message per coordinator for the whole file instead of one per OT
+            for (Map.Entry<Integer, Integer> entry : batcher.createdPerCoordinatorUser.entrySet()) {
+                String message = String.format("%d new OTs imported for your zone from %s", entry.getValue(), job.getFileName());
+                notificationService.createNotification(entry.getKey(), message);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to send notifications for import job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private static final class ReferenceData {
+        private final Map<Integer, ServiceQ> servicesById = new HashMap<>();
+        private final Map<String, ServiceQ> servicesByRef = new HashMap<>();
+        private final Map<String, Site> sitesByCode = new HashMap<>();
+        private final Map<Integer, Zone> zonesById = new HashMap<>();
+        private final Map<String, Zone> zonesByName = new HashMap<>();
+        private final Map<Integer, Coordinateur> coordinateursById = new HashMap<>();
+        private final Map<Integer, Coordinateur> coordinateurByZoneId = new HashMap<>();
+        private final Map<String, Famille> famillesByName = new HashMap<>();
+
+        ServiceQ service(Map<String, String> row) {
+            Integer serviceId = parseInteger(row, "serviceid");
+            if (serviceId != null) {
+                ServiceQ service = servicesById.get(serviceId);
+                if (service == null) throw new IllegalArgumentException("Invalid service ID: " + serviceId);
+                return service;
+            }
+            String ref = text(row, "refauxigene");
+            if (ref == null) throw new IllegalArgumentException("serviceId or refAuxigene is required");
+            ServiceQ service = servicesByRef.get(ref.toLowerCase(Locale.ROOT));
+            if (service == null) throw new IllegalArgumentException("Unknown refAuxigene: " + ref);
+            return service;
+        }
+
+        Site site(Map<String, String> row) {
+            String code = text(row, "codesite");
+            if (code == null) return null;
+            Site site = sitesByCode.get(code.toLowerCase(Locale.ROOT));
+            if (site == null) throw new IllegalArgumentException("Unknown codeSite: " + code);
+            return site;
+        }
+
+        // Famille projet, the famille of the service when the column is empty
+        Famille famille(Map<String, String> row, ServiceQ service) {
+            String name = text(row, "famille");
+            if (name == null) return service.getFamille();
+            Famille famille = famillesByName.get(name.toLowerCase(Locale.ROOT));
+            if (famille == null) throw new IllegalArgumentException("Unknown famille: " + name);
+            return famille;
+        }
+
+        // Accepts either the zone id or its name
+        Zone zone(Map<String, String> row) {
+            String value = text(row, "zone");
+            if (value == null) value = text(row, "zoneid");
+            if (value == null) return null;
+            Zone zone = zonesByName.get(value.toLowerCase(Locale.ROOT));
+            if (zone == null && value.chars().allMatch(Character::isDigit)) {
+                zone = zonesById.get(Integer.valueOf(value));
+            }
+            if (zone == null) throw new IllegalArgumentException("Unknown zone: " + value);
+            return zone;
+        }
+    }
+
+    private record PendingAggregate<T>(String key, T aggregate, List<Integer> rows) {
+    }
+
+    private abstract class AggregateBatcher<T> {
+        final ImportJob job;
+        final ReferenceData refs;
+        final BackOffice backOffice;
+        final Map<Integer, Integer> createdPerCoordinatorUser = new HashMap<>();
+        private final Set<String> closedKeys = new HashSet<>();
+        private final List<PendingAggregate<T>> batch = new ArrayList<>();
+        private String currentKey;
+        private T current;
+        private List<Integer> currentRows = new ArrayList<>();
+        private String currentError;
+
+        AggregateBatcher(ImportJob job, ReferenceData refs, BackOffice backOffice) {
+            this.job = job;
+            this.refs = refs;
+            this.backOffice = backOffice;
+        }
+
+        abstract String keyColumn();
+
+        abstract T newAggregate(String key, Map<String, String> row);
+
+        abstract void addLine(T aggregate, Map<String, String> row);
+
+        abstract List<String> findExistingKeys(Collection<String> keys);
+
+        // Keys that may not be reused although no live row has them
+        List<String> findArchivedKeys(Collection<String> keys) {
+            return List.of();
+        }
+
+        // Published in the transaction of each persisted chunk, null for none
+        abstract DomainEvent createdEvent(List<T> aggregates);
+
+        abstract void beforePersist(List<PendingAggregate<T>> pending);
+
+        abstract void afterPersist(T aggregate);
+
+        // Generated ids stay on the entities when their transaction rolls back; persist() refuses them as detached
+        abstract void resetIds(T aggregate);
+
+        void accept(int rowNumber, Map<String, String> row) {
+            job.rowRead();
+            String key = text(row, keyColumn());
+            if (key == null) {
+                job.reject(rowNumber, null, keyColumn() + " is required");
+                return;
+            }
+            if (!key.equals(currentKey)) {
+                closeCurrent();
+                if (!closedKeys.add(key)) {
+                    job.reject(rowNumber, key, "Lines of " + key + " must be contiguous in the file");
+                    currentKey = null;
+                    return;
+                }
+                currentKey = key;
+            }
+            currentRows.add(rowNumber);
+            if (currentError != null) {
+                job.reject(rowNumber, key, "Skipped: " + currentError);
+                return;
+            }
+            try {
+                if (current == null) {
+                    current = newAggregate(key, row);
+                }
+                addLine(current, row);
+            } catch (IllegalArgumentException e) {
+                currentError = "row " + rowNumber + ": " + e.getMessage();
+                // Lines already accepted for this document are rejected with it
+                for (Integer previous : currentRows.subList(0, currentRows.size() - 1)) {
+                    job.reject(previous, key, "Skipped: " + currentError);
+                }
+                job.reject(rowNumber, key, e.getMessage());
+            }
+        }
+
+        void finish() {
+            closeCurrent();
+            flush();
+        }
+
+        private void closeCurrent() {
+            if (currentKey != null && current != null && currentError == null) {
+                batch.add(new PendingAggregate<>(currentKey, current, currentRows));
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            }
+            currentKey = null;
+            current = null;
+            currentRows = new ArrayList<>();
+            currentError = null;
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<PendingAggregate<T>> pending = new ArrayList<>(batch);
+            batch.clear();
+
+            // One lookup for the whole batch instead of findByNumBc per document
+            List<String> keys = pending.stream().map(PendingAggregate::key).toList();
+            Set<String> existing = new HashSet<>(findExistingKeys(keys));
+            Set<String> archived = new HashSet<>(findArchivedKeys(keys));
+            List<PendingAggregate<T>> toPersist = new ArrayList<>();
+            for (PendingAggregate<T> p : pending) {
+                if (existing.contains(p.key())) {
+                    p.rows().forEach(row -> job.reject(row, p.key(), p.key() + " already exists"));
+                } else if (archived.contains(p.key())) {
+                    p.rows().forEach(row -> job.reject(row, p.key(), p.key() + " is archived"));
+                } else {
+                    toPersist.add(p);
+                }
+            }
+            if (toPersist.isEmpty()) {
+                return;
+            }
+            beforePersist(toPersist);
+            try {
+                persist(toPersist);
+            } catch (RuntimeException e) {
+                // Isolate the failing documents so the rest of the batch still goes in
+                logger.warn("Batch of {} aggregates failed for import job {}, retrying one by one: {}",
+                        toPersist.size(), job.getId(), e.getMessage());
+                for (PendingAggregate<T> p : toPersist) {
+                    try {
+                        resetIds(p.aggregate());
+                        persist(List.of(p));
+                    } catch (RuntimeException single) {
+                        logger.warn("Import job {}: could not persist {}: {}", job.getId(), p.key(), single.getMessage());
+                        p.rows().forEach(row -> job.reject(row, p.key(), "Could not be saved: " + single.getMessage()));
+                    }
+                }
+            }
+        }
+
+        private void persist(List<PendingAggregate<T>> pending) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingAggregate<T> p : pending) {
+                    entityManager.persist(p.aggregate());
+                }
+                entityManager.flush();
+                entityManager.clear();
+                DomainEvent event = createdEvent(pending.stream().map(PendingAggregate::aggregate).toList());
+                if (event != null) {
+                    eventPublisher.publish(event);
+                }
+            });
+            for (PendingAggregate<T> p : pending) {
+                job.imported(1, p.rows().size());
+                afterPersist(p.aggregate());
+            }
+        }
+    }
+
+    private final class BonDeCommandeBatcher extends AggregateBatcher<BonDeCommande> {
+
+        BonDeCommandeBatcher(ImportJob job, ReferenceData refs, BackOffice backOffice) {
+            super(job, refs, backOffice);
+        }
+
+        @Override
+        String keyColumn() {
+            return "numbc";
+        }
+
+        @Override
+        BonDeCommande newAggregate(String key, Map<String, String> row) {
+            return BonDeCommande.builder()
+                    .numBc(key)
+                    .divisionProjet(text(row, "divisionprojet"))
+                    .codeProjet(text(row, "codeprojet"))
+                    .description(text(row, "description"))
+                    .dateEdition(Optional.ofNullable(parseDate(row, "dateedition")).orElse(LocalDate.now()))
+                    .numProjetFacturation(text(row, "numprojetfacturation"))
+                    .numPvReception(text(row, "numpvreception"))
+                    .isOt(false)
+                    .backOffice(backOffice)
+                    .prestations(new ArrayList<>())
+                    .build();
+        }
+
+        @Override
+        void addLine(BonDeCommande bc, Map<String, String> row) {
+            Integer numLigne = parseInteger(row, "numligne");
+            if (numLigne == null || numLigne <= 0) {
+                throw new IllegalArgumentException("Prestation numLigne must be positive");
+            }
+            if (bc.getPrestations().stream().anyMatch(p -> numLigne.equals(p.getNumLigne()))) {
+                throw new IllegalArgumentException("Duplicate numLigne " + numLigne + " for BC " + bc.getNumBc());
+            }
+            ServiceQ service = refs.service(row);
+            Site site = refs.site(row);
+            Zone zone = refs.zone(row);
+            if (site != null && zone != null && site.getZone() != null && !site.getZone().getId().equals(zone.getId())) {
+                throw new IllegalArgumentException("Site " + site.getCodesite() + " is not in zone " + zone.getNom());
+            }
+            Double qteBc = parseDouble(row, "qtebc");
+            Famille famille = refs.famille(row, service);
+
+            bc.getPrestations().add(Prestation.builder()
+                    .numLigne(numLigne)
+                    .familleProjet(famille)
+                    .description(text(row, "designation"))
+                    .qteBc(qteBc != null ? qteBc : 0.0)
+                    .service(service)
+                    .prixUnitaire(service.getPrix())
+                    .codeSite(site != null ? site.getCodesite() : null)
+                    .fournisseur(text(row, "fournisseur"))
+                    .bonDeCommande(bc)
+                    .suivi(new ArrayList<>())
+                    .build());
+        }
+
+        @Override
+        List<String> findExistingKeys(Collection<String> keys) {
+            return bonDeCommandeRepository.findExistingNumBcs(keys);
+        }
+
+        // As createBonDeCommande: the number of an archived BC is not given out again
+        @Override
+        List<String> findArchivedKeys(Collection<String> keys) {
+            return archiveRepository.findArchivedNumBcs(keys);
+        }
+
+        @Override
+        DomainEvent createdEvent(List<BonDeCommande> bcs) {
+            Integer userId = backOffice.getUser() != null ? backOffice.getUser().getId() : null;
+            return new DomainEvent.BcsCreated(bcs.stream().map(bc -> new DomainEvent.BcCreated(bc.getNumBc(), userId)).toList());
+        }
+
+        // Prestation codes are generated for the whole batch and checked with a single query
+        @Override
+        void beforePersist(List<PendingAggregate<BonDeCommande>> pending) {
+            List<Prestation> prestations = pending.stream()
+                    .flatMap(p -> p.aggregate().getPrestations().stream())
+                    .toList();
+            Set<String> used = new HashSet<>();
+            for (Prestation prestation : prestations) {
+                String code;
+                do {
+                    code = BonDeCommandeService.generateId("PST-");
+                } while (!used.add(code));
+                prestation.setCode(code);
+            }
+            List<String> collisions = prestationRepository.findExistingCodes(used);
+            if (!collisions.isEmpty()) {
+                Set<String> taken = new HashSet<>(collisions);
+                for (Prestation prestation : prestations) {
+                    while (taken.contains(prestation.getCode())) {
+                        String code = BonDeCommandeService.generateId("PST-");
+                        if (used.add(code) && prestationRepository.findExistingCodes(List.of(code)).isEmpty()) {
+                            prestation.setCode(code);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        void afterPersist(BonDeCommande bc) {
+        }
+
+        @Override
+        void resetIds(BonDeCommande bc) {
+            bc.setId(null);
+            bc.getPrestations().forEach(prestation -> prestation.setId(null));
+        }
+    }
+
+    private final class OtBatcher extends AggregateBatcher<Ot> {
+
+        OtBatcher(ImportJob job, ReferenceData refs, BackOffice backOffice) {
+            super(job, refs, backOffice);
+        }
+
+        @Override
+        String keyColumn() {
+            return "numot";
+        }
+
+        @Override
+        Ot newAggregate(String key, Map<String, String> row) {
+            return Ot.builder()
+                    .numOt(key)
+                    .divisionProjet(text(row, "divisionprojet"))
+                    .codeProjet(text(row, "codeprojet"))
+                    .zone(refs.zone(row))
+                    .codeSite(refs.site(row))
+                    .dateGo(parseDate(row, "datego"))
+                    .backOffice(backOffice)
+                    .prestations(new ArrayList<>())
+                    .build();
+        }
+
+        @Override
+        void addLine(Ot ot, Map<String, String> row) {
+            Integer numLigne = parseInteger(row, "numligne");
+            if (numLigne == null || numLigne <= 0) {
+                throw new IllegalArgumentException("Prestation numLigne must be positive");
+            }
+            ServiceQ service = refs.service(row);
+            Integer coordinateurId = parseInteger(row, "coordinateurid");
+            Coordinateur coordinateur = null;
+            if (coordinateurId != null) {
+                coordinateur = refs.coordinateursById.get(coordinateurId);
+                if (coordinateur == null) {
+                    throw new IllegalArgumentException("Invalid coordinateurId: " + coordinateurId);
+                }
+            }
+            Integer quantiteValide = parseInteger(row, "quantitevalide");
+            String famille = text(row, "famille");
+            if (famille == null && service.getFamille() != null) {
+                famille = service.getFamille().getName();
+            }
+            String remarque = text(row, "remarque");
+
+            ot.getPrestations().add(OtPrestation.builder()
+                    .numLigne(numLigne)
+                    .quantiteValide(quantiteValide)
+                    .qteRealise(0)
+                    .service(service)
+                    .famille(famille)
+                    .coordinateur(coordinateur)
+                    .fournisseur(text(row, "fournisseur"))
+                    .dateGo(ot.getDateGo())
+                    .statutDeRealisation(StatutRealisation.PENDING)
+                    .statutDeRecepTech(StatutRecepTech.PENDING)
+                    .statutReceptionSystem(StatutReceptionSystem.PENDING)
+                    .remarque(remarque != null ? remarque : "")
+                    .delaiRecep(0)
+                    .ot(ot)
+                    .build());
+        }
+
+        @Override
+        List<String> findExistingKeys(Collection<String> keys) {
+            return otRepository.findExistingNumOts(keys);
+        }
+
+        @Override
+        void beforePersist(List<PendingAggregate<Ot>> pending) {
+        }
+
+        // The coordinators of the zones are notified once per file (sendNotifications)
+        @Override
+        DomainEvent createdEvent(List<Ot> ots) {
+            return null;
+        }
+
+        @Override
+        void afterPersist(Ot ot) {
+            if (ot.getZone() == null) {
+                return;
+            }
+            Coordinateur coordinateur = refs.coordinateurByZoneId.get(ot.getZone().getId());
+            if (coordinateur != null && coordinateur.getUser() != null) {
+                createdPerCoordinatorUser.merge(coordinateur.getUser().getId(), 1, Integer::sum);
+            }
+        }
+
+        // num_ot is assigned, only the lines have generated ids
+        @Override
+        void resetIds(Ot ot) {
+            ot.getPrestations().forEach(prestation -> prestation.setId(null));
+        }
+    }
+
+    private static String text(Map<String, String> row, String column) {
+        String value = row.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Integer parseInteger(Map<String, String> row, String column) {
+        Double value = parseDouble(row, column);
+        if (value == null) return null;
+        if (value != Math.rint(value)) {
+            throw new IllegalArgumentException(column + " must be a whole number: " + row.get(column));
+        }
+        return value.intValue();
+    }
+
+    // Accepts both "1.5" and the French "1,5"
+    private static Double parseDouble(Map<String, String> row, String column) {
+        String value = text(row, column);
+        if (value == null) return null;
+        try {
+            return Double.valueOf(value.replace(" ", "").replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(Map<String, String> row, String column) {
+        String value = text(row, column);
+        if (value == null) return null;
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // try next format
+            }
+        }
+        throw new IllegalArgumentException(column + " is not a valid date: " + value);
+    }
+}
@@ -0,0 +1,73 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.BackOffice;
+import com.samsic.gestion_bc.repositories.BackOfficeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+    private static final long FINISHED_JOB_RETENTION_HOURS = 24;
+
+    private final ImportProcessor importProcessor;
+    private final BackOfficeRepository backOfficeRepository;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportService(ImportProcessor importProcessor, BackOfficeRepository backOfficeRepository) {
+        this.importProcessor = importProcessor;
+        this.backOfficeRepository = backOfficeRepository;
+    }
+
+    public ImportJob startImport(ImportJob.Type type, MultipartFile file, Integer backOfficeId, String userEmail) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || !(fileName.toLowerCase().endsWith(".csv") || fileName.toLowerCase().endsWith(".xlsx"))) {
+            throw new IllegalArgumentException("Unsupported file type (expected .csv or .xlsx): " + fileName);
+        }
+
+        Integer resolvedBackOfficeId = backOfficeId;
+        if (resolvedBackOfficeId == null) {
+            Optional<BackOffice> backOffice = backOfficeRepository.findByUserEmail(userEmail);
+            resolvedBackOfficeId = backOffice
+                    .orElseThrow(() -> new IllegalArgumentException("backOfficeId is required for user: " + userEmail))
+                    .getId();
+        } else if (!backOfficeRepository.existsById(resolvedBackOfficeId)) {
+            throw new IllegalArgumentException("Invalid back office ID: " + resolvedBackOfficeId);
+        }
+
+        evictFinishedJobs();
+
+        // The multipart temp file is gone once the request returns, keep our own copy for the worker
+        Path copy = Files.createTempFile("import-", "-" + fileName.replaceAll("[^A-Za-z0-9._-]", "_"));
+        file.transferTo(copy);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, fileName, resolvedBackOfficeId);
+        jobs.put(job.getId(), job);
+        logger.info("Queued {} import job {} for file {} ({} bytes)", type, job.getId(), fileName, file.getSize());
+        importProcessor.process(job, copy);
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime limit = LocalDateTime.now().minusHours(FINISHED_JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit));
+    }
+}
@@ -0,0 +1,149 @@
+package com.samsic.gestion_bc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Invalidation bus over the application database, no extra infrastructure needed.
+// publish() inserts one cache_invalidation_log row per key in the writing transaction; every node tails the log by
+// id. AUTO_INCREMENT ids are handed out before commit, so a row can become visible after a higher id has been read:
+// the ids skipped that way are re-queried until they show up or gap-timeout-ms has passed (rolled back insert).
+@Service
+@ConditionalOnProperty(name = "cache.invalidation.transport", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcCacheInvalidationBus extends AbstractCacheInvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCacheInvalidationBus.class);
+    private static final int MAX_GAPS = 10000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_invalidation_log (node_id, cache_name, cache_key, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final int retentionMinutes;
+    // Only touched by the poller
+    private long cursor = -1;
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    public JdbcCacheInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            @Value("${cache.invalidation.batch-size:1000}") int batchSize,
+            @Value("${cache.invalidation.gap-timeout-ms:60000}") long gapTimeoutMs,
+            @Value("${cache.invalidation.retention-minutes:60}") int retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionMinutes = retentionMinutes;
+    }
+
+    @Override
+    protected boolean sendsWithTransaction() {
+        return true;
+    }
+
+    @Override
+    protected void send(String cache, Collection<String> keys) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (keys.isEmpty()) {
+            jdbcTemplate.update(INSERT_SQL, nodeId, cache, null, now);
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            rows.add(new Object[]{nodeId, cache, key, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.poll-interval-ms:300}")
+    public synchronized void poll() {
+        try {
+            if (cursor < 0) {
+                // Caches start empty, nothing before this point concerns this node
+                Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidation_log", Long.class);
+                cursor = max != null ? max : 0;
+                logger.info("Cache invalidation bus node {} tailing from id {}", nodeId, cursor);
+                return;
+            }
+            int read;
+            do {
+                read = pollOnce();
+            } while (read == batchSize);
+        } catch (Exception e) {
+            logger.error("Cache invalidation poll failed: {}", e.getMessage());
+        }
+    }
+
+    private int pollOnce() {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(since -> now - since > gapTimeoutMs);
+
+        List<Object> args = new ArrayList<>();
+        args.add(cursor);
+        String sql = "SELECT id, node_id, cache_name, cache_key FROM cache_invalidation_log WHERE id > ?";
+        if (!gaps.isEmpty()) {
+            sql += " OR id IN (" + String.join(", ", Collections.nCopies(gaps.size(), "?")) + ")";
+            args.addAll(gaps.keySet());
+        }
+        sql += " ORDER BY id LIMIT " + batchSize;
+
+        Map<String, Set<String>> keysByCache = new HashMap<>();
+        Set<String> evictAll = new HashSet<>();
+        int[] read = {0};
+        jdbcTemplate.query(sql, rs -> {
+            read[0]++;
+            long id = rs.getLong(1);
+            if (id > cursor) {
+                for (long missing = cursor + 1; missing < id && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                cursor = id;
+            } else {
+                gaps.remove(id);
+            }
+            if (nodeId.equals(rs.getString(2))) {
+                return;
+            }
+            String cache = rs.getString(3);
+            String key = rs.getString(4);
+            if (key == null) {
+                evictAll.add(cache);
+            } else {
+                keysByCache.computeIfAbsent(cache, k -> new HashSet<>()).add(key);
+            }
+        }, args.toArray());
+
+        evictAll.forEach(cache -> deliver(cache, Set.of(), true));
+        keysByCache.forEach((cache, keys) -> {
+            if (!evictAll.contains(cache)) {
+                deliver(cache, keys, false);
+            }
+        });
+        if (!keysByCache.isEmpty() || !evictAll.isEmpty()) {
+            logger.debug("Applied remote invalidations: {} keyed caches, {} full evictions (cursor {})",
+                    keysByCache.size(), evictAll.size(), cursor);
+        }
+        return read[0];
+    }
+
+    @Scheduled(fixedDelayString = "${cache.invalidation.purge-interval-ms:600000}")
+    public void purge() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM cache_invalidation_log WHERE created_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusMinutes(retentionMinutes)));
+            if (deleted > 0) {
+                logger.info("Purged {} cache invalidation log rows", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Cache invalidation log purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.Coordinateur;
+import com.samsic.gestion_bc.models.Zone;
+import com.samsic.gestion_bc.repositories.CoordinateurRepository;
+import com.samsic.gestion_bc.repositories.ZoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+// User notifications for BC, suivi and OT events. All notifications of one event are written in the transaction that
+// deletes its outbox row (see DomainEventDispatcher), so a retried or re-claimed event does not notify twice.
+@Component
+public class NotificationEventHandler implements DomainEventHandler {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationEventHandler.class);
+
+    private final NotificationService notificationService;
+    private final CoordinateurRepository coordinateurRepository;
+    private final ZoneRepository zoneRepository;
+
+    public NotificationEventHandler(
+            NotificationService notificationService,
+            CoordinateurRepository coordinateurRepository,
+            ZoneRepository zoneRepository) {
+        this.notificationService = notificationService;
+        this.coordinateurRepository = coordinateurRepository;
+        this.zoneRepository = zoneRepository;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(DomainEvent.BcCreated.class, DomainEvent.BcsCreated.class, DomainEvent.BcUpdated.class, DomainEvent.SuivisCreated.class,
+                DomainEvent.OtCreated.class, DomainEvent.OtUpdated.class, DomainEvent.OtsUpdated.class,
+                DomainEvent.OtLinked.class, DomainEvent.OtsLinked.class);
+    }
+
+    @Override
+    @Transactional
+    public void handle(DomainEvent event) {
+        if (event instanceof DomainEvent.BcCreated e) {
+            notify(e.backOfficeUserId(), String.format("New BonDeCommande %s created ", e.numBc()));
+        } else if (event instanceof DomainEvent.BcsCreated e) {
+            onBcsCreated(e);
+        } else if (event instanceof DomainEvent.BcUpdated e) {
+            onBcUpdated(e);
+        } else if (event instanceof DomainEvent.SuivisCreated e) {
+            onSuivisCreated(e);
+        } else if (event instanceof DomainEvent.OtCreated e) {
+            Zones zones = zones(List.of(e.ot().zoneId()));
+            notify(zones.coordinatorUser(e.ot().zoneId()),
+                    String.format("New OT created: %s for zone %s", e.ot().numOt(), zones.name(e.ot().zoneId())));
+            notify(e.ot().backOfficeUserId(), String.format("You created OT: %s", e.ot().numOt()));
+        } else if (event instanceof DomainEvent.OtUpdated e) {
+            Zones zones = zones(List.of(e.ot().zoneId()));
+            notify(zones.coordinatorUser(e.ot().zoneId()),
+                    String.format("OT updated: %s for zone %s", e.ot().numOt(), zones.name(e.ot().zoneId())));
+            notify(e.ot().backOfficeUserId(), String.format("You updated OT: %s", e.ot().numOt()));
+        } else if (event instanceof DomainEvent.OtsUpdated e) {
+            onOtsUpdated(e);
+        } else if (event instanceof DomainEvent.OtLinked e) {
+            Zones zones = zones(List.of(e.ot().zoneId()));
+            notify(e.bcBackOfficeUserId(), String.format("OT %s linked to BDC %s and deleted", e.ot().numOt(), e.numBc()));
+            notify(zones.coordinatorUser(e.ot().zoneId()), String.format("OT %s linked to BDC %s and deleted for zone %s",
+                    e.ot().numOt(), e.numBc(), zones.name(e.ot().zoneId())));
+        } else if (event instanceof DomainEvent.OtsLinked e) {
+            onOtsLinked(e);
+        }
+    }
+
+    private void onBcsCreated(DomainEvent.BcsCreated e) {
+        Map<Integer, List<String>> bcsByBackOfficeUser = new LinkedHashMap<>();
+        for (DomainEvent.BcCreated bc : e.bcs()) {
+            if (bc.backOfficeUserId() != null) {
+                bcsByBackOfficeUser.computeIfAbsent(bc.backOfficeUserId(), k -> new ArrayList<>()).add(bc.numBc());
+            }
+        }
+        bcsByBackOfficeUser.forEach((userId, nums) ->
+                notify(userId, String.format("%d new BonDeCommande(s) created: %s", nums.size(), summarize(nums))));
+    }
+
+    // One notification per coordinator whose lines were touched, one for the back office
+    private void onBcUpdated(DomainEvent.BcUpdated e) {
+        if (e.linesByCoordinatorUser() != null) {
+            e.linesByCoordinatorUser().forEach((userId, lines) -> notify(userId,
+                    String.format("BonDeCommande %s updated: %d of your line(s) affected: %s", e.numBc(), lines.size(), summarize(lines))));
+        }
+        notify(e.backOfficeUserId(), String.format("BonDeCommande %s updated (OT: %s): %d created, %d updated, %d deleted",
+                e.numBc(), e.ot(), size(e.createdPrestationIds()), size(e.updatedPrestationIds()), size(e.deletedPrestationIds())));
+    }
+
+    private static int size(List<String> ids) {
+        return ids != null ? ids.size() : 0;
+    }
+
+    private void onSuivisCreated(DomainEvent.SuivisCreated e) {
+        Zones zones = zones(e.suivis().stream().map(DomainEvent.SuivisCreated.SuiviRef::zoneId).toList());
+        for (DomainEvent.SuivisCreated.SuiviRef suivi : e.suivis()) {
+            Integer coordinatorUserId = zones.coordinatorUser(suivi.zoneId());
+            if (coordinatorUserId == null) {
+                logger.warn("No coordinator found for zone ID: {} for SuiviPrestation ID: {}", suivi.zoneId(), suivi.suiviId());
+                continue;
+            }
+            notify(coordinatorUserId, String.format("New SuiviPrestation created for BC: %s, Prestation: %s in zone %s",
+                    e.numBc(), suivi.prestationId(), zones.name(suivi.zoneId())));
+        }
+        notify(e.backOfficeUserId(), String.format("You created SuiviPrestation for BC: %s", e.numBc()));
+    }
+
+    // One notification per coordinator user and per back office user for the whole batch
+    private void onOtsUpdated(DomainEvent.OtsUpdated e) {
+        Zones zones = zones(e.ots().stream().map(DomainEvent.OtRef::zoneId).toList());
+        Map<Integer, List<String>> otsByCoordinatorUser = new LinkedHashMap<>();
+        Map<Integer, List<String>> otsByBackOfficeUser = new LinkedHashMap<>();
+        for (DomainEvent.OtRef ot : e.ots()) {
+            Integer coordinatorUserId = zones.coordinatorUser(ot.zoneId());
+            if (coordinatorUserId != null) {
+                otsByCoordinatorUser.computeIfAbsent(coordinatorUserId, k -> new ArrayList<>()).add(ot.numOt());
+            }
+            if (ot.backOfficeUserId() != null) {
+                otsByBackOfficeUser.computeIfAbsent(ot.backOfficeUserId(), k -> new ArrayList<>()).add(ot.numOt());
+            }
+        }
+        otsByCoordinatorUser.forEach((userId, nums) ->
+                notify(userId, String.format("%d OT(s) updated: %s", nums.size(), summarize(nums))));
+        otsByBackOfficeUser.forEach((userId, nums) ->
+                notify(userId, String.format("You updated %d OT(s): %s", nums.size(), summarize(nums))));
+    }
+
+    private void onOtsLinked(DomainEvent.OtsLinked e) {
+        Zones zones = zones(e.links().stream().map(link -> link.ot().zoneId()).toList());
+        Map<Integer, List<String>> linksByUser = new LinkedHashMap<>();
+        for (DomainEvent.OtLinked link : e.links()) {
+            String label = link.ot().numOt() + " -> " + link.numBc();
+            if (link.bcBackOfficeUserId() != null) {
+                linksByUser.computeIfAbsent(link.bcBackOfficeUserId(), k -> new ArrayList<>()).add(label);
+            }
+            Integer coordinatorUserId = zones.coordinatorUser(link.ot().zoneId());
+            if (coordinatorUserId != null) {
+                linksByUser.computeIfAbsent(coordinatorUserId, k -> new ArrayList<>()).add(label);
+            }
+        }
+        linksByUser.forEach((userId, userLinks) -> notify(userId,
+                String.format("%d OT(s) linked to BDC and deleted: %s", userLinks.size(), summarize(userLinks))));
+    }
+
+    private void notify(Integer userId, String message) {
+        if (userId != null) {
+            notificationService.createNotification(userId, message);
+        }
+    }
+
+    private Zones zones(Collection<Integer> zoneIds) {
+        Set<Integer> ids = new HashSet<>(zoneIds);
+        ids.remove(null);
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, Integer> coordinatorUsers = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Zone zone : zoneRepository.findAllById(ids)) {
+                names.put(zone.getId(), zone.getNom() != null ? zone.getNom() : "Zone " + zone.getId());
+            }
+            for (Coordinateur c : coordinateurRepository.findByZoneIdIn(ids)) {
+                if (c.getUser() != null) coordinatorUsers.putIfAbsent(c.getZone().getId(), c.getUser().getId());
+            }
+        }
+        return new Zones(names, coordinatorUsers);
+    }
+
+    private static String summarize(List<String> items) {
+        int shown = Math.min(items.size(), 10);
+        String list = String.join(", ", items.subList(0, shown));
+        return items.size() > shown ? list + " (+" + (items.size() - shown) + " more)" : list;
+    }
+
+    private record Zones(Map<Integer, String> names, Map<Integer, Integer> coordinatorUsers) {
+        String name(Integer zoneId) {
+            return names.getOrDefault(zoneId, "Zone " + zoneId);
+        }
+
+        Integer coordinatorUser(Integer zoneId) {
+            return zoneId != null ? coordinatorUsers.get(zoneId) : null;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.samsic.gestion_bc.services;
 
 import com.samsic.gestion_bc.dto.NotificationResponse;
 import com.samsic.gestion_bc.models.Notification;
+import com.samsic.gestion_bc.models.Role;
 import com.samsic.gestion_bc.models.Utilisateur;
+import com.samsic.gestion_bc.repositories.NotificationReadRepository;
 import com.samsic.gestion_bc.repositories.NotificationRepository;
 import com.samsic.gestion_bc.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,11 +18,15 @@ import java.util.stream.Collectors;
 @Service
 public class NotificationService {
     private final NotificationRepository notificationRepository;
+    private final NotificationReadRepository notificationReadRepository;
     private final UserRepository utilisateurRepository;
 
     @Autowired
-    public NotificationService(NotificationRepository notificationRepository, UserRepository utilisateurRepository) {
+    public NotificationService(NotificationRepository notificationRepository,
+                               NotificationReadRepository notificationReadRepository,
+                               UserRepository utilisateurRepository) {
         this.notificationRepository = notificationRepository;
+        this.notificationReadRepository = notificationReadRepository;
         this.utilisateurRepository = utilisateurRepository;
     }
 
@@ -36,38 +42,82 @@ public class NotificationService {
         notificationRepository.save(notification);
     }
 
+    // One row for every user of the role, whatever their number; each user's read state lives in notification_reads
+    @Transactional
+    public void createBroadcast(Role audience, String message) {
+        if (audience == null) {
+            throw new IllegalArgumentException("Broadcast audience is required");
+        }
+        Notification notification = new Notification();
+        notification.setAudience(audience);
+        notification.setMessage(message);
+        notification.setCreatedAt(new Date());
+        notification.setRead(false);
+        notificationRepository.save(notification);
+    }
+
     public List<NotificationResponse> getNotificationsByUtilisateurId(Integer utilisateurId) {
-        Utilisateur utilisateur = utilisateurRepository.findById(utilisateurId)
-                .orElseThrow(() -> new IllegalArgumentException("Utilisateur not found: " + utilisateurId));
-        return notificationRepository.findByUtilisateur(utilisateur).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return inbox(utilisateurId, false);
     }
 
     public List<NotificationResponse> getUnreadNotificationsByUtilisateurId(Integer utilisateurId) {
+        return inbox(utilisateurId, true);
+    }
+
+    private List<NotificationResponse> inbox(Integer utilisateurId, boolean unreadOnly) {
         Utilisateur utilisateur = utilisateurRepository.findById(utilisateurId)
                 .orElseThrow(() -> new IllegalArgumentException("Utilisateur not found: " + utilisateurId));
-        return notificationRepository.findByUtilisateurAndIsRead(utilisateur, false).stream()
-                .map(this::mapToResponse)
+        String audience = utilisateur.getRole() != null ? utilisateur.getRole().name() : null;
+        return notificationRepository.findInbox(utilisateurId, audience, unreadOnly).stream()
+                .map(row -> mapToResponse(row, utilisateur))
                 .collect(Collectors.toList());
     }
 
+    // Direct notifications are flagged in place, broadcasts get a read marker for the calling user
     @Transactional
-    public void markNotificationAsRead(Integer id) {
+    public void markNotificationAsRead(Integer id, String userEmail) {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Notification not found: " + id));
-        notification.setRead(true);
-        notificationRepository.save(notification);
+        if (notification.getAudience() == null) {
+            notification.setRead(true);
+            notificationRepository.save(notification);
+            return;
+        }
+        Utilisateur utilisateur = utilisateurRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Utilisateur not found: " + userEmail));
+        if (utilisateur.getRole() != notification.getAudience()) {
+            throw new IllegalArgumentException("Notification " + id + " is not addressed to " + userEmail);
+        }
+        notificationReadRepository.markRead(utilisateur.getId(), List.of(id), notification.getAudience().name());
+    }
+
+    // Marks the whole inbox of the caller as read in two statements
+    @Transactional
+    public int markAllAsRead(String userEmail) {
+        Utilisateur utilisateur = utilisateurRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new IllegalArgumentException("Utilisateur not found: " + userEmail));
+        String audience = utilisateur.getRole() != null ? utilisateur.getRole().name() : null;
+        List<NotificationRepository.InboxRow> unread = notificationRepository.findInbox(utilisateur.getId(), audience, true);
+        List<Integer> direct = unread.stream().filter(row -> row.getAudience() == null).map(NotificationRepository.InboxRow::getId).toList();
+        List<Integer> broadcast = unread.stream().filter(row -> row.getAudience() != null).map(NotificationRepository.InboxRow::getId).toList();
+        if (!direct.isEmpty()) {
+            notificationRepository.markDirectRead(utilisateur.getId(), direct);
+        }
+        if (!broadcast.isEmpty()) {
+            notificationReadRepository.markRead(utilisateur.getId(), broadcast, audience);
+        }
+        return unread.size();
     }
 
-    private NotificationResponse mapToResponse(Notification notification) {
+    private NotificationResponse mapToResponse(NotificationRepository.InboxRow row, Utilisateur utilisateur) {
         NotificationResponse response = new NotificationResponse();
-        response.setId(notification.getId());
-        response.setUtilisateurId(notification.getUtilisateur().getId());
-        response.setRole(notification.getUtilisateur().getRole());
-        response.setMessage(notification.getMessage());
-        response.setCreatedAt(notification.getCreatedAt());
-        response.setRead(notification.isRead());
+        response.setId(row.getId());
+        response.setUtilisateurId(utilisateur.getId());
+        response.setRole(row.getAudience() != null ? Role.valueOf(row.getAudience()) : utilisateur.getRole());
+        response.setBroadcast(row.getAudience() != null);
+        response.setMessage(row.getMessage());
+        response.setCreatedAt(row.getCreatedAt());
+        response.setRead(row.getIsRead() != null && row.getIsRead().intValue() != 0);
         return response;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.OtMetricsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+// OT cost metrics per back office id. Evictions go through the invalidation bus: this node evicts after the
+// writing transaction commits, so a read racing the write cannot put the old figures back, and the other nodes
+// evict the same back office when they read the invalidation.
+@Component
+public class OtMetricsCache {
+    private static final Logger logger = LoggerFactory.getLogger(OtMetricsCache.class);
+    public static final String CACHE_NAME = "otMetrics";
+
+    private final Cache cache;
+    private final CacheInvalidationBus invalidationBus;
+
+    public OtMetricsCache(CacheManager cacheManager, CacheInvalidationBus invalidationBus) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(CACHE_NAME, new CacheInvalidationBus.Listener() {
+            @Override
+            public void evict(Set<String> keys) {
+                keys.forEach(key -> cache.evict(Integer.valueOf(key)));
+            }
+
+            @Override
+            public void evictAll() {
+                cache.clear();
+            }
+        });
+    }
+
+    public OtMetricsResponse get(Integer backOfficeId, Supplier<OtMetricsResponse> loader) {
+        return cache.get(backOfficeId, loader::get);
+    }
+
+    public void evict(Integer backOfficeId) {
+        if (backOfficeId == null) {
+            return;
+        }
+        invalidationBus.publish(CACHE_NAME, String.valueOf(backOfficeId));
+        logger.debug("OT metrics evicted for back office {}", backOfficeId);
+    }
+}
@@ -1,18 +1,31 @@
 package com.samsic.gestion_bc.services;
 
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import com.samsic.gestion_bc.dto.requests.LinkOtToBdcRequest;
 import com.samsic.gestion_bc.dto.requests.OtRequest;
+import com.samsic.gestion_bc.dto.responses.BdcCandidateResponse;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.dto.responses.OtBulkUpdateResponse;
+import com.samsic.gestion_bc.dto.responses.OtLinkBatchResponse;
 import com.samsic.gestion_bc.dto.responses.OtMetricsResponse;
+import com.samsic.gestion_bc.dto.responses.OtResponse;
 import com.samsic.gestion_bc.models.*;
 import com.samsic.gestion_bc.repositories.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.sql.Timestamp;
+import java.util.*;
 
 @Service
 public class OtService {
@@ -23,9 +36,20 @@ public class OtService {
     private final BackOfficeRepository backOfficeRepository;
     private final CoordinateurRepository coordinateurRepository;
     private final OtPrestationRepository otPrestationRepository;
-    private final NotificationService notificationService;
+    private final DomainEventPublisher eventPublisher;
     private final SiteRepository siteRepository;
     private final BonDeCommandeRepository bonDeCommandeRepository;
+    private final FileRepository fileRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int linkChunkSize;
+    private final BdcCandidateIndex bdcCandidateIndex;
+    private final OtMetricsCache otMetricsCache;
+    private final ChangeTrackingService changeTrackingService;
+    private final SearchIndexer searchIndexer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
     public OtService(
@@ -35,32 +59,108 @@ public class OtService {
             BackOfficeRepository backOfficeRepository,
             CoordinateurRepository coordinateurRepository,
             OtPrestationRepository otPrestationRepository,
-            NotificationService notificationService,
+            DomainEventPublisher eventPublisher,
             SiteRepository siteRepository,
-            BonDeCommandeRepository bonDeCommandeRepository) {
+            BonDeCommandeRepository bonDeCommandeRepository,
+            FileRepository fileRepository,
+            PlatformTransactionManager transactionManager,
+            JdbcTemplate jdbcTemplate,
+            @Value("${ot.link.chunk-size:100}") int linkChunkSize,
+            BdcCandidateIndex bdcCandidateIndex,
+            OtMetricsCache otMetricsCache,
+            ChangeTrackingService changeTrackingService,
+            SearchIndexer searchIndexer) {
         this.otRepository = otRepository;
         this.serviceRepository = serviceRepository;
         this.zoneRepository = zoneRepository;
         this.backOfficeRepository = backOfficeRepository;
         this.coordinateurRepository = coordinateurRepository;
         this.otPrestationRepository = otPrestationRepository;
-        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
         this.siteRepository = siteRepository;
         this.bonDeCommandeRepository = bonDeCommandeRepository;
+        this.fileRepository = fileRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.linkChunkSize = Math.max(1, linkChunkSize);
+        this.bdcCandidateIndex = bdcCandidateIndex;
+        this.otMetricsCache = otMetricsCache;
+        this.changeTrackingService = changeTrackingService;
+        this.searchIndexer = searchIndexer;
     }
 
-    public List<Ot> getOtsByEmail(String email) {
+    @Transactional(readOnly = true)
+    public List<OtResponse> getOtsByEmail(String email) {
         Optional<BackOffice> b = backOfficeRepository.findByUserEmail(email);
         Optional<Coordinateur> c = coordinateurRepository.findByUserEmail(email);
         if (c.isPresent()) {
-            return otRepository.findByZone(c.get().getZone());
+            return toResponses(otRepository.findByZone(c.get().getZone()));
         }
         if (b.isPresent()) {
-            return otRepository.findAllByBackOffice(b.get());
+            return toResponses(otRepository.findAllByBackOffice(b.get()));
         }
         return new ArrayList<>();
     }
 
+    // Mapped while the session is open: nothing lazy reaches Jackson, and the reception files of the lines are
+    // read in one query, without their content
+    private List<OtResponse> toResponses(Collection<Ot> ots) {
+        Set<Long> fileIds = new HashSet<>();
+        for (Ot ot : ots) {
+            for (OtPrestation line : ot.getPrestations()) {
+                if (line.getFichierReceptionTech() != null) {
+                    fileIds.add(line.getFichierReceptionTech().getId());
+                }
+            }
+        }
+        Map<Long, SuiviPrestationResponse.FileResponse> files = new HashMap<>();
+        if (!fileIds.isEmpty()) {
+            for (Object[] row : fileRepository.findHeadersByIdIn(fileIds)) {
+                files.put((Long) row[0], new SuiviPrestationResponse.FileResponse((Long) row[0], (String) row[1], (String) row[2]));
+            }
+        }
+        return ots.stream().map(ot -> OtResponse.of(ot, files)).toList();
+    }
+
+    // Delta sync of the OT list, scoped like getOtsByEmail (chefs de projet get every OT)
+    @Transactional(readOnly = true)
+    public ChangesResponse<OtResponse> getOtChanges(String since, String email, String role) {
+        ChangeTrackingService.SyncWindow window = changeTrackingService.window(since);
+        Coordinateur coordinateur = null;
+        BackOffice backOffice = null;
+        if ("ROLE_COORDINATEUR".equals(role)) {
+            coordinateur = coordinateurRepository.findByUserEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("Coordinator not found for email: " + email));
+        } else if ("ROLE_BACK_OFFICE".equals(role)) {
+            backOffice = backOfficeRepository.findByUserEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + email));
+        }
+        if (window.full()) {
+            List<Ot> all = coordinateur != null ? otRepository.findByZone(coordinateur.getZone())
+                    : backOffice != null ? otRepository.findAllByBackOffice(backOffice)
+                    : otRepository.findAll();
+            return new ChangesResponse<>(window.token(), true, toResponses(all), List.of());
+        }
+
+        Map<String, Ot> changed = new LinkedHashMap<>();
+        otRepository.findChangedSince(window.from()).forEach(ot -> changed.put(ot.getNumOt(), ot));
+        List<String> parents = new ArrayList<>(changeTrackingService.parentsWithDeletions(ChangeTrackingService.OT_PRESTATION, window.from()));
+        parents.removeAll(changed.keySet());
+        otRepository.findAllById(parents).forEach(ot -> changed.put(ot.getNumOt(), ot));
+
+        Integer zoneId = coordinateur != null && coordinateur.getZone() != null ? coordinateur.getZone().getId() : null;
+        Integer backOfficeId = backOffice != null ? backOffice.getId() : null;
+        boolean scoped = coordinateur != null || backOffice != null;
+        List<Ot> upserts = changed.values().stream()
+                .filter(ot -> !scoped
+                        || (zoneId != null && ot.getZone() != null && zoneId.equals(ot.getZone().getId()))
+                        || (backOfficeId != null && ot.getBackOffice() != null && backOfficeId.equals(ot.getBackOffice().getId())))
+                .toList();
+        List<String> deleted = changeTrackingService.deletedIds(ChangeTrackingService.OT, window.from());
+        logger.info("OT changes for {} since {}: {} upserts, {} deletions", email, since, upserts.size(), deleted.size());
+        return new ChangesResponse<>(window.token(), false, toResponses(upserts), deleted);
+    }
+
     @Transactional
     public Ot createOt(OtRequest request) {
         // Validate required fields
@@ -70,21 +170,21 @@ public class OtService {
         if (request.getPrestations() == null || request.getPrestations().isEmpty()) {
             throw new IllegalArgumentException("At least one prestation is required");
         }
-        if (request.getZoneId() != null && !zoneRepository.existsById(request.getZoneId())) {
-            throw new IllegalArgumentException("Invalid zoneId: " + request.getZoneId());
-        }
-        if (request.getBackOfficeId() != null && !backOfficeRepository.existsById(request.getBackOfficeId())) {
-            throw new IllegalArgumentException("Invalid backOfficeId: " + request.getBackOfficeId());
+        if (otRepository.existsById(request.getNumOt())) {
+            throw new IllegalArgumentException("OT already exists: " + request.getNumOt());
         }
 
+        // findById is served by the second-level cache, existsById would always query
         Zone zone = null;
         if (request.getZoneId() != null) {
-            zone = zoneRepository.findById(request.getZoneId()).orElse(null);
+            zone = zoneRepository.findById(request.getZoneId())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid zoneId: " + request.getZoneId()));
         }
 
         BackOffice b = null;
         if (request.getBackOfficeId() != null) {
-            b = backOfficeRepository.findById(request.getBackOfficeId()).orElse(null);
+            b = backOfficeRepository.findById(request.getBackOfficeId())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid backOfficeId: " + request.getBackOfficeId()));
         }
 
         Site site = siteRepository.findByCodesite(request.getCodeSite());
@@ -103,18 +203,17 @@ public class OtService {
 
         // Create OtPrestation entities
         for (OtRequest.OtPrestationRequest prestationRequest : request.getPrestations()) {
-            // Validate serviceId
-            if (prestationRequest.getServiceId() == null || !serviceRepository.existsById(prestationRequest.getServiceId())) {
+            // Validate serviceId and coordinateurId
+            ServiceQ s = prestationRequest.getServiceId() != null ? serviceRepository.findById(prestationRequest.getServiceId()).orElse(null) : null;
+            if (s == null) {
                 throw new IllegalArgumentException("Invalid serviceId: " + prestationRequest.getServiceId());
             }
-
-            // Validate coordinateurId
-            if (prestationRequest.getCoordinateurId() != null && !coordinateurRepository.existsById(prestationRequest.getCoordinateurId())) {
-                throw new IllegalArgumentException("Invalid coordinateurId: " + prestationRequest.getCoordinateurId());
+            Coordinateur coordinateur = null;
+            if (prestationRequest.getCoordinateurId() != null) {
+                coordinateur = coordinateurRepository.findById(prestationRequest.getCoordinateurId())
+                        .orElseThrow(() -> new IllegalArgumentException("Invalid coordinateurId: " + prestationRequest.getCoordinateurId()));
             }
 
-            ServiceQ s = serviceRepository.findById(prestationRequest.getServiceId()).orElse(null);
-
             OtPrestation prestation = OtPrestation.builder()
                     .numLigne(prestationRequest.getNumLigne())
                     .quantiteValide(prestationRequest.getQuantiteValide())
@@ -122,18 +221,18 @@ public class OtService {
                     .service(s)
                     .famille(prestationRequest.getFamille())
                     .remarque(prestationRequest.getRemarque() != null ? prestationRequest.getRemarque() : "")
-                    .coordinateur(prestationRequest.getCoordinateurId() != null ? coordinateurRepository.findById(prestationRequest.getCoordinateurId()).orElse(null) : null)
+                    .coordinateur(coordinateur)
                     .fournisseur(prestationRequest.getFournisseur())
                     .datePlanifiee(prestationRequest.getDatePlanifiee())
                     .dateDebut(prestationRequest.getDateDebut())
                     .dateFin(prestationRequest.getDateFin())
                     .dateRealisation(prestationRequest.getDateRealisation())
-                    .statutDeRealisation(prestationRequest.getStatutDeRealisation() != null ? prestationRequest.getStatutDeRealisation() : "PENDING")
+                    .statutDeRealisation(prestationRequest.getStatutDeRealisation() != null ? prestationRequest.getStatutDeRealisation() : StatutRealisation.PENDING)
                     .dateRecepTech(prestationRequest.getDateRecepTech())
-                    .statutDeRecepTech(prestationRequest.getStatutDeRecepTech() != null ? prestationRequest.getStatutDeRecepTech() : "PENDING")
+                    .statutDeRecepTech(prestationRequest.getStatutDeRecepTech() != null ? prestationRequest.getStatutDeRecepTech() : StatutRecepTech.PENDING)
                     .datePf(prestationRequest.getDatePf())
                     .dateRecepSys(prestationRequest.getDateRecepSys())
-                    .statutReceptionSystem(prestationRequest.getStatutReceptionSystem() != null ? prestationRequest.getStatutReceptionSystem() : "PENDING")
+                    .statutReceptionSystem(prestationRequest.getStatutReceptionSystem() != null ? prestationRequest.getStatutReceptionSystem() : StatutReceptionSystem.PENDING)
                     .delaiRecep(prestationRequest.getDelaiRecep() != null ? prestationRequest.getDelaiRecep() : 0)
                     .ot(ot)
                     .build();
@@ -141,46 +240,18 @@ public class OtService {
             ot.getPrestations().add(prestation);
         }
 
-        // Save Ot
-        Ot savedOt = otRepository.save(ot);
-        logger.info("OT created successfully: {}", savedOt.getNumOt());
-
-        // Send notifications
-        try {
-            // Notify coordinator of the zone
-            if (zone != null) {
-                Optional<Coordinateur> coordinateurOpt = coordinateurRepository.findByZone(zone);
-                if (coordinateurOpt.isPresent() && coordinateurOpt.get().getUser() != null) {
-                    Integer coordinatorId = coordinateurOpt.get().getUser().getId();
-                    String zoneName = zone.getNom() != null ? zone.getNom() : "Zone " + zone.getId();
-                    String message = String.format("New OT created: %s for zone %s", savedOt.getNumOt(), zoneName);
-                    notificationService.createNotification(coordinatorId, message);
-                    logger.info("Notification sent to coordinator ID {} for OT: {}", coordinatorId, savedOt.getNumOt());
-                } else {
-                    logger.warn("No coordinator found for zone ID: {} for OT: {}", request.getZoneId(), savedOt.getNumOt());
-                }
-            } else {
-                logger.warn("No zone assigned for OT: {}", savedOt.getNumOt());
-            }
+        // numOt is assigned: save() would merge, reading the OT and its references back first
+        entityManager.persist(ot);
+        logger.info("OT created successfully: {}", ot.getNumOt());
+        otMetricsCache.evict(b != null ? b.getId() : null);
 
-            // Notify back office
-            if (b != null && b.getUser() != null) {
-                Integer backOfficeId = b.getUser().getId();
-                String message = String.format("You created OT: %s", savedOt.getNumOt());
-                notificationService.createNotification(backOfficeId, message);
-                logger.info("Notification sent to back office ID {} for OT: {}", backOfficeId, savedOt.getNumOt());
-            } else {
-                logger.warn("No back office user found for backOfficeId: {} for OT: {}", request.getBackOfficeId(), savedOt.getNumOt());
-            }
-        } catch (Exception e) {
-            logger.error("Failed to send notifications for OT: {}. Error: {}", savedOt.getNumOt(), e.getMessage());
-        }
+        eventPublisher.publish(new DomainEvent.OtCreated(otRef(ot)));
 
-        return savedOt;
+        return ot;
     }
 
     @Transactional
-    public Ot updateOt(String numOt, OtRequest request) {
+    public OtResponse updateOt(String numOt, OtRequest request) {
         // Validate input
         if (numOt == null || numOt.isEmpty()) {
             throw new IllegalArgumentException("numOt is required");
@@ -195,6 +266,7 @@ public class OtService {
             throw new IllegalArgumentException("OT not found: " + numOt);
         }
         Ot ot = otOptional.get();
+        otMetricsCache.evict(ot.getBackOffice() != null ? ot.getBackOffice().getId() : null);
 
         // Update OT fields if provided
         if (request.getDivisionProjet() != null) {
@@ -253,23 +325,7 @@ public class OtService {
                 prestation.setCoordinateur(coordinateurRepository.findById(prestationRequest.getCoordinateurId()).orElse(null));
             }
 
-            if (prestationRequest.getNumLigne() != null) prestation.setNumLigne(prestationRequest.getNumLigne());
-            if (prestationRequest.getQuantiteValide() != null) prestation.setQuantiteValide(prestationRequest.getQuantiteValide());
-            if (prestationRequest.getQteRealise() != null) prestation.setQteRealise(prestationRequest.getQteRealise());
-            if (prestationRequest.getFamille() != null) prestation.setFamille(prestationRequest.getFamille());
-            if (prestationRequest.getFournisseur() != null) prestation.setFournisseur(prestationRequest.getFournisseur());
-            if (prestationRequest.getDatePlanifiee() != null) prestation.setDatePlanifiee(prestationRequest.getDatePlanifiee());
-            if (prestationRequest.getDateDebut() != null) prestation.setDateDebut(prestationRequest.getDateDebut());
-            if (prestationRequest.getDateFin() != null) prestation.setDateFin(prestationRequest.getDateFin());
-            if (prestationRequest.getDateRealisation() != null) prestation.setDateRealisation(prestationRequest.getDateRealisation());
-            if (prestationRequest.getStatutDeRealisation() != null) prestation.setStatutDeRealisation(prestationRequest.getStatutDeRealisation());
-            if (prestationRequest.getDateRecepTech() != null) prestation.setDateRecepTech(prestationRequest.getDateRecepTech());
-            if (prestationRequest.getStatutDeRecepTech() != null) prestation.setStatutDeRecepTech(prestationRequest.getStatutDeRecepTech());
-            if (prestationRequest.getDatePf() != null) prestation.setDatePf(prestationRequest.getDatePf());
-            if (prestationRequest.getDateRecepSys() != null) prestation.setDateRecepSys(prestationRequest.getDateRecepSys());
-            if (prestationRequest.getStatutReceptionSystem() != null) prestation.setStatutReceptionSystem(prestationRequest.getStatutReceptionSystem());
-            if (prestationRequest.getRemarque() != null) prestation.setRemarque(prestationRequest.getRemarque());
-            if (prestationRequest.getDelaiRecep() != null) prestation.setDelaiRecep(prestationRequest.getDelaiRecep());
+            applyPrestationFields(prestation, prestationRequest);
 
             updatedPrestations.add(prestation);
         }
@@ -281,62 +337,182 @@ public class OtService {
         // Save updated OT
         Ot savedOt = otRepository.save(ot);
         logger.info("OT updated successfully: {}", savedOt.getNumOt());
+        otMetricsCache.evict(savedOt.getBackOffice() != null ? savedOt.getBackOffice().getId() : null);
+
+        eventPublisher.publish(new DomainEvent.OtUpdated(otRef(savedOt)));
 
-        // Send notifications
+        return toResponses(List.of(savedOt)).get(0);
+    }
+
+    // Grid save for OTs. Every OT (with its prestations) and every referenced zone, back office, site, service
+    // and coordinateur is loaded once for the whole batch. Each item is fully validated before it touches its
+    // entities, so a bad item is reported and skipped while the others are saved. The batch is flushed once
+    // (updates go out as JDBC batches); if that flush fails, the items are retried one transaction each so
+    // only the offending ones are lost. Notifications are sent once per coordinator / back office.
+    public OtBulkUpdateResponse updateOtsBulk(List<OtRequest> requests) {
+        logger.info("Updating {} OTs in bulk", requests.size());
+        OtBulkUpdateResponse result = new OtBulkUpdateResponse();
+        result.setRequested(requests.size());
+
+        List<OtResponse> updatedOts;
         try {
-            if (ot.getZone() != null) {
-                Optional<Coordinateur> coordinateurOpt = coordinateurRepository.findByZone(ot.getZone());
-                if (coordinateurOpt.isPresent() && coordinateurOpt.get().getUser() != null) {
-                    Integer coordinatorId = coordinateurOpt.get().getUser().getId();
-                    String zoneName = ot.getZone().getNom() != null ? ot.getZone().getNom() : "Zone " + ot.getZone().getId();
-                    String message = String.format("OT updated: %s for zone %s", savedOt.getNumOt(), zoneName);
-                    notificationService.createNotification(coordinatorId, message);
-                    logger.info("Notification sent to coordinator ID {} for OT: {}", coordinatorId, savedOt.getNumOt());
+            updatedOts = transactionTemplate.execute(status -> toResponses(applyOtUpdates(requests, 0, result.getFailed())));
+        } catch (RuntimeException e) {
+            logger.warn("Bulk OT flush failed ({}), retrying item by item", e.getMessage());
+            result.getFailed().clear();
+            updatedOts = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                OtRequest request = requests.get(i);
+                int index = i;
+                try {
+                    updatedOts.addAll(transactionTemplate.execute(status -> toResponses(applyOtUpdates(List.of(request), index, result.getFailed()))));
+                } catch (RuntimeException itemError) {
+                    logger.error("Error updating OT {}: {}", request.getNumOt(), itemError.getMessage());
+                    result.getFailed().add(new ImportJobResponse.RowError(index, request.getNumOt(), "Could not be saved: " + itemError.getMessage()));
                 }
             }
-            if (ot.getBackOffice() != null && ot.getBackOffice().getUser() != null) {
-                Integer backOfficeId = ot.getBackOffice().getUser().getId();
-                String message = String.format("You updated OT: %s", savedOt.getNumOt());
-                notificationService.createNotification(backOfficeId, message);
-                logger.info("Notification sent to back office ID {} for OT: {}", backOfficeId, savedOt.getNumOt());
-            }
-        } catch (Exception e) {
-            logger.error("Failed to send notifications for OT: {}. Error: {}", savedOt.getNumOt(), e.getMessage());
         }
 
-        return savedOt;
+        result.setUpdated(updatedOts);
+        logger.info("Bulk update completed, updated {} OTs, rejected {}", updatedOts.size(), result.getFailed().size());
+        return result;
     }
 
-    @Transactional
-    public List<Ot> updateOtsBulk(List<OtRequest> requests) {
-        logger.info("Updating {} OTs in bulk", requests.size());
-        List<Ot> updatedOts = new ArrayList<>();
-
+    private List<Ot> applyOtUpdates(List<OtRequest> requests, int firstIndex, List<ImportJobResponse.RowError> failed) {
+        Set<String> numOts = new HashSet<>();
+        Set<Integer> zoneIds = new HashSet<>();
+        Set<Integer> backOfficeIds = new HashSet<>();
+        Set<String> codeSites = new HashSet<>();
+        Set<Integer> serviceIds = new HashSet<>();
+        Set<Integer> coordinateurIds = new HashSet<>();
         for (OtRequest request : requests) {
-            String numOt = request.getNumOt();
-            if (numOt == null || numOt.isEmpty()) {
-                logger.warn("Skipping OT update with null numOt");
-                continue;
+            if (request.getNumOt() != null) numOts.add(request.getNumOt());
+            if (request.getZoneId() != null) zoneIds.add(request.getZoneId());
+            if (request.getBackOfficeId() != null) backOfficeIds.add(request.getBackOfficeId());
+            if (request.getCodeSite() != null) codeSites.add(request.getCodeSite());
+            if (request.getPrestations() != null) {
+                for (OtRequest.OtPrestationRequest prestation : request.getPrestations()) {
+                    if (prestation.getServiceId() != null) serviceIds.add(prestation.getServiceId());
+                    if (prestation.getCoordinateurId() != null) coordinateurIds.add(prestation.getCoordinateurId());
+                }
             }
+        }
+
+        Map<String, Ot> ots = new HashMap<>();
+        otRepository.findAllWithPrestationsByNumOtIn(numOts).forEach(ot -> ots.put(ot.getNumOt(), ot));
+        Map<Integer, Zone> zones = new HashMap<>();
+        zoneRepository.findAllById(zoneIds).forEach(zone -> zones.put(zone.getId(), zone));
+        Map<Integer, BackOffice> backOffices = new HashMap<>();
+        backOfficeRepository.findAllById(backOfficeIds).forEach(b -> backOffices.put(b.getId(), b));
+        Map<String, Site> sites = new HashMap<>();
+        siteRepository.findByCodesiteIn(codeSites).forEach(site -> sites.put(site.getCodesite(), site));
+        Map<Integer, ServiceQ> services = new HashMap<>();
+        serviceRepository.findAllById(serviceIds).forEach(service -> services.put(service.getId(), service));
+        Map<Integer, Coordinateur> coordinateurs = new HashMap<>();
+        coordinateurRepository.findAllById(coordinateurIds).forEach(c -> coordinateurs.put(c.getId(), c));
+
+        List<Ot> updated = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            OtRequest request = requests.get(i);
+            String numOt = request.getNumOt();
             try {
-                Ot updatedOt = updateOt(numOt, request);
-                updatedOts.add(updatedOt);
+                if (numOt == null || numOt.isEmpty()) {
+                    throw new IllegalArgumentException("numOt is required");
+                }
+                if (request.getPrestations() == null || request.getPrestations().isEmpty()) {
+                    throw new IllegalArgumentException("At least one prestation is required");
+                }
+                Ot ot = ots.get(numOt);
+                if (ot == null) {
+                    throw new IllegalArgumentException("OT not found: " + numOt);
+                }
+                if (request.getZoneId() != null && !zones.containsKey(request.getZoneId())) {
+                    throw new IllegalArgumentException("Invalid zoneId: " + request.getZoneId());
+                }
+                if (request.getCodeSite() != null && !sites.containsKey(request.getCodeSite())) {
+                    throw new IllegalArgumentException("Invalid codeSite: " + request.getCodeSite());
+                }
+                if (request.getBackOfficeId() != null && !backOffices.containsKey(request.getBackOfficeId())) {
+                    throw new IllegalArgumentException("Invalid backOfficeId: " + request.getBackOfficeId());
+                }
+                Map<Long, OtPrestation> existing = new HashMap<>();
+                ot.getPrestations().forEach(p -> existing.put(p.getId(), p));
+                for (OtRequest.OtPrestationRequest prestationRequest : request.getPrestations()) {
+                    if (prestationRequest.getId() != null && !existing.containsKey(prestationRequest.getId())) {
+                        throw new IllegalArgumentException("Invalid prestationId: " + prestationRequest.getId());
+                    }
+                    if (prestationRequest.getServiceId() != null && !services.containsKey(prestationRequest.getServiceId())) {
+                        throw new IllegalArgumentException("Invalid serviceId: " + prestationRequest.getServiceId());
+                    }
+                    if (prestationRequest.getCoordinateurId() != null && !coordinateurs.containsKey(prestationRequest.getCoordinateurId())) {
+                        throw new IllegalArgumentException("Invalid coordinateurId: " + prestationRequest.getCoordinateurId());
+                    }
+                }
+
+                // Valid: apply, same semantics as updateOt (prestations missing from the request are removed)
+                otMetricsCache.evict(ot.getBackOffice() != null ? ot.getBackOffice().getId() : null);
+                if (request.getDivisionProjet() != null) ot.setDivisionProjet(request.getDivisionProjet());
+                if (request.getCodeProjet() != null) ot.setCodeProjet(request.getCodeProjet());
+                if (request.getZoneId() != null) ot.setZone(zones.get(request.getZoneId()));
+                if (request.getDateGo() != null) ot.setDateGo(request.getDateGo());
+                if (request.getCodeSite() != null) ot.setCodeSite(sites.get(request.getCodeSite()));
+                if (request.getBackOfficeId() != null) ot.setBackOffice(backOffices.get(request.getBackOfficeId()));
+
+                List<OtPrestation> kept = new ArrayList<>();
+                for (OtRequest.OtPrestationRequest prestationRequest : request.getPrestations()) {
+                    OtPrestation prestation = prestationRequest.getId() != null ? existing.get(prestationRequest.getId()) : new OtPrestation();
+                    prestation.setOt(ot);
+                    if (prestationRequest.getServiceId() != null) prestation.setService(services.get(prestationRequest.getServiceId()));
+                    if (prestationRequest.getCoordinateurId() != null) prestation.setCoordinateur(coordinateurs.get(prestationRequest.getCoordinateurId()));
+                    applyPrestationFields(prestation, prestationRequest);
+                    kept.add(prestation);
+                }
+                ot.getPrestations().removeIf(p -> kept.stream().noneMatch(k -> k == p));
+                kept.stream().filter(p -> p.getId() == null).forEach(ot.getPrestations()::add);
+                otMetricsCache.evict(ot.getBackOffice() != null ? ot.getBackOffice().getId() : null);
+                updated.add(ot);
             } catch (IllegalArgumentException e) {
-                logger.error("Error updating OT {}: {}", numOt, e.getMessage());
-                // Continue with next, or throw to rollback all
+                logger.warn("Rejected bulk update of OT {}: {}", numOt, e.getMessage());
+                failed.add(new ImportJobResponse.RowError(firstIndex + i, numOt, e.getMessage()));
             }
         }
 
-        logger.info("Bulk update completed, updated {} OTs", updatedOts.size());
-        return updatedOts;
+        otRepository.flush();
+        // Published in the batch transaction, so each user gets one notification for the whole batch
+        if (!updated.isEmpty()) {
+            eventPublisher.publish(new DomainEvent.OtsUpdated(updated.stream().map(OtService::otRef).toList()));
+        }
+        return updated;
     }
 
-    public Ot getOtByNum(String num) {
-        return otRepository.findById(num).orElse(null);
+    private static void applyPrestationFields(OtPrestation prestation, OtRequest.OtPrestationRequest prestationRequest) {
+        if (prestationRequest.getNumLigne() != null) prestation.setNumLigne(prestationRequest.getNumLigne());
+        if (prestationRequest.getQuantiteValide() != null) prestation.setQuantiteValide(prestationRequest.getQuantiteValide());
+        if (prestationRequest.getQteRealise() != null) prestation.setQteRealise(prestationRequest.getQteRealise());
+        if (prestationRequest.getFamille() != null) prestation.setFamille(prestationRequest.getFamille());
+        if (prestationRequest.getFournisseur() != null) prestation.setFournisseur(prestationRequest.getFournisseur());
+        if (prestationRequest.getDatePlanifiee() != null) prestation.setDatePlanifiee(prestationRequest.getDatePlanifiee());
+        if (prestationRequest.getDateDebut() != null) prestation.setDateDebut(prestationRequest.getDateDebut());
+        if (prestationRequest.getDateFin() != null) prestation.setDateFin(prestationRequest.getDateFin());
+        if (prestationRequest.getDateRealisation() != null) prestation.setDateRealisation(prestationRequest.getDateRealisation());
+        if (prestationRequest.getStatutDeRealisation() != null) prestation.setStatutDeRealisation(prestationRequest.getStatutDeRealisation());
+        if (prestationRequest.getDateRecepTech() != null) prestation.setDateRecepTech(prestationRequest.getDateRecepTech());
+        if (prestationRequest.getStatutDeRecepTech() != null) prestation.setStatutDeRecepTech(prestationRequest.getStatutDeRecepTech());
+        if (prestationRequest.getDatePf() != null) prestation.setDatePf(prestationRequest.getDatePf());
+        if (prestationRequest.getDateRecepSys() != null) prestation.setDateRecepSys(prestationRequest.getDateRecepSys());
+        if (prestationRequest.getStatutReceptionSystem() != null) prestation.setStatutReceptionSystem(prestationRequest.getStatutReceptionSystem());
+        if (prestationRequest.getRemarque() != null) prestation.setRemarque(prestationRequest.getRemarque());
+        if (prestationRequest.getDelaiRecep() != null) prestation.setDelaiRecep(prestationRequest.getDelaiRecep());
     }
 
-    public List<Ot> getAllOts() {
-        return otRepository.findAll();
+    @Transactional(readOnly = true)
+    public OtResponse getOtByNum(String num) {
+        return otRepository.findByNumOt(num).map(ot -> toResponses(List.of(ot)).get(0)).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OtResponse> getAllOts() {
+        return toResponses(otRepository.findAll());
     }
 
     @Transactional(readOnly = true)
@@ -347,11 +523,24 @@ public class OtService {
             logger.warn("No BackOffice found for email: {}", email);
             throw new IllegalArgumentException("No BackOffice found for email: " + email);
         }
-        return new OtMetricsResponse(
-                otPrestationRepository.getTotalOtPrestationCostByEmail(email),
-                otPrestationRepository.getRealisedOtPrestationCostByEmail(email),
-                otPrestationRepository.getReceptionneOtPrestationCostByEmail(email)
-        );
+        Integer backOfficeId = backOfficeOpt.get().getId();
+        return otMetricsCache.get(backOfficeId, () -> {
+            List<Object[]> rows = otPrestationRepository.getOtMetricsRaw(backOfficeId);
+            Object[] row = rows.isEmpty() ? new Object[7] : rows.get(0);
+            return new OtMetricsResponse(
+                    toDouble(row[2]),
+                    toDouble(row[3]),
+                    toDouble(row[6]),
+                    toDouble(row[4]),
+                    toDouble(row[5]),
+                    row[0] != null ? ((Number) row[0]).longValue() : 0L,
+                    row[1] != null ? ((Number) row[1]).longValue() : 0L
+            );
+        });
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
     }
 
     @Transactional
@@ -367,54 +556,177 @@ public class OtService {
         }
 
         // Fetch OT and BDC
-        Optional<Ot> otOptional = otRepository.findById(numOt);
-        if (otOptional.isEmpty()) {
-            throw new IllegalArgumentException("OT not found: " + numOt);
+        Ot ot = otRepository.findById(numOt)
+                .orElseThrow(() -> new IllegalArgumentException("OT not found: " + numOt));
+        BonDeCommande bdc = bonDeCommandeRepository.findByNumBc(numBc)
+                .orElseThrow(() -> new IllegalArgumentException("BonDeCommande not found: " + numBc));
+
+        LinkPlan plan = planLink(ot, bdc);
+        if (!plan.mismatches().isEmpty()) {
+            throw new IllegalArgumentException(plan.mismatches().get(0));
         }
-        Ot ot = otOptional.get();
+        applyLink(ot, bdc, plan);
+        logger.info("Successfully linked OT {} to BDC {} and deleted the OT", numOt, numBc);
+
+        eventPublisher.publish(linkedEvent(ot, bdc));
+    }
 
-        Optional<BonDeCommande> bdcOptional = bonDeCommandeRepository.findById(numBc);
-        if (bdcOptional.isEmpty()) {
-            throw new IllegalArgumentException("BonDeCommande not found: " + numBc);
+    // BDCs the OT could be linked to, ranked by service coverage (served from BdcCandidateIndex, no graph loading)
+    @Transactional(readOnly = true)
+    public List<BdcCandidateResponse> findBdcCandidates(String numOt, int limit) {
+        Ot ot = otRepository.findById(numOt)
+                .orElseThrow(() -> new IllegalArgumentException("OT not found: " + numOt));
+        Map<Integer, Double> requiredByService = new HashMap<>();
+        for (OtPrestation prestation : ot.getPrestations()) {
+            if (prestation.getService() != null) {
+                double quantity = prestation.getQuantiteValide() != null ? prestation.getQuantiteValide() : 0;
+                requiredByService.merge(prestation.getService().getId(), quantity, Double::sum);
+            }
         }
-        BonDeCommande bdc = bdcOptional.get();
+        return bdcCandidateIndex.findCandidates(ot.getCodeProjet(), requiredByService, Math.max(1, limit));
+    }
 
-        // Validate compatibility (e.g., matching codeProjet)
-        if (!ot.getCodeProjet().equals(bdc.getCodeProjet())) {
-            throw new IllegalArgumentException("OT and BDC have different codeProjet values");
+    // Reconciliation of many OTs at once. Pairs are processed in chunks of ot.link.chunk-size, one transaction per
+    // chunk: OTs and BDCs of the chunk are loaded with their prestations in two queries and the SuiviPrestation rows
+    // are inserted as one JDBC batch. With dryRun nothing is written, the result only lists what would not match.
+    public OtLinkBatchResponse linkOtsToBdcs(List<LinkOtToBdcRequest> links, boolean dryRun) {
+        logger.info("Linking {} OT/BDC pairs (dryRun={})", links.size(), dryRun);
+        OtLinkBatchResponse response = new OtLinkBatchResponse();
+        response.setDryRun(dryRun);
+        response.setRequested(links.size());
+
+        Set<String> seenOts = new HashSet<>();
+        for (int from = 0; from < links.size(); from += linkChunkSize) {
+            List<LinkOtToBdcRequest> chunk = links.subList(from, Math.min(from + linkChunkSize, links.size()));
+            List<OtLinkBatchResponse.LinkResult> results = new ArrayList<>();
+            try {
+                LinkChunk done = dryRun
+                        ? linkChunk(chunk, true, seenOts)
+                        : transactionTemplate.execute(status -> linkChunk(chunk, false, seenOts));
+                results.addAll(done.results());
+            } catch (RuntimeException e) {
+                // A write failed: redo the chunk pair by pair so only the faulty links are lost
+                logger.warn("Link chunk failed ({}), retrying pair by pair", e.getMessage());
+                results.clear();
+                chunk.forEach(link -> seenOts.remove(link.getNumOt()));
+                for (LinkOtToBdcRequest link : chunk) {
+                    try {
+                        results.addAll(transactionTemplate.execute(status -> linkChunk(List.of(link), false, seenOts)).results());
+                    } catch (RuntimeException pairError) {
+                        logger.error("Error linking OT {} to BDC {}: {}", link.getNumOt(), link.getNumBc(), pairError.getMessage());
+                        results.add(new OtLinkBatchResponse.LinkResult(link.getNumOt(), link.getNumBc(), false, 0,
+                                List.of("Could not be saved: " + pairError.getMessage())));
+                    }
+                }
+            }
+            response.getResults().addAll(results);
         }
 
-        // Link OT to BDC
-        bdc.setNumOt(numOt);
-        if (bdc.getDivisionProjet() == null && ot.getDivisionProjet() != null) {
-            bdc.setDivisionProjet(ot.getDivisionProjet());
+        for (OtLinkBatchResponse.LinkResult result : response.getResults()) {
+            if (result.isLinked()) {
+                response.setLinked(response.getLinked() + 1);
+                response.setSuiviCreated(response.getSuiviCreated() + result.getPrestationsMatched());
+            }
+            if (!result.getMismatches().isEmpty()) {
+                response.setMismatched(response.getMismatched() + 1);
+            }
         }
+        logger.info("Linked {} of {} OT/BDC pairs (dryRun={})", response.getLinked(), links.size(), dryRun);
+        return response;
+    }
 
-        // Process each OtPrestation
-        for (OtPrestation otPrestation : ot.getPrestations()) {
-            // Find matching Prestation in BDC by ServiceQ
-            Prestation matchingPrestation = null;
-            for (Prestation prestation : bdc.getPrestations()) {
-                if (prestation.getService() != null && otPrestation.getService() != null &&
-                        prestation.getService().getId().equals(otPrestation.getService().getId())) {
-                    matchingPrestation = prestation;
-                    break;
+    private LinkChunk linkChunk(List<LinkOtToBdcRequest> chunk, boolean dryRun, Set<String> seenOts) {
+        Set<String> numOts = new HashSet<>();
+        Set<String> numBcs = new HashSet<>();
+        chunk.forEach(link -> {
+            if (link.getNumOt() != null) numOts.add(link.getNumOt());
+            if (link.getNumBc() != null) numBcs.add(link.getNumBc());
+        });
+        Map<String, Ot> ots = new HashMap<>();
+        otRepository.findAllWithPrestationsByNumOtIn(numOts).forEach(ot -> ots.put(ot.getNumOt(), ot));
+        Map<String, BonDeCommande> bdcs = new HashMap<>();
+        bonDeCommandeRepository.findAllWithPrestationsByNumBcIn(numBcs).forEach(bc -> bdcs.put(bc.getNumBc(), bc));
+
+        List<OtLinkBatchResponse.LinkResult> results = new ArrayList<>();
+        List<SuiviPrestation> suivis = new ArrayList<>();
+        List<Ot> chunkOts = new ArrayList<>();
+        List<DomainEvent.OtLinked> linkedEvents = new ArrayList<>();
+        for (LinkOtToBdcRequest link : chunk) {
+            String numOt = link.getNumOt();
+            String numBc = link.getNumBc();
+            Ot ot = ots.get(numOt);
+            BonDeCommande bdc = bdcs.get(numBc);
+            List<String> problems = new ArrayList<>();
+            if (numOt == null || numOt.isEmpty()) problems.add("numOt is required");
+            else if (ot == null) problems.add("OT not found: " + numOt);
+            else if (!seenOts.add(numOt)) problems.add("OT appears more than once in the batch: " + numOt);
+            if (numBc == null || numBc.isEmpty()) problems.add("numBc is required");
+            else if (bdc == null) problems.add("BonDeCommande not found: " + numBc);
+            if (!problems.isEmpty()) {
+                results.add(new OtLinkBatchResponse.LinkResult(numOt, numBc, false, 0, problems));
+                continue;
+            }
+
+            LinkPlan plan = planLink(ot, bdc);
+            boolean linked = plan.mismatches().isEmpty() && !dryRun;
+            results.add(new OtLinkBatchResponse.LinkResult(numOt, numBc, linked, plan.suivis().size(), plan.mismatches()));
+            if (linked) {
+                bdc.setNumOt(numOt);
+                if (bdc.getDivisionProjet() == null && ot.getDivisionProjet() != null) {
+                    bdc.setDivisionProjet(ot.getDivisionProjet());
                 }
+                suivis.addAll(plan.suivis());
+                otMetricsCache.evict(ot.getBackOffice() != null ? ot.getBackOffice().getId() : null);
+                chunkOts.add(ot);
+                linkedEvents.add(linkedEvent(ot, bdc));
+            }
+        }
+
+        if (!suivis.isEmpty()) {
+            insertSuivis(suivis);
+        }
+        otRepository.deleteAll(chunkOts);
+        otRepository.flush();
+        // Published in the chunk transaction: a chunk that rolls back notifies nobody
+        if (!linkedEvents.isEmpty()) {
+            eventPublisher.publish(new DomainEvent.OtsLinked(linkedEvents));
+        }
+        return new LinkChunk(results);
+    }
+
+    // Outcome of one chunk, only merged into the batch totals once its transaction has committed
+    private record LinkChunk(List<OtLinkBatchResponse.LinkResult> results) {
+    }
+
+    // Matches every OtPrestation to the BDC prestation of the same service through a service-id index
+    private static LinkPlan planLink(Ot ot, BonDeCommande bdc) {
+        List<String> mismatches = new ArrayList<>();
+        if (!Objects.equals(ot.getCodeProjet(), bdc.getCodeProjet())) {
+            mismatches.add("OT and BDC have different codeProjet values");
+        }
+
+        Map<Integer, Prestation> byService = new HashMap<>();
+        for (Prestation prestation : bdc.getPrestations()) {
+            if (prestation.getService() != null) {
+                byService.putIfAbsent(prestation.getService().getId(), prestation);
             }
+        }
 
-            // Throw error if no matching Prestation found
+        List<SuiviPrestation> suivis = new ArrayList<>();
+        for (OtPrestation otPrestation : ot.getPrestations()) {
+            Prestation matchingPrestation = otPrestation.getService() != null ? byService.get(otPrestation.getService().getId()) : null;
             if (matchingPrestation == null) {
-                throw new IllegalArgumentException("No matching Prestation found for OtPrestation with Service ID: " +
+                mismatches.add("No matching Prestation found for OtPrestation with Service ID: " +
                         (otPrestation.getService() != null ? otPrestation.getService().getId() : "null"));
+                continue;
             }
-
-            // Create SuiviPrestation from OtPrestation
-            SuiviPrestation suivi = SuiviPrestation.builder()
+            suivis.add(SuiviPrestation.builder()
                     .prestation(matchingPrestation)
                     .coordinateur(otPrestation.getCoordinateur())
                     .zone(ot.getZone())
                     .fichierReceptionTech(otPrestation.getFichierReceptionTech())
                     .qteRealise(otPrestation.getQteRealise())
+                    .prixUnitaire(matchingPrestation.getPrixUnitaire())
                     .fournisseur(otPrestation.getFournisseur())
                     .datePlanifiee(otPrestation.getDatePlanifiee())
                     .dateGo(otPrestation.getDateGo())
@@ -429,47 +741,74 @@ public class OtService {
                     .statutReceptionSystem(otPrestation.getStatutReceptionSystem())
                     .remarque(otPrestation.getRemarque())
                     .delaiRecep(otPrestation.getDelaiRecep())
-                    .sentNotifications(new ArrayList<>())
-                    .build();
+                    .build());
+        }
+        return new LinkPlan(mismatches, suivis);
+    }
 
+    private void applyLink(Ot ot, BonDeCommande bdc, LinkPlan plan) {
+        bdc.setNumOt(ot.getNumOt());
+        if (bdc.getDivisionProjet() == null && ot.getDivisionProjet() != null) {
+            bdc.setDivisionProjet(ot.getDivisionProjet());
+        }
+        insertSuivis(plan.suivis());
+        otRepository.delete(ot);
+        otRepository.flush();
+        otMetricsCache.evict(ot.getBackOffice() != null ? ot.getBackOffice().getId() : null);
+    }
 
+    // SuiviPrestation ids are IDENTITY, which stops Hibernate from batching inserts: write them with plain JDBC.
+    // The entity listeners do not see these rows, so their BCs are marked dirty here, as BonDeCommandeDeletionService does
+    private void insertSuivis(List<SuiviPrestation> suivis) {
+        jdbcTemplate.batchUpdate(INSERT_SUIVI_SQL, suivis, linkChunkSize, (ps, suivi) -> {
+            ps.setLong(1, suivi.getPrestation().getId());
+            ps.setObject(2, suivi.getCoordinateur() != null ? suivi.getCoordinateur().getId() : null);
+            ps.setObject(3, suivi.getZone() != null ? suivi.getZone().getId() : null);
+            ps.setObject(4, suivi.getFichierReceptionTech() != null ? suivi.getFichierReceptionTech().getId() : null);
+            ps.setObject(5, suivi.getQteRealise());
+            ps.setString(6, suivi.getFournisseur());
+            ps.setObject(7, timestamp(suivi.getDatePlanifiee()));
+            ps.setObject(8, suivi.getDateGo());
+            ps.setObject(9, timestamp(suivi.getDateDebut()));
+            ps.setObject(10, timestamp(suivi.getDateFin()));
+            ps.setObject(11, timestamp(suivi.getDateRealisation()));
+            ps.setObject(12, CodedStatus.code(suivi.getStatutDeRealisation()));
+            ps.setObject(13, timestamp(suivi.getDateRecepTech()));
+            ps.setObject(14, CodedStatus.code(suivi.getStatutDeRecepTech()));
+            ps.setObject(15, timestamp(suivi.getDatePf()));
+            ps.setObject(16, timestamp(suivi.getDateRecepSys()));
+            ps.setObject(17, CodedStatus.code(suivi.getStatutReceptionSystem()));
+            ps.setString(18, suivi.getRemarque());
+            ps.setObject(19, suivi.getDelaiRecep());
+            ps.setObject(20, suivi.getPrixUnitaire());
+        });
+        Set<String> numBcs = new HashSet<>();
+        suivis.forEach(suivi -> numBcs.add(suivi.getPrestation().getBonDeCommande().getNumBc()));
+        numBcs.forEach(bdcCandidateIndex::markDirty);
+        numBcs.forEach(numBc -> searchIndexer.markDirty(SearchIndex.BC, numBc));
+    }
 
-            matchingPrestation.getSuivi().add(suivi);
-        }
+    private static final String INSERT_SUIVI_SQL = "INSERT INTO suivi_prestation (prestation_id, coordinateur_id, zone_id, " +
+            "fichier_reception_tech_id, qte_realise, fournisseur, date_planifiee, date_go, date_debut, date_fin, " +
+            "date_realisation, statut_de_realisation, date_recep_tech, statut_de_recep_tech, date_pf, date_recep_sys, " +
+            "statut_reception_system, remarque, delai_recep, prix_unitaire, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
 
-        // Save changes (cascades to Prestations and SuiviPrestations)
-        bonDeCommandeRepository.save(bdc);
-        logger.info("Successfully linked OT {} to BDC {}", numOt, numBc);
+    private static Timestamp timestamp(Date date) {
+        return date != null ? new Timestamp(date.getTime()) : null;
+    }
 
-        // Delete OT
-        otRepository.delete(ot);
-        logger.info("Deleted OT {} after linking to BDC {}", numOt, numBc);
+    private record LinkPlan(List<String> mismatches, List<SuiviPrestation> suivis) {
+    }
 
-        // Send notifications
-        try {
-            if (bdc.getBackOffice() != null && bdc.getBackOffice().getUser() != null) {
-                Integer backOfficeId = bdc.getBackOffice().getUser().getId();
-                String message = String.format("OT %s linked to BDC %s and deleted", numOt, numBc);
-                notificationService.createNotification(backOfficeId, message);
-                logger.info("Notification sent to back office ID {} for OT-BDC link: {}-{}", backOfficeId, numOt, numBc);
-            }
-            if (ot.getZone() != null) {
-                Optional<Coordinateur> coordinateurOpt = coordinateurRepository.findByZone(ot.getZone());
-                if (coordinateurOpt.isPresent() && coordinateurOpt.get().getUser() != null) {
-                    Integer coordinatorId = coordinateurOpt.get().getUser().getId();
-                    String zoneName = ot.getZone().getNom() != null ? ot.getZone().getNom() : "Zone " + ot.getZone().getId();
-                    String message = String.format("OT %s linked to BDC %s and deleted for zone %s", numOt, numBc, zoneName);
-                    notificationService.createNotification(coordinatorId, message);
-                    logger.info("Notification sent to coordinator ID {} for OT-BDC link: {}-{}", coordinatorId, numOt, numBc);
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Failed to send notifications for OT-BDC link: {}-{}, Error: {}", numOt, numBc, e.getMessage());
-        }
+    private static DomainEvent.OtRef otRef(Ot ot) {
+        return new DomainEvent.OtRef(ot.getNumOt(),
+                ot.getZone() != null ? ot.getZone().getId() : null,
+                ot.getBackOffice() != null && ot.getBackOffice().getUser() != null ? ot.getBackOffice().getUser().getId() : null);
     }
-    // Helper method to generate a unique Prestation ID
-    private String generatePrestationId(BonDeCommande bdc, OtPrestation otPrestation) {
-        // Example: Combine numBc and a counter or OtPrestation ID
-        return bdc.getNumBc() + "-P" + System.currentTimeMillis(); // Adjust as needed
+
+    private static DomainEvent.OtLinked linkedEvent(Ot ot, BonDeCommande bdc) {
+        return new DomainEvent.OtLinked(otRef(ot), bdc.getNumBc(),
+                bdc.getBackOffice() != null && bdc.getBackOffice().getUser() != null ? bdc.getBackOffice().getUser().getId() : null);
     }
 }
\ No newline at end of file
@@ -3,13 +3,14 @@ package com.samsic.gestion_bc.services;
 import com.samsic.gestion_bc.dto.BcSummary;
 import com.samsic.gestion_bc.dto.Bcdetail;
 import com.samsic.gestion_bc.dto.TableauDeBordDTO;
-import com.samsic.gestion_bc.models.Prestation;
+import com.samsic.gestion_bc.dto.responses.PrestationLineResponse;
 import com.samsic.gestion_bc.repositories.PrestationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -27,20 +28,23 @@ public class PrestationService {
         this.prestationRepository = prestationRepository;
     }
 
-    public List<Prestation> getAllPrestations(Authentication auth) {
+    @Transactional(readOnly = true)
+    public List<PrestationLineResponse> getAllPrestations(Authentication auth) {
         String email = auth.getName();
         logger.info("Fetching all prestations for email: {}", email);
-        return prestationRepository.findAll();
+        return prestationRepository.findAll().stream().map(PrestationLineResponse::of).toList();
     }
 
-    public Optional<Prestation> getPrestationById(String id) {
+    @Transactional(readOnly = true)
+    public Optional<PrestationLineResponse> getPrestationById(String id) {
         logger.info("Fetching prestation with ID: {}", id);
-        return prestationRepository.findById(id);
+        return prestationRepository.findByCode(id).map(PrestationLineResponse::of);
     }
 
-    public List<Prestation> getPrestationsByBonDeCommande(String bcId) {
+    @Transactional(readOnly = true)
+    public List<PrestationLineResponse> getPrestationsByBonDeCommande(String bcId) {
         logger.info("Fetching prestations for BonDeCommande: {}", bcId);
-        return prestationRepository.findByBonDeCommandeNumBc(bcId);
+        return prestationRepository.findByBonDeCommandeNumBc(bcId).stream().map(PrestationLineResponse::of).toList();
     }
 
     public List<Bcdetail> getReportPrestation(Authentication auth) {
@@ -0,0 +1,35 @@
+package com.samsic.gestion_bc.services;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// JPA listener on the second-level cached reference entities: tells the other nodes which ids to evict.
+// An insert only invalidates the cached queries, nobody can have the new id cached yet.
+@Component
+public class ReferenceCacheListener {
+    private final ObjectProvider<ReferenceCacheService> referenceCache;
+
+    public ReferenceCacheListener(ObjectProvider<ReferenceCacheService> referenceCache) {
+        this.referenceCache = referenceCache;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        ReferenceCacheService service = referenceCache.getIfAvailable();
+        if (service != null) {
+            service.entityChanged(entity, false);
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        ReferenceCacheService service = referenceCache.getIfAvailable();
+        if (service != null) {
+            service.entityChanged(entity, true);
+        }
+    }
+}
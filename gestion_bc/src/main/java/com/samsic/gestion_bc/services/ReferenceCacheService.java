@@ -0,0 +1,134 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.config.ReferenceCacheConfig;
+import com.samsic.gestion_bc.dto.responses.CacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Statistics and eviction of the second-level cache regions declared in ReferenceCacheConfig.
+// Hibernate keeps the regions of this node up to date on JPA writes; ReferenceCacheListener publishes those writes
+// on the invalidation bus so that the other nodes evict the same ids. Rows written with plain JDBC (the reference
+// data loader) are evicted per table through evict(Class).
+@Service
+public class ReferenceCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceCacheService.class);
+
+    private final SessionFactory sessionFactory;
+    private final CacheInvalidationBus invalidationBus;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<Class<?>, String> regionByEntity = new HashMap<>();
+
+    public ReferenceCacheService(EntityManagerFactory entityManagerFactory, CacheInvalidationBus invalidationBus) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.invalidationBus = invalidationBus;
+
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            Cache cache = entity.getJavaType().getAnnotation(Cache.class);
+            if (cache != null && ReferenceCacheConfig.ENTITY_REGIONS.contains(cache.region())) {
+                regionByEntity.put(entity.getJavaType(), cache.region());
+                invalidationBus.register(cache.region(), new EntityRegionListener(entity.getJavaType(), entity.getIdType().getJavaType()));
+            }
+        }
+        invalidationBus.register(ReferenceCacheConfig.QUERY_REGION, new CacheInvalidationBus.Listener() {
+            @Override
+            public void evict(Set<String> keys) {
+                evictAll();
+            }
+
+            @Override
+            public void evictAll() {
+                sessionFactory.getCache().evictQueryRegions();
+            }
+        });
+    }
+
+    // From ReferenceCacheListener: a JPA insert, update or delete of a cached entity
+    public void entityChanged(Object entity, boolean updated) {
+        Class<?> type = Hibernate.getClass(entity);
+        String region = regionByEntity.get(type);
+        if (region == null) {
+            return;
+        }
+        if (updated) {
+            Object id = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+            invalidationBus.publish(region, String.valueOf(id));
+        }
+        invalidationBus.publishAll(ReferenceCacheConfig.QUERY_REGION);
+    }
+
+    public void evict(Class<?> entityClass) {
+        String region = regionByEntity.get(entityClass);
+        if (region != null) {
+            invalidationBus.publishAll(region);
+        }
+        invalidationBus.publishAll(ReferenceCacheConfig.QUERY_REGION);
+    }
+
+    public void evictAll() {
+        regionByEntity.values().forEach(invalidationBus::publishAll);
+        invalidationBus.publishAll(ReferenceCacheConfig.QUERY_REGION);
+        logger.info("Evicted all second-level cache regions");
+    }
+
+    public CacheStatsResponse stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setStatisticsEnabled(statistics.isStatisticsEnabled());
+        response.setSecondLevelHits(statistics.getSecondLevelCacheHitCount());
+        response.setSecondLevelMisses(statistics.getSecondLevelCacheMissCount());
+        response.setQueryCacheHits(statistics.getQueryCacheHitCount());
+        response.setQueryCacheMisses(statistics.getQueryCacheMissCount());
+        response.setStatements(statistics.getPrepareStatementCount());
+
+        List<String> regions = new ArrayList<>(ReferenceCacheConfig.ENTITY_REGIONS);
+        regions.add(ReferenceCacheConfig.QUERY_REGION);
+        for (String region : regions) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            long hits = regionStatistics.getHitCount();
+            long misses = regionStatistics.getMissCount();
+            response.getRegions().add(new CacheStatsResponse.RegionStats(region, hits, misses,
+                    regionStatistics.getPutCount(), hits + misses == 0 ? 0 : (double) hits / (hits + misses)));
+        }
+        return response;
+    }
+
+    private class EntityRegionListener implements CacheInvalidationBus.Listener {
+        private final Class<?> entityClass;
+        private final Class<?> idType;
+
+        EntityRegionListener(Class<?> entityClass, Class<?> idType) {
+            this.entityClass = entityClass;
+            this.idType = idType;
+        }
+
+        @Override
+        public void evict(Set<String> keys) {
+            for (String key : keys) {
+                Object id = idType == Long.class ? Long.valueOf(key)
+                        : idType == Integer.class ? Integer.valueOf(key)
+                        : key;
+                sessionFactory.getCache().evictEntityData(entityClass, id);
+            }
+        }
+
+        @Override
+        public void evictAll() {
+            sessionFactory.getCache().evictEntityData(entityClass);
+            logger.debug("Evicted {} from the second-level cache", entityClass.getSimpleName());
+        }
+    }
+}
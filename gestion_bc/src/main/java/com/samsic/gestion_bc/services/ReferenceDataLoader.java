@@ -0,0 +1,287 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.dto.responses.ReferenceLoadResponse;
+import com.samsic.gestion_bc.models.Famille;
+import com.samsic.gestion_bc.models.ServiceQ;
+import com.samsic.gestion_bc.models.Site;
+import com.samsic.gestion_bc.models.Zone;
+import com.samsic.gestion_bc.repositories.FamilleRepository;
+import com.samsic.gestion_bc.repositories.ZoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// Upserts the services catalogue and the site list from CSV/XLSX files.
+// Rows are streamed in chunks; each chunk costs one SELECT to classify rows as new / changed / unchanged
+// and one batched INSERT ... ON DUPLICATE KEY UPDATE (keyed on services.ref_auxigene / site.codesite)
+// that only carries the new and changed rows. Columns missing from the file and blank cells leave the stored
+// value untouched; a new row lacking a required column (prix of a service) is rejected.
+// These writes bypass Hibernate, so each committed chunk evicts the table from the second-level cache
+// and, for sites, reindexes the written rows for /api/search.
+@Service
+public class ReferenceDataLoader {
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataLoader.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FamilleRepository familleRepository;
+    private final ZoneRepository zoneRepository;
+    private final ReferenceCacheService referenceCacheService;
+    private final SearchIndexer searchIndexer;
+    private final int chunkSize;
+
+    public ReferenceDataLoader(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            FamilleRepository familleRepository,
+            ZoneRepository zoneRepository,
+            ReferenceCacheService referenceCacheService,
+            SearchIndexer searchIndexer,
+            @Value("${reference-loader.chunk-size:2000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.familleRepository = familleRepository;
+        this.zoneRepository = zoneRepository;
+        this.referenceCacheService = referenceCacheService;
+        this.searchIndexer = searchIndexer;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public ReferenceLoadResponse loadServices(Path file, String fileName) throws IOException {
+        Map<String, Long> familles = new HashMap<>();
+        for (Famille famille : familleRepository.findAll()) {
+            familles.put(famille.getName().trim().toLowerCase(Locale.ROOT), famille.getId());
+        }
+        // Unknown familles are created on the fly, the catalogue is the source of truth for them
+        Function<String, Object> familleResolver = name -> familles.computeIfAbsent(name.toLowerCase(Locale.ROOT),
+                key -> familleRepository.save(Famille.builder().name(name).build()).getId());
+
+        TableSpec spec = new TableSpec(ServiceQ.class, "services", "refauxigene", "ref_auxigene", List.of(
+                new ColumnSpec("description", "description", ColumnSpec::text),
+                new ColumnSpec("famille", "famille_id", familleResolver),
+                new ColumnSpec("unite", "unite", ColumnSpec::text),
+                new ColumnSpec("type", "type", ColumnSpec::text),
+                new ColumnSpec("prix", "prix", ColumnSpec::decimal, true),
+                new ColumnSpec("remarque", "remarque", ColumnSpec::text),
+                new ColumnSpec("modeletechnique", "modele_technique", ColumnSpec::text),
+                new ColumnSpec("typemateriel", "type_materiel", ColumnSpec::text),
+                new ColumnSpec("specification", "specification", ColumnSpec::text),
+                new ColumnSpec("familletechnique", "famille_technique", ColumnSpec::text)));
+        return load(spec, file, fileName);
+    }
+
+    public ReferenceLoadResponse loadSites(Path file, String fileName) throws IOException {
+        Map<String, Integer> zones = new HashMap<>();
+        for (Zone zone : zoneRepository.findAll()) {
+            zones.put(String.valueOf(zone.getId()), zone.getId());
+            if (zone.getNom() != null) {
+                zones.putIfAbsent(zone.getNom().trim().toLowerCase(Locale.ROOT), zone.getId());
+            }
+        }
+        Function<String, Object> zoneResolver = value -> {
+            Integer zoneId = zones.get(value.toLowerCase(Locale.ROOT));
+            if (zoneId == null) throw new IllegalArgumentException("Unknown zone: " + value);
+            return zoneId;
+        };
+
+        TableSpec spec = new TableSpec(Site.class, "site", "codesite", "codesite", List.of(
+                new ColumnSpec("zone", "zone_id", zoneResolver),
+                new ColumnSpec("region", "region", ColumnSpec::text)));
+        return load(spec, file, fileName);
+    }
+
+    private ReferenceLoadResponse load(TableSpec spec, Path file, String fileName) throws IOException {
+        long start = System.currentTimeMillis();
+        ReferenceLoadResponse result = new ReferenceLoadResponse();
+        result.setTable(spec.table);
+        logger.info("Loading {} from {}", spec.table, fileName);
+
+        Map<String, ChunkRow> chunk = new LinkedHashMap<>();
+        AtomicReference<List<ColumnSpec>> activeColumns = new AtomicReference<>();
+        SpreadsheetRowReader.read(file, fileName, (rowNumber, row) -> {
+            result.setRowsRead(result.getRowsRead() + 1);
+            if (activeColumns.get() == null) {
+                if (!row.containsKey(spec.keyHeader)) {
+                    throw new IllegalArgumentException("Missing key column: " + spec.keyHeader);
+                }
+                activeColumns.set(spec.columns.stream().filter(c -> row.containsKey(c.header)).toList());
+            }
+            List<ColumnSpec> columns = activeColumns.get();
+            String key = ColumnSpec.text(row.get(spec.keyHeader));
+            if (key == null) {
+                reject(result, rowNumber, null, spec.keyHeader + " is required");
+                return;
+            }
+            try {
+                Object[] values = new Object[columns.size() + 1];
+                values[0] = key;
+                for (int i = 0; i < columns.size(); i++) {
+                    ColumnSpec column = columns.get(i);
+                    String raw = ColumnSpec.text(row.get(column.header));
+                    values[i + 1] = raw != null ? column.parser.apply(raw) : null;
+                }
+                // Duplicate keys inside a chunk (as the unique index compares them): the last line wins
+                String indexKey = indexKey(key);
+                chunk.remove(indexKey);
+                chunk.put(indexKey, new ChunkRow(rowNumber, values));
+            } catch (IllegalArgumentException e) {
+                reject(result, rowNumber, key, e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                flush(spec, columns, chunk, result);
+            }
+        });
+        if (!chunk.isEmpty()) {
+            flush(spec, activeColumns.get(), chunk, result);
+        }
+
+        result.setDurationMs(System.currentTimeMillis() - start);
+        logger.info("Loaded {}: {} read, {} inserted, {} updated, {} unchanged, {} rejected in {} ms",
+                spec.table, result.getRowsRead(), result.getInserted(), result.getUpdated(),
+                result.getUnchanged(), result.getRejected(), result.getDurationMs());
+        return result;
+    }
+
+    // chunk is keyed by indexKey, values[0] holds the key as written in the file and null stands for a blank cell
+    private void flush(TableSpec spec, List<ColumnSpec> columns, Map<String, ChunkRow> chunk, ReferenceLoadResponse result) {
+        List<String> keys = chunk.values().stream().map(row -> (String) row.values()[0]).toList();
+        String columnList = spec.keyColumn + columns.stream().map(c -> ", " + c.column).reduce("", String::concat);
+
+        Map<String, Object[]> existing = new HashMap<>();
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        jdbcTemplate.query("SELECT " + columnList + " FROM " + spec.table + " WHERE " + spec.keyColumn + " IN (" + placeholders + ")",
+                rs -> {
+                    Object[] values = new Object[columns.size() + 1];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    existing.put(indexKey((String) values[0]), values);
+                }, keys.toArray());
+
+        List<Object[]> writes = new ArrayList<>();
+        // Keys as stored: ON DUPLICATE KEY UPDATE keeps the spelling of the existing row
+        List<String> writtenKeys = new ArrayList<>();
+        int inserted = 0;
+        int updated = 0;
+        for (Map.Entry<String, ChunkRow> entry : chunk.entrySet()) {
+            Object[] current = existing.get(entry.getKey());
+            Object[] values = entry.getValue().values();
+            if (current == null) {
+                String missing = missingRequired(spec, columns, values);
+                if (missing != null) {
+                    reject(result, entry.getValue().row(), (String) values[0], missing + " is required for a new row");
+                    continue;
+                }
+                inserted++;
+                writes.add(values);
+                writtenKeys.add((String) values[0]);
+            } else if (!sameValues(current, values)) {
+                updated++;
+                // Blank cells write the stored value back (a NULL would fail NOT NULL columns before the key lookup)
+                for (int i = 1; i < values.length; i++) {
+                    if (values[i] == null) {
+                        values[i] = current[i];
+                    }
+                }
+                writes.add(values);
+                writtenKeys.add((String) current[0]);
+            } else {
+                result.setUnchanged(result.getUnchanged() + 1);
+            }
+        }
+
+        if (!writes.isEmpty()) {
+            String assignments = String.join(", ", columns.stream().map(c -> c.column + " = VALUES(" + c.column + ")").toList());
+            String sql = "INSERT INTO " + spec.table + " (" + columnList + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns.size() + 1, "?")) + ")"
+                    + (assignments.isEmpty() ? " ON DUPLICATE KEY UPDATE " + spec.keyColumn + " = " + spec.keyColumn
+                                             : " ON DUPLICATE KEY UPDATE " + assignments);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, writes));
+            referenceCacheService.evict(spec.entity);
+            if (spec.entity == Site.class) {
+                searchIndexer.markSitesDirty(writtenKeys);
+            }
+        }
+        result.setInserted(result.getInserted() + inserted);
+        result.setUpdated(result.getUpdated() + updated);
+        chunk.clear();
+    }
+
+    // ref_auxigene and codesite have the default utf8mb4_0900_ai_ci collation: their unique keys ignore case and accents
+    private static String indexKey(String key) {
+        return Normalizer.normalize(key, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String missingRequired(TableSpec spec, List<ColumnSpec> columns, Object[] values) {
+        for (ColumnSpec column : spec.columns) {
+            int index = columns.indexOf(column);
+            if (column.required && (index < 0 || values[index + 1] == null)) {
+                return column.header;
+            }
+        }
+        return null;
+    }
+
+    // A blank cell (null) keeps the stored value, so it is no change
+    private static boolean sameValues(Object[] current, Object[] incoming) {
+        for (int i = 1; i < current.length; i++) {
+            Object a = current[i];
+            Object b = incoming[i];
+            if (b == null) {
+                continue;
+            }
+            if (a instanceof Number na && b instanceof Number nb) {
+                if (Double.compare(na.doubleValue(), nb.doubleValue()) != 0) return false;
+            } else if (!Objects.equals(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reject(ReferenceLoadResponse result, int row, String key, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportJobResponse.RowError(row, key, message));
+        }
+    }
+
+    private record TableSpec(Class<?> entity, String table, String keyHeader, String keyColumn, List<ColumnSpec> columns) {
+    }
+
+    private record ChunkRow(int row, Object[] values) {
+    }
+
+    // required: a new row must have a value for the column, the table has no default for it
+    private record ColumnSpec(String header, String column, Function<String, Object> parser, boolean required) {
+
+        ColumnSpec(String header, String column, Function<String, Object> parser) {
+            this(header, column, parser, false);
+        }
+
+        static String text(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+
+        static Object decimal(String value) {
+            try {
+                return Double.valueOf(value.replace(" ", "").replace(',', '.'));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.SearchResponse;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.*;
+
+// Embedded Lucene index on local disk behind /api/search, one document per BC, OT and site.
+// Writes go to the IndexWriter right away and become searchable at the next refresh (refresh-interval-ms); the index
+// is committed every commit-interval-ms with the database time it is in sync with (see SearchIndexer.catchUp).
+// Text is folded to lowercase ASCII so "réception" matches "reception".
+@Service
+public class SearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+    public static final String BC = "bc";
+    public static final String OT = "ot";
+    public static final String SITE = "site";
+
+    // Scope value of the documents every role can see
+    public static final String SCOPE_ALL = "all";
+    private static final String SYNCED_AT = "syncedAt";
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String TITLE = "title";
+    private static final String SUBTITLE = "subtitle";
+    private static final String TEXT = "text";
+    private static final String IDS = "ids";
+    private static final String SCOPE = "scope";
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private volatile String pendingSyncedAt;
+    private volatile boolean rebuilding;
+
+    public SearchIndex(@Value("${search.index-dir:./data/search-index}") String indexDir) throws IOException {
+        this.directory = FSDirectory.open(Path.of(indexDir));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(64));
+        this.searcherManager = new SearcherManager(writer, null);
+        logger.info("Search index opened at {} ({} documents)", indexDir, writer.getDocStats().numDocs);
+    }
+
+    public record Entry(String type, String id, String title, String subtitle,
+                        List<String> text, List<String> identifiers, List<String> scopes) {
+    }
+
+    public static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    public void upsert(Entry entry) {
+        Document doc = new Document();
+        doc.add(new StringField(KEY, key(entry.type(), entry.id()), Field.Store.YES));
+        doc.add(new StringField(TYPE, entry.type(), Field.Store.YES));
+        if (entry.title() != null) {
+            doc.add(new StoredField(TITLE, entry.title()));
+        }
+        if (entry.subtitle() != null) {
+            doc.add(new StoredField(SUBTITLE, entry.subtitle()));
+        }
+        for (String text : entry.text()) {
+            if (text != null && !text.isBlank()) {
+                doc.add(new TextField(TEXT, text, Field.Store.NO));
+            }
+        }
+        for (String identifier : entry.identifiers()) {
+            if (identifier != null && !identifier.isBlank()) {
+                doc.add(new StringField(IDS, normalize(identifier), Field.Store.NO));
+            }
+        }
+        for (String scope : entry.scopes()) {
+            doc.add(new StringField(SCOPE, scope, Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(KEY, key(entry.type(), entry.id())), doc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(String key) {
+        try {
+            writer.deleteDocuments(new Term(KEY, key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Empties the index for a full reload. The sync time is cleared first, so that whatever gets committed before
+    // endRebuild (the writer commits on close) is seen as a new index at the next start and rebuilt again.
+    // Searches keep the documents of before until endRebuild.
+    public synchronized void beginRebuild() {
+        rebuilding = true;
+        pendingSyncedAt = null;
+        try {
+            writer.setLiveCommitData(Map.<String, String>of().entrySet());
+            writer.deleteAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // databaseTime null when the rebuild failed: the index stays without sync time
+    public void endRebuild(String databaseTime) {
+        synchronized (this) {
+            rebuilding = false;
+            pendingSyncedAt = databaseTime;
+        }
+        commit();
+        refresh();
+    }
+
+    public int size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    // Database time of the last sync committed to disk, null for a new index
+    public String syncedAt() {
+        Map<String, String> data = new HashMap<>();
+        writer.getLiveCommitData().forEach(e -> data.put(e.getKey(), e.getValue()));
+        return data.get(SYNCED_AT);
+    }
+
+    // Stored with the next commit
+    public void markSynced(String databaseTime) {
+        pendingSyncedAt = databaseTime;
+    }
+
+    // Every term must match exactly, as a prefix or within 1-2 edits; a query that is a prefix of a whole
+    // identifier (numBc, numOt, codeProjet, codesite) matches it as well. Scopes are an OR filter, null = no filter.
+    public SearchResponse search(String q, Set<String> types, Collection<String> scopes, int limit) throws IOException {
+        long start = System.nanoTime();
+        SearchResponse response = new SearchResponse();
+        response.setQuery(q);
+
+        BooleanQuery.Builder terms = new BooleanQuery.Builder();
+        List<String> tokens = tokens(q);
+        for (String token : tokens) {
+            BooleanQuery.Builder alternatives = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(TEXT, token)), 4f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(TEXT, token)), 2f), BooleanClause.Occur.SHOULD);
+            int edits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+            if (edits > 0) {
+                alternatives.add(new FuzzyQuery(new Term(TEXT, token), edits, 1, 50, true), BooleanClause.Occur.SHOULD);
+            }
+            terms.add(alternatives.build(), BooleanClause.Occur.MUST);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().setMinimumNumberShouldMatch(1);
+        if (!tokens.isEmpty()) {
+            query.add(terms.build(), BooleanClause.Occur.SHOULD);
+        }
+        query.add(new BoostQuery(new PrefixQuery(new Term(IDS, normalize(q.trim()))), 8f), BooleanClause.Occur.SHOULD);
+        if (types != null && !types.isEmpty()) {
+            query.add(new TermInSetQuery(TYPE, types.stream().map(BytesRef::new).toList()), BooleanClause.Occur.FILTER);
+        }
+        if (scopes != null) {
+            query.add(new TermInSetQuery(SCOPE, scopes.stream().map(BytesRef::new).toList()), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query.build(), limit);
+            response.setTotal(top.totalHits.value);
+            StoredFields stored = searcher.storedFields();
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document doc = stored.document(scoreDoc.doc);
+                String key = doc.get(KEY);
+                response.getHits().add(new SearchResponse.Hit(doc.get(TYPE), key.substring(key.indexOf(':') + 1),
+                        doc.get(TITLE), doc.get(SUBTITLE), scoreDoc.score));
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        response.setTookMs((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    // Waits for a refresh already running on another thread rather than skipping: a write made before the call is
+    // searchable once it returns
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (rebuilding) {
+            return;
+        }
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            logger.error("Search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public synchronized void commit() {
+        if (rebuilding) {
+            return;
+        }
+        try {
+            String syncedAt = pendingSyncedAt;
+            if (!writer.hasUncommittedChanges() && (syncedAt == null || syncedAt.equals(syncedAt()))) {
+                return;
+            }
+            if (syncedAt != null) {
+                writer.setLiveCommitData(Map.of(SYNCED_AT, syncedAt).entrySet());
+            }
+            writer.commit();
+            logger.debug("Search index committed ({} documents, synced at {})", size(), syncedAt);
+        } catch (IOException e) {
+            logger.error("Search index commit failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(TEXT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    private static String normalize(String identifier) {
+        return Normalizer.normalize(identifier, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class FoldingAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.models.*;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// JPA listener on the searchable entities and their lines: tells SearchIndexer which document changed
+@Component
+public class SearchIndexListener {
+    private final ObjectProvider<SearchIndexer> indexer;
+
+    public SearchIndexListener(ObjectProvider<SearchIndexer> indexer) {
+        this.indexer = indexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        SearchIndexer searchIndexer = indexer.getIfAvailable();
+        if (searchIndexer == null) {
+            return;
+        }
+        if (entity instanceof BonDeCommande bc) {
+            searchIndexer.markDirty(SearchIndex.BC, bc.getNumBc());
+        } else if (entity instanceof Prestation prestation && prestation.getBonDeCommande() != null) {
+            searchIndexer.markDirty(SearchIndex.BC, prestation.getBonDeCommande().getNumBc());
+        } else if (entity instanceof SuiviPrestation suivi && suivi.getPrestation() != null
+                && suivi.getPrestation().getBonDeCommande() != null) {
+            searchIndexer.markDirty(SearchIndex.BC, suivi.getPrestation().getBonDeCommande().getNumBc());
+        } else if (entity instanceof Ot ot) {
+            searchIndexer.markDirty(SearchIndex.OT, ot.getNumOt());
+        } else if (entity instanceof OtPrestation otPrestation && otPrestation.getOt() != null) {
+            searchIndexer.markDirty(SearchIndex.OT, otPrestation.getOt().getNumOt());
+        } else if (entity instanceof Site site) {
+            searchIndexer.markDirty(SearchIndex.SITE, site.getId());
+        }
+    }
+}
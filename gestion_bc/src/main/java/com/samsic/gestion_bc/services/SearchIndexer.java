@@ -0,0 +1,403 @@
+package com.samsic.gestion_bc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Keeps SearchIndex in sync with the database.
+// Writes on BCs, prestations, suivis, OTs, OT lines and sites mark their document dirty (SearchIndexListener, set-based
+// deletes and the reference loader call markDirty directly); the dirty keys are published on the invalidation bus
+// after commit and every node reloads those documents from the database. At startup the index catches up with what
+// changed while the node was down (updated_at columns and sync_tombstones), or is rebuilt when it is new or older
+// than the tombstone retention.
+@Service
+public class SearchIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexer.class);
+    private static final String DIRTY_KEY = SearchIndexer.class.getName() + ".dirty";
+    public static final String CACHE_NAME = "search";
+
+    private static final String BC_SQL =
+            "SELECT num_bc, code_projet, division_projet, description, num_projet_facturation, back_office_id " +
+            "FROM bon_de_commande WHERE num_bc IN (%s)";
+    private static final String BC_LINES_SQL =
+            "SELECT bc.num_bc, p.description, p.fournisseur, f.name, p.code_site FROM prestations p " +
+            "JOIN bon_de_commande bc ON bc.id = p.bc_id LEFT JOIN familles f ON f.id = p.famille_id " +
+            "WHERE bc.num_bc IN (%s)";
+    private static final String BC_SUIVIS_SQL =
+            "SELECT DISTINCT bc.num_bc, s.coordinateur_id, st.codesite FROM suivi_prestation s " +
+            "JOIN prestations p ON p.id = s.prestation_id JOIN bon_de_commande bc ON bc.id = p.bc_id " +
+            "LEFT JOIN site st ON st.id = s.codesite_id WHERE bc.num_bc IN (%s)";
+    private static final String OT_SQL =
+            "SELECT o.num_ot, o.code_projet, o.division_projet, o.zone_id, z.nom, st.codesite, o.back_office_id " +
+            "FROM ot o LEFT JOIN zones z ON z.id = o.zone_id LEFT JOIN site st ON st.id = o.codesite_id " +
+            "WHERE o.num_ot IN (%s)";
+    private static final String OT_LINES_SQL =
+            "SELECT op.ot_num_ot, op.fournisseur, op.famille, op.coordinateur_id, sv.description " +
+            "FROM ot_prestation op LEFT JOIN services sv ON sv.id = op.service_id WHERE op.ot_num_ot IN (%s)";
+    private static final String SITE_SQL =
+            "SELECT st.id, st.codesite, st.region, z.nom FROM site st LEFT JOIN zones z ON z.id = st.zone_id " +
+            "WHERE st.id IN (%s)";
+
+    private static final String CHANGED_BCS_SQL =
+            "SELECT num_bc FROM bon_de_commande WHERE updated_at > ? " +
+            "UNION SELECT bc.num_bc FROM prestations p JOIN bon_de_commande bc ON bc.id = p.bc_id WHERE p.updated_at > ? " +
+            "UNION SELECT bc.num_bc FROM suivi_prestation s JOIN prestations p ON p.id = s.prestation_id " +
+            "JOIN bon_de_commande bc ON bc.id = p.bc_id WHERE s.updated_at > ? " +
+            "UNION SELECT entity_id FROM sync_tombstones WHERE entity_type = 'BON_DE_COMMANDE' AND deleted_at > ? " +
+            "UNION SELECT parent_id FROM sync_tombstones WHERE entity_type = 'PRESTATION' AND deleted_at > ? AND parent_id IS NOT NULL";
+    private static final String CHANGED_OTS_SQL =
+            "SELECT num_ot FROM ot WHERE updated_at > ? " +
+            "UNION SELECT ot_num_ot FROM ot_prestation WHERE updated_at > ? " +
+            "UNION SELECT entity_id FROM sync_tombstones WHERE entity_type = 'OT' AND deleted_at > ? " +
+            "UNION SELECT parent_id FROM sync_tombstones WHERE entity_type = 'OT_PRESTATION' AND deleted_at > ? AND parent_id IS NOT NULL";
+
+    private final SearchIndex index;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final int chunkSize;
+    private final long catchUpOverlapMs;
+    private final int tombstoneRetentionDays;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public SearchIndexer(
+            SearchIndex index,
+            JdbcTemplate jdbcTemplate,
+            CacheInvalidationBus invalidationBus,
+            @Value("${search.chunk-size:500}") int chunkSize,
+            @Value("${search.catch-up-overlap-ms:120000}") long catchUpOverlapMs,
+            @Value("${sync.tombstone-retention-days:30}") int tombstoneRetentionDays) {
+        this.index = index;
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.catchUpOverlapMs = catchUpOverlapMs;
+        this.tombstoneRetentionDays = tombstoneRetentionDays;
+        invalidationBus.register(CACHE_NAME, new CacheInvalidationBus.Listener() {
+            @Override
+            public void evict(Set<String> keys) {
+                reindex(keys);
+            }
+
+            @Override
+            public void evictAll() {
+                rebuildAsync();
+            }
+        });
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    // Called from the entity listener and the JDBC writers; published after commit, or right away outside a transaction
+    public void markDirty(String type, Object id) {
+        if (id == null) {
+            return;
+        }
+        String key = SearchIndex.key(type, String.valueOf(id));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(Set.of(key));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> dirty = (Set<String>) TransactionSynchronizationManager.getResource(DIRTY_KEY);
+        if (dirty == null) {
+            Set<String> newDirty = new HashSet<>();
+            dirty = newDirty;
+            TransactionSynchronizationManager.bindResource(DIRTY_KEY, newDirty);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DIRTY_KEY);
+                    if (status == STATUS_COMMITTED) {
+                        publish(newDirty);
+                    }
+                }
+            });
+        }
+        dirty.add(key);
+    }
+
+    // The reference loader upserts sites by code
+    public void markSitesDirty(Collection<String> codesites) {
+        if (codesites.isEmpty()) {
+            return;
+        }
+        List<Object> ids = jdbcTemplate.queryForList("SELECT id FROM site WHERE codesite IN (" + placeholders(codesites.size()) + ")",
+                Object.class, codesites.toArray());
+        Set<String> keys = new HashSet<>();
+        ids.forEach(id -> keys.add(SearchIndex.key(SearchIndex.SITE, String.valueOf(id))));
+        publish(keys);
+    }
+
+    private void publish(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            invalidationBus.publish(CACHE_NAME, keys);
+        } catch (Exception e) {
+            // The search index is a convenience; never fail the write that triggered it
+            logger.error("Failed to publish search invalidation for {} documents: {}", keys.size(), e.getMessage());
+            reindex(keys);
+        }
+    }
+
+    // Reloads the given documents; a key whose row no longer exists is removed from the index
+    public void reindex(Collection<String> keys) {
+        Map<String, List<String>> idsByType = new HashMap<>();
+        for (String key : keys) {
+            int colon = key.indexOf(':');
+            if (colon > 0) {
+                idsByType.computeIfAbsent(key.substring(0, colon), k -> new ArrayList<>()).add(key.substring(colon + 1));
+            }
+        }
+        try {
+            idsByType.forEach((type, ids) -> {
+                for (int i = 0; i < ids.size(); i += chunkSize) {
+                    List<String> chunk = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+                    Set<String> found = switch (type) {
+                        case SearchIndex.BC -> indexBcs(chunk);
+                        case SearchIndex.OT -> indexOts(chunk);
+                        case SearchIndex.SITE -> indexSites(chunk);
+                        default -> Set.copyOf(chunk);
+                    };
+                    chunk.stream().filter(id -> !found.contains(id)).forEach(id -> index.delete(SearchIndex.key(type, id)));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to reindex {} search documents: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpAsync() {
+        CompletableFuture.runAsync(this::catchUp).exceptionally(e -> {
+            logger.error("Search index catch-up failed: {}", e.getMessage(), e);
+            return null;
+        });
+    }
+
+    public void catchUp() {
+        String syncedAt = index.syncedAt();
+        LocalDateTime now = databaseTime();
+        LocalDateTime since = syncedAt != null ? LocalDateTime.parse(syncedAt).minus(Duration.ofMillis(catchUpOverlapMs)) : null;
+        if (since == null || since.isBefore(now.minusDays(tombstoneRetentionDays))) {
+            rebuild();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<String> bcs = jdbcTemplate.queryForList(CHANGED_BCS_SQL, String.class, since, since, since, since, since);
+        List<String> ots = jdbcTemplate.queryForList(CHANGED_OTS_SQL, String.class, since, since, since, since);
+        List<String> keys = new ArrayList<>();
+        bcs.forEach(numBc -> keys.add(SearchIndex.key(SearchIndex.BC, numBc)));
+        ots.forEach(numOt -> keys.add(SearchIndex.key(SearchIndex.OT, numOt)));
+        reindex(keys);
+        // Sites carry no updated_at; there are few enough of them to reload them all
+        forEachId("SELECT id FROM site WHERE id > ? ORDER BY id LIMIT " + chunkSize, Integer.class, 0,
+                ids -> indexSites(ids.stream().map(String::valueOf).toList()));
+        index.markSynced(now.toString());
+        index.commit();
+        logger.info("Search index caught up since {}: {} BCs and {} OTs reindexed in {} ms",
+                since, bcs.size(), ots.size(), System.currentTimeMillis() - start);
+    }
+
+    public void rebuildAsync() {
+        CompletableFuture.runAsync(this::rebuild).exceptionally(e -> {
+            logger.error("Search index rebuild failed: {}", e.getMessage(), e);
+            return null;
+        });
+    }
+
+    // Full reload; concurrent invalidations keep being applied by key while it runs and show once it is done
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            logger.info("Search index rebuild already running");
+            return;
+        }
+        String syncedAt = null;
+        try {
+            long start = System.currentTimeMillis();
+            LocalDateTime now = databaseTime();
+            index.beginRebuild();
+            int[] counts = new int[3];
+            forEachId("SELECT num_bc FROM bon_de_commande WHERE num_bc > ? ORDER BY num_bc LIMIT " + chunkSize, String.class, "",
+                    ids -> counts[0] += indexBcs(ids).size());
+            forEachId("SELECT num_ot FROM ot WHERE num_ot > ? ORDER BY num_ot LIMIT " + chunkSize, String.class, "",
+                    ids -> counts[1] += indexOts(ids).size());
+            forEachId("SELECT id FROM site WHERE id > ? ORDER BY id LIMIT " + chunkSize, Integer.class, 0,
+                    ids -> counts[2] += indexSites(ids.stream().map(String::valueOf).toList()).size());
+            syncedAt = now.toString();
+            logger.info("Search index rebuilt: {} BCs, {} OTs, {} sites in {} ms",
+                    counts[0], counts[1], counts[2], System.currentTimeMillis() - start);
+        } finally {
+            index.endRebuild(syncedAt);
+            rebuilding.set(false);
+        }
+    }
+
+    private Set<String> indexBcs(List<String> numBcs) {
+        if (numBcs.isEmpty()) {
+            return Set.of();
+        }
+        Object[] args = numBcs.toArray();
+        String in = placeholders(numBcs.size());
+        Map<String, Document> docs = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(BC_SQL, in), rs -> {
+            String numBc = rs.getString(1);
+            Document doc = new Document(SearchIndex.BC, numBc);
+            doc.title = numBc;
+            doc.subtitle = join(rs.getString(2), rs.getString(4));
+            doc.text.addAll(Arrays.asList(numBc, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+            doc.identifiers.addAll(Arrays.asList(numBc, rs.getString(2)));
+            Object backOfficeId = rs.getObject(6);
+            if (backOfficeId != null) {
+                doc.scopes.add("bo:" + backOfficeId);
+            }
+            docs.put(numBc, doc);
+        }, args);
+        if (docs.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.query(String.format(BC_LINES_SQL, in), rs -> {
+            Document doc = docs.get(rs.getString(1));
+            if (doc != null) {
+                doc.text.addAll(Arrays.asList(rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)));
+                doc.identifiers.add(rs.getString(5));
+            }
+        }, args);
+        jdbcTemplate.query(String.format(BC_SUIVIS_SQL, in), rs -> {
+            Document doc = docs.get(rs.getString(1));
+            if (doc != null) {
+                Object coordinateurId = rs.getObject(2);
+                if (coordinateurId != null) {
+                    doc.scopes.add("coord:" + coordinateurId);
+                }
+                doc.text.add(rs.getString(3));
+                doc.identifiers.add(rs.getString(3));
+            }
+        }, args);
+        docs.values().forEach(doc -> index.upsert(doc.entry()));
+        return docs.keySet();
+    }
+
+    private Set<String> indexOts(List<String> numOts) {
+        if (numOts.isEmpty()) {
+            return Set.of();
+        }
+        Object[] args = numOts.toArray();
+        String in = placeholders(numOts.size());
+        Map<String, Document> docs = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(OT_SQL, in), rs -> {
+            String numOt = rs.getString(1);
+            Document doc = new Document(SearchIndex.OT, numOt);
+            doc.title = numOt;
+            doc.subtitle = join(rs.getString(2), rs.getString(6));
+            doc.text.addAll(Arrays.asList(numOt, rs.getString(2), rs.getString(3), rs.getString(5), rs.getString(6)));
+            doc.identifiers.addAll(Arrays.asList(numOt, rs.getString(2), rs.getString(6)));
+            Object zoneId = rs.getObject(4);
+            if (zoneId != null) {
+                doc.scopes.add("zone:" + zoneId);
+            }
+            Object backOfficeId = rs.getObject(7);
+            if (backOfficeId != null) {
+                doc.scopes.add("bo:" + backOfficeId);
+            }
+            docs.put(numOt, doc);
+        }, args);
+        if (docs.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.query(String.format(OT_LINES_SQL, in), rs -> {
+            Document doc = docs.get(rs.getString(1));
+            if (doc != null) {
+                doc.text.addAll(Arrays.asList(rs.getString(2), rs.getString(3), rs.getString(5)));
+                Object coordinateurId = rs.getObject(4);
+                if (coordinateurId != null) {
+                    doc.scopes.add("coord:" + coordinateurId);
+                }
+            }
+        }, args);
+        docs.values().forEach(doc -> index.upsert(doc.entry()));
+        return docs.keySet();
+    }
+
+    private Set<String> indexSites(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> found = new HashSet<>();
+        jdbcTemplate.query(String.format(SITE_SQL, placeholders(ids.size())), rs -> {
+            String id = rs.getString(1);
+            Document doc = new Document(SearchIndex.SITE, id);
+            doc.title = rs.getString(2) != null ? rs.getString(2) : id;
+            doc.subtitle = join(rs.getString(3), rs.getString(4));
+            doc.text.addAll(Arrays.asList(rs.getString(2), rs.getString(3), rs.getString(4)));
+            doc.identifiers.add(rs.getString(2));
+            doc.scopes.add(SearchIndex.SCOPE_ALL);
+            index.upsert(doc.entry());
+            found.add(id);
+        }, ids.toArray());
+        return found;
+    }
+
+    // Keyset pagination over a single key column
+    private <T> void forEachId(String sql, Class<T> type, T first, Consumer<List<T>> consumer) {
+        T last = first;
+        while (true) {
+            List<T> ids = jdbcTemplate.queryForList(sql, type, last);
+            if (ids.isEmpty()) {
+                return;
+            }
+            consumer.accept(ids);
+            last = ids.get(ids.size() - 1);
+        }
+    }
+
+    private LocalDateTime databaseTime() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(6)", LocalDateTime.class);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String join(String first, String second) {
+        if (first == null || first.isBlank()) return second;
+        if (second == null || second.isBlank()) return first;
+        return first + " - " + second;
+    }
+
+    private static final class Document {
+        private final String type;
+        private final String id;
+        private String title;
+        private String subtitle;
+        private final List<String> text = new ArrayList<>();
+        private final Set<String> identifiers = new LinkedHashSet<>();
+        private final Set<String> scopes = new LinkedHashSet<>();
+
+        Document(String type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        SearchIndex.Entry entry() {
+            return new SearchIndex.Entry(type, id, title, subtitle, text, identifiers.stream().filter(Objects::nonNull).toList(),
+                    List.copyOf(scopes));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.SearchResponse;
+import com.samsic.gestion_bc.models.BackOffice;
+import com.samsic.gestion_bc.models.Coordinateur;
+import com.samsic.gestion_bc.repositories.BackOfficeRepository;
+import com.samsic.gestion_bc.repositories.CoordinateurRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+
+// Search over the local index with the same visibility as the list screens:
+// a back office sees its BCs and OTs, a coordinator the BCs it has suivis on and the OTs of its zone or
+// prestations, the chef de projet everything. Sites are visible to every role.
+@Service
+public class SearchService {
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    private static final Set<String> TYPES = Set.of(SearchIndex.BC, SearchIndex.OT, SearchIndex.SITE);
+
+    private final SearchIndex searchIndex;
+    private final SearchIndexer searchIndexer;
+    private final BackOfficeRepository backOfficeRepository;
+    private final CoordinateurRepository coordinateurRepository;
+
+    public SearchService(SearchIndex searchIndex, SearchIndexer searchIndexer,
+                         BackOfficeRepository backOfficeRepository, CoordinateurRepository coordinateurRepository) {
+        this.searchIndex = searchIndex;
+        this.searchIndexer = searchIndexer;
+        this.backOfficeRepository = backOfficeRepository;
+        this.coordinateurRepository = coordinateurRepository;
+    }
+
+    public SearchResponse search(String q, List<String> types, Integer limit, String email, String role) throws IOException {
+        if (q == null || q.trim().length() < 2) {
+            throw new IllegalArgumentException("Query must be at least 2 characters");
+        }
+        Set<String> typeFilter = new HashSet<>();
+        if (types != null) {
+            for (String type : types) {
+                String normalized = type.trim().toLowerCase(Locale.ROOT);
+                if (!TYPES.contains(normalized)) {
+                    throw new IllegalArgumentException("Unknown search type: " + type);
+                }
+                typeFilter.add(normalized);
+            }
+        }
+        int size = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+
+        SearchResponse response = searchIndex.search(q.trim(), typeFilter, scopes(email, role), size);
+        response.setComplete(!searchIndexer.isRebuilding());
+        return response;
+    }
+
+    // null = no filter
+    private List<String> scopes(String email, String role) {
+        switch (role) {
+            case "ROLE_CHEF_PROJET":
+                return null;
+            case "ROLE_BACK_OFFICE": {
+                BackOffice backOffice = backOfficeRepository.findByUserEmail(email)
+                        .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for user: " + email));
+                return List.of("bo:" + backOffice.getId(), SearchIndex.SCOPE_ALL);
+            }
+            case "ROLE_COORDINATEUR": {
+                Coordinateur coordinateur = coordinateurRepository.findByUserEmail(email)
+                        .orElseThrow(() -> new IllegalArgumentException("Coordinateur not found for user: " + email));
+                List<String> scopes = new ArrayList<>(List.of("coord:" + coordinateur.getId(), SearchIndex.SCOPE_ALL));
+                if (coordinateur.getZone() != null) {
+                    scopes.add("zone:" + coordinateur.getZone().getId());
+                }
+                return scopes;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported role: " + role);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.samsic.gestion_bc.services;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Streams the first sheet of an .xlsx file (SAX, never builds the workbook) or a .csv file row by row.
+// The first row is the header; each following row is handed over as normalized header -> cell value.
+public final class SpreadsheetRowReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void onRow(int rowNumber, Map<String, String> values);
+    }
+
+    private SpreadsheetRowReader() {
+    }
+
+    public static void read(Path path, String fileName, RowHandler handler) throws IOException {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".xlsx")) {
+            readXlsx(path, handler);
+        } else if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            readCsv(path, handler);
+        } else {
+            throw new IllegalArgumentException("Unsupported file type (expected .csv or .xlsx): " + fileName);
+        }
+    }
+
+    // "Num BC", "num_bc" and "numBc" all map to "numbc"
+    static String normalizeHeader(String header) {
+        if (header == null) return "";
+        StringBuilder sb = new StringBuilder(header.length());
+        for (char c : header.trim().toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static void readXlsx(Path path, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                DataFormatter formatter = new DataFormatter(Locale.ROOT);
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new SheetHandler(handler), formatter, false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to read xlsx file: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final List<String> headers = new ArrayList<>();
+        private final Map<Integer, String> cells = new HashMap<>();
+        private int currentRow;
+
+        private SheetHandler(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            currentRow = rowNum;
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (headers.isEmpty()) {
+                int max = cells.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+                for (int i = 0; i <= max; i++) {
+                    headers.add(normalizeHeader(cells.get(i)));
+                }
+                return;
+            }
+            if (cells.values().stream().allMatch(v -> v == null || v.isBlank())) {
+                return;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < headers.size(); i++) {
+                String value = cells.get(i);
+                values.put(headers.get(i), value != null ? value.trim() : null);
+            }
+            // Excel rows are 0-based, report them the way users see them
+            handler.onRow(currentRow + 1, values);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            cells.put(column, formattedValue);
+        }
+    }
+
+    private static void readCsv(Path path, RowHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            List<String> headerCells = tokenizer.next();
+            if (headerCells == null) {
+                return;
+            }
+            List<String> headers = headerCells.stream().map(SpreadsheetRowReader::normalizeHeader).toList();
+            List<String> row;
+            while ((row = tokenizer.next()) != null) {
+                if (row.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < headers.size(); i++) {
+                    values.put(headers.get(i), i < row.size() ? row.get(i).trim() : null);
+                }
+                handler.onRow(tokenizer.lineNumber(), values);
+            }
+        }
+    }
+
+    // RFC 4180 style tokenizer; the separator (';' from French Excel exports, or ',') is taken from the header line
+    private static final class CsvTokenizer {
+        private final Reader reader;
+        private char separator;
+        private int line;
+        private int rowStartLine;
+        private int pending = -2;
+
+        private CsvTokenizer(Reader reader) {
+            this.reader = reader;
+        }
+
+        int lineNumber() {
+            return rowStartLine;
+        }
+
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            rowStartLine = ++line;
+            List<String> cells = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        int peek = read();
+                        if (peek == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            pending = peek;
+                        }
+                    } else {
+                        if (ch == '\n') line++;
+                        cell.append(ch);
+                    }
+                } else if (ch == '"' && cell.length() == 0) {
+                    quoted = true;
+                } else if (ch == '\r') {
+                    // swallowed, '\n' ends the row
+                } else if (ch == '\n') {
+                    break;
+                } else if (separator == 0 && (ch == ';' || ch == ',')) {
+                    separator = ch;
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else if (ch == separator) {
+                    cells.add(cell.toString());
+                    cell.setLength(0);
+                } else {
+                    cell.append(ch);
+                }
+                c = read();
+            }
+            cells.add(cell.toString());
+            return cells;
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import com.samsic.gestion_bc.dto.responses.AutosaveResponse;
+import com.samsic.gestion_bc.models.SuiviPrestation;
+import com.samsic.gestion_bc.models.SuiviPrestationPendingEdit;
+import com.samsic.gestion_bc.repositories.SuiviPrestationPendingEditRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Opt-in write coalescing for spreadsheet autosave.
+// Each edit is a JSON Merge Patch: it is validated, stored in suivi_prestation_pending_edits (so a crash loses
+// nothing) and merged in memory with the other edits of the same row. Once a row has been quiet for the window,
+// or its first edit is older than the max delay, all buffered rows are written in one transaction that also
+// deletes their pending edits. Reads through overlay() see the buffered values before they are written.
+// Stored edits carry a lease of the node that buffers them, renewed while it runs: a node only takes over the edits
+// of a node that stopped renewing, and only flushes edits it still owns, so an edit is never written twice.
+// The version returned for an edit is the one the row has once the buffered edits are written (the ETag of
+// GET /{id} then); the row must not be written by anyone else in between, or the buffered edits are dropped.
+@Service
+public class SuiviAutosaveService {
+    private static final Logger logger = LoggerFactory.getLogger(SuiviAutosaveService.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SuiviPrestationService suiviPrestationService;
+    private final SuiviPrestationPendingEditRepository pendingEditRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowMs;
+    private final long maxDelayMs;
+    private final long leaseMs;
+    private final Map<Integer, PendingRow> buffer = new ConcurrentHashMap<>();
+    // Rows being written: the version they will have once the flush commits
+    private final Map<Integer, Long> flushing = new ConcurrentHashMap<>();
+
+    public SuiviAutosaveService(
+            SuiviPrestationService suiviPrestationService,
+            SuiviPrestationPendingEditRepository pendingEditRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${suivi.autosave.window-ms:1500}") long windowMs,
+            @Value("${suivi.autosave.max-delay-ms:10000}") long maxDelayMs,
+            @Value("${suivi.autosave.lease-ms:60000}") long leaseMs) {
+        this.suiviPrestationService = suiviPrestationService;
+        this.pendingEditRepository = pendingEditRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowMs = windowMs;
+        this.maxDelayMs = maxDelayMs;
+        this.leaseMs = Math.max(1000, leaseMs);
+    }
+
+    // expectedVersion: the ETag of the row or the version of the previous autosave of it, null to skip the check
+    public AutosaveResponse enqueue(Integer suiviPrestationId, JsonNode patch, String userEmail, Long expectedVersion) {
+        suiviPrestationService.validatePatch(patch);
+        long version = suiviPrestationService.getVersion(suiviPrestationId);
+        if (expectedVersion != null && !acceptsVersion(suiviPrestationId, version, expectedVersion)) {
+            throw new ObjectOptimisticLockingFailureException(SuiviPrestation.class, suiviPrestationId);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SuiviPrestationPendingEdit edit = pendingEditRepository.save(SuiviPrestationPendingEdit.builder()
+                .suiviPrestationId(suiviPrestationId)
+                .patch(patch.toString())
+                .userEmail(userEmail)
+                .createdAt(now)
+                .ownerNode(nodeId)
+                .leaseUntil(now.plusNanos(leaseMs * 1_000_000))
+                .build());
+
+        PendingRow row = buffer.compute(suiviPrestationId, (id, current) ->
+                (current != null ? current : new PendingRow(Math.max(version, flushing.getOrDefault(id, version))))
+                        .merge((ObjectNode) patch, edit.getId()));
+        logger.debug("Buffered edit {} for SuiviPrestation {} ({} pending)", edit.getId(), suiviPrestationId, row.editIds().size());
+        return new AutosaveResponse(suiviPrestationId, row.baseVersion + 1, row.editIds().size(), edit.getCreatedAt());
+    }
+
+    // The row as the client last saw it, or as the client's previous autosave announced it
+    private boolean acceptsVersion(Integer id, long version, long expectedVersion) {
+        if (expectedVersion == version) {
+            return true;
+        }
+        PendingRow row = buffer.get(id);
+        Long flushed = flushing.get(id);
+        return (row != null && expectedVersion == row.baseVersion + 1) || (flushed != null && expectedVersion == flushed);
+    }
+
+    // Read-your-writes: applies the buffered, not yet written values on top of a row read from the database
+    public SuiviPrestationResponse overlay(SuiviPrestationResponse response) {
+        PendingRow row = response != null ? buffer.get(response.getId()) : null;
+        if (row == null) {
+            return response;
+        }
+        try {
+            return objectMapper.readerForUpdating(response).readValue(row.snapshot());
+        } catch (Exception e) {
+            logger.warn("Could not overlay pending edits on SuiviPrestation {}: {}", response.getId(), e.getMessage());
+            return response;
+        }
+    }
+
+    // A new list: the one given may be unmodifiable (Page.getContent())
+    public List<SuiviPrestationResponse> overlay(List<SuiviPrestationResponse> responses) {
+        if (buffer.isEmpty()) {
+            return responses;
+        }
+        return responses.stream().map(this::overlay).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${suivi.autosave.flush-interval-ms:500}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        Map<Integer, PendingRow> due = new HashMap<>();
+        for (Map.Entry<Integer, PendingRow> entry : buffer.entrySet()) {
+            PendingRow row = entry.getValue();
+            if (now - row.lastEditAt >= windowMs || now - row.firstEditAt >= maxDelayMs) {
+                // Announced before the row leaves the buffer, so that an edit arriving meanwhile starts from it
+                flushing.put(entry.getKey(), row.baseVersion + 1);
+                if (buffer.remove(entry.getKey(), row)) {
+                    due.put(entry.getKey(), row);
+                } else {
+                    flushing.remove(entry.getKey(), row.baseVersion + 1);
+                }
+            }
+        }
+        if (!due.isEmpty()) {
+            flush(due);
+        }
+    }
+
+    private void flush(Map<Integer, PendingRow> rows) {
+        try {
+            Map<Integer, String> failures = transactionTemplate.execute(status -> {
+                // Edits taken over by another node (this one missed its lease) are written by that node
+                Set<Long> owned = new HashSet<>();
+                List<Long> editIds = new ArrayList<>();
+                rows.values().forEach(row -> editIds.addAll(row.editIds()));
+                pendingEditRepository.findOwnedForUpdate(editIds, nodeId).forEach(edit -> owned.add(edit.getId()));
+
+                Map<Integer, JsonNode> patches = new HashMap<>();
+                Map<Integer, Long> versions = new HashMap<>();
+                List<Long> applied = new ArrayList<>();
+                List<Long> released = new ArrayList<>();
+                rows.forEach((id, row) -> {
+                    List<Long> rowEditIds = row.editIds();
+                    if (owned.containsAll(rowEditIds)) {
+                        patches.put(id, row.snapshot());
+                        versions.put(id, row.baseVersion);
+                        applied.addAll(rowEditIds);
+                    } else {
+                        // The later edits of the row go to the node that has the earlier ones, after them
+                        logger.warn("Autosave edits of SuiviPrestation {} were taken over by another node", id);
+                        rowEditIds.stream().filter(owned::contains).forEach(released::add);
+                    }
+                });
+                Map<Integer, String> result = patches.isEmpty() ? new HashMap<>()
+                        : suiviPrestationService.applyPatches(patches, versions);
+                pendingEditRepository.deleteAllByIdInBatch(applied);
+                if (!released.isEmpty()) {
+                    pendingEditRepository.expireLeases(released, LocalDateTime.now().minusSeconds(1));
+                }
+                return result;
+            });
+            failures.forEach((id, reason) -> logger.warn("Dropped autosave edits for SuiviPrestation {}: {}", id, reason));
+            logger.info("Autosave flushed {} SuiviPrestations", rows.size() - failures.size());
+        } catch (Exception e) {
+            // Put the rows back in front of anything that arrived meanwhile, the next run retries them
+            logger.error("Autosave flush of {} SuiviPrestations failed, will retry: {}", rows.size(), e.getMessage());
+            rows.forEach((id, row) -> buffer.merge(id, row, (newer, older) -> older.mergeAll(newer)));
+        } finally {
+            rows.forEach((id, row) -> flushing.remove(id, row.baseVersion + 1));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suivi.autosave.lease-renew-ms:20000}")
+    public void renewLeases() {
+        transactionTemplate.executeWithoutResult(status ->
+                pendingEditRepository.renewLeases(nodeId, LocalDateTime.now().plusNanos(leaseMs * 1_000_000)));
+        takeOverExpired();
+    }
+
+    // At startup nothing is taken over before the lease of the previous run of this node has run out
+    @EventListener(ApplicationReadyEvent.class)
+    public void takeOverExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        List<SuiviPrestationPendingEdit> edits = transactionTemplate.execute(status -> {
+            List<SuiviPrestationPendingEdit> expired = pendingEditRepository.findExpiredForUpdate(now);
+            expired.forEach(edit -> {
+                edit.setOwnerNode(nodeId);
+                edit.setLeaseUntil(now.plusNanos(leaseMs * 1_000_000));
+            });
+            return expired;
+        });
+        if (edits == null || edits.isEmpty()) {
+            return;
+        }
+        for (SuiviPrestationPendingEdit edit : edits) {
+            try {
+                JsonNode patch = objectMapper.readTree(edit.getPatch());
+                long version = suiviPrestationService.getVersion(edit.getSuiviPrestationId());
+                buffer.compute(edit.getSuiviPrestationId(),
+                        (id, current) -> (current != null ? current : new PendingRow(version)).merge((ObjectNode) patch, edit.getId()));
+            } catch (JsonProcessingException | ClassCastException | IllegalArgumentException e) {
+                logger.error("Discarding pending edit {}: {}", edit.getId(), e.getMessage());
+                pendingEditRepository.deleteById(edit.getId());
+            }
+        }
+        logger.info("Took over {} pending autosave edits of stopped nodes", edits.size());
+    }
+
+    // Merged patch of one row. Only mutated inside ConcurrentHashMap.compute/merge, read through snapshot()
+    private static final class PendingRow {
+        private final ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        // Edit ids are assigned in the order the edits were accepted, whichever node buffered them
+        private final NavigableMap<Long, ObjectNode> edits = new TreeMap<>();
+        // Version of the row the edits apply to
+        private final long baseVersion;
+        private final long firstEditAt = System.currentTimeMillis();
+        private long lastEditAt = firstEditAt;
+
+        PendingRow(long baseVersion) {
+            this.baseVersion = baseVersion;
+        }
+
+        // RFC 7396 on flat objects: the later member wins, an explicit null stays so that it clears the column.
+        // An edit older than the ones already merged (taken over from a stopped node) is merged in its place.
+        PendingRow merge(ObjectNode edit, Long editId) {
+            synchronized (this) {
+                boolean latest = edits.isEmpty() || editId > edits.lastKey();
+                edits.put(editId, edit);
+                if (latest) {
+                    patch.setAll(edit);
+                } else {
+                    rebuild();
+                }
+                lastEditAt = System.currentTimeMillis();
+            }
+            return this;
+        }
+
+        PendingRow mergeAll(PendingRow other) {
+            synchronized (this) {
+                synchronized (other) {
+                    edits.putAll(other.edits);
+                    lastEditAt = Math.max(lastEditAt, other.lastEditAt);
+                }
+                rebuild();
+            }
+            return this;
+        }
+
+        private void rebuild() {
+            patch.removeAll();
+            edits.values().forEach(patch::setAll);
+        }
+
+        synchronized List<Long> editIds() {
+            return new ArrayList<>(edits.keySet());
+        }
+
+        synchronized ObjectNode snapshot() {
+            return patch.deepCopy();
+        }
+    }
+}
@@ -1,10 +1,9 @@
 
 package com.samsic.gestion_bc.services;
 
-import com.samsic.gestion_bc.models.ChefProjet;
+import com.samsic.gestion_bc.models.Role;
 import com.samsic.gestion_bc.models.SuiviPrestation;
 import com.samsic.gestion_bc.models.SuiviPrestationNotification;
-import com.samsic.gestion_bc.repositories.ChefProjetRepository;
 import com.samsic.gestion_bc.repositories.SuiviPrestationNotificationRepository;
 import com.samsic.gestion_bc.repositories.SuiviPrestationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,25 +14,22 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class SuiviPrestationNotificationScheduler {
     private final SuiviPrestationRepository suiviPrestationRepository;
     private final SuiviPrestationNotificationRepository notificationRepository;
     private final NotificationService notificationService;
-    private final ChefProjetRepository chefProjetRepository;
 
     @Autowired
     public SuiviPrestationNotificationScheduler(
             SuiviPrestationRepository suiviPrestationRepository,
             SuiviPrestationNotificationRepository notificationRepository,
-            NotificationService notificationService,
-            ChefProjetRepository chefProjetRepository) {
+            NotificationService notificationService) {
         this.suiviPrestationRepository = suiviPrestationRepository;
         this.notificationRepository = notificationRepository;
         this.notificationService = notificationService;
-        this.chefProjetRepository = chefProjetRepository;    }
+    }
 
     @Scheduled(cron = "0 0 */6 * * * ")
     @Transactional
@@ -60,7 +56,7 @@ public class SuiviPrestationNotificationScheduler {
                 if (suivi.getCoordinateur() != null && suivi.getCoordinateur().getUser() != null) {
                     Integer coordUtilisateurId = suivi.getCoordinateur().getUser().getId();
                     String message = String.format("SuiviPrestation ID %d (Prestation %s) realized over a week ago but not technically received",
-                            suivi.getId(), suivi.getPrestation() != null ? suivi.getPrestation().getId() : "null");
+                            suivi.getId(), suivi.getPrestation() != null ? suivi.getPrestation().getCode() : "null");
                     System.out.println("Notifying coordinator ID " + coordUtilisateurId + ": " + message);
                     notificationService.createNotification(coordUtilisateurId, message);
                 } else {
@@ -73,7 +69,7 @@ public class SuiviPrestationNotificationScheduler {
                         suivi.getPrestation().getBonDeCommande().getBackOffice().getUser() != null) {
                     Integer boUtilisateurId = suivi.getPrestation().getBonDeCommande().getBackOffice().getUser().getId();
                     String message = String.format("SuiviPrestation ID %d (Prestation %s) realized over a week ago but not technically received",
-                            suivi.getId(), suivi.getPrestation().getId());
+                            suivi.getId(), suivi.getPrestation().getCode());
                     System.out.println("Notifying back-office ID " + boUtilisateurId + ": " + message);
                     notificationService.createNotification(boUtilisateurId, message);
                 } else {
@@ -112,15 +108,12 @@ public class SuiviPrestationNotificationScheduler {
                         suivi.getPrestation().getBonDeCommande().getBackOffice().getUser() != null) {
                     Integer boUtilisateurId = suivi.getPrestation().getBonDeCommande().getBackOffice().getUser().getId();
                     String message = String.format("SuiviPrestation ID %d (Prestation %s) technically received over a week ago but not system received",
-                            suivi.getId(), suivi.getPrestation().getId());
+                            suivi.getId(), suivi.getPrestation().getCode());
                     System.out.println("Notifying back-office ID " + boUtilisateurId + ": " + message);
                     notificationService.createNotification(boUtilisateurId, message);
 
-                    // Notify all chefs
-                    List<ChefProjet> Chefs = this.chefProjetRepository.findAll();
-                    for (ChefProjet chef : Chefs) {
-                        notificationService.createNotification(chef.getId(), message);
-                    }
+                    // Notify all chefs with a single broadcast row
+                    notificationService.createBroadcast(Role.CHEF_PROJET, message);
 
                 } else {
                     System.out.println("No back-office or user for SuiviPrestation ID " + suivi.getId());
@@ -3,15 +3,28 @@ package com.samsic.gestion_bc.services;
 import com.samsic.gestion_bc.dto.*;
 import com.samsic.gestion_bc.models.*;
 import com.samsic.gestion_bc.repositories.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.dto.requests.SuiviPrestationQuery;
+import com.samsic.gestion_bc.dto.responses.ChangesResponse;
+import com.samsic.gestion_bc.dto.responses.PageResponse;
+import jakarta.persistence.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,8 +38,10 @@ public class SuiviPrestationService {
     private final FileRepository fileRepository;
     private final ZoneRepository zoneRepository;
     private final PrestationRepository prestationRepository;
-    private final NotificationService notificationService;
+    private final DomainEventPublisher eventPublisher;
     private final SiteRepository siteRepository;
+    private final ObjectMapper objectMapper;
+    private final ChangeTrackingService changeTrackingService;
 
     @Autowired
     public SuiviPrestationService(
@@ -38,7 +53,9 @@ public class SuiviPrestationService {
             ServiceRepository serviceRepository,
             ZoneRepository zoneRepository,
             PrestationRepository prestationRepository,
-            NotificationService notificationService, SiteRepository siteRepository) {
+            DomainEventPublisher eventPublisher, SiteRepository siteRepository,
+            ObjectMapper objectMapper,
+            ChangeTrackingService changeTrackingService) {
         this.suiviPrestationRepository = suiviPrestationRepository;
         this.coordinateurRepository = coordinateurRepository;
         this.backOfficeRepository = backOfficeRepository;
@@ -46,8 +63,10 @@ public class SuiviPrestationService {
         this.fileRepository = fileRepository;
         this.zoneRepository = zoneRepository;
         this.prestationRepository = prestationRepository;
-        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
         this.siteRepository = siteRepository;
+        this.objectMapper = objectMapper;
+        this.changeTrackingService = changeTrackingService;
     }
 
     public SuiviPrestation getSuiviPrestationEntityById(Integer id) {
@@ -56,17 +75,17 @@ public class SuiviPrestationService {
                 .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
     }
 
+    // One query for the row and everything mapToResponse reads
+    @Transactional(readOnly = true)
     public SuiviPrestationResponse getSuiviPrestationById(Integer id) {
         logger.info("Fetching SuiviPrestation with ID: {}", id);
-        SuiviPrestation suivi = suiviPrestationRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
-        return mapToResponse(suivi);
+        return mapToResponse(findWithDetails(id));
     }
 
     public List<SuiviPrestationResponse> getAllSuiviPrestations() {
         logger.info("Fetching all SuiviPrestations");
-        return suiviPrestationRepository.findAll().stream()
-                .map(this::mapToResponse)
+        return suiviPrestationRepository.findAllRows().stream()
+                .map(SuiviPrestationService::mapRowToResponse)
                 .collect(Collectors.toList());
     }
 
@@ -74,8 +93,8 @@ public class SuiviPrestationService {
         logger.info("Fetching SuiviPrestations for coordinator email: {}", email);
         Coordinateur coordinateur = coordinateurRepository.findByUserEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("Coordinator not found for email: " + email));
-        return suiviPrestationRepository.findByCoordinateur(coordinateur).stream()
-                .map(this::mapToResponse)
+        return suiviPrestationRepository.findRowsByCoordinateurId(coordinateur.getId()).stream()
+                .map(SuiviPrestationService::mapRowToResponse)
                 .collect(Collectors.toList());
     }
 
@@ -83,190 +102,289 @@ public class SuiviPrestationService {
         logger.info("Fetching SuiviPrestations for back-office email: {}", email);
         BackOffice backOffice = backOfficeRepository.findByUserEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + email));
-        List<BonDeCommande> bonDeCommandes = bonDeCommandeRepository.findByBackOffice(backOffice);
-        List<String> prestationIds = bonDeCommandes.stream()
-                .flatMap(bc -> bc.getPrestations().stream())
-                .map(Prestation::getId)
-                .collect(Collectors.toList());
-        return suiviPrestationRepository.findByPrestationIdIn(prestationIds).stream()
-                .map(this::mapToResponse)
+        return suiviPrestationRepository.findRowsByBackOfficeId(backOffice.getId()).stream()
+                .map(SuiviPrestationService::mapRowToResponse)
                 .collect(Collectors.toList());
     }
 
+    // Worklist page: coordinators only see their own suivis and back offices the suivis of their BCs
+    public PageResponse<SuiviPrestationResponse> querySuiviPrestations(SuiviPrestationQuery query, Pageable pageable, String email, String role) {
+        logger.info("Querying SuiviPrestations for {} ({}): {}, {}", email, role, query, pageable);
+        query.setChangedSince(null);
+        applyScope(query, email, role);
+        return PageResponse.of(suiviPrestationRepository.findRows(query, pageable).map(SuiviPrestationService::mapRowToResponse));
+    }
+
+    // Delta sync of the caller's suivi list, deletions are not scoped (unknown ids are ignored by the client)
+    public ChangesResponse<SuiviPrestationResponse> getSuiviPrestationChanges(String since, String email, String role) {
+        ChangeTrackingService.SyncWindow window = changeTrackingService.window(since);
+        SuiviPrestationQuery query = new SuiviPrestationQuery();
+        applyScope(query, email, role);
+        query.setChangedSince(window.from());
+        List<SuiviPrestationResponse> upserts = suiviPrestationRepository.findRows(query, Pageable.unpaged(Sort.by("id")))
+                .map(SuiviPrestationService::mapRowToResponse)
+                .getContent();
+        List<String> deleted = window.full()
+                ? List.of()
+                : changeTrackingService.deletedIds(ChangeTrackingService.SUIVI_PRESTATION, window.from());
+        logger.info("SuiviPrestation changes for {} since {}: {} upserts, {} deletions", email, since, upserts.size(), deleted.size());
+        return new ChangesResponse<>(window.token(), window.full(), upserts, deleted);
+    }
+
+    private void applyScope(SuiviPrestationQuery query, String email, String role) {
+        query.setScopeCoordinateurId(null);
+        query.setScopeBackOfficeId(null);
+        switch (role) {
+            case "ROLE_COORDINATEUR" -> query.setScopeCoordinateurId(coordinateurRepository.findByUserEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("Coordinator not found for email: " + email)).getId());
+            case "ROLE_BACK_OFFICE" -> query.setScopeBackOfficeId(backOfficeRepository.findByUserEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("BackOffice not found for email: " + email)).getId());
+            default -> {
+            }
+        }
+    }
+
     @Transactional
-    public void updateSuiviPrestation(Integer id, SuiviPrestationResponse request) {
+    public SuiviPrestationResponse updateSuiviPrestation(Integer id, SuiviPrestationResponse request) {
         logger.info("Updating SuiviPrestation with ID: {}", id);
-        SuiviPrestation suivi = suiviPrestationRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
+        SuiviPrestation suivi = findWithDetails(id);
 
-        // Define editable fields and their setters
-        Map<String, Runnable> fieldSetters = new HashMap<>();
-        fieldSetters.put("qteRealise", () -> {
-            if (request.getQteRealise() != null) suivi.setQteRealise(request.getQteRealise());
-        });
-        fieldSetters.put("qteEncours", () -> {
-            if (request.getQteEncours() != null) suivi.setQteEncours(request.getQteEncours());
-        });
-        fieldSetters.put("qteTech", () -> {
-            if (request.getQteTech() != null) suivi.setQteTech(request.getQteTech());
-        });
-        fieldSetters.put("qteDepose", () -> {
-            if (request.getQteDepose() != null) suivi.setQteDepose(request.getQteDepose());
-        });
-        fieldSetters.put("qteADepose", () -> {
-            if (request.getQteADepose() != null) suivi.setQteADepose(request.getQteADepose());
-        });
-        fieldSetters.put("qteSys", () -> {
-            if (request.getQteSys() != null) suivi.setQteSys(request.getQteSys());
-        });
-        fieldSetters.put("fournisseur", () -> {
-            if (request.getFournisseur() != null) suivi.setFournisseur(request.getFournisseur());
-        });
-        fieldSetters.put("datePlanifiee", () -> {
-            if (request.getDatePlanifiee() != null) suivi.setDatePlanifiee(request.getDatePlanifiee());
-        });
-        fieldSetters.put("dateGo", () -> {
-            if (request.getDateGo() != null) suivi.setDateGo(request.getDateGo());
-        });
-        fieldSetters.put("dateDebut", () -> {
-            if (request.getDateDebut() != null) suivi.setDateDebut(request.getDateDebut());
-        });
-        fieldSetters.put("dateFin", () -> {
-            if (request.getDateFin() != null) suivi.setDateFin(request.getDateFin());
-        });
-        fieldSetters.put("dateRealisation", () -> {
-            if (request.getDateRealisation() != null) suivi.setDateRealisation(request.getDateRealisation());
-        });
-        fieldSetters.put("dateRecepTech", () -> {
-            if (request.getDateRecepTech() != null) suivi.setDateRecepTech(request.getDateRecepTech());
-        });
-        fieldSetters.put("datePf", () -> {
-            if (request.getDatePf() != null) suivi.setDatePf(request.getDatePf());
-        });
-        fieldSetters.put("remarque", () -> {
-            if (request.getRemarque() != null) suivi.setRemarque(request.getRemarque());
-        });
-        fieldSetters.put("delaiRecep", () -> {
-            if (request.getDelaiRecep() != null) suivi.setDelaiRecep(request.getDelaiRecep());
-        });
-        fieldSetters.put("statutDeRealisation", () -> {
-            if (request.getStatutDeRealisation() != null) suivi.setStatutDeRealisation(request.getStatutDeRealisation());
-        });
-        fieldSetters.put("statutReceptionTech", () -> {
-            if (request.getStatutReceptionTech() != null) suivi.setStatutDeRecepTech(request.getStatutReceptionTech());
-        });
-        fieldSetters.put("statutReceptionSystem", () -> {
-            if (request.getStatutReceptionSystem() != null) suivi.setStatutReceptionSystem(request.getStatutReceptionSystem());
+        validateUpdate(request);
+        applyUpdate(suivi, request);
+
+        suiviPrestationRepository.flush();
+        eventPublisher.publish(new DomainEvent.SuivisUpdated(List.of(id)));
+        logger.info("SuiviPrestation updated successfully: {}", id);
+        return mapToResponse(suivi);
+    }
+
+    // JSON Merge Patch (RFC 7396): only the members present in the patch are written and null clears a value.
+    // The entity uses @DynamicUpdate, so the UPDATE only carries the columns that actually changed, and its
+    // @Version is checked against the If-Match version when the client sends one.
+    @Transactional
+    public SuiviPrestationResponse patchSuiviPrestation(Integer id, JsonNode patch, Long expectedVersion) {
+        logger.info("Patching SuiviPrestation with ID: {}", id);
+        List<EditableField<?>> fields = patchFields(patch);
+        SuiviPrestationResponse values = patchValues(patch);
+        SuiviPrestation suivi = findWithDetails(id);
+        if (expectedVersion != null && expectedVersion != suivi.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(SuiviPrestation.class, id);
+        }
+
+        fields.forEach(field -> setIfChanged(suivi, field, field.source().apply(values)));
+
+        suiviPrestationRepository.flush();
+        eventPublisher.publish(new DomainEvent.SuivisUpdated(List.of(id)));
+        logger.info("SuiviPrestation patched successfully: {} ({} fields)", id, fields.size());
+        return mapToResponse(suivi);
+    }
+
+    // Checks a merge patch without touching the database (used to reject bad autosave edits up front)
+    public void validatePatch(JsonNode patch) {
+        patchFields(patch);
+        patchValues(patch);
+    }
+
+    // Applies merged autosave patches in the caller's transaction: one query loads every row, dirty rows are
+    // flushed together. Each row must still be at the version its edits were accepted against, and ends one version
+    // later even when the values did not change (the autosave token). Rows that are gone, were written by someone
+    // else meanwhile or whose patch is invalid are returned with the reason and skipped.
+    @Transactional
+    public Map<Integer, String> applyPatches(Map<Integer, JsonNode> patches, Map<Integer, Long> expectedVersions) {
+        Map<Integer, SuiviPrestation> suivis = suiviPrestationRepository.findAllWithDetailsByIdIn(patches.keySet()).stream()
+                .collect(Collectors.toMap(SuiviPrestation::getId, suivi -> suivi));
+        Map<Integer, String> failures = new HashMap<>();
+        Map<Integer, Long> unchanged = new HashMap<>();
+        patches.forEach((id, patch) -> {
+            SuiviPrestation suivi = suivis.get(id);
+            if (suivi == null) {
+                failures.put(id, "SuiviPrestation not found: " + id);
+                return;
+            }
+            Long expected = expectedVersions.get(id);
+            if (expected != null && expected != suivi.getVersion()) {
+                failures.put(id, "SuiviPrestation was written since the edits were accepted (version "
+                        + suivi.getVersion() + ", expected " + expected + ")");
+                return;
+            }
+            try {
+                List<EditableField<?>> fields = patchFields(patch);
+                SuiviPrestationResponse values = patchValues(patch);
+                boolean changed = false;
+                for (EditableField<?> field : fields) {
+                    changed |= setIfChanged(suivi, field, field.source().apply(values));
+                }
+                if (!changed) {
+                    unchanged.put(id, suivi.getVersion());
+                }
+            } catch (IllegalArgumentException e) {
+                failures.put(id, e.getMessage());
+            }
         });
+        suiviPrestationRepository.flush();
+        unchanged.forEach(suiviPrestationRepository::incrementVersion);
+        List<Integer> applied = patches.keySet().stream().filter(id -> !failures.containsKey(id)).toList();
+        if (!applied.isEmpty()) {
+            eventPublisher.publish(new DomainEvent.SuivisUpdated(applied));
+        }
+        return failures;
+    }
+
+    // Version of a row, the ETag clients compare against
+    public long getVersion(Integer id) {
+        return suiviPrestationRepository.findVersionById(id)
+                .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
+    }
 
-        // Apply updates for allowed fields
-        fieldSetters.forEach((field, setter) -> setter.run());
+    private static List<EditableField<?>> patchFields(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch must be a JSON object");
+        }
+        List<EditableField<?>> fields = new ArrayList<>();
+        patch.fieldNames().forEachRemaining(name -> {
+            EditableField<?> field = EDITABLE_FIELDS_BY_NAME.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Field is not editable: " + name);
+            }
+            fields.add(field);
+        });
+        return fields;
+    }
 
-        // Validate fields
-        if (suivi.getQteRealise() != null && suivi.getQteRealise() < 0) {
-            throw new IllegalArgumentException("Quantity realized cannot be negative");
+    private SuiviPrestationResponse patchValues(JsonNode patch) {
+        SuiviPrestationResponse values;
+        try {
+            values = objectMapper.treeToValue(patch, SuiviPrestationResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid patch: " + e.getOriginalMessage());
         }
+        validateUpdate(values);
+        return values;
+    }
 
-        suiviPrestationRepository.save(suivi);
-        logger.info("SuiviPrestation updated successfully: {}", id);
+    private SuiviPrestation findWithDetails(Integer id) {
+        return suiviPrestationRepository.findAllWithDetailsByIdIn(List.of(id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
     }
 
+    // Grid save: all rows are loaded (with everything the response needs) in one query, changes go through
+    // EDITABLE_FIELDS and the dirty rows are flushed as JDBC batches. A row that fails validation is reported
+    // in its response (error field) and left untouched, the other rows are still saved.
     @Transactional
     public List<SuiviPrestationResponse> updateSuiviPrestationsBulk(List<SuiviPrestationResponse> requests) {
         logger.info("Updating {} SuiviPrestations in bulk", requests.size());
-        List<SuiviPrestationResponse> updatedResponses = new ArrayList<>();
 
+        Set<Integer> ids = requests.stream()
+                .map(SuiviPrestationResponse::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, SuiviPrestation> suivis = ids.isEmpty() ? Map.of()
+                : suiviPrestationRepository.findAllWithDetailsByIdIn(ids).stream()
+                        .collect(Collectors.toMap(SuiviPrestation::getId, suivi -> suivi));
+
+        Map<Integer, SuiviPrestation> updated = new LinkedHashMap<>();
+        // One outcome per request, in request order (the grid matches responses by position)
+        List<BulkOutcome> outcomes = new ArrayList<>(requests.size());
+        int rejected = 0;
         for (SuiviPrestationResponse request : requests) {
             Integer id = request.getId();
-            if (id == null) {
-                logger.warn("Skipping SuiviPrestation with null ID");
-                continue;
-            }
             try {
-                SuiviPrestation suivi = suiviPrestationRepository.findById(id)
-                        .orElseThrow(() -> new IllegalArgumentException("SuiviPrestation not found: " + id));
-
-                // Define editable fields and their setters
-                Map<String, Runnable> fieldSetters = new HashMap<>();
-                fieldSetters.put("qteRealise", () -> {
-                    if (request.getQteRealise() != null) suivi.setQteRealise(request.getQteRealise());
-                });
-                fieldSetters.put("qteEncours", () -> {
-                    if (request.getQteEncours() != null) suivi.setQteEncours(request.getQteEncours());
-                });
-                fieldSetters.put("qteTech", () -> {
-                    if (request.getQteTech() != null) suivi.setQteTech(request.getQteTech());
-                });
-                fieldSetters.put("qteDepose", () -> {
-                    if (request.getQteDepose() != null) suivi.setQteDepose(request.getQteDepose());
-                });
-                fieldSetters.put("qteADepose", () -> {
-                    if (request.getQteADepose() != null) suivi.setQteADepose(request.getQteADepose());
-                });
-                fieldSetters.put("qteSys", () -> {
-                    if (request.getQteSys() != null) suivi.setQteSys(request.getQteSys());
-                });
-                fieldSetters.put("fournisseur", () -> {
-                    if (request.getFournisseur() != null) suivi.setFournisseur(request.getFournisseur());
-                });
-                fieldSetters.put("datePlanifiee", () -> {
-                    if (request.getDatePlanifiee() != null) suivi.setDatePlanifiee(request.getDatePlanifiee());
-                });
-                fieldSetters.put("dateGo", () -> {
-                    if (request.getDateGo() != null) suivi.setDateGo(request.getDateGo());
-                });
-                fieldSetters.put("dateDebut", () -> {
-                    if (request.getDateDebut() != null) suivi.setDateDebut(request.getDateDebut());
-                });
-                fieldSetters.put("dateFin", () -> {
-                    if (request.getDateFin() != null) suivi.setDateFin(request.getDateFin());
-                });
-                fieldSetters.put("dateRealisation", () -> {
-                    if (request.getDateRealisation() != null) suivi.setDateRealisation(request.getDateRealisation());
-                });
-                fieldSetters.put("dateRecepTech", () -> {
-                    if (request.getDateRecepTech() != null) suivi.setDateRecepTech(request.getDateRecepTech());
-                });
-                fieldSetters.put("datePf", () -> {
-                    if (request.getDatePf() != null) suivi.setDatePf(request.getDatePf());
-                });
-                fieldSetters.put("remarque", () -> {
-                    if (request.getRemarque() != null) suivi.setRemarque(request.getRemarque());
-                });
-                fieldSetters.put("delaiRecep", () -> {
-                    if (request.getDelaiRecep() != null) suivi.setDelaiRecep(request.getDelaiRecep());
-                });
-                fieldSetters.put("statutDeRealisation", () -> {
-                    if (request.getStatutDeRealisation() != null) suivi.setStatutDeRealisation(request.getStatutDeRealisation());
-                });
-                fieldSetters.put("statutReceptionTech", () -> {
-                    if (request.getStatutReceptionTech() != null) suivi.setStatutDeRecepTech(request.getStatutReceptionTech());
-                });
-                fieldSetters.put("statutReceptionSystem", () -> {
-                    if (request.getStatutReceptionSystem() != null) suivi.setStatutReceptionSystem(request.getStatutReceptionSystem());
-                });
-
-                // Apply updates for allowed fields
-                fieldSetters.forEach((field, setter) -> setter.run());
-
-                // Validate fields
-                if (suivi.getQteRealise() != null && suivi.getQteRealise() < 0) {
-                    throw new IllegalArgumentException("Quantity realized cannot be negative for ID: " + id);
+                if (id == null) {
+                    throw new IllegalArgumentException("SuiviPrestation ID is required");
                 }
-
-                suiviPrestationRepository.save(suivi);
-                updatedResponses.add(mapToResponse(suivi));
-                logger.info("SuiviPrestation updated successfully: {}", id);
+                SuiviPrestation suivi = suivis.get(id);
+                if (suivi == null) {
+                    throw new IllegalArgumentException("SuiviPrestation not found: " + id);
+                }
+                validateUpdate(request);
+                applyUpdate(suivi, request);
+                updated.put(id, suivi);
+                outcomes.add(new BulkOutcome(suivi, null));
             } catch (IllegalArgumentException e) {
-                logger.error("Error updating SuiviPrestation ID {}: {}", id, e.getMessage());
-                throw e;
+                logger.warn("Rejected bulk update of SuiviPrestation ID {}: {}", id, e.getMessage());
+                SuiviPrestationResponse failure = new SuiviPrestationResponse();
+                failure.setId(id);
+                failure.setError(e.getMessage());
+                outcomes.add(new BulkOutcome(null, failure));
+                rejected++;
+            }
+        }
+
+        // Managed entities: dirty checking issues the UPDATEs, batched by hibernate.jdbc.batch_size
+        suiviPrestationRepository.flush();
+        if (!updated.isEmpty()) {
+            eventPublisher.publish(new DomainEvent.SuivisUpdated(new ArrayList<>(updated.keySet())));
+        }
+
+        List<SuiviPrestationResponse> responses = new ArrayList<>(outcomes.size());
+        for (BulkOutcome outcome : outcomes) {
+            responses.add(outcome.updated() != null ? mapToResponse(outcome.updated()) : outcome.failure());
+        }
+        logger.info("Bulk update completed, updated {} SuiviPrestations, rejected {}", updated.size(), rejected);
+        return responses;
+    }
+
+    // Either the updated row, mapped once flushed, or the failure response carrying its error
+    private record BulkOutcome(SuiviPrestation updated, SuiviPrestationResponse failure) {
+    }
+
+    private static void validateUpdate(SuiviPrestationResponse request) {
+        if (request.getQteRealise() != null && request.getQteRealise() < 0) {
+            throw new IllegalArgumentException("Quantity realized cannot be negative");
+        }
+    }
+
+    // Only non-null request values are applied, and only when they differ, so untouched rows stay clean
+    private static void applyUpdate(SuiviPrestation suivi, SuiviPrestationResponse request) {
+        for (EditableField<?> field : EDITABLE_FIELDS) {
+            Object value = field.source().apply(request);
+            if (value != null) {
+                setIfChanged(suivi, field, value);
             }
         }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean setIfChanged(SuiviPrestation suivi, EditableField<?> field, Object value) {
+        if (Objects.equals(value, field.current().apply(suivi))) {
+            return false;
+        }
+        ((BiConsumer<SuiviPrestation, Object>) field.target()).accept(suivi, value);
+        return true;
+    }
 
-        logger.info("Bulk update completed, updated {} SuiviPrestations", updatedResponses.size());
-        return updatedResponses;
+    private record EditableField<T>(
+            String name,
+            Function<SuiviPrestationResponse, T> source,
+            Function<SuiviPrestation, T> current,
+            BiConsumer<SuiviPrestation, T> target) {
     }
 
+    private static final List<EditableField<?>> EDITABLE_FIELDS = List.of(
+            new EditableField<>("qteRealise", SuiviPrestationResponse::getQteRealise, SuiviPrestation::getQteRealise, SuiviPrestation::setQteRealise),
+            new EditableField<>("qteEncours", SuiviPrestationResponse::getQteEncours, SuiviPrestation::getQteEncours, SuiviPrestation::setQteEncours),
+            new EditableField<>("qteTech", SuiviPrestationResponse::getQteTech, SuiviPrestation::getQteTech, SuiviPrestation::setQteTech),
+            new EditableField<>("qteDepose", SuiviPrestationResponse::getQteDepose, SuiviPrestation::getQteDepose, SuiviPrestation::setQteDepose),
+            new EditableField<>("qteADepose", SuiviPrestationResponse::getQteADepose, SuiviPrestation::getQteADepose, SuiviPrestation::setQteADepose),
+            new EditableField<>("qteSys", SuiviPrestationResponse::getQteSys, SuiviPrestation::getQteSys, SuiviPrestation::setQteSys),
+            new EditableField<>("fournisseur", SuiviPrestationResponse::getFournisseur, SuiviPrestation::getFournisseur, SuiviPrestation::setFournisseur),
+            new EditableField<>("datePlanifiee", SuiviPrestationResponse::getDatePlanifiee, SuiviPrestation::getDatePlanifiee, SuiviPrestation::setDatePlanifiee),
+            new EditableField<>("dateGo", SuiviPrestationResponse::getDateGo, SuiviPrestation::getDateGo, SuiviPrestation::setDateGo),
+            new EditableField<>("dateDebut", SuiviPrestationResponse::getDateDebut, SuiviPrestation::getDateDebut, SuiviPrestation::setDateDebut),
+            new EditableField<>("dateFin", SuiviPrestationResponse::getDateFin, SuiviPrestation::getDateFin, SuiviPrestation::setDateFin),
+            new EditableField<>("dateRealisation", SuiviPrestationResponse::getDateRealisation, SuiviPrestation::getDateRealisation, SuiviPrestation::setDateRealisation),
+            new EditableField<>("dateRecepTech", SuiviPrestationResponse::getDateRecepTech, SuiviPrestation::getDateRecepTech, SuiviPrestation::setDateRecepTech),
+            new EditableField<>("datePf", SuiviPrestationResponse::getDatePf, SuiviPrestation::getDatePf, SuiviPrestation::setDatePf),
+            new EditableField<>("remarque", SuiviPrestationResponse::getRemarque, SuiviPrestation::getRemarque, SuiviPrestation::setRemarque),
+            new EditableField<>("delaiRecep", SuiviPrestationResponse::getDelaiRecep, SuiviPrestation::getDelaiRecep, SuiviPrestation::setDelaiRecep),
+            new EditableField<>("statutDeRealisation", SuiviPrestationResponse::getStatutDeRealisation, SuiviPrestation::getStatutDeRealisation, SuiviPrestation::setStatutDeRealisation),
+            new EditableField<>("statutReceptionTech", SuiviPrestationResponse::getStatutReceptionTech, SuiviPrestation::getStatutDeRecepTech, SuiviPrestation::setStatutDeRecepTech),
+            new EditableField<>("statutReceptionSystem", SuiviPrestationResponse::getStatutReceptionSystem, SuiviPrestation::getStatutReceptionSystem, SuiviPrestation::setStatutReceptionSystem));
+
+    private static final Map<String, EditableField<?>> EDITABLE_FIELDS_BY_NAME = EDITABLE_FIELDS.stream()
+            .collect(Collectors.toMap(EditableField::name, field -> field));
+
     @Transactional
     public void uploadReceptionTechFile(Integer suiviPrestationId, MultipartFile file, String userEmail) throws IOException {
         logger.info("Uploading reception tech file for SuiviPrestation ID: {} by user: {}", suiviPrestationId, userEmail);
@@ -306,7 +424,7 @@ public class SuiviPrestationService {
     }
 
     @Transactional
-    public List<SuiviPrestation> createSuiviPrestation(SuiviPrestationRequest request) {
+    public List<SuiviPrestationResponse> createSuiviPrestation(SuiviPrestationRequest request) {
         logger.info("Creating SuiviPrestation for BonDeCommande: {}", request.getNumBc());
 
         if (request.getNumBc() == null || request.getNumBc().isEmpty()) {
@@ -336,7 +454,7 @@ public class SuiviPrestationService {
             Site site = siteRepository.findById(prest.getSiteId())
                     .orElseThrow(() -> new IllegalArgumentException("Site not found: " + prest.getSiteId()));
 
-            Prestation prestation = prestationRepository.findById(prest.getPrestationId())
+            Prestation prestation = prestationRepository.findByCode(prest.getPrestationId())
                     .orElseThrow(() -> new IllegalArgumentException("Prestation not found: " + prest.getPrestationId()));
             Zone zone = zoneRepository.findById(prest.getZoneId())
                     .orElseThrow(() -> new IllegalArgumentException("Zone not found: " + prest.getZoneId()));
@@ -351,6 +469,7 @@ public class SuiviPrestationService {
 
             SuiviPrestation suivi = new SuiviPrestation();
             suivi.setPrestation(prestation);
+            suivi.setPrixUnitaire(prestation.getPrixUnitaire());
             suivi.setZone(zone);
             suivi.setCodesite(site);
             suivi.setRemarque(prest.getRemarque());
@@ -363,45 +482,21 @@ public class SuiviPrestationService {
         List<SuiviPrestation> savedSuivis = suiviPrestationRepository.saveAll(suivis);
         logger.info("SuiviPrestations created successfully for BC: {}", request.getNumBc());
 
-        // Send notifications
-        try {
-            // Notify coordinator of the zone for each SuiviPrestation
-            for (SuiviPrestation suivi : savedSuivis) {
-                Zone zone = suivi.getZone();
-                Optional<Coordinateur> coordinateurOpt = coordinateurRepository.findByZone(zone);
-                if (coordinateurOpt.isPresent() && coordinateurOpt.get().getUser() != null) {
-                    Integer coordinatorId = coordinateurOpt.get().getUser().getId();
-                    String zoneName = zone.getNom() != null ? zone.getNom() : "Zone " + zone.getId();
-                    String message = String.format(
-                            "New SuiviPrestation created for BC: %s, Prestation: %s in zone %s",
-                            request.getNumBc(), suivi.getPrestation().getId(), zoneName
-                    );
-                    notificationService.createNotification(coordinatorId, message);
-                    logger.info("Notification sent to coordinator ID {} for SuiviPrestation ID: {}", coordinatorId, suivi.getId());
-                } else {
-                    logger.warn("No coordinator found for zone ID: {} for SuiviPrestation ID: {}", zone.getId(), suivi.getId());
-                }
-            }
-
-            // Notify back office
-            if (bonDeCommande.getBackOffice() != null && bonDeCommande.getBackOffice().getUser() != null) {
-                Integer backOfficeId = bonDeCommande.getBackOffice().getUser().getId();
-                String message = String.format("You created SuiviPrestation for BC: %s", request.getNumBc());
-                notificationService.createNotification(backOfficeId, message);
-                logger.info("Notification sent to back office ID {} for BC: {}", backOfficeId, request.getNumBc());
-            } else {
-                logger.warn("No back office user found for BC: {}", request.getNumBc());
-            }
-        } catch (Exception e) {
-            logger.error("Failed to send notifications for BC: {}. Error: {}", request.getNumBc(), e.getMessage());
-        }
+        eventPublisher.publish(new DomainEvent.SuivisCreated(request.getNumBc(),
+                bonDeCommande.getBackOffice() != null && bonDeCommande.getBackOffice().getUser() != null
+                        ? bonDeCommande.getBackOffice().getUser().getId() : null,
+                savedSuivis.stream()
+                        .map(suivi -> new DomainEvent.SuivisCreated.SuiviRef(suivi.getId(), suivi.getPrestation().getCode(),
+                                suivi.getZone() != null ? suivi.getZone().getId() : null))
+                        .toList()));
 
-        return savedSuivis;
+        return savedSuivis.stream().map(this::mapToResponse).toList();
     }
 
     private SuiviPrestationResponse mapToResponse(SuiviPrestation suivi) {
         SuiviPrestationResponse response = new SuiviPrestationResponse();
         response.setId(suivi.getId());
+        response.setVersion(suivi.getVersion());
 
         if (suivi.getPrestation() != null) {
             PrestationResponse prestation = getPrestationResponse(suivi);
@@ -409,6 +504,7 @@ public class SuiviPrestationService {
             response.setBc_num(suivi.getPrestation().getBonDeCommande().getNumBc());
             response.setSite(suivi.getCodesite() != null ? suivi.getCodesite().getCodesite() : "null" );
             response.setDateEdition(suivi.getPrestation().getBonDeCommande().getDateEdition());
+            response.setOt(suivi.getPrestation().getBonDeCommande().isOt());
         }
 
         response.setCoordinateurId(suivi.getCoordinateur() != null ? suivi.getCoordinateur().getId() : null);
@@ -436,7 +532,6 @@ public class SuiviPrestationService {
         response.setStatutDeRealisation(suivi.getStatutDeRealisation());
         response.setDateRecepTech(suivi.getDateRecepTech());
         response.setDatePf(suivi.getDatePf());
-        response.setOt(suivi.getPrestation().getBonDeCommande().isOt());
         response.setDateRecepSys(suivi.getDateRecepSys());
         response.setStatutReceptionSystem(suivi.getStatutReceptionSystem());
         response.setRemarque(suivi.getRemarque());
@@ -453,18 +548,88 @@ public class SuiviPrestationService {
         return response;
     }
 
+    // Same shape as mapToResponse, built from a SuiviPrestationRepository.SUIVI_ROWS tuple
+    private static SuiviPrestationResponse mapRowToResponse(Tuple row) {
+        SuiviPrestationResponse response = new SuiviPrestationResponse();
+        response.setId(row.get("id", Integer.class));
+        response.setVersion(row.get("version", Long.class));
+
+        if (row.get("prestationId") != null) {
+            PrestationResponse prestation = new PrestationResponse();
+            prestation.setId(row.get("prestationId", String.class));
+            prestation.setNumLigne(row.get("numLigne", Integer.class));
+            prestation.setDescription(row.get("prestationDescription", String.class));
+            prestation.setQteBc(row.get("qteBc", Double.class));
+            prestation.setFamille(row.get("famille", String.class));
+            if (row.get("serviceId") != null) {
+                ServiceResponse service = new ServiceResponse();
+                service.setId(row.get("serviceId", Integer.class));
+                service.setNomService(row.get("serviceDescription", String.class));
+                service.setPrix(row.get("prix", Double.class));
+                prestation.setService(service);
+            }
+            response.setPrestation(prestation);
+            response.setBc_num(row.get("numBc", String.class));
+            response.setSite(row.get("codesite") != null ? row.get("codesite", String.class) : "null");
+            response.setDateEdition(row.get("dateEdition", LocalDate.class));
+            response.setOt(Boolean.TRUE.equals(row.get("isOt", Boolean.class)));
+        }
+
+        response.setCoordinateurId(row.get("coordinateurId", Integer.class));
+
+        if (row.get("zoneId") != null) {
+            ZoneResponse zone = new ZoneResponse();
+            zone.setId(row.get("zoneId", Integer.class));
+            zone.setName(row.get("zoneName", String.class));
+            response.setZone(zone);
+        }
+
+        response.setQteRealise(row.get("qteRealise", Double.class));
+        response.setQteEncours(row.get("qteEncours", Double.class));
+        response.setQteTech(row.get("qteTech", Double.class));
+        response.setQteDepose(row.get("qteDepose", Double.class));
+        response.setStatutReceptionTech(row.get("statutDeRecepTech", StatutRecepTech.class));
+        response.setQteADepose(row.get("qteADepose", Double.class));
+        response.setQteSys(row.get("qteSys", Double.class));
+        response.setFournisseur(row.get("fournisseur", String.class));
+        response.setDatePlanifiee(row.get("datePlanifiee", Date.class));
+        response.setDateGo(row.get("dateGo", LocalDate.class));
+        response.setDateDebut(row.get("dateDebut", Date.class));
+        response.setDateFin(row.get("dateFin", Date.class));
+        response.setDateRealisation(row.get("dateRealisation", Date.class));
+        response.setStatutDeRealisation(row.get("statutDeRealisation", StatutRealisation.class));
+        response.setDateRecepTech(row.get("dateRecepTech", Date.class));
+        response.setDatePf(row.get("datePf", Date.class));
+        response.setDateRecepSys(row.get("dateRecepSys", Date.class));
+        response.setStatutReceptionSystem(row.get("statutReceptionSystem", StatutReceptionSystem.class));
+        response.setRemarque(row.get("remarque", String.class));
+        response.setDelaiRecep(row.get("delaiRecep", Integer.class));
+
+        if (row.get("fileId") != null) {
+            response.setFichierReceptionTech(new SuiviPrestationResponse.FileResponse(
+                    row.get("fileId", Long.class),
+                    row.get("fileName", String.class),
+                    row.get("fileContentType", String.class)
+            ));
+        }
+
+        return response;
+    }
+
     private static PrestationResponse getPrestationResponse(SuiviPrestation suivi) {
         PrestationResponse prestation = new PrestationResponse();
-        prestation.setId(suivi.getPrestation().getId());
+        prestation.setId(suivi.getPrestation().getCode());
         prestation.setNumLigne(suivi.getPrestation().getNumLigne());
         prestation.setDescription(suivi.getPrestation().getDescription());
         prestation.setQteBc(suivi.getPrestation().getQteBc());
-        prestation.setFamille(suivi.getPrestation().getService().getFamille().getName());
-        if (suivi.getPrestation().getService() != null) {
+        ServiceQ serviceQ = suivi.getPrestation().getService();
+        if (serviceQ != null) {
+            // As the SUIVI_ROWS tuple: a service without famille maps to a null famille
+            prestation.setFamille(serviceQ.getFamille() != null ? serviceQ.getFamille().getName() : null);
             ServiceResponse service = new ServiceResponse();
-            service.setId(suivi.getPrestation().getService().getId());
-            service.setNomService(suivi.getPrestation().getService().getDescription());
-            service.setPrix(suivi.getPrestation().getService().getPrix());
+            service.setId(serviceQ.getId());
+            service.setNomService(serviceQ.getDescription());
+            service.setPrix(serviceQ.getPrix());
             prestation.setService(service);
         }
         return prestation;
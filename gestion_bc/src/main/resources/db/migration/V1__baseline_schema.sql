@@ -0,0 +1,624 @@
+-- Schema of the application as the entities map it, for an empty database only.
+-- An existing database that was managed by ddl-auto=update is baselined at this version instead (see
+-- spring.flyway.baseline-version) without running it: it has the tables of the last release that ran with update,
+-- V2 to V4.1 (config/*Migration) rewrite them and add what came after, so that both reach this state.
+-- Constraint names are the ones Hibernate generates, so both kinds of database end up with the same names.
+
+create table back_office (
+    id integer not null auto_increment,
+    user_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table bc_archive (
+    num_bc varchar(255) not null,
+    archived_at datetime(6) not null,
+    back_office_id integer,
+    closed_at datetime(6),
+    code_projet varchar(255),
+    date_edition date,
+    document LONGBLOB not null,
+    line_count integer,
+    primary key (num_bc)
+) engine=InnoDB;
+
+create table bc_archive_aggregates (
+    id bigint not null auto_increment,
+    back_office_id integer,
+    bc_description varchar(255),
+    code_projet varchar(255),
+    date_edition date,
+    division_projet varchar(255),
+    famille_name varchar(255),
+    famille_projet varchar(255),
+    montant_a_deposer float(53),
+    montant_a_deposer_sys float(53),
+    montant_bc float(53),
+    montant_cloture float(53),
+    montant_depose float(53),
+    montant_depose_sys float(53),
+    montant_encours float(53),
+    montant_realise float(53),
+    montant_recep_tech float(53),
+    montant_recep_tech_en_cours float(53),
+    montant_recep_tech_reserve float(53),
+    montant_receptionne_date float(53),
+    montant_receptionne_sys float(53),
+    montant_sys float(53),
+    montant_tech float(53),
+    num_bc varchar(255) not null,
+    num_ligne integer,
+    prix float(53),
+    qte_bc float(53),
+    qte_encours_encours float(53),
+    qte_realise float(53),
+    qte_realise_realise float(53),
+    service_description varchar(255),
+    service_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table bon_de_commande (
+    id bigint not null,
+    code_projet varchar(255),
+    date_edition date,
+    description varchar(255),
+    division_projet varchar(255),
+    is_ot bit not null,
+    num_bc varchar(255) not null,
+    num_ot varchar(255),
+    num_projet_facturation varchar(255),
+    num_pv_reception varchar(255),
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    back_office_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table bon_de_commande_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into bon_de_commande_seq values ( 1 );
+
+create table cache_invalidation_log (
+    id bigint not null auto_increment,
+    cache_key varchar(191),
+    cache_name varchar(64) not null,
+    created_at datetime(6) not null,
+    node_id varchar(36) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table chefs (
+    id integer not null auto_increment,
+    user_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table coordinateurs (
+    id integer not null auto_increment,
+    user_id integer not null,
+    zone_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table dashboard_metrics (
+    id bigint not null auto_increment,
+    back_office_id integer,
+    calculation_date date,
+    famille varchar(255),
+    montant_a_depose_sys float(53),
+    montant_cloture_terrain float(53),
+    montant_depose_sys float(53),
+    montant_receptionne_facture float(53),
+    montant_total_bc float(53),
+    taux_realisation float(53),
+    primary key (id)
+) engine=InnoDB;
+
+create table event_outbox (
+    id bigint not null auto_increment,
+    attempts integer not null,
+    created_at datetime(6) not null,
+    event_type varchar(64) not null,
+    handler varchar(64) not null,
+    last_error varchar(1000),
+    next_attempt_at datetime(6) not null,
+    payload TEXT not null,
+    status enum ('FAILED','PENDING') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table familles (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table files (
+    id bigint not null auto_increment,
+    content longblob,
+    content_type varchar(255),
+    name varchar(255),
+    bon_de_commande_id bigint,
+    suivi_prestation_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table fournisseurs (
+    id integer not null auto_increment,
+    nom varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table ligne_bc (
+    id varchar(255) not null,
+    date_debut_planifiee date,
+    date_debut_reel date,
+    date_depot_pf date,
+    date_fin_reel date,
+    date_go date,
+    date_reception_tech date,
+    delai_reception_bc integer,
+    fournisseur varchar(255),
+    qte_realise integer,
+    remarque varchar(255),
+    site varchar(255),
+    statut_realisation enum ('annule','en_cours','realise'),
+    statut_reception_system enum ('A_deposer','Receptionne'),
+    zone varchar(255),
+    prestation_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table notification_reads (
+    id bigint not null auto_increment,
+    notification_id integer not null,
+    read_at datetime(6) not null,
+    utilisateur_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table notifications (
+    id integer not null auto_increment,
+    audience enum ('BACK_OFFICE','CHEF_PROJET','COORDINATEUR','EMPLOYEE','RESPONSABLE_COMPTE'),
+    created_at datetime(6) not null,
+    is_read bit not null,
+    message varchar(255) not null,
+    utilisateur_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table ot (
+    num_ot varchar(255) not null,
+    code_projet varchar(255),
+    date_go date,
+    division_projet varchar(255),
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    back_office_id integer,
+    codesite_id integer,
+    zone_id integer,
+    primary key (num_ot)
+) engine=InnoDB;
+
+create table ot_prestation (
+    id bigint not null auto_increment,
+    date_debut datetime(6),
+    date_fin datetime(6),
+    date_go date,
+    date_pf datetime(6),
+    date_planifiee datetime(6),
+    date_realisation datetime(6),
+    date_recep_sys datetime(6),
+    date_recep_tech datetime(6),
+    delai_recep integer,
+    famille varchar(255),
+    fournisseur varchar(255),
+    num_ligne integer,
+    qte_encours float(53) not null,
+    qte_realise float(53) not null,
+    qte_valide integer,
+    remarque varchar(255),
+    statut_de_realisation TINYINT,
+    statut_de_recep_tech TINYINT,
+    statut_reception_system TINYINT,
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    coordinateur_id integer,
+    fichier_reception_tech_id bigint,
+    ot_num_ot varchar(255),
+    service_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table password_reset_tokens (
+    id bigint not null auto_increment,
+    expiry_date datetime(6) not null,
+    token varchar(255) not null,
+    used bit not null,
+    user_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table prestations (
+    id bigint not null,
+    code varchar(255) not null,
+    code_site varchar(255),
+    description varchar(255),
+    fournisseur varchar(255),
+    num_ligne integer,
+    qte_bc float(53),
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    bc_id bigint,
+    famille_id bigint,
+    service_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table prestations_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into prestations_seq values ( 1 );
+
+create table services (
+    id integer not null auto_increment,
+    description varchar(255),
+    famille_technique varchar(255),
+    modele_technique varchar(255),
+    prix float(53) not null,
+    ref_auxigene varchar(255),
+    remarque varchar(255),
+    specification varchar(255),
+    type varchar(255),
+    type_materiel varchar(255),
+    unite varchar(255),
+    famille_id bigint,
+    primary key (id)
+) engine=InnoDB;
+
+create table site (
+    id integer not null auto_increment,
+    codesite varchar(255),
+    region varchar(255),
+    zone_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table suivi_prestation (
+    id integer not null auto_increment,
+    date_debut datetime(6),
+    date_fin datetime(6),
+    date_go date,
+    date_pf datetime(6),
+    date_planifiee datetime(6),
+    date_realisation datetime(6),
+    date_recep_sys datetime(6),
+    date_recep_tech datetime(6),
+    delai_recep integer,
+    fournisseur varchar(255),
+    qteadepose float(53),
+    qte_depose float(53),
+    qte_encours float(53),
+    qte_realise float(53),
+    qte_sys float(53),
+    qte_tech float(53),
+    quantite_valide integer,
+    remarque varchar(255),
+    statut_de_realisation TINYINT,
+    statut_de_recep_tech TINYINT,
+    statut_reception_system TINYINT,
+    updated_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
+    version bigint default 0 not null,
+    codesite_id integer,
+    coordinateur_id integer,
+    fichier_reception_tech_id bigint,
+    prestation_id bigint,
+    zone_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+create table suivi_prestation_notifications (
+    id integer not null auto_increment,
+    notification_type varchar(255) not null,
+    suivi_prestation_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table suivi_prestation_pending_edits (
+    id bigint not null auto_increment,
+    created_at datetime(6) not null,
+    patch TEXT not null,
+    suivi_prestation_id integer not null,
+    user_email varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table sync_tombstones (
+    id bigint not null auto_increment,
+    deleted_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    entity_id varchar(255) not null,
+    entity_type varchar(32) not null,
+    parent_id varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table utilisateurs (
+    id integer not null auto_increment,
+    email varchar(255),
+    mdp varchar(255),
+    nom varchar(255),
+    role enum ('BACK_OFFICE','CHEF_PROJET','COORDINATEUR','EMPLOYEE','RESPONSABLE_COMPTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table zones (
+    id integer not null auto_increment,
+    nom varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+alter table back_office
+   add constraint UKpab6cwsjq23l1nucbyjwatavw unique (user_id);
+
+create index idx_bc_archive_back_office
+   on bc_archive (back_office_id, archived_at);
+
+create index idx_bc_archive_code_projet
+   on bc_archive (code_projet);
+
+create index idx_bc_archive_agg_back_office
+   on bc_archive_aggregates (back_office_id);
+
+create index idx_bc_archive_agg_num_bc
+   on bc_archive_aggregates (num_bc);
+
+create index idx_bc_back_office_updated
+   on bon_de_commande (back_office_id, updated_at);
+
+create index idx_bc_updated
+   on bon_de_commande (updated_at);
+
+alter table bon_de_commande
+   add constraint uk_bc_num_bc unique (num_bc);
+
+create index idx_cache_invalidation_created
+   on cache_invalidation_log (created_at);
+
+alter table chefs
+   add constraint UK8x7imqh9u7h721hkks7we3gex unique (user_id);
+
+alter table coordinateurs
+   add constraint UKhjy9a8cwyx1k1ot0032189w27 unique (user_id);
+
+create index idx_outbox_status_next
+   on event_outbox (status, next_attempt_at);
+
+alter table familles
+   add constraint UK55lu7lnrf1v1q3fyavbgyi67w unique (name);
+
+alter table files
+   add constraint UK8i7cdxyom1oyqhyll4rpb2k8k unique (bon_de_commande_id);
+
+alter table files
+   add constraint UKc2ry68xevt687q0u00tn1avk2 unique (suivi_prestation_id);
+
+alter table notification_reads
+   add constraint uk_notification_read unique (utilisateur_id, notification_id);
+
+create index idx_notification_user_created
+   on notifications (utilisateur_id, created_at);
+
+create index idx_notification_audience_created
+   on notifications (audience, created_at);
+
+create index idx_ot_updated
+   on ot (updated_at);
+
+create index idx_ot_prestation_updated
+   on ot_prestation (updated_at);
+
+create index idx_ot_prestation_ot_statut
+   on ot_prestation (ot_num_ot, statut_de_realisation, statut_de_recep_tech);
+
+alter table ot_prestation
+   add constraint UKqxnkikrbsp0ek3f1otqx1s7b3 unique (fichier_reception_tech_id);
+
+alter table password_reset_tokens
+   add constraint UK71lqwbwtklmljk3qlsugr1mig unique (token);
+
+create index idx_prestations_updated
+   on prestations (updated_at);
+
+alter table prestations
+   add constraint uk_prestations_code unique (code);
+
+alter table services
+   add constraint UK90c7awdxti9mdulb83joms377 unique (ref_auxigene);
+
+alter table site
+   add constraint UK8nfcr2hlewp8iw2t6u65u6y7i unique (codesite);
+
+create index idx_suivi_coord_statut_plan
+   on suivi_prestation (coordinateur_id, statut_de_realisation, date_planifiee);
+
+create index idx_suivi_zone_statut_plan
+   on suivi_prestation (zone_id, statut_de_realisation, date_planifiee);
+
+create index idx_suivi_statut_realisation
+   on suivi_prestation (statut_de_realisation, date_realisation);
+
+create index idx_suivi_recep_tech
+   on suivi_prestation (statut_de_recep_tech, date_recep_tech);
+
+create index idx_suivi_recep_sys
+   on suivi_prestation (statut_reception_system, date_recep_sys);
+
+create index idx_suivi_prestation_realisation
+   on suivi_prestation (prestation_id, statut_de_realisation);
+
+create index idx_suivi_prestation_recep_tech
+   on suivi_prestation (prestation_id, statut_de_recep_tech);
+
+create index idx_suivi_prestation_recep_sys
+   on suivi_prestation (prestation_id, statut_reception_system);
+
+create index idx_suivi_coord_updated
+   on suivi_prestation (coordinateur_id, updated_at);
+
+create index idx_suivi_updated
+   on suivi_prestation (updated_at);
+
+alter table suivi_prestation
+   add constraint UK8sgtxdo1p9gk1tk2tdm49pnt1 unique (fichier_reception_tech_id);
+
+create index IDXg0tua2r7tledocm4ascnlktte
+   on suivi_prestation_pending_edits (suivi_prestation_id);
+
+create index idx_tombstone_type_deleted
+   on sync_tombstones (entity_type, deleted_at);
+
+create index idx_tombstone_deleted
+   on sync_tombstones (deleted_at);
+
+alter table utilisateurs
+   add constraint UK6ldvumu3hqvnmmxy1b6lsxwqy unique (email);
+
+alter table back_office
+   add constraint FKrk4d5bsoa1h8xgac3wgs8rx7n
+   foreign key (user_id)
+   references utilisateurs (id);
+
+alter table bon_de_commande
+   add constraint FK8r2fn3khmfyo16dvpel1rcolq
+   foreign key (back_office_id)
+   references back_office (id);
+
+alter table chefs
+   add constraint FK3oesnv7or4ywy7hnd7fvn1ci3
+   foreign key (user_id)
+   references utilisateurs (id);
+
+alter table coordinateurs
+   add constraint FK6oxr69lqc2ufpib5uad11n3aq
+   foreign key (user_id)
+   references utilisateurs (id);
+
+alter table coordinateurs
+   add constraint FK6d26i9b33t2a3spv1ihstnv6s
+   foreign key (zone_id)
+   references zones (id);
+
+alter table files
+   add constraint FKct7nkibqeh3q1s8t87b7yk5ap
+   foreign key (bon_de_commande_id)
+   references bon_de_commande (id);
+
+alter table files
+   add constraint FK2ko7tiw5qb4r8l1hy6vh0v2bh
+   foreign key (suivi_prestation_id)
+   references suivi_prestation (id);
+
+alter table ligne_bc
+   add constraint FKa53944o952u17yrfsgfkx7ymc
+   foreign key (prestation_id)
+   references prestations (id);
+
+alter table notifications
+   add constraint FKsoq6jchv8p6wnydvsnf6ubw4y
+   foreign key (utilisateur_id)
+   references utilisateurs (id);
+
+alter table ot
+   add constraint FKfrntg5wdiiit2dhi155x0l9g5
+   foreign key (back_office_id)
+   references back_office (id);
+
+alter table ot
+   add constraint FKl4xqe87y2fcatvfeusvmnp63o
+   foreign key (codesite_id)
+   references site (id);
+
+alter table ot
+   add constraint FKeksanbcg0sn68l7ey993fj0wl
+   foreign key (zone_id)
+   references zones (id);
+
+alter table ot_prestation
+   add constraint FKcpmaur2h7bje7aexgdbsm0g8b
+   foreign key (coordinateur_id)
+   references coordinateurs (id);
+
+alter table ot_prestation
+   add constraint FK811635h0ac6bnoy1banmin8em
+   foreign key (fichier_reception_tech_id)
+   references files (id);
+
+alter table ot_prestation
+   add constraint FKir6bfbqbo0qdr4b1xs07t5s3u
+   foreign key (ot_num_ot)
+   references ot (num_ot);
+
+alter table ot_prestation
+   add constraint FKdddcqrs0f5e22n4rwm876ouud
+   foreign key (service_id)
+   references services (id);
+
+alter table password_reset_tokens
+   add constraint FK99g2vykf0rj8240sk3wv9yrss
+   foreign key (user_id)
+   references utilisateurs (id);
+
+alter table prestations
+   add constraint FK6sn8i0xw5aotohfljn65jtam8
+   foreign key (bc_id)
+   references bon_de_commande (id);
+
+alter table prestations
+   add constraint FKq7v2ajrkpbx4bjqwedho6wy0x
+   foreign key (famille_id)
+   references familles (id);
+
+alter table prestations
+   add constraint FKtj4jf1itnuxy0yc2x1u1bqr6e
+   foreign key (service_id)
+   references services (id);
+
+alter table services
+   add constraint FKg6go0ucmxasiduo6ghs0v34ha
+   foreign key (famille_id)
+   references familles (id);
+
+alter table site
+   add constraint FKhw3yv89p6eg0bbjdnt5it3nop
+   foreign key (zone_id)
+   references zones (id);
+
+alter table suivi_prestation
+   add constraint FKj0hr8yr8r6dee06o76kjf54dw
+   foreign key (codesite_id)
+   references site (id);
+
+alter table suivi_prestation
+   add constraint FK94bdwuxi85d0vv8wpdjlg43s0
+   foreign key (coordinateur_id)
+   references coordinateurs (id);
+
+alter table suivi_prestation
+   add constraint FKbu0q8atjby8rh51v3odrufitx
+   foreign key (fichier_reception_tech_id)
+   references files (id);
+
+alter table suivi_prestation
+   add constraint FK9tiugg4ar4mr1lvs4ejp3cxtn
+   foreign key (prestation_id)
+   references prestations (id);
+
+alter table suivi_prestation
+   add constraint FKh0ocd548h9srb7qrqyhybr0p4
+   foreign key (zone_id)
+   references zones (id);
+
+alter table suivi_prestation_notifications
+   add constraint FK4otkou8hid6xfy2l8ofl87rod
+   foreign key (suivi_prestation_id)
+   references suivi_prestation (id);
@@ -0,0 +1,26 @@
+-- Indexes for the access paths that only had the one MySQL creates for a foreign key, or none.
+-- Already covered by V1, or by V4.1 on a database baselined from ddl-auto=update, so not repeated here:
+--   suivi_prestation.prestation_id   leftmost column of idx_suivi_prestation_realisation / _recep_tech / _recep_sys
+--   suivi_prestation.coordinateur_id leftmost column of idx_suivi_coord_statut_plan and idx_suivi_coord_updated
+--   notifications.utilisateur_id     leftmost column of idx_notification_user_created
+--   site.codesite                    unique key
+-- Where the first column has a foreign key, MySQL drops the index it had created for it in favour of the new one.
+
+-- Lines of a BC in num_ligne order (BC detail, exports, archive)
+create index idx_prestations_bc
+   on prestations (bc_id, num_ligne);
+
+-- Reminder scheduler: realised but not received technically, received technically but not in the system
+create index idx_suivi_recep_tech_pending
+   on suivi_prestation (date_recep_tech, date_realisation);
+
+create index idx_suivi_recep_sys_pending
+   on suivi_prestation (date_recep_sys, date_recep_tech);
+
+-- Dashboard history of a back office over a date range
+create index idx_dashboard_metrics_bo_date
+   on dashboard_metrics (back_office_id, calculation_date);
+
+-- Reminders already sent for a suivi
+create index idx_suivi_notification_type
+   on suivi_prestation_notifications (suivi_prestation_id, notification_type);
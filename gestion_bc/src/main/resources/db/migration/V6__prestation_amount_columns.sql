@@ -0,0 +1,37 @@
+-- Unit price snapshot on the lines and their suivis, and the amounts as stored generated columns, so that the report,
+-- dashboard and archive sums read them instead of multiplying every row by services.prix.
+-- Existing rows take the current price of their service. The generated columns rebuild both tables (ALGORITHM=COPY).
+
+alter table prestations
+   add column prix_unitaire float(53);
+
+update prestations p
+   join services s on s.id = p.service_id
+   set p.prix_unitaire = s.prix, p.updated_at = p.updated_at;
+
+alter table prestations
+   add column montant_bc double generated always as (qte_bc * prix_unitaire) stored;
+
+alter table suivi_prestation
+   add column prix_unitaire float(53);
+
+update suivi_prestation sp
+   join prestations p on p.id = sp.prestation_id
+   set sp.prix_unitaire = p.prix_unitaire, sp.updated_at = sp.updated_at;
+
+alter table suivi_prestation
+   add column montant_realise double generated always as (qte_realise * prix_unitaire) stored,
+   add column montant_encours double generated always as (qte_encours * prix_unitaire) stored,
+   add column montant_tech double generated always as (qte_tech * prix_unitaire) stored,
+   add column montant_depose double generated always as (qte_depose * prix_unitaire) stored,
+   add column montant_a_deposer double generated always as (qteadepose * prix_unitaire) stored,
+   add column montant_sys double generated always as (qte_sys * prix_unitaire) stored;
+
+-- Covering indexes of those sums: the lines of a BC, then the suivis of each line, without reading the rows
+create index idx_prestations_bc_amounts
+   on prestations (bc_id, service_id, famille_id, qte_bc, montant_bc, prix_unitaire);
+
+create index idx_suivi_prestation_amounts
+   on suivi_prestation (prestation_id, statut_de_realisation, statut_de_recep_tech, statut_reception_system,
+                        qte_realise, qte_encours, montant_realise, montant_encours, montant_tech, montant_depose,
+                        montant_a_deposer, montant_sys, date_recep_sys);
@@ -0,0 +1,16 @@
+-- Owning node and lease of the pending autosave edits (SuiviAutosaveService). Edits stored before this version are
+-- given an expired lease: the first node that starts takes them over.
+
+alter table suivi_prestation_pending_edits
+   add column owner_node varchar(36) not null default '',
+   add column lease_until datetime(6) not null default '1970-01-01 00:00:00';
+
+alter table suivi_prestation_pending_edits
+   alter column owner_node drop default,
+   alter column lease_until drop default;
+
+create index idx_pending_edit_owner
+   on suivi_prestation_pending_edits (owner_node);
+
+create index idx_pending_edit_lease
+   on suivi_prestation_pending_edits (lease_until);
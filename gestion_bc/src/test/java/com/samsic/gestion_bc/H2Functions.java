@@ -0,0 +1,37 @@
+package com.samsic.gestion_bc;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+// MySQL functions the native queries use and H2 does not have, registered by h2-mysql-functions.sql
+public final class H2Functions {
+    private static final Map<Character, String> PATTERNS = Map.of(
+            'Y', "yyyy", 'm', "MM", 'd', "dd", 'H', "HH", 'i', "mm", 's', "ss");
+
+    private H2Functions() {
+    }
+
+    // DATE_FORMAT for the specifiers of the queries (%Y %m %d %H %i %s)
+    public static String dateFormat(java.sql.Timestamp date, String format) {
+        if (date == null) {
+            return null;
+        }
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c == '%' && i + 1 < format.length()) {
+                char specifier = format.charAt(++i);
+                String replacement = PATTERNS.get(specifier);
+                if (replacement == null) {
+                    throw new IllegalArgumentException("Unsupported DATE_FORMAT specifier: %" + specifier);
+                }
+                pattern.append(replacement);
+            } else {
+                pattern.append('\'').append(c == '\'' ? "''" : String.valueOf(c)).append('\'');
+            }
+        }
+        LocalDateTime dateTime = date.toLocalDateTime();
+        return dateTime.format(DateTimeFormatter.ofPattern(pattern.toString()));
+    }
+}
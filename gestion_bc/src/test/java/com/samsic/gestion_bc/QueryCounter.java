@@ -0,0 +1,30 @@
+package com.samsic.gestion_bc;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Statements Hibernate prepares on the calling thread (hibernate.session_factory.statement_inspector of the test
+// profile): the schedulers query on their own threads and do not disturb the count of a test
+public class QueryCounter implements StatementInspector {
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    public static int count() {
+        return STATEMENTS.get().size();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+}
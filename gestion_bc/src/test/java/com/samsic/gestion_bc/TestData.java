@@ -0,0 +1,146 @@
+package com.samsic.gestion_bc;
+
+import com.samsic.gestion_bc.models.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Rows for the tests, each set with names of its own: the test classes share the context and its database
+@TestComponent
+public class TestData {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    public TestData(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Reference(Zone zone, Site site, Famille famille, List<ServiceQ> services,
+                            BackOffice backOffice, Coordinateur coordinateur) {
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "-" + SEQUENCE.incrementAndGet();
+    }
+
+    // A zone with one site, a famille with two services, a back office and a coordinateur of the zone
+    public Reference reference() {
+        return transactionTemplate.execute(status -> {
+            Zone zone = persist(Zone.builder().nom(unique("zone")).build());
+            Site site = persist(Site.builder().codesite(unique("SITE")).zone(zone).region("Nord").build());
+            Famille famille = persist(Famille.builder().name(unique("famille")).build());
+            List<ServiceQ> services = new ArrayList<>();
+            for (int i = 1; i <= 2; i++) {
+                services.add(persist(ServiceQ.builder().famille(famille).refAuxigene(unique("REF"))
+                        .description("service " + i).unite("U").prix(100.0 * i).build()));
+            }
+            BackOffice backOffice = persist(BackOffice.builder().user(user(Role.BACK_OFFICE)).build());
+            Coordinateur coordinateur = persist(Coordinateur.builder().user(user(Role.COORDINATEUR)).zone(zone).build());
+            return new Reference(zone, site, famille, services, backOffice, coordinateur);
+        });
+    }
+
+    // A BC of the back office whose lines alternate between the services, each with a suivi in the zone
+    public BonDeCommande bonDeCommande(Reference reference, int lines) {
+        return transactionTemplate.execute(status -> {
+            BonDeCommande bc = new BonDeCommande();
+            bc.setNumBc(unique("BC"));
+            bc.setCodeProjet("PRJ");
+            bc.setDescription("bon de commande de test");
+            bc.setDateEdition(LocalDate.now());
+            bc.setBackOffice(entityManager.getReference(BackOffice.class, reference.backOffice().getId()));
+            for (int i = 1; i <= lines; i++) {
+                ServiceQ service = entityManager.getReference(ServiceQ.class, reference.services().get(i % 2).getId());
+                Prestation prestation = new Prestation();
+                prestation.setCode(unique("PST"));
+                prestation.setNumLigne(i);
+                prestation.setDescription("ligne " + i);
+                prestation.setQteBc(10.0);
+                prestation.setPrixUnitaire(100.0 * (i % 2 + 1));
+                prestation.setService(service);
+                prestation.setFamilleProjet(entityManager.getReference(Famille.class, reference.famille().getId()));
+                prestation.setBonDeCommande(bc);
+                bc.getPrestations().add(prestation);
+            }
+            entityManager.persist(bc);
+            for (Prestation prestation : bc.getPrestations()) {
+                SuiviPrestation suivi = new SuiviPrestation();
+                suivi.setPrestation(prestation);
+                suivi.setZone(entityManager.getReference(Zone.class, reference.zone().getId()));
+                suivi.setCodesite(entityManager.getReference(Site.class, reference.site().getId()));
+                suivi.setCoordinateur(entityManager.getReference(Coordinateur.class, reference.coordinateur().getId()));
+                suivi.setQuantiteValide(10);
+                suivi.setQteRealise(4.0);
+                suivi.setQteEncours(6.0);
+                suivi.setPrixUnitaire(prestation.getPrixUnitaire());
+                suivi.setStatutDeRealisation(StatutRealisation.EN_COURS);
+                entityManager.persist(suivi);
+            }
+            return bc;
+        });
+    }
+
+    // Another coordinateur of the zone of the reference
+    public Coordinateur coordinateur(Reference reference) {
+        return transactionTemplate.execute(status -> persist(Coordinateur.builder().user(user(Role.COORDINATEUR))
+                .zone(entityManager.getReference(Zone.class, reference.zone().getId())).build()));
+    }
+
+    // An OT of the back office in the zone and site, its lines alternating between the services
+    public Ot ot(Reference reference, int lines) {
+        return ot(reference, reference.coordinateur(), lines);
+    }
+
+    public Ot ot(Reference reference, Coordinateur coordinateur, int lines) {
+        return transactionTemplate.execute(status -> {
+            Ot ot = new Ot();
+            ot.setNumOt(unique("OT"));
+            ot.setCodeProjet("PRJ");
+            ot.setDateGo(LocalDate.now());
+            ot.setZone(entityManager.getReference(Zone.class, reference.zone().getId()));
+            ot.setCodeSite(entityManager.getReference(Site.class, reference.site().getId()));
+            ot.setBackOffice(entityManager.getReference(BackOffice.class, reference.backOffice().getId()));
+            for (int i = 1; i <= lines; i++) {
+                OtPrestation line = new OtPrestation();
+                line.setNumLigne(i);
+                line.setQuantiteValide(5);
+                line.setService(entityManager.getReference(ServiceQ.class, reference.services().get(i % 2).getId()));
+                line.setCoordinateur(entityManager.getReference(Coordinateur.class, coordinateur.getId()));
+                line.setOt(ot);
+                ot.getPrestations().add(line);
+            }
+            entityManager.persist(ot);
+            return ot;
+        });
+    }
+
+    // Empties the second-level and query caches, so that a count includes the reference rows
+    public void evictCaches() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    private Utilisateur user(Role role) {
+        String name = unique(role.name().toLowerCase());
+        return persist(Utilisateur.builder().nom(name).email(name + "@samsic.test").mdp("{noop}secret").role(role).build());
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
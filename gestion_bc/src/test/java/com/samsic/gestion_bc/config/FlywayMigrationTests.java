@@ -0,0 +1,195 @@
+package com.samsic.gestion_bc.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Every migration of db/migration and every JavaMigration bean, in version order on an empty database, then the
+// mapping validated against the result (ddl-auto=validate), as a new installation starts.
+// H2 stands in for MySQL: the SQL files run statement by statement with the few MySQL-only forms they use rewritten
+// (see H2Migrations.toH2), and the Java migrations, which only change a database baselined from ddl-auto=update and
+// read MySQL's information_schema to find out, are recorded without running.
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // As in production: sequences are the tables V1 creates, not H2 sequences
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect"
+})
+@ActiveProfiles("test")
+@Import(FlywayMigrationTests.H2Migrations.class)
+class FlywayMigrationTests {
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private List<JavaMigration> javaMigrations;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migratesAnEmptyDatabaseToTheMappedSchema() throws IOException {
+        SortedSet<MigrationVersion> expected = new TreeSet<>();
+        for (Resource resource : H2Migrations.sqlFiles()) {
+            expected.add(H2Migrations.version(resource));
+        }
+        javaMigrations.forEach(migration -> expected.add(migration.getVersion()));
+
+        MigrationInfo[] applied = flyway.info().applied();
+        assertEquals(new ArrayList<>(expected), Arrays.stream(applied).map(MigrationInfo::getVersion).toList());
+        Arrays.stream(applied).forEach(info -> assertEquals(MigrationState.SUCCESS, info.getState(), info.getDescription()));
+        assertEquals(0, flyway.info().pending().length);
+
+        // Not mapped, so not validated: the amount columns of V6 the report queries read
+        jdbcTemplate.queryForList("SELECT montant_bc FROM prestations");
+        jdbcTemplate.queryForList("SELECT montant_realise, montant_encours, montant_tech, montant_depose, montant_a_deposer, "
+                + "montant_sys FROM suivi_prestation");
+    }
+
+    @TestConfiguration
+    static class H2Migrations {
+        private static final Pattern FILE_NAME = Pattern.compile("V([0-9.]+)__(.+)\\.sql");
+        private static final Pattern UPDATE_JOIN = Pattern.compile(
+                "update (\\w+) (\\w+)\\s+join (\\w+) (\\w+) on (.+?)\\s+set (.+)", Pattern.DOTALL);
+        private static final Pattern ALTER_CLAUSES = Pattern.compile(",\\s*\\n\\s*(?=(add|alter|drop|modify) )");
+
+        static Resource[] sqlFiles() throws IOException {
+            return new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*__*.sql");
+        }
+
+        static MigrationVersion version(Resource resource) {
+            return MigrationVersion.fromVersion(fileName(resource).group(1));
+        }
+
+        private static Matcher fileName(Resource resource) {
+            Matcher matcher = FILE_NAME.matcher(Objects.requireNonNull(resource.getFilename()));
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Not a versioned migration: " + resource.getFilename());
+            }
+            return matcher;
+        }
+
+        @Bean
+        FlywayConfigurationCustomizer h2MigrationsCustomizer(List<JavaMigration> beans) {
+            return configuration -> {
+                List<JavaMigration> migrations = new ArrayList<>();
+                try {
+                    for (Resource resource : sqlFiles()) {
+                        migrations.add(new H2SqlMigration(resource));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                beans.forEach(bean -> migrations.add(new Recorded(bean.getVersion(), bean.getDescription())));
+                configuration.locations(new String[0]).javaMigrations(migrations.toArray(JavaMigration[]::new));
+            };
+        }
+
+        // The MySQL-only forms of the migrations, in H2 syntax
+        static List<String> toH2(String statement) {
+            String sql = statement.replaceAll("\\)\\s+stored", ")");
+            Matcher update = UPDATE_JOIN.matcher(sql);
+            if (update.matches()) {
+                // update t a join u b on <cond> set a.x = <expr>, ...  ->  one correlated subquery per column
+                String from = " from " + update.group(3) + " " + update.group(4) + " where " + update.group(5);
+                List<String> assignments = new ArrayList<>();
+                for (String assignment : update.group(6).split(",")) {
+                    String[] sides = assignment.split("=", 2);
+                    String column = sides[0].trim().replaceFirst("^" + update.group(2) + "\\.", "");
+                    String value = sides[1].trim();
+                    if (!value.equals(update.group(2) + "." + column)) {
+                        assignments.add(column + " = (select " + value + from + ")");
+                    }
+                }
+                return List.of("update " + update.group(1) + " " + update.group(2) + " set " + String.join(", ", assignments)
+                        + " where exists (select 1" + from + ")");
+            }
+            if (sql.startsWith("alter table ")) {
+                String[] clauses = ALTER_CLAUSES.split(sql);
+                if (clauses.length > 1) {
+                    String table = clauses[0].substring(0, clauses[0].indexOf(' ', "alter table ".length()));
+                    List<String> statements = new ArrayList<>(List.of(clauses[0]));
+                    for (int i = 1; i < clauses.length; i++) {
+                        statements.add(table + " " + clauses[i].trim());
+                    }
+                    return statements;
+                }
+            }
+            return List.of(sql);
+        }
+
+        private record H2SqlMigration(Resource resource) implements JavaMigration {
+            @Override
+            public MigrationVersion getVersion() {
+                return version(resource);
+            }
+
+            @Override
+            public String getDescription() {
+                return fileName(resource).group(2).replace('_', ' ');
+            }
+
+            @Override
+            public Integer getChecksum() {
+                return null;
+            }
+
+            @Override
+            public boolean canExecuteInTransaction() {
+                return true;
+            }
+
+            @Override
+            public void migrate(Context context) throws Exception {
+                String script = resource.getContentAsString(StandardCharsets.UTF_8).replaceAll("(?m)^\\s*--.*$", "");
+                try (Statement statement = context.getConnection().createStatement()) {
+                    for (String sql : script.split(";\\s*(\\n|$)")) {
+                        if (!sql.isBlank()) {
+                            for (String h2 : toH2(sql.trim())) {
+                                statement.execute(h2);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private record Recorded(MigrationVersion getVersion, String getDescription) implements JavaMigration {
+            @Override
+            public Integer getChecksum() {
+                return null;
+            }
+
+            @Override
+            public boolean canExecuteInTransaction() {
+                return true;
+            }
+
+            @Override
+            public void migrate(Context context) {
+            }
+        }
+    }
+}
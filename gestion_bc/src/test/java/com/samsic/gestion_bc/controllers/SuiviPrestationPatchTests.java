@@ -0,0 +1,109 @@
+package com.samsic.gestion_bc.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import com.samsic.gestion_bc.services.SuiviPrestationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Merge patch of a suivi: If-Match is required (428), must be the current ETag (412) or "*", and only the members
+// of the patch are written
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class SuiviPrestationPatchTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private SuiviPrestationController controller;
+    @Autowired
+    private SuiviPrestationService suiviPrestationService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer suiviId;
+
+    @BeforeEach
+    void setUp() {
+        TestData.Reference reference = testData.reference();
+        testData.bonDeCommande(reference, 1);
+        String email = reference.coordinateur().getUser().getEmail();
+        suiviId = suiviPrestationService.getSuiviPrestationsByEmail(email).get(0).getId();
+        jdbcTemplate.update("UPDATE suivi_prestation SET fournisseur = 'ACME' WHERE id = ?", suiviId);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_COORDINATEUR"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void missingIfMatchIsRefused() {
+        assertEquals(HttpStatus.PRECONDITION_REQUIRED, patch(null).getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_REQUIRED, patch(" ").getStatusCode());
+        assertNull(row().get("remarque"));
+    }
+
+    @Test
+    void staleIfMatchIsRefused() {
+        String etag = currentEtag();
+        assertEquals(HttpStatus.OK, patch(etag).getStatusCode());
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, patch(etag).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, patch("\"abc\"").getStatusCode());
+    }
+
+    @Test
+    void currentIfMatchWritesThePatchedMembersOnly() {
+        String etag = currentEtag();
+        long version = Long.parseLong(etag.replace("\"", ""));
+
+        ResponseEntity<SuiviPrestationResponse> response = patch(etag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + (version + 1) + "\"", response.getHeaders().getETag());
+        assertEquals(Map.of("remarque", "patched", "fournisseur", "ACME"), row());
+        // The explicit opt-out overwrites whatever the version
+        assertEquals(HttpStatus.OK, patch("*").getStatusCode());
+    }
+
+    private String currentEtag() {
+        return controller.getSuiviPrestation(suiviId).getHeaders().getETag();
+    }
+
+    private ResponseEntity<SuiviPrestationResponse> patch(String ifMatch) {
+        try {
+            JsonNode patch = objectMapper.readTree("{\"remarque\": \"patched\"}");
+            return controller.patchSuiviPrestation(suiviId, patch, ifMatch);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Object> row() {
+        return jdbcTemplate.queryForMap("SELECT remarque, fournisseur FROM suivi_prestation WHERE id = ?", suiviId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.samsic.gestion_bc.models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Labels exchanged with the front and codes stored in the database and used as literals in the report SQL
+class CodedStatusTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void codesNeverChange() {
+        assertEquals(Map.of("PENDING", 0, "EN_COURS", 1, "REALISE", 2, "PLANIFIE", 3), codes(StatutRealisation.class));
+        assertEquals(Map.of("PENDING", 0, "EN_COURS", 1, "RESERVE", 2, "RECEPTIONNE", 3), codes(StatutRecepTech.class));
+        assertEquals(Map.of("PENDING", 0, "A_DEPOSER", 1, "DEPOSE", 2, "RECEPTIONNE", 3, "EN_COURS", 4),
+                codes(StatutReceptionSystem.class));
+    }
+
+    @Test
+    void everyStatusRoundTripsThroughItsLabelAndItsCode() throws Exception {
+        roundTrip(StatutRealisation.class, new StatutRealisation.Converter());
+        roundTrip(StatutRecepTech.class, new StatutRecepTech.Converter());
+        roundTrip(StatutReceptionSystem.class, new StatutReceptionSystem.Converter());
+    }
+
+    // What the coordinator screens send, defaults and options included
+    @Test
+    void acceptsTheLabelsOfTheCoordinatorScreens() throws Exception {
+        SuiviPrestationResponse defaults = objectMapper.readValue("""
+                {"statutDeRealisation": "Planifié", "statutReceptionTech": "En cours", "statutReceptionSystem": "En cours"}
+                """, SuiviPrestationResponse.class);
+        assertEquals(StatutRealisation.PLANIFIE, defaults.getStatutDeRealisation());
+        assertEquals(StatutRecepTech.EN_COURS, defaults.getStatutReceptionTech());
+        assertEquals(StatutReceptionSystem.EN_COURS, defaults.getStatutReceptionSystem());
+
+        assertEquals(StatutRealisation.REALISE, objectMapper.readValue(json("Realisé"), StatutRealisation.class));
+        assertEquals(StatutRealisation.EN_COURS, objectMapper.readValue(json("En cours"), StatutRealisation.class));
+        assertEquals(StatutRealisation.PLANIFIE, objectMapper.readValue(json("Planifié"), StatutRealisation.class));
+        assertEquals(StatutRecepTech.RECEPTIONNE, objectMapper.readValue(json("Receptionné"), StatutRecepTech.class));
+        assertEquals(StatutRecepTech.RESERVE, objectMapper.readValue(json("Réserve"), StatutRecepTech.class));
+        assertEquals(StatutReceptionSystem.A_DEPOSER, objectMapper.readValue(json("A déposer Sys"), StatutReceptionSystem.class));
+    }
+
+    @Test
+    void rejectsAnUnknownLabelAndIgnoresABlankOne() throws Exception {
+        assertThrows(ValueInstantiationException.class, () -> objectMapper.readValue(json("Annulé"), StatutRealisation.class));
+        assertThrows(IllegalArgumentException.class, () -> CodedStatus.fromCode(StatutReceptionSystem.class, 9));
+        assertNull(StatutRealisation.fromLabel(" "));
+    }
+
+    private <E extends Enum<E> & CodedStatus> void roundTrip(Class<E> type, CodedStatusConverter<E> converter) throws Exception {
+        for (E status : type.getEnumConstants()) {
+            assertEquals(status, CodedStatus.fromLabel(type, status.getLabel()));
+            assertEquals(status, CodedStatus.fromLabel(type, status.name()));
+            assertEquals(status, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(status)));
+            String serialized = objectMapper.writeValueAsString(status);
+            assertEquals(json(status.getLabel()), serialized);
+            assertEquals(status, objectMapper.readValue(serialized, type));
+        }
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    private static <E extends Enum<E> & CodedStatus> Map<String, Integer> codes(Class<E> type) {
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        Arrays.stream(type.getEnumConstants()).forEach(status -> codes.put(status.name(), status.getCode()));
+        return codes;
+    }
+
+    private static String json(String label) {
+        return "\"" + label + "\"";
+    }
+}
@@ -0,0 +1,107 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.QueryCounter;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.models.BonDeCommande;
+import com.samsic.gestion_bc.models.DashboardMetric;
+import com.samsic.gestion_bc.repositories.DashboardMetricRepository;
+import com.samsic.gestion_bc.repositories.PrestationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// The report and dashboard sums come from the amount columns, priced with the unit price of the line: a later change
+// of services.prix leaves them as they were. TestData lines: qteBc 10, qteRealise 4, qteEncours 6, en cours,
+// prices 200, 100, 200, 100.
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class AmountAggregateTests {
+    private static final Pattern SERVICES_JOIN = Pattern.compile("(?i)\\bjoin\\s+services\\b");
+    private static final double DELTA = 1e-6;
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private PrestationRepository prestationRepository;
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private DashboardMetricRepository dashboardMetricRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsSumTheLinePricesNotTheCurrentServicePrices() {
+        TestData.Reference reference = testData.reference();
+        BonDeCommande bc = testData.bonDeCommande(reference, 4);
+        String email = reference.backOffice().getUser().getEmail();
+        jdbcTemplate.update("UPDATE services SET prix = prix * 10 WHERE famille_id = ?", reference.famille().getId());
+
+        // numBc, ..., montantHt, montantCloture, montantFactureSys, montantDepose, montantADeposer, TEC, tauxRealisation
+        Object[] summary = row(prestationRepository.getBonDeCommandeSummaries(email), 0, bc.getNumBc());
+        assertEquals(6000, number(summary[6]), DELTA);
+        assertEquals(2400, number(summary[7]), DELTA);
+        assertEquals(0.4, number(summary[12]), DELTA);
+
+        // One row per service: realise, enCours, reliquat, prixUnite
+        List<Object[]> report = prestationRepository.getReportPrestationRaw(email);
+        assertEquals(2, report.size());
+        for (Object[] line : report) {
+            double prix = number(line[15]);
+            assertEquals(0, number(line[8]), DELTA);
+            assertEquals(2 * 6 * prix, number(line[9]), DELTA);
+            assertEquals(8, number(line[10]), DELTA);
+        }
+        assertEquals(List.of(100.0, 200.0), report.stream().map(line -> number(line[15])).sorted().toList());
+
+        // famille, montant_total_bc, montant_cloture_terrain, ..., montant_restant_bc, montant_travaux_en_cours
+        Object[] dashboard = row(prestationRepository.getDashboardData(email), 0, reference.famille().getName());
+        assertEquals(6000, number(dashboard[1]), DELTA);
+        assertEquals(0, number(dashboard[2]), DELTA);
+        assertEquals(6000, number(dashboard[9]), DELTA);
+        assertEquals(3600, number(dashboard[10]), DELTA);
+    }
+
+    @Test
+    void dailyMetricsSumTheAmountColumnsWithoutJoiningServices() {
+        TestData.Reference reference = testData.reference();
+        testData.bonDeCommande(reference, 4);
+        jdbcTemplate.update("UPDATE services SET prix = prix * 10 WHERE famille_id = ?", reference.famille().getId());
+
+        QueryCounter.reset();
+        dashboardService.calculateDailyMetrics();
+        List<String> servicesJoins = QueryCounter.statements().stream()
+                .filter(sql -> SERVICES_JOIN.matcher(sql).find())
+                .toList();
+        assertFalse(QueryCounter.statements().isEmpty());
+        assertEquals(List.of(), servicesJoins);
+
+        List<DashboardMetric> metrics = dashboardMetricRepository.findByBackOfficeIdAndCalculationDateBetween(
+                reference.backOffice().getId(), LocalDate.now(), LocalDate.now());
+        assertEquals(1, metrics.size());
+        DashboardMetric metric = metrics.get(0);
+        assertEquals(reference.famille().getName(), metric.getFamille());
+        assertEquals(6000, metric.getMontantTotalBc(), DELTA);
+        assertEquals(40, metric.getTauxRealisation(), DELTA);
+    }
+
+    private static Object[] row(List<Object[]> rows, int column, String value) {
+        return rows.stream().filter(row -> value.equals(row[column])).findFirst()
+                .orElseThrow(() -> new AssertionError("No row for " + value));
+    }
+
+    private static double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+}
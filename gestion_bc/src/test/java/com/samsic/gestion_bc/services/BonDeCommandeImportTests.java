@@ -0,0 +1,124 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.models.BonDeCommande;
+import com.samsic.gestion_bc.models.BonDeCommandeArchive;
+import com.samsic.gestion_bc.models.Notification;
+import com.samsic.gestion_bc.models.Prestation;
+import com.samsic.gestion_bc.repositories.BonDeCommandeArchiveRepository;
+import com.samsic.gestion_bc.repositories.BonDeCommandeRepository;
+import com.samsic.gestion_bc.repositories.NotificationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// CSV import of bons de commande: a document with one bad line is rejected whole, numbers already used by a live or
+// an archived BC are refused, and what goes in is announced like a BC created from the screen
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class BonDeCommandeImportTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ImportService importService;
+    @Autowired
+    private BonDeCommandeRepository bonDeCommandeRepository;
+    @Autowired
+    private BonDeCommandeArchiveRepository archiveRepository;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void importsTheValidDocumentsAndReportsTheOthersRowByRow() throws Exception {
+        TestData.Reference reference = testData.reference();
+        String existing = testData.bonDeCommande(reference, 1).getNumBc();
+        String archived = TestData.unique("BC");
+        archiveRepository.save(BonDeCommandeArchive.builder().numBc(archived).backOfficeId(reference.backOffice().getId())
+                .archivedAt(LocalDateTime.now()).document(new byte[]{0}).build());
+        String valid = TestData.unique("BC");
+        String badLine = TestData.unique("BC");
+        String duplicateLine = TestData.unique("BC");
+        int service1 = reference.services().get(0).getId();
+        int service2 = reference.services().get(1).getId();
+        String site = reference.site().getCodesite();
+
+        String csv = String.join("\n",
+                "numBc;codeProjet;numLigne;serviceId;designation;qteBc;codeSite",
+                valid + ";PRJ;1;" + service1 + ";pose;10;" + site,               // 2
+                valid + ";PRJ;2;" + service2 + ";dépose;2,5;",                    // 3
+                badLine + ";PRJ;1;" + service1 + ";pose;4;",                      // 4
+                badLine + ";PRJ;2;" + service1 + ";pose;quatre;",                 // 5
+                existing + ";PRJ;1;" + service1 + ";pose;1;",                     // 6
+                archived + ";PRJ;1;" + service1 + ";pose;1;",                     // 7
+                duplicateLine + ";PRJ;1;" + service1 + ";pose;1;",                // 8
+                duplicateLine + ";PRJ;1;" + service2 + ";pose;1;",                // 9
+                valid + ";PRJ;3;" + service1 + ";pose;1;",                        // 10
+                ";PRJ;1;" + service1 + ";pose;1;");                               // 11
+        ImportJobResponse job = run(reference, csv);
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(10, job.getRowsRead());
+        assertEquals(1, job.getAggregatesCreated());
+        assertEquals(2, job.getRowsImported());
+        assertEquals(8, job.getRowsRejected());
+        List<String> errors = job.getErrors().stream()
+                .sorted(Comparator.comparingInt(ImportJobResponse.RowError::getRow))
+                .map(error -> error.getRow() + " " + error.getMessage())
+                .toList();
+        assertEquals(List.of(
+                "4 Skipped: row 5: qtebc is not a number: quatre",
+                "5 qtebc is not a number: quatre",
+                "6 " + existing + " already exists",
+                "7 " + archived + " is archived",
+                "8 Skipped: row 9: Duplicate numLigne 1 for BC " + duplicateLine,
+                "9 Duplicate numLigne 1 for BC " + duplicateLine,
+                "10 Lines of " + valid + " must be contiguous in the file",
+                "11 numbc is required"), errors);
+
+        BonDeCommande imported = new TransactionTemplate(transactionManager).execute(status -> {
+            BonDeCommande bc = bonDeCommandeRepository.findByNumBc(valid).orElseThrow();
+            bc.getPrestations().size();
+            return bc;
+        });
+        List<Prestation> lines = imported.getPrestations().stream().sorted(Comparator.comparing(Prestation::getNumLigne)).toList();
+        assertEquals(2, lines.size());
+        assertEquals(2.5, lines.get(1).getQteBc());
+        // Priced at the import, from the service
+        assertEquals(100.0, lines.get(0).getPrixUnitaire());
+        assertEquals(200.0, lines.get(1).getPrixUnitaire());
+        assertEquals(site, lines.get(0).getCodeSite());
+        assertTrue(bonDeCommandeRepository.findByNumBc(badLine).isEmpty());
+
+        // The BcsCreated event of the chunk reaches the back office through the outbox
+        await().atMost(Duration.ofSeconds(20)).until(() -> notificationRepository
+                .findByUtilisateur(reference.backOffice().getUser()).stream()
+                .map(Notification::getMessage)
+                .anyMatch(message -> message.equals("1 new BonDeCommande(s) created: " + valid)));
+    }
+
+    private ImportJobResponse run(TestData.Reference reference, String csv) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "bcs.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+        String jobId = importService.startImport(ImportJob.Type.BON_DE_COMMANDE, file, reference.backOffice().getId(), null).getId();
+        await().atMost(Duration.ofSeconds(30)).until(() -> importService.getJob(jobId).orElseThrow().getFinishedAt() != null);
+        return importService.getJob(jobId).orElseThrow().toResponse();
+    }
+}
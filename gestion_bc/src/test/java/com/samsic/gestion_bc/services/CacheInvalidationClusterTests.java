@@ -0,0 +1,89 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.GestionBcApplication;
+import com.samsic.gestion_bc.dto.responses.OtMetricsResponse;
+import com.samsic.gestion_bc.models.Zone;
+import com.samsic.gestion_bc.repositories.ZoneRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// Two nodes in one JVM on one database: a write on node A reaches the caches of node B through the JDBC bus.
+// B's poller only runs at startup (hour-long interval), the test polls it itself.
+class CacheInvalidationClusterTests {
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        String url = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        nodeA = start("--spring.datasource.url=" + url);
+        // The schema is node A's
+        nodeB = start("--spring.datasource.url=" + url, "--spring.jpa.hibernate.ddl-auto=none",
+                "--cache.invalidation.poll-interval-ms=3600000");
+        poll(nodeB);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void zoneRenamedOnOneNodeIsEvictedOnTheOther() {
+        ZoneRepository zonesOfA = nodeA.getBean(ZoneRepository.class);
+        ZoneRepository zonesOfB = nodeB.getBean(ZoneRepository.class);
+        Zone zone = zonesOfA.save(Zone.builder().nom("Nord").build());
+        poll(nodeB);
+        assertEquals("Nord", zonesOfB.findById(zone.getId()).orElseThrow().getNom());
+
+        zone.setNom("Nord-Est");
+        zonesOfA.save(zone);
+        // Served by the second-level cache of B until it reads the invalidation
+        assertEquals("Nord", zonesOfB.findById(zone.getId()).orElseThrow().getNom());
+        poll(nodeB);
+        assertEquals("Nord-Est", zonesOfB.findById(zone.getId()).orElseThrow().getNom());
+    }
+
+    @Test
+    void otMetricsEvictedOnOneNodeAreEvictedOnTheOther() {
+        OtMetricsCache metricsOfB = nodeB.getBean(OtMetricsCache.class);
+        OtMetricsResponse cached = new OtMetricsResponse();
+        OtMetricsResponse reloaded = new OtMetricsResponse();
+        assertSame(cached, metricsOfB.get(42, () -> cached));
+
+        nodeA.getBean(OtMetricsCache.class).evict(42);
+        assertSame(cached, metricsOfB.get(42, () -> reloaded));
+        poll(nodeB);
+        assertSame(reloaded, metricsOfB.get(42, () -> reloaded));
+    }
+
+    private static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(GestionBcApplication.class)
+                .profiles("test")
+                .run(append(args, "--server.port=0"));
+    }
+
+    private static String[] append(String[] args, String arg) {
+        String[] all = Arrays.copyOf(args, args.length + 1);
+        all[args.length] = arg;
+        return all;
+    }
+
+    private static void poll(ConfigurableApplicationContext node) {
+        node.getBean(JdbcCacheInvalidationBus.class).poll();
+    }
+}
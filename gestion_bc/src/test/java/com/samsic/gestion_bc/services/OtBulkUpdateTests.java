@@ -0,0 +1,66 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.requests.OtRequest;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.dto.responses.OtBulkUpdateResponse;
+import com.samsic.gestion_bc.dto.responses.OtResponse;
+import com.samsic.gestion_bc.models.Ot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Bulk OT save: a bad item is reported with its index and skipped, the others are saved
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class OtBulkUpdateTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private OtService otService;
+
+    @Test
+    void badItemsAreReportedAndSkipped() {
+        TestData.Reference reference = testData.reference();
+        Ot saved = testData.ot(reference, 2);
+        Ot refused = testData.ot(reference, 2);
+        Long kept = saved.getPrestations().get(0).getId();
+        String missing = TestData.unique("OT");
+
+        OtBulkUpdateResponse result = otService.updateOtsBulk(List.of(
+                OtRequest.builder().numOt(saved.getNumOt()).codeProjet("PRJ-2")
+                        .prestations(List.of(OtRequest.OtPrestationRequest.builder().id(kept).remarque("done").build()))
+                        .build(),
+                OtRequest.builder().numOt(refused.getNumOt()).codeProjet("PRJ-2")
+                        .prestations(List.of(OtRequest.OtPrestationRequest.builder().serviceId(-1).build()))
+                        .build(),
+                OtRequest.builder().numOt(missing)
+                        .prestations(List.of(OtRequest.OtPrestationRequest.builder().numLigne(1).build()))
+                        .build(),
+                OtRequest.builder().numOt(saved.getNumOt()).prestations(List.of()).build()));
+
+        assertEquals(4, result.getRequested());
+        assertEquals(List.of(
+                new ImportJobResponse.RowError(1, refused.getNumOt(), "Invalid serviceId: -1"),
+                new ImportJobResponse.RowError(2, missing, "OT not found: " + missing),
+                new ImportJobResponse.RowError(3, saved.getNumOt(), "At least one prestation is required")), result.getFailed());
+        assertEquals(List.of(saved.getNumOt()), result.getUpdated().stream().map(OtResponse::getNumOt).toList());
+
+        // Prestations missing from a saved item are removed
+        OtResponse afterSave = otService.getOtByNum(saved.getNumOt());
+        assertEquals("PRJ-2", afterSave.getCodeProjet());
+        assertEquals(List.of(kept), afterSave.getPrestations().stream().map(OtResponse.Line::getId).toList());
+        assertEquals("done", afterSave.getPrestations().get(0).getRemarque());
+
+        OtResponse untouched = otService.getOtByNum(refused.getNumOt());
+        assertEquals("PRJ", untouched.getCodeProjet());
+        assertEquals(2, untouched.getPrestations().size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.requests.LinkOtToBdcRequest;
+import com.samsic.gestion_bc.dto.responses.OtLinkBatchResponse;
+import com.samsic.gestion_bc.dto.responses.SearchResponse;
+import com.samsic.gestion_bc.models.BonDeCommande;
+import com.samsic.gestion_bc.models.Coordinateur;
+import com.samsic.gestion_bc.models.Ot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The batch link writes its suivis with plain JDBC: the BCs they belong to are reindexed without an entity listener
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class OtLinkIndexTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private OtService otService;
+    @Autowired
+    private SearchService searchService;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void linkedSuivisReachTheSearchDocumentOfTheirBc() throws IOException {
+        TestData.Reference reference = testData.reference();
+        BonDeCommande bc = testData.bonDeCommande(reference, 2);
+        Coordinateur other = testData.coordinateur(reference);
+        Ot ot = testData.ot(reference, other, 2);
+        // As left by an earlier OT of the same number: the link writes nothing to bon_de_commande
+        jdbcTemplate.update("UPDATE bon_de_commande SET num_ot = ? WHERE num_bc = ?", ot.getNumOt(), bc.getNumBc());
+        testData.evictCaches();
+        searchIndex.refresh();
+        assertEquals(1, search(bc, reference.coordinateur()).getTotal());
+        assertEquals(0, search(bc, other).getTotal());
+
+        LinkOtToBdcRequest link = new LinkOtToBdcRequest();
+        link.setNumOt(ot.getNumOt());
+        link.setNumBc(bc.getNumBc());
+        OtLinkBatchResponse response = otService.linkOtsToBdcs(List.of(link), false);
+        assertEquals(1, response.getLinked());
+
+        searchIndex.refresh();
+        SearchResponse found = search(bc, other);
+        assertEquals(1, found.getTotal());
+        assertEquals(bc.getNumBc(), found.getHits().get(0).getId());
+    }
+
+    private SearchResponse search(BonDeCommande bc, Coordinateur coordinateur) throws IOException {
+        return searchService.search(bc.getNumBc(), List.of(SearchIndex.BC), 10, coordinateur.getUser().getEmail(),
+                "ROLE_COORDINATEUR");
+    }
+}
@@ -0,0 +1,119 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.QueryCounter;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.responses.BonDeCommandeResponse;
+import com.samsic.gestion_bc.dto.responses.OtResponse;
+import com.samsic.gestion_bc.models.BonDeCommande;
+import com.samsic.gestion_bc.models.Ot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The BC, OT and prestation reads load their entity graph in a fixed number of statements, whatever the number of
+// rows, and hand DTOs to Jackson: serializing them outside the transaction touches no lazy association
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class ReadModelQueryCountTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BonDeCommandeService bonDeCommandeService;
+    @Autowired
+    private OtService otService;
+    @Autowired
+    private PrestationService prestationService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private TestData.Reference reference;
+    private BonDeCommande bc;
+    private Ot ot;
+
+    @BeforeEach
+    void setUp() {
+        reference = testData.reference();
+        for (int i = 0; i < 3; i++) {
+            bc = testData.bonDeCommande(reference, 5);
+            ot = testData.ot(reference, 4);
+        }
+        testData.evictCaches();
+    }
+
+    @Test
+    void allBonDeCommandes() {
+        count(1, () -> bonDeCommandeService.getAllBonDeCommandes());
+    }
+
+    @Test
+    void bonDeCommandesOfBackOffice() {
+        // The back office, then its BCs
+        List<BonDeCommandeResponse> bcs = count(2, () -> bonDeCommandeService.getBonDeCommandesByEmailBO(email()));
+        assertEquals(3, bcs.size());
+        assertTrue(bcs.stream().allMatch(response -> response.getPrestations().size() == 5));
+    }
+
+    @Test
+    void bonDeCommande() {
+        BonDeCommandeResponse response = count(1, () -> bonDeCommandeService.getBonDeCommandeByNumBc(bc.getNumBc()).orElseThrow());
+        assertEquals(5, response.getPrestations().size());
+        assertEquals(reference.famille().getName(), response.getPrestations().get(0).getService().getFamille().getName());
+    }
+
+    @Test
+    void prestationsOfBonDeCommande() {
+        assertEquals(5, count(1, () -> prestationService.getPrestationsByBonDeCommande(bc.getNumBc())).size());
+    }
+
+    @Test
+    void allOts() {
+        count(1, () -> otService.getAllOts());
+    }
+
+    @Test
+    void otsOfBackOffice() {
+        // The caller as coordinateur then as back office, then the OTs
+        List<OtResponse> ots = count(3, () -> otService.getOtsByEmail(email()));
+        assertEquals(3, ots.size());
+        assertTrue(ots.stream().allMatch(response -> response.getPrestations().size() == 4));
+    }
+
+    @Test
+    void ot() {
+        OtResponse response = count(1, () -> otService.getOtByNum(ot.getNumOt()));
+        assertEquals(reference.site().getCodesite(), response.getCodeSite().getCodesite());
+        assertEquals(reference.coordinateur().getUser().getEmail(), response.getPrestations().get(0).getCoordinateur().getUser().getEmail());
+    }
+
+    @Test
+    void serializedOutsideTheTransaction() throws Exception {
+        String json = objectMapper.writeValueAsString(List.of(
+                bonDeCommandeService.getBonDeCommandesByEmailBO(email()), otService.getOtsByEmail(email())));
+        assertTrue(json.contains("\"numBc\":\"" + bc.getNumBc() + "\""));
+        assertTrue(json.contains("\"numOt\":\"" + ot.getNumOt() + "\""));
+        assertFalse(json.contains("mdp"));
+        assertFalse(json.contains("password"));
+        assertFalse(json.contains("hibernateLazyInitializer"));
+    }
+
+    private String email() {
+        return reference.backOffice().getUser().getEmail();
+    }
+
+    private static <T> T count(int expected, Supplier<T> call) {
+        QueryCounter.reset();
+        T result = call.get();
+        assertEquals(expected, QueryCounter.count());
+        return result;
+    }
+}
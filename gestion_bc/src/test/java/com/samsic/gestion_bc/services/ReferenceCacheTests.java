@@ -0,0 +1,89 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.QueryCounter;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.BonDeCommandeRequest;
+import com.samsic.gestion_bc.dto.PrestationRequest;
+import com.samsic.gestion_bc.dto.requests.OtRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Once a BC and an OT have been created, the next ones find their zone, site, back office, services, familles and
+// coordinateurs in the second-level cache: no statement reads those tables
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class ReferenceCacheTests {
+    private static final Pattern REFERENCE_READ = Pattern.compile(
+            "(?is)^\\s*select\\b.*\\b(from|join)\\s+(zones|site|familles|services|back_office|coordinateurs|chefs)\\b");
+
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private BonDeCommandeService bonDeCommandeService;
+    @Autowired
+    private OtService otService;
+
+    @Test
+    void repeatedCreationReadsNoReferenceTable() throws Exception {
+        TestData.Reference reference = testData.reference();
+        testData.evictCaches();
+        bonDeCommandeService.createBonDeCommande(bonDeCommandeRequest(reference));
+        otService.createOt(otRequest(reference));
+
+        QueryCounter.reset();
+        bonDeCommandeService.createBonDeCommande(bonDeCommandeRequest(reference));
+        otService.createOt(otRequest(reference));
+
+        List<String> referenceReads = QueryCounter.statements().stream()
+                .filter(sql -> REFERENCE_READ.matcher(sql).find())
+                .toList();
+        assertFalse(QueryCounter.statements().isEmpty());
+        assertEquals(List.of(), referenceReads);
+    }
+
+    private static BonDeCommandeRequest bonDeCommandeRequest(TestData.Reference reference) {
+        BonDeCommandeRequest request = new BonDeCommandeRequest();
+        request.setNumBc(TestData.unique("BC"));
+        request.setCodeProjet("PRJ");
+        request.setBackOfficeId(reference.backOffice().getId());
+        for (int i = 1; i <= 2; i++) {
+            PrestationRequest line = new PrestationRequest();
+            line.setNumLigne(i);
+            line.setServiceId(reference.services().get(i - 1).getId());
+            line.setFamille(reference.famille().getName());
+            line.setQteBc(3.0);
+            request.getPrestations().add(line);
+        }
+        return request;
+    }
+
+    private static OtRequest otRequest(TestData.Reference reference) {
+        OtRequest request = new OtRequest();
+        request.setNumOt(TestData.unique("OT"));
+        request.setCodeProjet("PRJ");
+        request.setZoneId(reference.zone().getId());
+        request.setCodeSite(reference.site().getCodesite());
+        request.setBackOfficeId(reference.backOffice().getId());
+        request.setDateGo(LocalDate.now());
+        for (int i = 1; i <= 2; i++) {
+            OtRequest.OtPrestationRequest line = new OtRequest.OtPrestationRequest();
+            line.setNumLigne(i);
+            line.setServiceId(reference.services().get(i - 1).getId());
+            line.setCoordinateurId(reference.coordinateur().getId());
+            line.setQuantiteValide(5);
+            request.getPrestations().add(line);
+        }
+        return request;
+    }
+}
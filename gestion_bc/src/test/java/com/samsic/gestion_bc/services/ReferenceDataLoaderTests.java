@@ -0,0 +1,84 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.responses.ImportJobResponse;
+import com.samsic.gestion_bc.dto.responses.ReferenceLoadResponse;
+import com.samsic.gestion_bc.models.ServiceQ;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The catalogue upsert: blank cells keep what is stored, a new service needs a price
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class ReferenceDataLoaderTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void blankCellsLeaveStoredValues() throws Exception {
+        TestData.Reference reference = testData.reference();
+        ServiceQ first = reference.services().get(0);
+        ServiceQ second = reference.services().get(1);
+        String added = TestData.unique("REF");
+        String unpriced = TestData.unique("REF");
+
+        ReferenceLoadResponse result = load(String.join("\n",
+                "RefAuxigene;Description;Famille;Unite;Prix;Remarque",
+                first.getRefAuxigene() + ";;;M;;note",
+                added + ";nouveau;" + reference.famille().getName() + ";U;12,5;",
+                unpriced + ";sans prix;;U;;",
+                second.getRefAuxigene() + ";;;;;"));
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(1, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getRejected());
+        assertEquals(List.of(new ImportJobResponse.RowError(4, unpriced, "prix is required for a new row")), result.getErrors());
+
+        assertEquals(Map.of("description", "service 1", "famille_id", reference.famille().getId(), "unite", "M",
+                "prix", 100.0, "remarque", "note"), service(first.getRefAuxigene()));
+        assertEquals(Map.of("description", "service 2", "famille_id", reference.famille().getId(), "unite", "U",
+                "prix", 200.0), withoutNulls(service(second.getRefAuxigene())));
+        assertEquals(Map.of("description", "nouveau", "famille_id", reference.famille().getId(), "unite", "U",
+                "prix", 12.5), withoutNulls(service(added)));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM services WHERE ref_auxigene = ?", Integer.class, unpriced));
+    }
+
+    private ReferenceLoadResponse load(String csv) throws Exception {
+        Path file = Files.createTempFile("services-", ".csv");
+        try {
+            Files.writeString(file, csv, StandardCharsets.UTF_8);
+            return referenceDataLoader.loadServices(file, "services.csv");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Map<String, Object> service(String refAuxigene) {
+        return jdbcTemplate.queryForMap("SELECT description, famille_id, unite, prix, remarque FROM services WHERE ref_auxigene = ?",
+                refAuxigene);
+    }
+
+    private static Map<String, Object> withoutNulls(Map<String, Object> row) {
+        row.values().removeIf(value -> value == null);
+        return row;
+    }
+}
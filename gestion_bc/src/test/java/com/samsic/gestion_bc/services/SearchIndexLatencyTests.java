@@ -0,0 +1,124 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.dto.responses.SearchResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A million BC lines, shaped as SearchIndexer writes them: one document per BC with the text of its 20 lines
+class SearchIndexLatencyTests {
+    private static final int BCS = 50_000;
+    private static final int LINES_PER_BC = 20;
+    private static final int SITES = 5_000;
+    private static final int BACK_OFFICES = 40;
+    private static final long MAX_P95_MS = 50;
+
+    private static final String[] ACTIONS = {"installation", "remplacement", "maintenance", "réception", "dépose",
+            "raccordement", "audit", "migration", "extension", "démontage", "câblage", "mise en service"};
+    private static final String[] EQUIPMENTS = {"antenne", "pylône", "batterie", "redresseur", "climatiseur", "shelter",
+            "faisceau hertzien", "fibre optique", "groupe électrogène", "armoire", "mât", "clôture"};
+    private static final String[] SUPPLIERS = {"Huawei", "Ericsson", "Nokia", "Schneider", "Legrand", "Delta", "Emerson",
+            "Eltek", "Prysmian", "Nexans"};
+    private static final String[] CITIES = {"Casablanca", "Rabat", "Marrakech", "Fès", "Tanger", "Agadir", "Meknès",
+            "Oujda", "Kénitra", "Tétouan", "Safi", "Laâyoune"};
+
+    @TempDir
+    static Path indexDir;
+    private static SearchIndex index;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        index = new SearchIndex(indexDir.toString());
+        Random random = new Random(42);
+        for (int bc = 0; bc < BCS; bc++) {
+            String numBc = numBc(bc);
+            String codeProjet = "PRJ-" + (bc % 3_000);
+            List<String> text = new ArrayList<>(List.of(numBc, codeProjet, "Projet " + CITIES[bc % CITIES.length]));
+            List<String> identifiers = new ArrayList<>(List.of(numBc, codeProjet));
+            for (int line = 0; line < LINES_PER_BC; line++) {
+                int site = random.nextInt(SITES);
+                String codeSite = codeSite(site);
+                text.addAll(Arrays.asList(
+                        ACTIONS[random.nextInt(ACTIONS.length)] + " " + EQUIPMENTS[random.nextInt(EQUIPMENTS.length)]
+                                + " lot " + random.nextInt(1_000),
+                        SUPPLIERS[random.nextInt(SUPPLIERS.length)],
+                        codeSite,
+                        "Site " + CITIES[site % CITIES.length] + " " + site));
+                identifiers.add(codeSite);
+            }
+            index.upsert(new SearchIndex.Entry(SearchIndex.BC, numBc, numBc, codeProjet, text, identifiers,
+                    List.of("bo:" + bc % BACK_OFFICES)));
+        }
+        index.commit();
+        index.refresh();
+    }
+
+    @AfterAll
+    static void closeIndex() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void searchesAMillionLinesUnderFiftyMilliseconds() throws IOException {
+        assertEquals(BCS, index.size());
+        // The identifier and the token queries find what they were built from
+        assertEquals(numBc(12_345), search("BC-0012345", null).getHits().get(0).getId());
+        assertTrue(search(codeSite(77), null).getTotal() > 0);
+
+        List<String> queries = List.of(
+                "BC-00123",              // identifier prefix
+                codeSite(4_321),         // exact identifier
+                "groupe electrogene",    // folded accents, two terms
+                "remplacment batterie",  // typo, fuzzy
+                "climat",                // prefix
+                "ericsson fibre tanger",
+                "PRJ-27");
+        List<List<String>> scopes = new ArrayList<>();
+        scopes.add(null);
+        scopes.add(List.of("bo:7"));
+
+        // Warm-up: JIT and the first reads of the index files
+        for (int i = 0; i < 20; i++) {
+            for (String q : queries) {
+                search(q, scopes.get(i % 2));
+            }
+        }
+        List<Long> timesMs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (String q : queries) {
+                for (List<String> scope : scopes) {
+                    long start = System.nanoTime();
+                    search(q, scope);
+                    timesMs.add((System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        }
+        timesMs.sort(null);
+        long p95 = timesMs.get((int) Math.ceil(timesMs.size() * 0.95) - 1);
+        assertTrue(p95 < MAX_P95_MS, "p95 " + p95 + " ms over " + timesMs.size() + " searches, max " + timesMs.get(timesMs.size() - 1) + " ms");
+    }
+
+    private static SearchResponse search(String q, List<String> scopes) throws IOException {
+        return index.search(q, Set.of(SearchIndex.BC), scopes, 20);
+    }
+
+    private static String numBc(int bc) {
+        return String.format("BC-%07d", bc);
+    }
+
+    private static String codeSite(int site) {
+        return String.format("SITE%05d", site);
+    }
+}
@@ -0,0 +1,121 @@
+package com.samsic.gestion_bc.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import com.samsic.gestion_bc.dto.responses.AutosaveResponse;
+import com.samsic.gestion_bc.models.SuiviPrestationPendingEdit;
+import com.samsic.gestion_bc.repositories.SuiviPrestationPendingEditRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every buffered row is due at once (window 0) and only the test flushes or takes over: the schedules run once at
+// startup, then not for an hour
+@SpringBootTest(properties = {
+        "suivi.autosave.window-ms=0",
+        "suivi.autosave.flush-interval-ms=3600000",
+        "suivi.autosave.lease-renew-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import(TestData.class)
+class SuiviAutosaveTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private SuiviAutosaveService autosaveService;
+    @Autowired
+    private SuiviPrestationService suiviPrestationService;
+    @Autowired
+    private SuiviPrestationPendingEditRepository pendingEditRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer suiviId;
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        TestData.Reference reference = testData.reference();
+        testData.bonDeCommande(reference, 1);
+        email = reference.coordinateur().getUser().getEmail();
+        suiviId = suiviPrestationService.getSuiviPrestationsByEmail(email).get(0).getId();
+    }
+
+    @Test
+    void editsOfARowAreWrittenOnceMerged() {
+        long version = suiviPrestationService.getVersion(suiviId);
+
+        autosaveService.enqueue(suiviId, patch("{\"remarque\": \"first\", \"fournisseur\": \"ACME\"}"), email, version);
+        AutosaveResponse second = autosaveService.enqueue(suiviId, patch("{\"remarque\": \"second\"}"), email, version + 1);
+        assertEquals(version + 1, second.getVersion());
+        assertEquals(2, second.getPendingEdits());
+
+        // Read-your-writes before the flush, the database is untouched
+        SuiviPrestationResponse read = autosaveService.overlay(suiviPrestationService.getSuiviPrestationById(suiviId));
+        assertEquals("second", read.getRemarque());
+        assertEquals("ACME", read.getFournisseur());
+        assertEquals(version, suiviPrestationService.getVersion(suiviId));
+
+        autosaveService.flushDue();
+
+        assertEquals(Map.of("remarque", "second", "fournisseur", "ACME"), row());
+        assertEquals(version + 1, suiviPrestationService.getVersion(suiviId));
+        assertTrue(pendingEditRepository.findAll().stream().noneMatch(edit -> suiviId.equals(edit.getSuiviPrestationId())));
+    }
+
+    @Test
+    void staleVersionIsRefused() {
+        long version = suiviPrestationService.getVersion(suiviId);
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> autosaveService.enqueue(suiviId, patch("{\"remarque\": \"late\"}"), email, version - 1));
+    }
+
+    @Test
+    void takenOverEditsGoBeforeTheNewerLocalOnes() {
+        long version = suiviPrestationService.getVersion(suiviId);
+        // Accepted by a node that stopped before writing them
+        LocalDateTime past = LocalDateTime.now().minusMinutes(5);
+        pendingEditRepository.save(SuiviPrestationPendingEdit.builder()
+                .suiviPrestationId(suiviId)
+                .patch("{\"remarque\": \"from the stopped node\", \"fournisseur\": \"ACME\"}")
+                .userEmail(email)
+                .createdAt(past)
+                .ownerNode("stopped-node")
+                .leaseUntil(past)
+                .build());
+        autosaveService.enqueue(suiviId, patch("{\"remarque\": \"local\"}"), email, version);
+
+        autosaveService.takeOverExpired();
+        assertEquals("local", autosaveService.overlay(suiviPrestationService.getSuiviPrestationById(suiviId)).getRemarque());
+        autosaveService.flushDue();
+
+        assertEquals(Map.of("remarque", "local", "fournisseur", "ACME"), row());
+        assertTrue(pendingEditRepository.findAll().stream().noneMatch(edit -> suiviId.equals(edit.getSuiviPrestationId())));
+    }
+
+    private JsonNode patch(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private Map<String, Object> row() {
+        return jdbcTemplate.queryForMap("SELECT remarque, fournisseur FROM suivi_prestation WHERE id = ?", suiviId);
+    }
+}
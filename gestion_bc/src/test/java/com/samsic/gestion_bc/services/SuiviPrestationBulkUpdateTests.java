@@ -0,0 +1,94 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.QueryCounter;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Grid save: each row succeeds or fails on its own, the answers come back in request order
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class SuiviPrestationBulkUpdateTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private SuiviPrestationService suiviPrestationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData.Reference reference;
+    private List<Integer> ids;
+
+    @BeforeEach
+    void setUp() {
+        reference = testData.reference();
+        testData.bonDeCommande(reference, 3);
+        ids = suiviPrestationService.getSuiviPrestationsByEmail(reference.coordinateur().getUser().getEmail()).stream()
+                .map(SuiviPrestationResponse::getId)
+                .sorted()
+                .toList();
+    }
+
+    @Test
+    void failedRowsAreReportedInPlace() {
+        List<Long> versions = ids.stream().map(suiviPrestationService::getVersion).toList();
+
+        List<SuiviPrestationResponse> responses = suiviPrestationService.updateSuiviPrestationsBulk(List.of(
+                request(ids.get(0), "first", null),
+                request(ids.get(1), "negative", -1.0),
+                request(-1, "missing", null),
+                request(null, "no id", null),
+                request(ids.get(2), "third", 7.0)));
+
+        assertEquals(Arrays.asList(ids.get(0), ids.get(1), -1, null, ids.get(2)),
+                responses.stream().map(SuiviPrestationResponse::getId).toList());
+        assertEquals(Arrays.asList(null, "Quantity realized cannot be negative", "SuiviPrestation not found: -1",
+                        "SuiviPrestation ID is required", null),
+                responses.stream().map(SuiviPrestationResponse::getError).toList());
+        assertEquals("first", responses.get(0).getRemarque());
+        assertEquals(7.0, responses.get(4).getQteRealise());
+        assertNotNull(responses.get(4).getPrestation());
+
+        assertEquals(List.of(versions.get(0) + 1, versions.get(1), versions.get(2) + 1),
+                ids.stream().map(suiviPrestationService::getVersion).toList());
+        assertEquals(Arrays.asList("first", null, "third"), ids.stream()
+                .map(id -> jdbcTemplate.queryForObject("SELECT remarque FROM suivi_prestation WHERE id = ?", String.class, id))
+                .toList());
+    }
+
+    @Test
+    void rowIsReadInOneQueryWithoutFamille() {
+        jdbcTemplate.update("UPDATE services SET famille_id = NULL WHERE id = ?", reference.services().get(0).getId());
+        testData.evictCaches();
+
+        // The first line uses the second service, the second line the first one
+        QueryCounter.reset();
+        SuiviPrestationResponse withFamille = suiviPrestationService.getSuiviPrestationById(ids.get(0));
+        assertEquals(1, QueryCounter.count());
+        SuiviPrestationResponse withoutFamille = suiviPrestationService.getSuiviPrestationById(ids.get(1));
+
+        assertEquals(reference.famille().getName(), withFamille.getPrestation().getFamille());
+        assertNull(withoutFamille.getPrestation().getFamille());
+        assertEquals(reference.services().get(0).getId(), withoutFamille.getPrestation().getService().getId());
+    }
+
+    private static SuiviPrestationResponse request(Integer id, String remarque, Double qteRealise) {
+        SuiviPrestationResponse request = new SuiviPrestationResponse();
+        request.setId(id);
+        request.setRemarque(remarque);
+        request.setQteRealise(qteRealise);
+        return request;
+    }
+}
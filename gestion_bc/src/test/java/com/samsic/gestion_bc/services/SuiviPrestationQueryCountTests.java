@@ -0,0 +1,63 @@
+package com.samsic.gestion_bc.services;
+
+import com.samsic.gestion_bc.QueryCounter;
+import com.samsic.gestion_bc.TestData;
+import com.samsic.gestion_bc.dto.SuiviPrestationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The suivi listings are one tuple query each, after the lookup of the account, whatever the number of rows
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestData.class)
+class SuiviPrestationQueryCountTests {
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private SuiviPrestationService suiviPrestationService;
+
+    private TestData.Reference reference;
+
+    @BeforeEach
+    void setUp() {
+        reference = testData.reference();
+        for (int i = 0; i < 4; i++) {
+            testData.bonDeCommande(reference, 5);
+        }
+        testData.evictCaches();
+    }
+
+    @Test
+    void allSuivis() {
+        List<SuiviPrestationResponse> suivis = count(1, () -> suiviPrestationService.getAllSuiviPrestations());
+        assertEquals(20, suivis.stream().filter(s -> reference.zone().getId().equals(s.getZone().getId())).count());
+    }
+
+    @Test
+    void suivisOfCoordinateur() {
+        String email = reference.coordinateur().getUser().getEmail();
+        assertEquals(20, count(2, () -> suiviPrestationService.getSuiviPrestationsByEmail(email)).size());
+    }
+
+    @Test
+    void suivisOfBackOffice() {
+        String email = reference.backOffice().getUser().getEmail();
+        assertEquals(20, count(2, () -> suiviPrestationService.getSuiviPrestationsByBackOfficeEmail(email)).size());
+    }
+
+    private static <T> T count(int expected, Supplier<T> call) {
+        QueryCounter.reset();
+        T result = call.get();
+        assertEquals(expected, QueryCounter.count());
+        return result;
+    }
+}
@@ -0,0 +1,10 @@
+-- V6 in H2 syntax: the amount columns are not mapped, so ddl-auto does not create them
+alter table prestations add column montant_bc double generated always as (qte_bc * prix_unitaire);
+alter table suivi_prestation add column montant_realise double generated always as (qte_realise * prix_unitaire);
+alter table suivi_prestation add column montant_encours double generated always as (qte_encours * prix_unitaire);
+alter table suivi_prestation add column montant_tech double generated always as (qte_tech * prix_unitaire);
+alter table suivi_prestation add column montant_depose double generated always as (qte_depose * prix_unitaire);
+alter table suivi_prestation add column montant_a_deposer double generated always as (qteadepose * prix_unitaire);
+alter table suivi_prestation add column montant_sys double generated always as (qte_sys * prix_unitaire);
+create index idx_prestations_bc_amounts on prestations (bc_id, service_id, famille_id, qte_bc, montant_bc, prix_unitaire);
+create index idx_suivi_prestation_amounts on suivi_prestation (prestation_id, statut_de_realisation, statut_de_recep_tech, statut_reception_system, qte_realise, qte_encours, montant_realise, montant_encours, montant_tech, montant_depose, montant_a_deposer, montant_sys, date_recep_sys);
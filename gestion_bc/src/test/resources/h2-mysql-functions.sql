@@ -0,0 +1,2 @@
+-- MySQL functions of the native queries, see H2Functions
+create alias date_format for 'com.samsic.gestion_bc.H2Functions.dateFormat';